@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 import com.alibaba.otter.canal.client.CanalConnector;
 import com.alibaba.otter.canal.client.CanalNodeAccessStrategy;
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
 import com.alibaba.otter.canal.protocol.Message;
 import com.alibaba.otter.canal.protocol.exception.CanalClientException;
 
@@ -30,6 +31,9 @@ public class ClusterCanalConnector implements CanalConnector {
     private SimpleCanalConnector    currentConnector;
     private String                  destination;
     private String                  filter;                                                  // 记录上一次的filter提交值,便于自动重试时提交
+    private Compression             compression   = Compression.NONE;                        // 希望服务端使用的压缩方式
+    private int                     prefetchCount = 1;                                       // 同时在途的get请求数
+    private int                     streamWindow  = 0;                                       // 推送模式下允许未ack的batch数
 
     public ClusterCanalConnector(String username, String password, String destination,
                                  CanalNodeAccessStrategy accessStrategy){
@@ -53,6 +57,9 @@ public class ClusterCanalConnector implements CanalConnector {
 
                     };
                     currentConnector.setSoTimeout(soTimeout);
+                    currentConnector.setCompression(compression);
+                    currentConnector.setPrefetchCount(prefetchCount);
+                    currentConnector.setStreamWindow(streamWindow);
                     if (filter != null) {
                         currentConnector.setFilter(filter);
                     }
@@ -326,6 +333,30 @@ public class ClusterCanalConnector implements CanalConnector {
         this.accessStrategy = accessStrategy;
     }
 
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    public void setPrefetchCount(int prefetchCount) {
+        this.prefetchCount = prefetchCount;
+    }
+
+    public int getStreamWindow() {
+        return streamWindow;
+    }
+
+    public void setStreamWindow(int streamWindow) {
+        this.streamWindow = streamWindow;
+    }
+
     public SimpleCanalConnector getCurrentConnector() {
         return currentConnector;
     }
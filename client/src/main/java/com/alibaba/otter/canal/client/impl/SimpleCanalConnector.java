@@ -20,7 +20,6 @@ import com.alibaba.otter.canal.client.impl.running.ClientRunningMonitor;
 import com.alibaba.otter.canal.common.utils.AddressUtils;
 import com.alibaba.otter.canal.common.utils.BooleanMutex;
 import com.alibaba.otter.canal.common.zookeeper.ZkClientx;
-import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
 import com.alibaba.otter.canal.protocol.CanalPacket.Ack;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientAck;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientAuth;
@@ -31,12 +30,13 @@ import com.alibaba.otter.canal.protocol.CanalPacket.Handshake;
 import com.alibaba.otter.canal.protocol.CanalPacket.Messages;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
 import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.protocol.CanalPacket.Stream;
 import com.alibaba.otter.canal.protocol.CanalPacket.Sub;
 import com.alibaba.otter.canal.protocol.CanalPacket.Unsub;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
 import com.alibaba.otter.canal.protocol.Message;
+import com.alibaba.otter.canal.protocol.compress.CompressionUtils;
 import com.alibaba.otter.canal.protocol.exception.CanalClientException;
-import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 /**
@@ -57,7 +57,8 @@ public class SimpleCanalConnector implements CanalConnector {
     private final ByteBuffer     readHeader            = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);//头字节---因此是4个字节
     private final ByteBuffer     writeHeader           = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);//头字节---因此是4个字节
     private SocketChannel        channel;//连接服务器的通道--本地属于客户端
-    private List<Compression>    supportedCompressions = new ArrayList<Compression>();//客户端支持的压缩方式
+    private List<Compression>    supportedCompressions = new ArrayList<Compression>();//服务端支持的压缩方式
+    private Compression          compression           = Compression.NONE;                                   // 希望服务端使用的压缩方式，服务端不支持时退化为不压缩
     private ClientIdentity       clientIdentity;
     private ClientRunningMonitor runningMonitor;                                                             // 运行控制
     private ZkClientx            zkClientx;
@@ -65,6 +66,10 @@ public class SimpleCanalConnector implements CanalConnector {
     private volatile boolean     connected             = false;                                              // 代表connected是否已正常执行，因为有HA，不代表在工作中
     private boolean              rollbackOnConnect     = true;                                               // 是否在connect链接成功后，自动执行rollback操作
     private boolean              rollbackOnDisConnect  = false;                                              // 是否在connect链接成功后，自动执行rollback操作
+    private int                  prefetchCount         = 1;                                                  // 同时在途的get请求数，大于1时开启流水线模式
+    private int                  inflightGets          = 0;                                                  // 已发送但还未读取返回值的get请求数
+    private int                  streamWindow          = 0;                                                  // 推送模式下允许未ack的batch数，大于0时开启推送模式
+    private boolean              streaming             = false;                                              // 服务端是否已经开启推送
 
     // 读写数据分别使用不同的锁进行控制，减小锁粒度,读也需要排他锁，并发度容易造成数据包混乱，反序列化失败
     private Object               readDataLock          = new Object();
@@ -124,6 +129,8 @@ public class SimpleCanalConnector implements CanalConnector {
     private InetSocketAddress doConnect() throws CanalClientException {
         try {
             channel = SocketChannel.open();
+            inflightGets = 0;
+            streaming = false;
             channel.socket().setSoTimeout(soTimeout);
             SocketAddress address = getAddress();//获取服务器地址
             if (address == null) {
@@ -140,12 +147,23 @@ public class SimpleCanalConnector implements CanalConnector {
             }
             //
             Handshake handshake = Handshake.parseFrom(p.getBody());
+            supportedCompressions.clear();
             supportedCompressions.addAll(handshake.getSupportedCompressionsList());//说明压缩方式通过
+            Compression negotiated = Compression.NONE;
+            if (compression != Compression.NONE) {
+                if (supportedCompressions.contains(compression) && CompressionUtils.isSupported(compression)) {
+                    negotiated = compression;
+                } else {
+                    logger.warn("compression {} is not supported by server {}, supported : {}", new Object[] {
+                            compression, address, supportedCompressions });
+                }
+            }
             //
             ClientAuth ca = ClientAuth.newBuilder()
                 .setUsername(username != null ? username : "")
                 .setNetReadTimeout(soTimeout)
                 .setNetWriteTimeout(soTimeout)
+                .setCompression(negotiated)
                 .build();
 
             //向服务器发送一个包,包的内容就是ClientAuth权限信息
@@ -192,6 +210,8 @@ public class SimpleCanalConnector implements CanalConnector {
     public void subscribe(String filter) throws CanalClientException {
         waitClientRunning();
         try {
+            discardInflightGets();
+            stopStream();
             //发送客户端订阅的filter信息
             writeWithHeader(channel,
                     //组成一个数据包
@@ -221,6 +241,8 @@ public class SimpleCanalConnector implements CanalConnector {
     public void unsubscribe() throws CanalClientException {
         waitClientRunning();
         try {
+            discardInflightGets();
+            stopStream();
             writeWithHeader(channel,
                 Packet.newBuilder()
                     .setType(PacketType.UNSUBSCRIPTION)
@@ -259,7 +281,22 @@ public class SimpleCanalConnector implements CanalConnector {
         return getWithoutAck(batchSize, null, null);
     }
 
-    //不需要ack
+    /**
+     * 不需要ack
+     * 
+     * <pre>
+     * 流水线模式(prefetchCount > 1)：
+     * 1. 保持prefetchCount个get请求在途，服务端按顺序处理，有数据时立即返回，读取一个返回值后再补发一个请求
+     * 2. 在途请求使用发送时的batchSize/timeout参数
+     * 3. 获取到的batch可以乱序ack，由服务端保证按batchId顺序推进cursor
+     * 4. rollback/subscribe/unsubscribe前会丢弃在途请求的返回值，rollback指定batchId时如果丢弃了有效的batch，会退化为回滚全部batch
+     * 
+     * 推送模式(streamWindow > 0)：
+     * 1. 第一次调用时通知服务端开启推送，之后服务端有数据时主动推送，未ack的batch数不超过streamWindow
+     * 2. 只读取服务端推送的数据，阻塞等待直到有数据，忽略timeout参数；batchSize只在开启推送时生效
+     * 3. rollback/subscribe/unsubscribe前会先关闭推送并丢弃已经推送的数据，下一次调用时重新开启
+     * </pre>
+     */
     public Message getWithoutAck(int batchSize, Long timeout, TimeUnit unit) throws CanalClientException {
         waitClientRunning();
         try {
@@ -269,23 +306,38 @@ public class SimpleCanalConnector implements CanalConnector {
                 unit = TimeUnit.MILLISECONDS;
             }
 
-            //发送get请求
-            writeWithHeader(channel,
-                Packet.newBuilder()
-                    .setType(PacketType.GET)
-                    .setBody(Get.newBuilder()
-                        .setAutoAck(false)
-                        .setDestination(clientIdentity.getDestination())
-                        .setClientId(String.valueOf(clientIdentity.getClientId()))
-                        .setFetchSize(size)
-                        .setTimeout(time)
-                        .setUnit(unit.ordinal())
-                        .build()
-                        .toByteString())
+            if (streamWindow > 0) {
+                if (!streaming) {
+                    startStream(size);
+                }
+                return receiveMessages();
+            }
+
+            byte[] body = Packet.newBuilder()
+                .setType(PacketType.GET)
+                .setBody(Get.newBuilder()
+                    .setAutoAck(false)
+                    .setDestination(clientIdentity.getDestination())
+                    .setClientId(String.valueOf(clientIdentity.getClientId()))
+                    .setFetchSize(size)
+                    .setTimeout(time)
+                    .setUnit(unit.ordinal())
                     .build()
-                    .toByteArray());
+                    .toByteString())
+                .build()
+                .toByteArray();
+
+            //发送get请求，流水线模式下补齐在途的请求数
+            do {
+                writeWithHeader(channel, body);
+                inflightGets++;
+            } while (inflightGets < prefetchCount);
 
-            return receiveMessages();//接收返回值
+            try {
+                return receiveMessages();//接收返回值
+            } finally {
+                inflightGets--;
+            }
         } catch (IOException e) {
             throw new CanalClientException(e);
         }
@@ -295,16 +347,9 @@ public class SimpleCanalConnector implements CanalConnector {
         Packet p = Packet.parseFrom(readNextPacket(channel));//接收返回值
         switch (p.getType()) {
             case MESSAGES: {
-                if (!p.getCompression().equals(Compression.NONE)) {
-                    throw new CanalClientException("compression is not supported in this connector");
-                }
-
-                Messages messages = Messages.parseFrom(p.getBody());
-                Message result = new Message(messages.getBatchId());
-                for (ByteString byteString : messages.getMessagesList()) {//循环每一个事件,转换成Entry对象
-                    result.addEntry(Entry.parseFrom(byteString));
-                }
-                return result;
+                Messages messages = Messages.parseFrom(CompressionUtils.decompress(p.getCompression(), p.getBody()));
+                // 延迟解析，访问到某个Entry时才反序列化
+                return new Message(messages.getBatchId(), null, messages.getMessagesList());
             }
             case ACK: {//肯定是失败了,因为没有拿到信息
                 Ack ack = Ack.parseFrom(p.getBody());
@@ -316,6 +361,74 @@ public class SimpleCanalConnector implements CanalConnector {
         }
     }
 
+    //丢弃流水线模式下在途get请求的返回值，避免和后续请求的返回值混淆，返回是否丢弃了有效的batch
+    private boolean discardInflightGets() throws IOException {
+        boolean discarded = false;
+        while (inflightGets > 0) {
+            try {
+                Message message = receiveMessages();
+                if (message.getId() > 0) {
+                    discarded = true;
+                    logger.info("discard prefetched batchId:{}", message.getId());
+                }
+            } catch (CanalClientException e) {
+                logger.warn("discard prefetched get failed", e);
+            } finally {
+                inflightGets--;
+            }
+        }
+        return discarded;
+    }
+
+    //开启推送模式，服务端返回ack之后开始推送数据
+    private void startStream(int fetchSize) throws IOException {
+        writeWithHeader(channel, buildStreamPacket(fetchSize, streamWindow));
+        Packet p = Packet.parseFrom(readNextPacket(channel));
+        Ack ack = Ack.parseFrom(p.getBody());
+        if (ack.getErrorCode() > 0) {
+            throw new CanalClientException("failed to start stream with reason: " + ack.getErrorMessage());
+        }
+        streaming = true;
+    }
+
+    //关闭推送模式，丢弃服务端在关闭之前已经推送的数据，返回是否丢弃了有效的batch
+    private boolean stopStream() throws IOException {
+        if (!streaming) {
+            return false;
+        }
+
+        streaming = false;
+        writeWithHeader(channel, buildStreamPacket(0, 0));
+        boolean discarded = false;
+        while (true) {
+            Packet p = Packet.parseFrom(readNextPacket(channel));
+            if (p.getType() == PacketType.ACK) {// 服务端保证ack在已推送的数据之后
+                Ack ack = Ack.parseFrom(p.getBody());
+                if (ack.getErrorCode() > 0) {
+                    throw new CanalClientException("failed to stop stream with reason: " + ack.getErrorMessage());
+                }
+                return discarded;
+            }
+
+            discarded = true;
+            logger.info("discard streamed packet:{} after stop stream", p.getType());
+        }
+    }
+
+    private byte[] buildStreamPacket(int fetchSize, int window) {
+        return Packet.newBuilder()
+            .setType(PacketType.STREAM)
+            .setBody(Stream.newBuilder()
+                .setDestination(clientIdentity.getDestination())
+                .setClientId(String.valueOf(clientIdentity.getClientId()))
+                .setFetchSize(fetchSize)
+                .setWindow(window)
+                .build()
+                .toByteString())
+            .build()
+            .toByteArray();
+    }
+
     //发送给服务器说明这个批处理已经消费完成了
     public void ack(long batchId) throws CanalClientException {
         waitClientRunning();
@@ -340,13 +453,19 @@ public class SimpleCanalConnector implements CanalConnector {
     //向服务器发送批处理的回滚信息
     public void rollback(long batchId) throws CanalClientException {
         waitClientRunning();
-        //客户端回滚请求实体,通知服务器该客户端要回滚哪一个队列的数据,该数据是批处理ID指代的数据
-        ClientRollback ca = ClientRollback.newBuilder()
-            .setDestination(clientIdentity.getDestination())
-            .setClientId(String.valueOf(clientIdentity.getClientId()))
-            .setBatchId(batchId)
-            .build();
         try {
+            boolean discarded = discardInflightGets();
+            discarded |= stopStream();
+            if (discarded) {
+                // 丢弃的batch客户端无法再ack，只能回滚全部batch
+                batchId = 0;
+            }
+            //客户端回滚请求实体,通知服务器该客户端要回滚哪一个队列的数据,该数据是批处理ID指代的数据
+            ClientRollback ca = ClientRollback.newBuilder()
+                .setDestination(clientIdentity.getDestination())
+                .setClientId(String.valueOf(clientIdentity.getClientId()))
+                .setBatchId(batchId)
+                .build();
             writeWithHeader(channel, Packet.newBuilder()
                 .setType(PacketType.CLIENTROLLBACK)
                 .setBody(ca.toByteString())
@@ -480,6 +599,14 @@ public class SimpleCanalConnector implements CanalConnector {
         this.soTimeout = soTimeout;
     }
 
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
     public void setZkClientx(ZkClientx zkClientx) {
         this.zkClientx = zkClientx;
         initClientRunningMonitor(this.clientIdentity);
@@ -497,4 +624,20 @@ public class SimpleCanalConnector implements CanalConnector {
         this.filter = filter;
     }
 
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    public void setPrefetchCount(int prefetchCount) {
+        this.prefetchCount = prefetchCount;
+    }
+
+    public int getStreamWindow() {
+        return streamWindow;
+    }
+
+    public void setStreamWindow(int streamWindow) {
+        this.streamWindow = streamWindow;
+    }
+
 }
@@ -1,6 +1,8 @@
 package com.alibaba.otter.canal.common.zookeeper;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.I0Itec.zkclient.IZkConnection;
 import org.I0Itec.zkclient.ZkClient;
@@ -10,6 +12,8 @@ import org.I0Itec.zkclient.exception.ZkNoNodeException;
 import org.I0Itec.zkclient.exception.ZkNodeExistsException;
 import org.I0Itec.zkclient.serialize.ZkSerializer;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
 
 import com.google.common.base.Function;
 import com.google.common.collect.MigrateMap;
@@ -31,6 +35,8 @@ public class ZkClientx extends ZkClient {
                                                       }
                                                   });
 
+    private final IZkConnection           zkConnection;
+
     public static ZkClientx getZkClient(String servers) {
         return clients.get(servers);
     }
@@ -57,6 +63,24 @@ public class ZkClientx extends ZkClient {
 
     private ZkClientx(IZkConnection zkConnection, int connectionTimeout, ZkSerializer zkSerializer){
         super(zkConnection, connectionTimeout, zkSerializer);
+        this.zkConnection = zkConnection;
+    }
+
+    /**
+     * 基于zookeeper 3.4的multi接口，一组操作在一次请求中原子提交，要么全部成功，要么全部失败
+     * 
+     * @param ops
+     * @throws ZkInterruptedException if operation was interrupted, or a
+     * required reconnection got interrupted
+     * @throws ZkException if any ZooKeeper exception occurred, 比如某个操作的节点不存在或已存在
+     */
+    public List<OpResult> multi(final Iterable<Op> ops) throws ZkInterruptedException, ZkException {
+        return retryUntilConnected(new Callable<List<OpResult>>() {
+
+            public List<OpResult> call() throws Exception {
+                return ((ZooKeeperx) zkConnection).getZookeeper().multi(ops);
+            }
+        });
     }
 
     /**
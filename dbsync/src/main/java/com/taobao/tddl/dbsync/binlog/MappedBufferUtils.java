@@ -0,0 +1,75 @@
+package com.taobao.tddl.dbsync.binlog;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * 主动释放{@linkplain MappedByteBuffer}的映射，jdk没有提供unmap的接口，只能通过反射调用
+ * 
+ * <pre>
+ * 1. jdk6~8 : DirectByteBuffer.cleaner().clean()
+ * 2. jdk9+ : sun.misc.Unsafe.invokeCleaner(ByteBuffer)
+ * 都失败时依赖gc回收映射，只在第一次失败时输出warn日志
+ *
+ * dbsync不依赖canal.common，这里保留一份给binlog读取使用，canal的其他模块使用canal.common中的实现
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午06:05:01
+ * @version 1.0.22
+ */
+public final class MappedBufferUtils {
+
+    protected static final Log      logger = LogFactory.getLog(MappedBufferUtils.class);
+    private static volatile boolean warned = false;
+
+    private MappedBufferUtils(){
+    }
+
+    /**
+     * @return true表示已经释放，false表示需要等待gc回收
+     */
+    public static boolean unmap(MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return true;
+        }
+
+        Throwable error = null;
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+            return true;
+        } catch (Throwable e) {
+            error = e;
+        }
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+            unsafeField.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(unsafeField.get(null), buffer);
+            return true;
+        } catch (Throwable e) {
+            error = e;
+        }
+
+        if (!warned) {
+            warned = true;
+            logger.warn("unmap MappedByteBuffer failed, the mapping will be released by gc", error);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("unmap MappedByteBuffer failed", error);
+        }
+        return false;
+    }
+}
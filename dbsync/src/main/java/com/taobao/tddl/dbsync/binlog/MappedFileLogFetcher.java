@@ -0,0 +1,223 @@
+package com.taobao.tddl.dbsync.binlog;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import com.taobao.tddl.dbsync.binlog.event.FormatDescriptionLogEvent;
+
+/**
+ * 基于mmap读取本地binlog文件，用法和{@linkplain FileLogFetcher}一致
+ *
+ * <pre>
+ * 1. 文件按照windowSize分段映射(默认64MB)，超过2GB的binlog文件也可以按窗口依次读取
+ * 2. fetch时直接从映射区批量拷贝到buffer中，不再走FileInputStream.read的系统调用和native临时缓冲区
+ * 3. 读到映射窗口末尾时会重新检查文件大小，正在写入的binlog文件变长之后可以继续读取
+ *
+ * MappedFileLogFetcher fetcher = new MappedFileLogFetcher();
+ * fetcher.open(file, 0);
+ *
+ * while (fetcher.fetch()) {
+ *     LogEvent event;
+ *     do {
+ *         event = decoder.decode(fetcher, context);
+ *
+ *         // process log event.
+ *     } while (event != null);
+ * }
+ * // file ending reached.
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:01:39
+ * @version 1.0.22
+ */
+public final class MappedFileLogFetcher extends LogFetcher {
+
+    /** Default mmap window size. */
+    public static final int  DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final int        windowSize;                             // 每次映射的最大字节数
+    private RandomAccessFile file;
+    private FileChannel      channel;
+    private MappedByteBuffer window;                                 // 当前映射的窗口
+    private long             windowStart;                            // 当前窗口在文件中的起始位置
+    private long             readPosition;                           // 下一个要读取的字节在文件中的位置
+
+    public MappedFileLogFetcher(){
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileLogFetcher(final int initialCapacity){
+        this(initialCapacity, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileLogFetcher(final int initialCapacity, final int windowSize){
+        super(initialCapacity, DEFAULT_GROWTH_FACTOR);
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Illegal window size: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Open binlog file in local disk to fetch.
+     */
+    public void open(File file) throws FileNotFoundException, IOException {
+        open(file, 0L);
+    }
+
+    /**
+     * Open binlog file in local disk to fetch.
+     */
+    public void open(String filePath) throws FileNotFoundException, IOException {
+        open(new File(filePath), 0L);
+    }
+
+    /**
+     * Open binlog file in local disk to fetch.
+     */
+    public void open(String filePath, final long filePosition) throws FileNotFoundException, IOException {
+        open(new File(filePath), filePosition);
+    }
+
+    /**
+     * Open binlog file in local disk to fetch.
+     * 处理逻辑和FileLogFetcher保持一致，指定了位置时先读取format description事件
+     */
+    public void open(File file, final long filePosition) throws FileNotFoundException, IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.window = null;
+        this.windowStart = 0;
+        this.readPosition = 0;
+
+        ensureCapacity(BIN_LOG_HEADER_SIZE);
+        if (BIN_LOG_HEADER_SIZE != read(buffer, 0, BIN_LOG_HEADER_SIZE)) throw new IOException("No binlog file header");
+
+        if (buffer[0] != FileLogFetcher.BINLOG_MAGIC[0] || buffer[1] != FileLogFetcher.BINLOG_MAGIC[1]
+            || buffer[2] != FileLogFetcher.BINLOG_MAGIC[2] || buffer[3] != FileLogFetcher.BINLOG_MAGIC[3]) {
+            throw new IOException("Error binlog file header: "
+                                  + Arrays.toString(Arrays.copyOf(buffer, BIN_LOG_HEADER_SIZE)));
+        }
+
+        limit = 0;
+        origin = 0;
+        position = 0;
+
+        if (filePosition > BIN_LOG_HEADER_SIZE) {
+            final int maxFormatDescriptionEventLen = FormatDescriptionLogEvent.LOG_EVENT_MINIMAL_HEADER_LEN
+                                                     + FormatDescriptionLogEvent.ST_COMMON_HEADER_LEN_OFFSET
+                                                     + LogEvent.ENUM_END_EVENT
+                                                     + LogEvent.BINLOG_CHECKSUM_ALG_DESC_LEN
+                                                     + LogEvent.CHECKSUM_CRC32_SIGNATURE_LEN;
+
+            ensureCapacity(maxFormatDescriptionEventLen);
+            limit = read(buffer, 0, maxFormatDescriptionEventLen);
+            limit = (int) getUint32(LogEvent.EVENT_LEN_OFFSET);
+            readPosition = filePosition;// 下一次fetch从指定位置开始
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.taobao.tddl.dbsync.binlog.LogFetcher#fetch()
+     */
+    public boolean fetch() throws IOException {
+        if (limit == 0) {
+            final int len = read(buffer, 0, buffer.length);
+            if (len >= 0) {
+                limit += len;
+                position = 0;
+                origin = 0;
+
+                /* More binlog to fetch */
+                return true;
+            }
+        } else if (origin == 0) {
+            if (limit > buffer.length / 2) {
+                ensureCapacity(buffer.length + limit);
+            }
+            final int len = read(buffer, limit, buffer.length - limit);
+            if (len >= 0) {
+                limit += len;
+
+                /* More binlog to fetch */
+                return true;
+            }
+        } else if (limit > 0) {
+            System.arraycopy(buffer, origin, buffer, 0, limit);
+            position -= origin;
+            origin = 0;
+            final int len = read(buffer, limit, buffer.length - limit);
+            if (len >= 0) {
+                limit += len;
+
+                /* More binlog to fetch */
+                return true;
+            }
+        } else {
+            /* Should not happen. */
+            throw new IllegalArgumentException("Unexcepted limit: " + limit);
+        }
+
+        /* Reach binlog file end */
+        return false;
+    }
+
+    /**
+     * 从映射窗口中读取最多len个字节，跨越窗口时自动映射下一段，到达文件末尾返回-1
+     */
+    private int read(byte[] dest, int off, int len) throws IOException {
+        int count = 0;
+        while (count < len) {
+            if (window == null || readPosition < windowStart || readPosition >= windowStart + window.limit()) {
+                if (!remap()) {
+                    break;
+                }
+            }
+
+            int offset = (int) (readPosition - windowStart);
+            int size = Math.min(len - count, window.limit() - offset);
+            window.position(offset);
+            window.get(dest, off + count, size);
+            readPosition += size;
+            count += size;
+        }
+
+        return (count == 0 && len > 0) ? -1 : count;
+    }
+
+    /**
+     * 以readPosition为起点重新映射一个窗口，文件没有更多数据时返回false
+     */
+    private boolean remap() throws IOException {
+        final long size = channel.size();// 文件可能还在写入，每次重新获取
+        if (readPosition >= size) {
+            return false;
+        }
+
+        MappedBufferUtils.unmap(window);
+        windowStart = readPosition;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowSize, size - windowStart));
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.taobao.tddl.dbsync.binlog.LogFetcher#close()
+     */
+    public void close() throws IOException {
+        MappedBufferUtils.unmap(window);
+        window = null;
+        if (file != null) file.close();// 同时会关闭channel
+
+        file = null;
+        channel = null;
+    }
+}
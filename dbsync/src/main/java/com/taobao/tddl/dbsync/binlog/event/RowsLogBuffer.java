@@ -38,6 +38,8 @@ public final class RowsLogBuffer {
     private int                javaType;
     private int                length;
     private Serializable       value;
+    private long               longValue;                     // nextPrimitiveValue解析出的整数值
+    private double             doubleValue;                   // nextPrimitiveValue解析出的浮点值
 
     public RowsLogBuffer(LogBuffer buffer, final int columnLen, String charsetName){
         this.buffer = buffer;
@@ -98,6 +100,68 @@ public final class RowsLogBuffer {
         }
     }
 
+    /**
+     * Extracting next field value from packed buffer, 整数/浮点类型直接读取为原始类型，避免装箱
+     * 
+     * @return true表示值为原始类型，通过{@linkplain #getLongValue()}/{@linkplain #getDoubleValue()}获取;
+     * false表示为null或者其他类型，和nextValue一样通过{@linkplain #getValue()}获取
+     */
+    public final boolean nextPrimitiveValue(final int type, final int meta, boolean isBinary) {
+        fNull = nullBits.get(nullBitIndex++);
+
+        if (fNull) {
+            value = null;
+            javaType = mysqlToJavaType(type, meta, isBinary);
+            length = 0;
+            return false;
+        }
+
+        switch (type) {
+            case LogEvent.MYSQL_TYPE_LONG:
+                longValue = buffer.getInt32();
+                javaType = Types.INTEGER;
+                length = 4;
+                break;
+            case LogEvent.MYSQL_TYPE_TINY:
+                longValue = buffer.getInt8();
+                javaType = Types.TINYINT;
+                length = 1;
+                break;
+            case LogEvent.MYSQL_TYPE_SHORT:
+                longValue = (short) buffer.getInt16();
+                javaType = Types.SMALLINT;
+                length = 2;
+                break;
+            case LogEvent.MYSQL_TYPE_INT24:
+                longValue = buffer.getInt24();
+                javaType = Types.INTEGER;
+                length = 3;
+                break;
+            case LogEvent.MYSQL_TYPE_LONGLONG:
+                longValue = buffer.getLong64();
+                javaType = Types.BIGINT;
+                length = 8;
+                break;
+            case LogEvent.MYSQL_TYPE_FLOAT:
+                doubleValue = buffer.getFloat32();
+                javaType = Types.REAL;
+                length = 4;
+                break;
+            case LogEvent.MYSQL_TYPE_DOUBLE:
+                doubleValue = buffer.getDouble64();
+                javaType = Types.DOUBLE;
+                length = 8;
+                break;
+            default:
+                // 其他类型本身就是对象(字符串/decimal/时间/byte[])，走原有逻辑
+                fetchValue(type, meta, isBinary);
+                return false;
+        }
+
+        value = null;
+        return true;
+    }
+
     /**
      * Maps the given MySQL type to the correct JDBC type.
      */
@@ -993,6 +1057,125 @@ public final class RowsLogBuffer {
         return value;
     }
 
+    /**
+     * 跳过下一个字段，只移动buffer的位置，不生成value，用于列裁剪
+     * 
+     * <pre>
+     * 定长类型和带长度前缀的varchar/blob/string直接按长度跳过，其余类型(比如decimal)仍按照nextValue解析后丢弃
+     * </pre>
+     */
+    public final void skipValue(int type, final int meta) {
+        fNull = nullBits.get(nullBitIndex++);
+        value = null;
+        length = 0;
+        if (fNull) {
+            return;
+        }
+
+        int len = 0;
+        if (type == LogEvent.MYSQL_TYPE_STRING) {
+            if (meta >= 256) {
+                int byte0 = meta >> 8;
+                int byte1 = meta & 0xff;
+                if ((byte0 & 0x30) != 0x30) {
+                    /* a long CHAR() field: see #37426 */
+                    len = byte1 | (((byte0 & 0x30) ^ 0x30) << 4);
+                    type = byte0 | 0x30;
+                } else if (byte0 == LogEvent.MYSQL_TYPE_SET || byte0 == LogEvent.MYSQL_TYPE_ENUM
+                           || byte0 == LogEvent.MYSQL_TYPE_STRING) {
+                    type = byte0;
+                    len = byte1;
+                } else {
+                    fetchValue(type, meta, true);
+                    value = null;
+                    return;
+                }
+            } else {
+                len = meta;
+            }
+        }
+
+        switch (type) {
+            case LogEvent.MYSQL_TYPE_TINY:
+            case LogEvent.MYSQL_TYPE_YEAR:
+                buffer.forward(1);
+                break;
+            case LogEvent.MYSQL_TYPE_SHORT:
+                buffer.forward(2);
+                break;
+            case LogEvent.MYSQL_TYPE_INT24:
+            case LogEvent.MYSQL_TYPE_TIME:
+            case LogEvent.MYSQL_TYPE_DATE:
+            case LogEvent.MYSQL_TYPE_NEWDATE:
+                buffer.forward(3);
+                break;
+            case LogEvent.MYSQL_TYPE_LONG:
+            case LogEvent.MYSQL_TYPE_FLOAT:
+            case LogEvent.MYSQL_TYPE_TIMESTAMP:
+                buffer.forward(4);
+                break;
+            case LogEvent.MYSQL_TYPE_LONGLONG:
+            case LogEvent.MYSQL_TYPE_DOUBLE:
+            case LogEvent.MYSQL_TYPE_DATETIME:
+                buffer.forward(8);
+                break;
+            case LogEvent.MYSQL_TYPE_TIMESTAMP2:
+                buffer.forward(4 + (meta + 1) / 2);
+                break;
+            case LogEvent.MYSQL_TYPE_DATETIME2:
+                buffer.forward(5 + (meta + 1) / 2);
+                break;
+            case LogEvent.MYSQL_TYPE_TIME2:
+                buffer.forward(3 + (meta + 1) / 2);
+                break;
+            case LogEvent.MYSQL_TYPE_BIT: {
+                final int nbits = ((meta >> 8) * 8) + (meta & 0xff);
+                buffer.forward(nbits > 1 ? (nbits + 7) / 8 : 1);
+                break;
+            }
+            case LogEvent.MYSQL_TYPE_ENUM:
+                if (len != 1 && len != 2) {
+                    throw new IllegalArgumentException("!! Unknown ENUM packlen = " + len);
+                }
+                buffer.forward(len);
+                break;
+            case LogEvent.MYSQL_TYPE_SET: {
+                final int nbits = (meta & 0xFF) * 8;
+                buffer.forward(nbits > 1 ? (nbits + 7) / 8 : 1);
+                break;
+            }
+            case LogEvent.MYSQL_TYPE_BLOB:
+            case LogEvent.MYSQL_TYPE_GEOMETRY:
+                buffer.forward(getPackedLength(meta));
+                break;
+            case LogEvent.MYSQL_TYPE_VARCHAR:
+            case LogEvent.MYSQL_TYPE_VAR_STRING:
+                buffer.forward(meta < 256 ? buffer.getUint8() : buffer.getUint16());
+                break;
+            case LogEvent.MYSQL_TYPE_STRING:
+                buffer.forward(len < 256 ? buffer.getUint8() : buffer.getUint16());
+                break;
+            default:
+                fetchValue(type, meta, true);
+                value = null;
+        }
+    }
+
+    private int getPackedLength(final int packlen) {
+        switch (packlen) {
+            case 1:
+                return buffer.getUint8();
+            case 2:
+                return buffer.getUint16();
+            case 3:
+                return buffer.getUint24();
+            case 4:
+                return (int) buffer.getUint32();
+            default:
+                throw new IllegalArgumentException("!! Unknown BLOB packlen = " + packlen);
+        }
+    }
+
     public final boolean isNull() {
         return fNull;
     }
@@ -1009,6 +1192,14 @@ public final class RowsLogBuffer {
         return length;
     }
 
+    public final long getLongValue() {
+        return longValue;
+    }
+
+    public final double getDoubleValue() {
+        return doubleValue;
+    }
+
     private String usecondsToStr(int frac, int meta) {
         String sec = String.valueOf(frac);
         if (meta > 6) {
@@ -0,0 +1,68 @@
+package com.taobao.tddl.dbsync.binlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedFileLogFetcherTest {
+
+    private File binlog;
+
+    @Before
+    public void setUp() {
+        URL url = Thread.currentThread().getContextClassLoader().getResource("dummy.txt");
+        File dummyFile = new File(url.getFile());
+        binlog = new File(dummyFile.getParent() + "/binlog", "mysql-bin.000001");
+    }
+
+    @Test
+    public void testSameAsFileLogFetcher() throws IOException {
+        List<String> expected = decode(new FileLogFetcher(1024 * 16), 0L);
+        Assert.assertTrue(expected.size() > 0);
+        // 使用很小的窗口，验证跨窗口读取
+        Assert.assertEquals(expected, decode(new MappedFileLogFetcher(1024 * 16, 1000), 0L));
+        Assert.assertEquals(expected, decode(new MappedFileLogFetcher(1024 * 16), 0L));
+    }
+
+    @Test
+    public void testOpenWithPosition() throws IOException {
+        List<String> all = decode(new FileLogFetcher(1024 * 16), 0L);
+        // 从第3个事件开始读取
+        long position = Long.valueOf(all.get(1).split(":")[1]);
+        List<String> expected = decode(new FileLogFetcher(1024 * 16), position);
+        Assert.assertEquals(expected, decode(new MappedFileLogFetcher(1024, 512), position));
+    }
+
+    private List<String> decode(LogFetcher fetcher, long position) throws IOException {
+        List<String> result = new ArrayList<String>();
+        LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+        LogContext context = new LogContext();
+        context.setLogPosition(new LogPosition(binlog.getName()));
+        try {
+            if (fetcher instanceof FileLogFetcher) {
+                ((FileLogFetcher) fetcher).open(binlog, position);
+            } else {
+                ((MappedFileLogFetcher) fetcher).open(binlog, position);
+            }
+
+            while (fetcher.fetch()) {
+                LogEvent event;
+                do {
+                    event = decoder.decode(fetcher, context);
+                    if (event != null) {
+                        result.add(event.getHeader().getType() + ":" + event.getLogPos());
+                    }
+                } while (event != null);
+            }
+        } finally {
+            fetcher.close();
+        }
+        return result;
+    }
+}
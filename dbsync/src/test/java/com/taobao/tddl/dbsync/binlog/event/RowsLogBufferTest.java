@@ -0,0 +1,190 @@
+package com.taobao.tddl.dbsync.binlog.event;
+
+import java.io.Serializable;
+import java.sql.Types;
+import java.util.BitSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+
+/**
+ * 校验nextPrimitiveValue和nextValue两种解析方式的结果一致
+ */
+public class RowsLogBufferTest {
+
+    @Test
+    public void testTiny() {
+        assertInteger(LogEvent.MYSQL_TYPE_TINY, 1, Types.TINYINT, 0L);
+        assertInteger(LogEvent.MYSQL_TYPE_TINY, 1, Types.TINYINT, 127L);
+        // unsigned 128/255在binlog中的位模式和signed -128/-1一致
+        assertInteger(LogEvent.MYSQL_TYPE_TINY, 1, Types.TINYINT, -128L);
+        assertInteger(LogEvent.MYSQL_TYPE_TINY, 1, Types.TINYINT, -1L);
+    }
+
+    @Test
+    public void testShort() {
+        assertInteger(LogEvent.MYSQL_TYPE_SHORT, 2, Types.SMALLINT, 32767L);
+        assertInteger(LogEvent.MYSQL_TYPE_SHORT, 2, Types.SMALLINT, -32768L);
+        assertInteger(LogEvent.MYSQL_TYPE_SHORT, 2, Types.SMALLINT, -1L);
+    }
+
+    @Test
+    public void testInt24() {
+        assertInteger(LogEvent.MYSQL_TYPE_INT24, 3, Types.INTEGER, 8388607L);
+        assertInteger(LogEvent.MYSQL_TYPE_INT24, 3, Types.INTEGER, -8388608L);
+        assertInteger(LogEvent.MYSQL_TYPE_INT24, 3, Types.INTEGER, -1L);
+    }
+
+    @Test
+    public void testLong() {
+        assertInteger(LogEvent.MYSQL_TYPE_LONG, 4, Types.INTEGER, Integer.MAX_VALUE);
+        assertInteger(LogEvent.MYSQL_TYPE_LONG, 4, Types.INTEGER, Integer.MIN_VALUE);
+        assertInteger(LogEvent.MYSQL_TYPE_LONG, 4, Types.INTEGER, -1L);
+    }
+
+    @Test
+    public void testLongLong() {
+        assertInteger(LogEvent.MYSQL_TYPE_LONGLONG, 8, Types.BIGINT, Long.MAX_VALUE);
+        assertInteger(LogEvent.MYSQL_TYPE_LONGLONG, 8, Types.BIGINT, Long.MIN_VALUE);
+        assertInteger(LogEvent.MYSQL_TYPE_LONGLONG, 8, Types.BIGINT, -1L);
+    }
+
+    @Test
+    public void testFloat() {
+        float[] values = { 0.1f, -1.5f, Float.MAX_VALUE, Float.MIN_VALUE };
+        for (float f : values) {
+            byte[] data = littleEndian(Float.floatToIntBits(f), 4);
+
+            RowsLogBuffer buffer = newBuffer(false, data);
+            Serializable value = buffer.nextValue(LogEvent.MYSQL_TYPE_FLOAT, 4, false);
+            Assert.assertEquals(Float.valueOf(f), value);
+            Assert.assertEquals(Types.REAL, buffer.getJavaType());
+
+            buffer = newBuffer(false, data);
+            Assert.assertTrue(buffer.nextPrimitiveValue(LogEvent.MYSQL_TYPE_FLOAT, 4, false));
+            Assert.assertNull(buffer.getValue());
+            Assert.assertEquals(Types.REAL, buffer.getJavaType());
+            Assert.assertEquals(4, buffer.getLength());
+            // float提升为double后数值不变
+            Assert.assertEquals(Double.doubleToLongBits((double) f), Double.doubleToLongBits(buffer.getDoubleValue()));
+            Assert.assertEquals(f, (float) buffer.getDoubleValue(), 0f);
+        }
+    }
+
+    @Test
+    public void testDouble() {
+        double[] values = { 0.1d, -2.25d, Double.MAX_VALUE, Double.MIN_VALUE };
+        for (double d : values) {
+            byte[] data = littleEndian(Double.doubleToLongBits(d), 8);
+
+            RowsLogBuffer buffer = newBuffer(false, data);
+            Serializable value = buffer.nextValue(LogEvent.MYSQL_TYPE_DOUBLE, 8, false);
+            Assert.assertEquals(Double.valueOf(d), value);
+            Assert.assertEquals(Types.DOUBLE, buffer.getJavaType());
+
+            buffer = newBuffer(false, data);
+            Assert.assertTrue(buffer.nextPrimitiveValue(LogEvent.MYSQL_TYPE_DOUBLE, 8, false));
+            Assert.assertNull(buffer.getValue());
+            Assert.assertEquals(Types.DOUBLE, buffer.getJavaType());
+            Assert.assertEquals(8, buffer.getLength());
+            Assert.assertEquals(Double.doubleToLongBits(d), Double.doubleToLongBits(buffer.getDoubleValue()));
+        }
+    }
+
+    @Test
+    public void testNull() {
+        RowsLogBuffer buffer = newBuffer(true, new byte[0]);
+        Assert.assertFalse(buffer.nextPrimitiveValue(LogEvent.MYSQL_TYPE_LONG, 0, false));
+        Assert.assertTrue(buffer.isNull());
+        Assert.assertNull(buffer.getValue());
+        Assert.assertEquals(Types.INTEGER, buffer.getJavaType());
+        Assert.assertEquals(0, buffer.getLength());
+
+        buffer = newBuffer(true, new byte[0]);
+        Assert.assertFalse(buffer.nextPrimitiveValue(LogEvent.MYSQL_TYPE_DOUBLE, 0, false));
+        Assert.assertTrue(buffer.isNull());
+        Assert.assertEquals(Types.DOUBLE, buffer.getJavaType());
+    }
+
+    @Test
+    public void testNonPrimitive() {
+        // 非整数/浮点类型退回到对象解析
+        byte[] data = new byte[] { 3, 'a', 'b', 'c' };
+        RowsLogBuffer buffer = newBuffer(false, data);
+        Assert.assertFalse(buffer.nextPrimitiveValue(LogEvent.MYSQL_TYPE_VARCHAR, 10, false));
+        Assert.assertFalse(buffer.isNull());
+        Assert.assertEquals("abc", buffer.getValue());
+        Assert.assertEquals(Types.VARCHAR, buffer.getJavaType());
+    }
+
+    @Test
+    public void testMultiColumns() {
+        // 两种方式混合解析同一行，读取位置保持一致
+        byte[] tiny = littleEndian(-1L, 1);
+        byte[] dbl = littleEndian(Double.doubleToLongBits(1.25d), 8);
+        byte[] longlong = littleEndian(Long.MIN_VALUE, 8);
+        byte[] row = new byte[1 + tiny.length + dbl.length + longlong.length];
+        int offset = 1;
+        System.arraycopy(tiny, 0, row, offset, tiny.length);
+        offset += tiny.length;
+        System.arraycopy(dbl, 0, row, offset, dbl.length);
+        offset += dbl.length;
+        System.arraycopy(longlong, 0, row, offset, longlong.length);
+
+        BitSet columns = new BitSet(3);
+        columns.set(0, 3);
+        RowsLogBuffer buffer = new RowsLogBuffer(new LogBuffer(row, 0, row.length), 3, "UTF-8");
+        Assert.assertTrue(buffer.nextOneRow(columns));
+
+        Assert.assertTrue(buffer.nextPrimitiveValue(LogEvent.MYSQL_TYPE_TINY, 0, false));
+        Assert.assertEquals(-1L, buffer.getLongValue());
+        Assert.assertEquals(Double.valueOf(1.25d), buffer.nextValue(LogEvent.MYSQL_TYPE_DOUBLE, 8, false));
+        Assert.assertTrue(buffer.nextPrimitiveValue(LogEvent.MYSQL_TYPE_LONGLONG, 0, false));
+        Assert.assertEquals(Long.MIN_VALUE, buffer.getLongValue());
+    }
+
+    private void assertInteger(int type, int length, int javaType, long expected) {
+        byte[] data = littleEndian(expected, length);
+
+        RowsLogBuffer buffer = newBuffer(false, data);
+        Serializable value = buffer.nextValue(type, 0, false);
+        Assert.assertEquals(expected, ((Number) value).longValue());
+        Assert.assertEquals(javaType, buffer.getJavaType());
+        Assert.assertEquals(length, buffer.getLength());
+
+        buffer = newBuffer(false, data);
+        Assert.assertTrue(buffer.nextPrimitiveValue(type, 0, false));
+        Assert.assertFalse(buffer.isNull());
+        // typed模式下不会再生成对象值
+        Assert.assertNull(buffer.getValue());
+        Assert.assertEquals(expected, buffer.getLongValue());
+        Assert.assertEquals(javaType, buffer.getJavaType());
+        Assert.assertEquals(length, buffer.getLength());
+    }
+
+    /**
+     * 构造只有一列的行数据，第一个字节为null bitmap
+     */
+    private RowsLogBuffer newBuffer(boolean isNull, byte[] value) {
+        byte[] row = new byte[value.length + 1];
+        row[0] = (byte) (isNull ? 0x01 : 0x00);
+        System.arraycopy(value, 0, row, 1, value.length);
+
+        BitSet columns = new BitSet(1);
+        columns.set(0);
+        RowsLogBuffer buffer = new RowsLogBuffer(new LogBuffer(row, 0, row.length), 1, "UTF-8");
+        Assert.assertTrue(buffer.nextOneRow(columns));
+        return buffer;
+    }
+
+    private static byte[] littleEndian(long value, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (value >> (8 * i));
+        }
+        return data;
+    }
+}
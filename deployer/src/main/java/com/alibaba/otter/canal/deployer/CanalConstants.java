@@ -16,6 +16,12 @@ public class CanalConstants {
     public static final String CANAL_IP                          = ROOT + "." + "ip";
     public static final String CANAL_PORT                        = ROOT + "." + "port";
     public static final String CANAL_ZKSERVERS                   = ROOT + "." + "zkServers";
+    public static final String CANAL_COMPRESSIONS                = ROOT + "." + "compressions";//canal.compressions 允许客户端协商的压缩方式，用逗号拆分
+    public static final String CANAL_COMPRESSION_THRESHOLD       = ROOT + "." + "compression.threshold";
+    public static final String CANAL_STREAM_THREADS              = ROOT + "." + "stream.threads";//canal.stream.threads 推送模式的分发线程数
+    public static final String CANAL_REQUEST_THREADS             = ROOT + "." + "request.threads";//canal.request.threads 按连接顺序处理排队请求的线程数
+    public static final String CANAL_REQUEST_QUEUE_SIZE          = ROOT + "." + "request.queue.size";//canal.request.queue.size 排队请求的上限
+    public static final String CANAL_REQUEST_LONGPOLL_THREADS    = ROOT + "." + "request.longpoll.threads";//canal.request.longpoll.threads 处理阻塞GET的线程数
 
     public static final String CANAL_DESTINATIONS                = ROOT + "." + "destinations";//canal.destinations  所有的目的集合,用逗号拆分
     public static final String CANAL_AUTO_SCAN                   = ROOT + "." + "auto.scan";
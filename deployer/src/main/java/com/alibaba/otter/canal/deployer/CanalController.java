@@ -1,5 +1,7 @@
 package com.alibaba.otter.canal.deployer;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -33,6 +35,8 @@ import com.alibaba.otter.canal.instance.core.CanalInstanceGenerator;
 import com.alibaba.otter.canal.instance.manager.CanalConfigClient;
 import com.alibaba.otter.canal.instance.manager.ManagerCanalInstanceGenerator;
 import com.alibaba.otter.canal.instance.spring.SpringCanalInstanceGenerator;
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.compress.CompressionUtils;
 import com.alibaba.otter.canal.server.embedded.CanalServerWithEmbedded;
 import com.alibaba.otter.canal.server.exception.CanalServerException;
 import com.alibaba.otter.canal.server.netty.CanalServerWithNetty;
@@ -93,6 +97,23 @@ public class CanalController {
         canalServer = CanalServerWithNetty.instance();
         canalServer.setIp(ip);
         canalServer.setPort(port);
+        initCompression(properties);
+        String streamThreads = getProperty(properties, CanalConstants.CANAL_STREAM_THREADS);
+        if (StringUtils.isNotEmpty(streamThreads)) {
+            canalServer.setStreamThreads(Integer.valueOf(streamThreads));
+        }
+        String requestThreads = getProperty(properties, CanalConstants.CANAL_REQUEST_THREADS);
+        if (StringUtils.isNotEmpty(requestThreads)) {
+            canalServer.setRequestThreads(Integer.valueOf(requestThreads));
+        }
+        String requestQueueSize = getProperty(properties, CanalConstants.CANAL_REQUEST_QUEUE_SIZE);
+        if (StringUtils.isNotEmpty(requestQueueSize)) {
+            canalServer.setRequestQueueSize(Integer.valueOf(requestQueueSize));
+        }
+        String longPollThreads = getProperty(properties, CanalConstants.CANAL_REQUEST_LONGPOLL_THREADS);
+        if (StringUtils.isNotEmpty(longPollThreads)) {
+            canalServer.setLongPollThreads(Integer.valueOf(longPollThreads));
+        }
 
         // 处理下ip为空，默认使用hostIp暴露到zk中
         if (StringUtils.isEmpty(ip)) {
@@ -364,6 +385,30 @@ public class CanalController {
         return config;
     }
 
+    //初始化网络传输的压缩配置
+    private void initCompression(Properties properties) {
+        String compressions = getProperty(properties, CanalConstants.CANAL_COMPRESSIONS);
+        if (StringUtils.isNotEmpty(compressions)) {
+            List<Compression> supportedCompressions = new ArrayList<Compression>();
+            supportedCompressions.add(Compression.NONE);// 不压缩总是允许
+            for (String name : StringUtils.split(compressions, CanalConstants.CANAL_DESTINATION_SPLIT)) {
+                Compression compression = Compression.valueOf(StringUtils.upperCase(StringUtils.trim(name)));
+                if (!CompressionUtils.isSupported(compression)) {
+                    throw new CanalServerException("compression " + compression + " is not supported");
+                }
+                if (!supportedCompressions.contains(compression)) {
+                    supportedCompressions.add(compression);
+                }
+            }
+            canalServer.setSupportedCompressions(supportedCompressions);
+        }
+
+        String threshold = getProperty(properties, CanalConstants.CANAL_COMPRESSION_THRESHOLD);
+        if (StringUtils.isNotEmpty(threshold)) {
+            canalServer.setCompressionThreshold(Integer.valueOf(threshold));
+        }
+    }
+
     private String getProperty(Properties properties, String key) {
         return StringUtils.trim(properties.getProperty(StringUtils.trim(key)));
     }
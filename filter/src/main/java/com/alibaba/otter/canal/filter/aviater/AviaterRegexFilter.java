@@ -4,19 +4,30 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.oro.text.regex.Pattern;
+import org.apache.oro.text.regex.Perl5Matcher;
 
 import com.alibaba.otter.canal.filter.CanalEventFilter;
+import com.alibaba.otter.canal.filter.PatternUtils;
 import com.alibaba.otter.canal.filter.exception.CanalFilterException;
-import com.googlecode.aviator.AviatorEvaluator;
-import com.googlecode.aviator.Expression;
 
 /**
- * 基于aviater进行tableName正则匹配的过滤算法
+ * 基于tableName正则匹配的过滤算法
+ * 
+ * <pre>
+ * 1. 构造时预先编译所有规则，只包含字母/数字/下划线和.的规则视为精确的schema.table名字，直接hash查找
+ * 2. 其余规则按照原有的方式(从长到短排序，头尾^$完全匹配)合并为一个正则，精确名字未命中时再进行正则匹配
+ * 3. 每个名字的匹配结果缓存在有界的cache中，订阅规则变化时会重新创建filter，cache随之失效
+ * 4. 规则后可以使用:指定需要的列，多个列使用;分割，比如 test\\.user:id;name;age ，
+ *    parser只解析这些列(主键总是保留)，同一个表命中多条规则时取并集，命中任意一条不带列的规则时返回所有列
+ * </pre>
  * 
  * @author jianghang 2012-7-20 下午06:01:34
  */
@@ -24,17 +35,21 @@ public class AviaterRegexFilter implements CanalEventFilter<String> {
 
     private static final String             SPLIT             = ",";//多个正则表达可以使用逗号分割
     private static final String             PATTERN_SPLIT     = "|";//正则表达式规则使用|分隔
-    private static final String             FILTER_EXPRESSION = "regex(pattern,target)";//表达式含义说明,pattern表示一个正则,去匹配target
-    private static final RegexFunction      regexFunction     = new RegexFunction();
-    private final Expression                exp               = AviatorEvaluator.compile(FILTER_EXPRESSION, true);
-    static {
-        AviatorEvaluator.addFunction(regexFunction);
-    }
+    private static final char               COLUMN_SEPARATOR  = ':';//规则和列之间的分隔符
+    private static final String             COLUMN_SPLIT      = ";";//多个列使用分号分割
+    private static final int                MAX_CACHE_SIZE    = 10000;//匹配结果cache的最大数量，超过后整体清空
 
     private static final Comparator<String> COMPARATOR        = new StringComparator();
+    private static final Set<String>        ALL_COLUMNS       = Collections.unmodifiableSet(new HashSet<String>());
 
     final private String                    pattern;//正则表达式
     final private boolean                   defaultEmptyValue;//默认返回值
+    final private Set<String>               exactNames        = new HashSet<String>();//精确匹配的名字，小写
+    final private Pattern                   regexPattern;//除精确名字之外的规则编译后的正则，没有时为null
+    final private Map<String, Boolean>      cache             = new ConcurrentHashMap<String, Boolean>();
+    final private List<ColumnRule>          columnRules       = new ArrayList<ColumnRule>();//指定了列的规则
+    final private AviaterRegexFilter        fullColumnFilter;//未指定列的规则，没有列裁剪时为null
+    final private Map<String, Set<String>>  columnCache       = new ConcurrentHashMap<String, Set<String>>();
 
     public AviaterRegexFilter(String pattern){
         this(pattern, true);
@@ -47,16 +62,52 @@ public class AviaterRegexFilter implements CanalEventFilter<String> {
             list = new ArrayList<String>();
         } else {
             String[] ss = StringUtils.split(pattern, SPLIT);
-            list = Arrays.asList(ss);
+            list = new ArrayList<String>(Arrays.asList(ss));
         }
 
+        // 拆分出规则中指定的列
+        List<String> fullColumnItems = new ArrayList<String>();
+        for (int i = 0; i < list.size(); i++) {
+            String item = list.get(i);
+            int index = columnIndex(item);
+            if (index < 0) {
+                fullColumnItems.add(item);
+            } else {
+                String table = item.substring(0, index);
+                Set<String> columns = new HashSet<String>();
+                for (String column : StringUtils.split(item.substring(index + 1), COLUMN_SPLIT)) {
+                    columns.add(column.toLowerCase());
+                }
+                columnRules.add(new ColumnRule(new AviaterRegexFilter(table, false), columns));
+                list.set(i, table);
+            }
+        }
+        this.fullColumnFilter = columnRules.isEmpty() ? null : new AviaterRegexFilter(StringUtils.join(fullColumnItems,
+            SPLIT), false);
+
         // 对pattern按照从长到短的排序
         // 因为 foo|foot 匹配 foot 会出错，原因是 foot 匹配了 foo 之后，会返回 foo，但是 foo 的长度和 foot
         // 的长度不一样
         Collections.sort(list, COMPARATOR);
+        // 拆分出精确的名字，保持剩余规则的顺序
+        List<String> regexs = new ArrayList<String>();
+        for (String item : list) {
+            String name = toExactName(item);
+            if (name != null) {
+                exactNames.add(name);
+            }
+
+            if (name == null || StringUtils.remove(item, "\\.").indexOf('.') >= 0) {
+                // 未转义的.可以匹配任意字符，仍需保留正则
+                regexs.add(item);
+            }
+        }
+
         // 对pattern进行头尾完全匹配
         list = completionPattern(list);
         this.pattern = StringUtils.join(list, PATTERN_SPLIT);
+        this.regexPattern = regexs.isEmpty() ? null : PatternUtils.getPattern(StringUtils.join(completionPattern(regexs),
+            PATTERN_SPLIT));
     }
 
     public boolean filter(String filtered) throws CanalFilterException {
@@ -68,10 +119,110 @@ public class AviaterRegexFilter implements CanalEventFilter<String> {
             return defaultEmptyValue;
         }
 
-        Map<String, Object> env = new HashMap<String, Object>();
-        env.put("pattern", pattern);
-        env.put("target", filtered.toLowerCase());
-        return (Boolean) exp.execute(env);
+        Boolean result = cache.get(filtered);
+        if (result == null) {
+            result = doFilter(filtered);
+            if (cache.size() >= MAX_CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(filtered, result);
+        }
+        return result;
+    }
+
+    /**
+     * 返回表需要解析的列名(小写)，返回null表示需要所有列
+     */
+    public Set<String> getColumns(String filtered) {
+        if (columnRules.isEmpty() || StringUtils.isEmpty(filtered)) {
+            return null;
+        }
+
+        Set<String> columns = columnCache.get(filtered);
+        if (columns == null) {
+            columns = doGetColumns(filtered);
+            if (columnCache.size() >= MAX_CACHE_SIZE) {
+                columnCache.clear();
+            }
+            columnCache.put(filtered, columns);
+        }
+        return columns == ALL_COLUMNS ? null : columns;
+    }
+
+    private Set<String> doGetColumns(String filtered) {
+        if (fullColumnFilter.filter(filtered)) {
+            return ALL_COLUMNS;
+        }
+
+        Set<String> columns = new HashSet<String>();
+        for (ColumnRule rule : columnRules) {
+            if (rule.filter.filter(filtered)) {
+                columns.addAll(rule.columns);
+            }
+        }
+        return columns.isEmpty() ? ALL_COLUMNS : Collections.unmodifiableSet(columns);
+    }
+
+    private boolean doFilter(String filtered) {
+        String target = filtered.toLowerCase();
+        if (exactNames.contains(target)) {
+            return true;
+        }
+
+        if (regexPattern == null) {
+            return false;
+        }
+
+        return new Perl5Matcher().matches(target, regexPattern);
+    }
+
+    /**
+     * 如果规则只包含字母/数字/下划线以及\.或者.，返回对应的小写名字，否则返回null
+     */
+    private String toExactName(String item) {
+        StringBuilder name = new StringBuilder(item.length());
+        for (int i = 0; i < item.length(); i++) {
+            char c = item.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_'
+                || c == '.') {
+                name.append(Character.toLowerCase(c));
+            } else if (c == '\\' && i + 1 < item.length() && item.charAt(i + 1) == '.') {
+                name.append('.');
+                i++;
+            } else {
+                return null;
+            }
+        }
+        return name.length() > 0 ? name.toString() : null;
+    }
+
+    /**
+     * 返回规则中列分隔符的位置，分隔符之后只能包含字母/数字/下划线以及;，没有指定列时返回-1
+     */
+    private int columnIndex(String item) {
+        int index = item.lastIndexOf(COLUMN_SEPARATOR);
+        if (index <= 0 || index == item.length() - 1) {
+            return -1;
+        }
+
+        for (int i = index + 1; i < item.length(); i++) {
+            char c = item.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == ';')) {
+                return -1;
+            }
+        }
+        return index;
+    }
+
+    private static class ColumnRule {
+
+        private final AviaterRegexFilter filter;
+        private final Set<String>        columns;
+
+        public ColumnRule(AviaterRegexFilter filter, Set<String> columns){
+            this.filter = filter;
+            this.columns = columns;
+        }
     }
 
     /**
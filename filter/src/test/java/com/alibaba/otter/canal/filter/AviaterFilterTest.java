@@ -1,5 +1,7 @@
 package com.alibaba.otter.canal.filter;
 
+import java.util.Set;
+
 import org.junit.Assert;
 
 import org.junit.Test;
@@ -93,6 +95,39 @@ public class AviaterFilterTest {
 
     }
 
+    @Test
+    public void testExactName() {
+        AviaterRegexFilter filter = new AviaterRegexFilter("s1.t1,s2\\.t2,s3\\..*");
+        Assert.assertEquals(true, filter.filter("s2.t2"));
+        Assert.assertEquals(true, filter.filter("S2.T2")); // 忽略大小写
+        Assert.assertEquals(false, filter.filter("s2xt2")); // 转义的.只匹配.
+        Assert.assertEquals(true, filter.filter("s1.t1"));
+        Assert.assertEquals(true, filter.filter("s1xt1")); // 未转义的.保持正则语义
+        Assert.assertEquals(true, filter.filter("s3.t3"));
+        Assert.assertEquals(false, filter.filter("s4.t4"));
+        Assert.assertEquals(false, filter.filter("s4.t4")); // 命中cache
+    }
+
+    @Test
+    public void testColumns() {
+        AviaterRegexFilter filter = new AviaterRegexFilter("s1\\.t1:id;Name,s1\\.t.*:age,s2\\..*");
+        Assert.assertEquals(true, filter.filter("s1.t1"));
+        Assert.assertEquals(true, filter.filter("s1.t2"));
+        Assert.assertEquals(true, filter.filter("s2.t1"));
+        Assert.assertEquals(false, filter.filter("s3.t1"));
+
+        // 命中多条规则时取并集
+        Set<String> columns = filter.getColumns("s1.t1");
+        Assert.assertEquals(3, columns.size());
+        Assert.assertTrue(columns.contains("id"));
+        Assert.assertTrue(columns.contains("name"));
+        Assert.assertTrue(columns.contains("age"));
+        Assert.assertEquals(1, filter.getColumns("s1.t2").size());
+        // 未指定列的规则返回null
+        Assert.assertNull(filter.getColumns("s2.t1"));
+        Assert.assertNull(new AviaterRegexFilter("s1\\..*").getColumns("s1.t1"));
+    }
+
     @Test
     public void test_el() {
         AviaterELFilter filter = new AviaterELFilter("str(entry.entryType) == 'ROWDATA'");
@@ -27,6 +27,7 @@ import com.alibaba.otter.canal.instance.manager.model.CanalParameter.MetaMode;
 import com.alibaba.otter.canal.instance.manager.model.CanalParameter.SourcingType;
 import com.alibaba.otter.canal.instance.manager.model.CanalParameter.StorageMode;
 import com.alibaba.otter.canal.instance.manager.model.CanalParameter.StorageScavengeMode;
+import com.alibaba.otter.canal.meta.GroupCommitMetaManager;
 import com.alibaba.otter.canal.meta.MemoryMetaManager;
 import com.alibaba.otter.canal.meta.PeriodMixedMetaManager;
 import com.alibaba.otter.canal.meta.ZooKeeperMetaManager;
@@ -48,6 +49,8 @@ import com.alibaba.otter.canal.protocol.position.EntryPosition;
 import com.alibaba.otter.canal.sink.entry.EntryEventSink;
 import com.alibaba.otter.canal.sink.entry.group.GroupEventSink;
 import com.alibaba.otter.canal.store.AbstractCanalStoreScavenge;
+import com.alibaba.otter.canal.store.file.FileEventStore;
+import com.alibaba.otter.canal.store.file.MemoryEventStoreWithSpill;
 import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
 import com.alibaba.otter.canal.store.model.BatchMode;
 
@@ -121,6 +124,14 @@ public class CanalInstanceWithManager extends AbstractCanalInstance {
             ZooKeeperMetaManager zooKeeperMetaManager = new ZooKeeperMetaManager();
             zooKeeperMetaManager.setZkClientx(getZkclientx());
             ((PeriodMixedMetaManager) metaManager).setZooKeeperMetaManager(zooKeeperMetaManager);
+        } else if (mode.isGroupCommit()) {
+            GroupCommitMetaManager groupCommitMetaManager = new GroupCommitMetaManager();
+            ZooKeeperMetaManager zooKeeperMetaManager = new ZooKeeperMetaManager();
+            zooKeeperMetaManager.setZkClientx(getZkclientx());
+            groupCommitMetaManager.setZooKeeperMetaManager(zooKeeperMetaManager);
+            groupCommitMetaManager.setPeriod(parameters.getMetaCommitPeriod());
+            groupCommitMetaManager.setCommitCount(parameters.getMetaCommitCount());
+            metaManager = groupCommitMetaManager;
         } else {
             throw new CanalException("unsupport MetaMode for " + mode);
         }
@@ -139,11 +150,14 @@ public class CanalInstanceWithManager extends AbstractCanalInstance {
             memoryEventStore.setDdlIsolation(parameters.getDdlIsolation());
             eventStore = memoryEventStore;
         } else if (mode.isFile()) {
-            // 后续版本支持
-            throw new CanalException("unsupport MetaMode for " + mode);
+            FileEventStore fileEventStore = new FileEventStore();
+            initFileStorage(fileEventStore);
+            eventStore = fileEventStore;
         } else if (mode.isMixed()) {
-            // 后续版本支持
-            throw new CanalException("unsupport MetaMode for " + mode);
+            // 最新的数据保留在内存中，消费跟不上时老数据溢出到磁盘
+            MemoryEventStoreWithSpill mixedEventStore = new MemoryEventStoreWithSpill();
+            initFileStorage(mixedEventStore);
+            eventStore = mixedEventStore;
         } else {
             throw new CanalException("unsupport MetaMode for " + mode);
         }
@@ -163,6 +177,27 @@ public class CanalInstanceWithManager extends AbstractCanalInstance {
         logger.info("init eventStore end! \n\t load CanalEventStore:{}", eventStore.getClass().getName());
     }
 
+    private void initFileStorage(MemoryEventStoreWithSpill fileEventStore) {
+        if (StringUtils.isEmpty(parameters.getFileStorageDirectory())) {
+            throw new CanalException("fileStorageDirectory is required for StorageMode " + parameters.getStorageMode());
+        }
+
+        fileEventStore.setBufferSize(parameters.getMemoryStorageBufferSize());
+        fileEventStore.setBufferMemUnit(parameters.getMemoryStorageBufferMemUnit());
+        fileEventStore.setBatchMode(BatchMode.valueOf(parameters.getStorageBatchMode().name()));
+        fileEventStore.setDdlIsolation(parameters.getDdlIsolation());
+        fileEventStore.setDataDir(parameters.getFileStorageDirectory());
+        if (parameters.getFileStorageStoreCount() != null) {
+            fileEventStore.setSegmentStoreCount(parameters.getFileStorageStoreCount());
+        }
+        if (parameters.getFileStorageRollverCount() != null) {
+            fileEventStore.setMaxSegmentCount(parameters.getFileStorageRollverCount());
+        }
+        if (parameters.getFileStoragePercentThresold() != null) {
+            fileEventStore.setPercentThreshold(parameters.getFileStoragePercentThresold());
+        }
+    }
+
     protected void initEventSink() {
         logger.info("init eventSink begin...");
 
@@ -170,7 +205,9 @@ public class CanalInstanceWithManager extends AbstractCanalInstance {
         if (groupSize <= 1) {
             eventSink = new EntryEventSink();
         } else {
-            eventSink = new GroupEventSink(groupSize);
+            GroupEventSink groupEventSink = new GroupEventSink(groupSize);
+            groupEventSink.setDestination(destination);
+            eventSink = groupEventSink;
         }
 
         if (eventSink instanceof EntryEventSink) {
@@ -30,6 +30,8 @@ public class CanalParameter implements Serializable {
 
     // meta相关参数
     private MetaMode                 metaMode                           = MetaMode.MEMORY;           // meta机制
+    private Long                     metaCommitPeriod                   = 100L;                      // group commit模式的提交间隔，单位ms
+    private Integer                  metaCommitCount                    = 1000;                      // group commit模式下待提交的变更数超过该值时立即提交
 
     // storage存储
     private Integer                  transactionSize                    = 1024;                      // 支持处理的transaction事务大小
@@ -243,7 +245,9 @@ public class CanalParameter implements Serializable {
         /** 文件存储模式 */
         ZOOKEEPER,
         /** 混合模式，内存+文件 */
-        MIXED;
+        MIXED,
+        /** 混合模式，内存+zookeeper multi批量提交 */
+        GROUP_COMMIT;
 
         public boolean isMemory() {
             return this.equals(MetaMode.MEMORY);
@@ -256,6 +260,10 @@ public class CanalParameter implements Serializable {
         public boolean isMixed() {
             return this.equals(MetaMode.MIXED);
         }
+
+        public boolean isGroupCommit() {
+            return this.equals(MetaMode.GROUP_COMMIT);
+        }
     }
 
     public static enum IndexMode {
@@ -386,6 +394,22 @@ public class CanalParameter implements Serializable {
         this.metaMode = metaMode;
     }
 
+    public Long getMetaCommitPeriod() {
+        return metaCommitPeriod;
+    }
+
+    public void setMetaCommitPeriod(Long metaCommitPeriod) {
+        this.metaCommitPeriod = metaCommitPeriod;
+    }
+
+    public Integer getMetaCommitCount() {
+        return metaCommitCount;
+    }
+
+    public void setMetaCommitCount(Integer metaCommitCount) {
+        this.metaCommitCount = metaCommitCount;
+    }
+
     public StorageMode getStorageMode() {
         return storageMode;
     }
@@ -0,0 +1,539 @@
+package com.alibaba.otter.canal.meta;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.alibaba.otter.canal.meta.exception.CanalMetaManagerException;
+import com.alibaba.otter.canal.meta.journal.MetaJournal;
+import com.alibaba.otter.canal.meta.journal.MetaJournalRecord;
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.protocol.position.PositionRange;
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.MigrateMap;
+
+/**
+ * 基于append-only journal的文件metaManager实现
+ *
+ * <pre>
+ * 和{@linkplain FileMixedMetaManager}的区别：
+ * 1. subscribe/addBatch/removeBatch/updateCursor都以记录的方式追加到journal中，不再定时重写整个meta.dat，batch信息也会持久化
+ * 2. 单独的writer线程将多个请求的记录合并后一次写入并force(group commit)
+ * 3. updateCursor/subscribe/unsubscribe会等待记录落盘后返回，即ack返回时已经持久化；batch的变更不等待，随后续的记录一起落盘
+ * 4. journal超过compactSize或者距离上次压缩超过compactPeriod时，将内存中的完整状态压缩为snapshot
+ *    写入失败时同样通过压缩修复，压缩也失败时(磁盘满/IO异常)等待中的请求抛出CanalMetaManagerException，不会一直等待
+ * 5. 启动时回放snapshot + journal恢复订阅、cursor和未ack的batch
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:30:46
+ * @version 1.0.22
+ */
+public class FileJournalMetaManager extends MemoryMetaManager implements CanalMetaManager {
+
+    private static final Logger             logger         = LoggerFactory.getLogger(FileJournalMetaManager.class);
+    private File                            dataDir;                                                                // 文件所在的目录，dataDir/destination/meta.journal
+    @SuppressWarnings("serial")
+    private final Position                  nullCursor     = new Position() {
+                                                           };
+    private long                            period         = 1000;                                                  // 单位ms，writer线程空闲时检查压缩的间隔
+    private long                            compactPeriod  = 60 * 1000;                                             // 单位ms，定时压缩的间隔
+    private long                            compactSize    = 4 * 1024 * 1024;                                       // journal超过该大小时立即压缩
+    private Map<String, DestinationJournal> journals;
+    private final ReentrantLock             lock           = new ReentrantLock();
+    private final Condition                 notEmpty       = lock.newCondition();
+    private final Condition                 synced         = lock.newCondition();
+    private Thread                          writerThread;
+    private volatile boolean                stopping       = false;
+
+    public void start() {
+        super.start();
+        Assert.notNull(dataDir);
+        if (!dataDir.exists()) {// 创建目录
+            try {
+                FileUtils.forceMkdir(dataDir);
+            } catch (IOException e) {
+                throw new CanalMetaManagerException(e);
+            }
+        }
+
+        if (!dataDir.canRead() || !dataDir.canWrite()) {
+            throw new CanalMetaManagerException("dir[" + dataDir.getPath() + "] can not read/write");
+        }
+
+        // 第一次访问destination时回放snapshot + journal
+        journals = MigrateMap.makeComputingMap(new Function<String, DestinationJournal>() {
+
+            public DestinationJournal apply(String destination) {
+                return loadJournal(destination);
+            }
+        });
+
+        destinations = MigrateMap.makeComputingMap(new Function<String, List<ClientIdentity>>() {
+
+            public List<ClientIdentity> apply(String destination) {
+                return Lists.newArrayList(journals.get(destination).clientIdentities);
+            }
+        });
+
+        cursors = MigrateMap.makeComputingMap(new Function<ClientIdentity, Position>() {
+
+            public Position apply(ClientIdentity clientIdentity) {
+                Position position = journals.get(clientIdentity.getDestination()).cursors.get(clientIdentity);
+                if (position == null) {
+                    return nullCursor; // 返回一个空对象标识，避免出现异常
+                } else {
+                    return position;
+                }
+            }
+        });
+
+        batches = MigrateMap.makeComputingMap(new Function<ClientIdentity, MemoryClientIdentityBatch>() {
+
+            public MemoryClientIdentityBatch apply(ClientIdentity clientIdentity) {
+                MemoryClientIdentityBatch batch = journals.get(clientIdentity.getDestination()).batches.get(clientIdentity);
+                if (batch == null) {
+                    return MemoryClientIdentityBatch.create(clientIdentity);
+                } else {
+                    return batch;
+                }
+            }
+        });
+
+        stopping = false;
+        writerThread = new Thread(new Runnable() {
+
+            public void run() {
+                write();
+            }
+        }, "FileJournalMetaManager-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public void stop() {
+        // 等待writer线程写完剩余的记录
+        lock.lock();
+        try {
+            stopping = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (DestinationJournal journal : journals.values()) {
+            try {
+                journal.journal.close();
+            } catch (IOException e) {
+                logger.error("close journal for " + journal.destination + " failed!", e);
+            }
+        }
+
+        super.stop();
+        journals.clear();
+        destinations.clear();
+        batches.clear();
+    }
+
+    public void subscribe(ClientIdentity clientIdentity) throws CanalMetaManagerException {
+        lock.lock();
+        try {
+            super.subscribe(clientIdentity);
+            appendAndWait(MetaJournalRecord.subscribe(clientIdentity));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void unsubscribe(ClientIdentity clientIdentity) throws CanalMetaManagerException {
+        lock.lock();
+        try {
+            super.unsubscribe(clientIdentity);
+            appendAndWait(MetaJournalRecord.unsubscribe(clientIdentity));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Position getCursor(ClientIdentity clientIdentity) throws CanalMetaManagerException {
+        Position position = super.getCursor(clientIdentity);
+        if (position == nullCursor) {
+            return null;
+        } else {
+            return position;
+        }
+    }
+
+    public void updateCursor(ClientIdentity clientIdentity, Position position) throws CanalMetaManagerException {
+        lock.lock();
+        try {
+            super.updateCursor(clientIdentity, position);
+            appendAndWait(MetaJournalRecord.cursor(clientIdentity, position));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Long addBatch(ClientIdentity clientIdentity, PositionRange positionRange) throws CanalMetaManagerException {
+        lock.lock();
+        try {
+            Long batchId = super.addBatch(clientIdentity, positionRange);
+            append(MetaJournalRecord.addBatch(clientIdentity, batchId, positionRange));
+            return batchId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addBatch(ClientIdentity clientIdentity, PositionRange positionRange, Long batchId)
+                                                                                                  throws CanalMetaManagerException {
+        lock.lock();
+        try {
+            super.addBatch(clientIdentity, positionRange, batchId);
+            append(MetaJournalRecord.addBatch(clientIdentity, batchId, positionRange));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public PositionRange removeBatch(ClientIdentity clientIdentity, Long batchId) throws CanalMetaManagerException {
+        lock.lock();
+        try {
+            PositionRange positionRange = super.removeBatch(clientIdentity, batchId);
+            if (positionRange != null) {
+                append(MetaJournalRecord.removeBatch(clientIdentity, batchId));
+            }
+            return positionRange;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clearAllBatchs(ClientIdentity clientIdentity) throws CanalMetaManagerException {
+        lock.lock();
+        try {
+            super.clearAllBatchs(clientIdentity);
+            append(MetaJournalRecord.clearBatch(clientIdentity));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ============================ journal ======================
+
+    /**
+     * 追加记录到待写入队列，需持有lock
+     */
+    private DestinationJournal append(MetaJournalRecord record) {
+        DestinationJournal journal = journals.get(record.getClientIdentity().getDestination());
+        journal.pendings.add(record);
+        journal.appendSequence++;
+        notEmpty.signal();
+        return journal;
+    }
+
+    /**
+     * 追加记录并等待落盘，需持有lock
+     */
+    private void appendAndWait(MetaJournalRecord record) {
+        DestinationJournal journal = append(record);
+        long sequence = journal.appendSequence;
+        try {
+            while (journal.syncedSequence < sequence && !stopping) {
+                if (journal.failedSequence >= sequence) {
+                    throw new CanalMetaManagerException("write meta journal for " + journal.destination + " failed",
+                        journal.failure);
+                }
+                synced.await(period, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CanalMetaManagerException(e);
+        }
+    }
+
+    /**
+     * writer线程，合并所有待写入的记录，每个destination一次写入+force
+     */
+    private void write() {
+        while (true) {
+            List<DestinationJournal> writes = new ArrayList<DestinationJournal>();
+            List<List<MetaJournalRecord>> records = new ArrayList<List<MetaJournalRecord>>();
+            List<Long> sequences = new ArrayList<Long>();
+            boolean exit = false;
+            lock.lock();
+            try {
+                if (!stopping && !hasPendings()) {
+                    notEmpty.await(period, TimeUnit.MILLISECONDS);
+                }
+                exit = stopping;
+
+                for (DestinationJournal journal : journals.values()) {
+                    // 写入失败后journal中的内容不再可信，待写入的记录留给压缩一起写入snapshot
+                    if (!journal.broken && !journal.pendings.isEmpty()) {
+                        writes.add(journal);
+                        records.add(journal.pendings);
+                        sequences.add(journal.appendSequence);
+                        journal.pendings = new ArrayList<MetaJournalRecord>();
+                    }
+                }
+            } catch (InterruptedException e) {
+                exit = true;
+            } finally {
+                lock.unlock();
+            }
+
+            for (int i = 0; i < writes.size(); i++) {
+                DestinationJournal journal = writes.get(i);
+                try {
+                    journal.journal.append(records.get(i));
+                    journal.journal.sync();
+                    markSynced(journal, sequences.get(i));
+                } catch (Throwable e) {
+                    // 写入失败的记录已经丢失，通过压缩将内存中的完整状态重新写入
+                    logger.error("write journal for " + journal.destination + " failed, compact later!", e);
+                    journal.broken = true;
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            for (DestinationJournal journal : journals.values()) {
+                if (journal.broken || journal.journal.size() > compactSize
+                    || (!journal.journal.isEmpty() && now - journal.lastCompactTime > compactPeriod)) {
+                    compact(journal);
+                }
+            }
+
+            if (exit) {
+                return;
+            }
+        }
+    }
+
+    private boolean hasPendings() {
+        for (DestinationJournal journal : journals.values()) {
+            if (!journal.pendings.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void markSynced(DestinationJournal journal, long sequence) {
+        lock.lock();
+        try {
+            journal.syncedSequence = sequence;
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 将destination在内存中的完整状态写入snapshot
+     *
+     * <pre>
+     * 只在lock中复制内存状态，snapshot的写入和force在lock之外进行，不阻塞其他destination以及客户端的get/ack
+     * journal文件只由writer线程读写，压缩期间新增的记录留在pendings中，压缩完成后追加到新的journal
+     * </pre>
+     */
+    private void compact(DestinationJournal journal) {
+        List<MetaJournalRecord> records = null;
+        long sequence;
+        Throwable error = null;
+        lock.lock();
+        try {
+            sequence = journal.appendSequence;
+            records = snapshot(journal);
+            journal.pendings.clear(); // 未写入的记录已经包含在snapshot中
+        } catch (Throwable e) {
+            error = e;
+            sequence = journal.appendSequence;
+        } finally {
+            lock.unlock();
+        }
+
+        if (error == null) {
+            try {
+                journal.journal.compact(records);
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+
+        lock.lock();
+        try {
+            if (error == null) {
+                journal.broken = false;
+                journal.lastCompactTime = System.currentTimeMillis();
+                journal.syncedSequence = sequence;
+            } else {
+                logger.error("compact journal for " + journal.destination + " failed!", error);
+                journal.broken = true;
+                journal.failedSequence = sequence; // 通知等待中的请求，不再等待落盘
+                journal.failure = error;
+            }
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<MetaJournalRecord> snapshot(DestinationJournal journal) {
+        List<MetaJournalRecord> records = new ArrayList<MetaJournalRecord>();
+        for (ClientIdentity clientIdentity : destinations.get(journal.destination)) {
+            records.add(MetaJournalRecord.subscribe(clientIdentity));
+        }
+
+        // 回放得到但还未加载到内存的客户端，通过get触发加载
+        Set<ClientIdentity> clientIdentities = new LinkedHashSet<ClientIdentity>();
+        clientIdentities.addAll(journal.cursors.keySet());
+        clientIdentities.addAll(journal.batches.keySet());
+        for (ClientIdentity clientIdentity : cursors.keySet()) {
+            if (journal.destination.equals(clientIdentity.getDestination())) {
+                clientIdentities.add(clientIdentity);
+            }
+        }
+        for (ClientIdentity clientIdentity : batches.keySet()) {
+            if (journal.destination.equals(clientIdentity.getDestination())) {
+                clientIdentities.add(clientIdentity);
+            }
+        }
+
+        for (ClientIdentity clientIdentity : clientIdentities) {
+            Position position = getCursor(clientIdentity);
+            if (position != null) {
+                records.add(MetaJournalRecord.cursor(clientIdentity, position));
+            }
+
+            Map<Long, PositionRange> positionRanges = batches.get(clientIdentity).listAllPositionRange();
+            List<Long> batchIds = new ArrayList<Long>(positionRanges.keySet());
+            Collections.sort(batchIds);
+            for (Long batchId : batchIds) {
+                records.add(MetaJournalRecord.addBatch(clientIdentity, batchId, positionRanges.get(batchId)));
+            }
+        }
+        return records;
+    }
+
+    private DestinationJournal loadJournal(String destination) {
+        DestinationJournal journal = new DestinationJournal(destination, new MetaJournal(new File(dataDir, destination)));
+        List<MetaJournalRecord> records = null;
+        try {
+            records = journal.journal.open();
+        } catch (IOException e) {
+            throw new CanalMetaManagerException(e);
+        }
+
+        for (MetaJournalRecord record : records) {
+            journal.replay(record);
+        }
+        logger.info("replay {} meta records for destination:{}", records.size(), destination);
+        return journal;
+    }
+
+    /**
+     * 单个destination的journal及回放得到的数据
+     */
+    private static class DestinationJournal {
+
+        private final String                                         destination;
+        private final MetaJournal                                    journal;
+        private List<MetaJournalRecord>                              pendings         = new ArrayList<MetaJournalRecord>(); // 待写入的记录
+        private long                                                 appendSequence   = 0;
+        private long                                                 syncedSequence   = 0;
+        private long                                                 failedSequence   = 0;                               // 压缩失败时已追加的记录，都没有落盘
+        private Throwable                                            failure;
+        private boolean                                              broken           = false;                           // 写入失败，需要通过压缩修复
+        private long                                                 lastCompactTime  = System.currentTimeMillis();
+        // 回放得到的数据，第一次访问时加载到内存
+        private final List<ClientIdentity>                           clientIdentities = new ArrayList<ClientIdentity>();
+        private final Map<ClientIdentity, Position>                  cursors          = new MapMaker().makeMap();
+        private final Map<ClientIdentity, MemoryClientIdentityBatch> batches          = new MapMaker().makeMap();
+
+        public DestinationJournal(String destination, MetaJournal journal){
+            this.destination = destination;
+            this.journal = journal;
+        }
+
+        public void replay(MetaJournalRecord record) {
+            ClientIdentity clientIdentity = record.getClientIdentity();
+            switch (record.getType()) {
+                case SUBSCRIBE:
+                    clientIdentities.remove(clientIdentity);
+                    clientIdentities.add(clientIdentity);
+                    break;
+                case UNSUBSCRIBE:
+                    clientIdentities.remove(clientIdentity);
+                    break;
+                case ADD_BATCH:
+                    getBatch(clientIdentity).addPositionRange(record.getPositionRange(), record.getBatchId());
+                    break;
+                case REMOVE_BATCH:
+                    getBatch(clientIdentity).removePositionRange(record.getBatchId());
+                    break;
+                case CLEAR_BATCH:
+                    getBatch(clientIdentity).clearPositionRanges();
+                    break;
+                case CURSOR:
+                    cursors.put(clientIdentity, record.getCursor());
+                    break;
+                default:
+                    throw new CanalMetaManagerException("unknow record type:" + record.getType());
+            }
+        }
+
+        private MemoryClientIdentityBatch getBatch(ClientIdentity clientIdentity) {
+            MemoryClientIdentityBatch batch = batches.get(clientIdentity);
+            if (batch == null) {
+                batch = MemoryClientIdentityBatch.create(clientIdentity);
+                batches.put(clientIdentity, batch);
+            }
+            return batch;
+        }
+    }
+
+    // =============== setter / getter ================
+
+    public void setDataDir(String dataDir) {
+        this.dataDir = new File(dataDir);
+    }
+
+    public void setDataDir(File dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    public void setCompactPeriod(long compactPeriod) {
+        this.compactPeriod = compactPeriod;
+    }
+
+    public void setCompactSize(long compactSize) {
+        this.compactSize = compactSize;
+    }
+
+}
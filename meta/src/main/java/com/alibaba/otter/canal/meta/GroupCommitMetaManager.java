@@ -0,0 +1,469 @@
+package com.alibaba.otter.canal.meta;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.ZooDefs.Ids;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alibaba.otter.canal.common.utils.JsonUtils;
+import com.alibaba.otter.canal.common.zookeeper.ZkClientx;
+import com.alibaba.otter.canal.common.zookeeper.ZookeeperPathUtils;
+import com.alibaba.otter.canal.meta.exception.CanalMetaManagerException;
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.protocol.position.PositionRange;
+import com.google.common.base.Function;
+import com.google.common.collect.MigrateMap;
+
+/**
+ * 基于zookeeper multi批量提交(group commit)的mixed实现
+ *
+ * <pre>
+ * 和{@linkplain PeriodMixedMetaManager}的区别：
+ * 1. batch和cursor都只修改内存，变更记录到待提交队列中，get/ack的过程中不再同步访问zookeeper
+ * 2. 定时(period)或者待提交的变更数超过commitCount时，所有客户端的变更合并为一次zookeeper multi请求原子提交
+ * 3. 同一个提交周期内新增又删除的batch不会写入zookeeper，cursor多次变更只写最后一次
+ *
+ * 崩溃恢复：
+ * 1. 启动时从zookeeper加载订阅、cursor和未ack的batch，batchId从已有batch的最大值之后继续分配
+ * 2. cursor只会在ack之后更新，同一个客户端先删除batch、再写cursor，zookeeper中的cursor不会超过已ack的位置，
+ *    崩溃时最多回退到上一次提交的位置，重复消费部分数据
+ * 3. multi提交失败时，涉及的客户端以内存中的最新数据为准，下一次提交时和zookeeper做一次全量对比修复
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:26:55
+ * @version 1.0.22
+ */
+public class GroupCommitMetaManager extends MemoryMetaManager implements CanalMetaManager {
+
+    private static final Logger                logger        = LoggerFactory.getLogger(GroupCommitMetaManager.class);
+    private static final int                   MAX_MULTI_OPS = 1000;                                                  // 单次multi请求的最大操作数，避免超过zookeeper的jute.maxbuffer
+    private ScheduledExecutorService           executor;
+    private ZooKeeperMetaManager               zooKeeperMetaManager;
+    private ZkClientx                          zkClientx;
+    @SuppressWarnings("serial")
+    private final Position                     nullCursor    = new Position() {
+                                                             };
+    private long                               period        = 100;                                                   // 单位ms
+    private int                                commitCount   = 1000;                                                  // 待提交的变更数超过该值时立即提交
+    private final Object                       lock          = new Object();
+    private Map<ClientIdentity, PendingCommit> pendings;                                                              // 待提交的变更
+    private volatile int                       pendingCount;
+    private Set<ClientIdentity>                resyncs;                                                               // 提交失败，需要全量修复的客户端
+    private Set<ClientIdentity>                prepared;                                                              // 已创建batch_mark节点的客户端，只在提交线程中访问
+    private Set<ClientIdentity>                cursorNodes;                                                           // zookeeper中已存在cursor节点的客户端，只在提交线程中访问
+    private final AtomicBoolean                flushing      = new AtomicBoolean(false);
+    private final Runnable                     flushTask     = new Runnable() {
+
+                                                                 public void run() {
+                                                                     flushing.set(false);
+                                                                     try {
+                                                                         flush();
+                                                                     } catch (Throwable e) {
+                                                                         logger.error("group commit failed!", e);
+                                                                     }
+                                                                 }
+                                                             };
+
+    public void start() {
+        super.start();
+        Assert.notNull(zooKeeperMetaManager);
+        if (!zooKeeperMetaManager.isStart()) {
+            zooKeeperMetaManager.start();
+        }
+        zkClientx = zooKeeperMetaManager.getZkClientx();
+
+        executor = Executors.newScheduledThreadPool(1);
+
+        // 从zookeeper中加载此时的所有订阅的客户端信息
+        destinations = MigrateMap.makeComputingMap(new Function<String, List<ClientIdentity>>() {
+
+            public List<ClientIdentity> apply(String destination) {
+                return zooKeeperMetaManager.listAllSubscribeInfo(destination);
+            }
+        });
+
+        cursors = MigrateMap.makeComputingMap(new Function<ClientIdentity, Position>() {
+
+            public Position apply(ClientIdentity clientIdentity) {
+                Position position = zooKeeperMetaManager.getCursor(clientIdentity);
+                if (position == null) {
+                    return nullCursor; // 返回一个空对象标识，避免出现异常
+                } else {
+                    return position;
+                }
+            }
+        });
+
+        batches = MigrateMap.makeComputingMap(new Function<ClientIdentity, MemoryClientIdentityBatch>() {
+
+            public MemoryClientIdentityBatch apply(ClientIdentity clientIdentity) {
+                // 读取一下zookeeper中未ack的batch，batchId会从最大值之后继续分配
+                MemoryClientIdentityBatch batches = MemoryClientIdentityBatch.create(clientIdentity);
+                Map<Long, PositionRange> positionRanges = zooKeeperMetaManager.listAllBatchs(clientIdentity);
+                for (Map.Entry<Long, PositionRange> entry : positionRanges.entrySet()) {
+                    batches.addPositionRange(entry.getValue(), entry.getKey()); // 添加记录到指定batchId
+                }
+                return batches;
+            }
+        });
+
+        pendings = new HashMap<ClientIdentity, PendingCommit>();
+        pendingCount = 0;
+        resyncs = new HashSet<ClientIdentity>();
+        prepared = new HashSet<ClientIdentity>();
+        cursorNodes = new HashSet<ClientIdentity>();
+
+        executor.scheduleWithFixedDelay(flushTask, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 关闭前提交剩余的变更
+        try {
+            flush();
+        } catch (Throwable e) {
+            logger.error("group commit before stop failed!", e);
+        }
+
+        super.stop();
+        if (zooKeeperMetaManager.isStart()) {
+            zooKeeperMetaManager.stop();
+        }
+
+        destinations.clear();
+        batches.clear();
+    }
+
+    public void subscribe(final ClientIdentity clientIdentity) throws CanalMetaManagerException {
+        super.subscribe(clientIdentity);
+
+        // 订阅信息频率发生比较低，和提交在同一个线程中顺序执行即可
+        executor.submit(new Runnable() {
+
+            public void run() {
+                zooKeeperMetaManager.subscribe(clientIdentity);
+            }
+        });
+    }
+
+    public void unsubscribe(final ClientIdentity clientIdentity) throws CanalMetaManagerException {
+        super.unsubscribe(clientIdentity);
+
+        synchronized (lock) {
+            pendings.remove(clientIdentity);
+            resyncs.remove(clientIdentity);
+        }
+
+        executor.submit(new Runnable() {
+
+            public void run() {
+                prepared.remove(clientIdentity);
+                cursorNodes.remove(clientIdentity);
+                zooKeeperMetaManager.unsubscribe(clientIdentity);
+            }
+        });
+    }
+
+    public Position getCursor(ClientIdentity clientIdentity) throws CanalMetaManagerException {
+        Position position = super.getCursor(clientIdentity);
+        if (position == nullCursor) {
+            return null;
+        } else {
+            return position;
+        }
+    }
+
+    public void updateCursor(ClientIdentity clientIdentity, Position position) throws CanalMetaManagerException {
+        synchronized (lock) {
+            super.updateCursor(clientIdentity, position);
+            getPending(clientIdentity).cursor = position;
+            pendingCount++;
+        }
+        checkCommit();
+    }
+
+    public Long addBatch(ClientIdentity clientIdentity, PositionRange positionRange) throws CanalMetaManagerException {
+        Long batchId = null;
+        synchronized (lock) {
+            batchId = super.addBatch(clientIdentity, positionRange);
+            getPending(clientIdentity).adds.put(batchId, positionRange);
+            pendingCount++;
+        }
+        checkCommit();
+        return batchId;
+    }
+
+    public void addBatch(ClientIdentity clientIdentity, PositionRange positionRange, Long batchId)
+                                                                                                  throws CanalMetaManagerException {
+        synchronized (lock) {
+            super.addBatch(clientIdentity, positionRange, batchId);
+            getPending(clientIdentity).adds.put(batchId, positionRange);
+            pendingCount++;
+        }
+        checkCommit();
+    }
+
+    public PositionRange removeBatch(ClientIdentity clientIdentity, Long batchId) throws CanalMetaManagerException {
+        PositionRange positionRange = null;
+        synchronized (lock) {
+            positionRange = super.removeBatch(clientIdentity, batchId);
+            if (positionRange != null) {
+                getPending(clientIdentity).remove(batchId);
+                pendingCount++;
+            }
+        }
+        checkCommit();
+        return positionRange;
+    }
+
+    public void clearAllBatchs(ClientIdentity clientIdentity) throws CanalMetaManagerException {
+        synchronized (lock) {
+            Set<Long> batchIds = super.listAllBatchs(clientIdentity).keySet();
+            super.clearAllBatchs(clientIdentity);
+            PendingCommit pending = getPending(clientIdentity);
+            for (Long batchId : batchIds) {
+                pending.remove(batchId);
+            }
+            pendingCount += batchIds.size();
+        }
+        checkCommit();
+    }
+
+    // ================= group commit ====================
+
+    private PendingCommit getPending(ClientIdentity clientIdentity) {
+        PendingCommit pending = pendings.get(clientIdentity);
+        if (pending == null) {
+            pending = new PendingCommit();
+            pendings.put(clientIdentity, pending);
+        }
+        return pending;
+    }
+
+    private void checkCommit() {
+        if (pendingCount >= commitCount && flushing.compareAndSet(false, true)) {
+            executor.submit(flushTask);
+        }
+    }
+
+    /**
+     * 将待提交的变更合并为multi请求提交到zookeeper，只在提交线程中调用
+     */
+    private void flush() {
+        Map<ClientIdentity, PendingCommit> commits = null;
+        Map<ClientIdentity, PendingCommit> snapshots = new HashMap<ClientIdentity, PendingCommit>();
+        synchronized (lock) {
+            if (pendings.isEmpty() && resyncs.isEmpty()) {
+                return;
+            }
+
+            commits = pendings;
+            pendings = new HashMap<ClientIdentity, PendingCommit>();
+            pendingCount = 0;
+            for (ClientIdentity clientIdentity : resyncs) {
+                // 以内存中的最新数据为准做全量修复，之前的变更不再单独提交
+                commits.remove(clientIdentity);
+                PendingCommit snapshot = new PendingCommit();
+                snapshot.cursor = getCursor(clientIdentity);
+                snapshot.adds.putAll(super.listAllBatchs(clientIdentity));
+                snapshots.put(clientIdentity, snapshot);
+            }
+            resyncs.clear();
+        }
+
+        for (Map.Entry<ClientIdentity, PendingCommit> entry : snapshots.entrySet()) {
+            try {
+                resync(entry.getKey(), entry.getValue());
+            } catch (Throwable e) {
+                logger.error("resync " + entry.getKey().toString() + " meta failed!", e);
+                markResync(entry.getKey());
+            }
+        }
+
+        List<Op> ops = new ArrayList<Op>();
+        List<ClientIdentity> clientIdentities = new ArrayList<ClientIdentity>();
+        for (Map.Entry<ClientIdentity, PendingCommit> entry : commits.entrySet()) {
+            ClientIdentity clientIdentity = entry.getKey();
+            try {
+                prepare(clientIdentity);
+            } catch (Throwable e) {
+                logger.error("prepare " + clientIdentity.toString() + " meta failed!", e);
+                markResync(clientIdentity);
+                continue;
+            }
+
+            List<Op> clientOps = buildOps(clientIdentity, entry.getValue());
+            if (!ops.isEmpty() && ops.size() + clientOps.size() > MAX_MULTI_OPS) {
+                commit(ops, clientIdentities, commits);
+                ops = new ArrayList<Op>();
+                clientIdentities = new ArrayList<ClientIdentity>();
+            }
+            ops.addAll(clientOps);
+            clientIdentities.add(clientIdentity);
+        }
+
+        if (!ops.isEmpty()) {
+            commit(ops, clientIdentities, commits);
+        }
+    }
+
+    private void commit(List<Op> ops, List<ClientIdentity> clientIdentities, Map<ClientIdentity, PendingCommit> commits) {
+        try {
+            zkClientx.multi(ops);
+            for (ClientIdentity clientIdentity : clientIdentities) {
+                if (commits.get(clientIdentity).cursor != null) {
+                    cursorNodes.add(clientIdentity);
+                }
+            }
+        } catch (Throwable e) {
+            logger.error("group commit " + clientIdentities.toString() + " failed, resync later!", e);
+            for (ClientIdentity clientIdentity : clientIdentities) {
+                markResync(clientIdentity);
+            }
+        }
+    }
+
+    /**
+     * 同一个客户端的操作顺序为：删除batch -> 新增batch -> 更新cursor，即使被拆分为多次multi提交，cursor也不会超过已ack的位置
+     */
+    private List<Op> buildOps(ClientIdentity clientIdentity, PendingCommit pending) {
+        List<Op> ops = new ArrayList<Op>();
+        for (Long batchId : pending.removes) {
+            ops.add(Op.delete(getBatchPath(clientIdentity, batchId), -1));
+        }
+
+        for (Map.Entry<Long, PositionRange> entry : pending.adds.entrySet()) {
+            byte[] data = JsonUtils.marshalToByte(entry.getValue(), SerializerFeature.WriteClassName);
+            ops.add(Op.create(getBatchPath(clientIdentity, entry.getKey()),
+                data,
+                Ids.OPEN_ACL_UNSAFE,
+                CreateMode.PERSISTENT));
+        }
+
+        if (pending.cursor != null) {
+            String path = ZookeeperPathUtils.getCursorPath(clientIdentity.getDestination(),
+                clientIdentity.getClientId());
+            byte[] data = JsonUtils.marshalToByte(pending.cursor, SerializerFeature.WriteClassName);
+            if (cursorNodes.contains(clientIdentity)) {
+                ops.add(Op.setData(path, data, -1));
+            } else {
+                ops.add(Op.create(path, data, Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT));
+            }
+        }
+        return ops;
+    }
+
+    /**
+     * multi不支持自动创建父节点，第一次提交前先创建好batch_mark节点
+     */
+    private void prepare(ClientIdentity clientIdentity) {
+        if (prepared.contains(clientIdentity)) {
+            return;
+        }
+
+        zkClientx.createPersistent(ZookeeperPathUtils.getBatchMarkPath(clientIdentity.getDestination(),
+            clientIdentity.getClientId()), true);
+        if (zkClientx.exists(ZookeeperPathUtils.getCursorPath(clientIdentity.getDestination(),
+            clientIdentity.getClientId()))) {
+            cursorNodes.add(clientIdentity);
+        }
+        prepared.add(clientIdentity);
+    }
+
+    /**
+     * 以内存快照为准修复zookeeper中的数据，同样按照删除batch -> 新增batch -> 更新cursor的顺序
+     */
+    private void resync(ClientIdentity clientIdentity, PendingCommit snapshot) {
+        String path = ZookeeperPathUtils.getBatchMarkPath(clientIdentity.getDestination(), clientIdentity.getClientId());
+        zkClientx.createPersistent(path, true);
+        prepared.add(clientIdentity);
+
+        Set<Long> exists = new HashSet<Long>();
+        for (String node : zkClientx.getChildren(path)) {
+            Long batchId = ZookeeperPathUtils.getBatchMarkId(node);
+            if (snapshot.adds.containsKey(batchId)) {
+                exists.add(batchId);
+            } else {
+                zkClientx.delete(path + ZookeeperPathUtils.ZOOKEEPER_SEPARATOR + node);
+            }
+        }
+
+        for (Map.Entry<Long, PositionRange> entry : snapshot.adds.entrySet()) {
+            if (!exists.contains(entry.getKey())) {
+                zooKeeperMetaManager.addBatch(clientIdentity, entry.getValue(), entry.getKey());
+            }
+        }
+
+        if (snapshot.cursor != null) {
+            zooKeeperMetaManager.updateCursor(clientIdentity, snapshot.cursor);
+            cursorNodes.add(clientIdentity);
+        }
+        logger.warn("resync {} meta to zookeeper successful", clientIdentity.toString());
+    }
+
+    private void markResync(ClientIdentity clientIdentity) {
+        synchronized (lock) {
+            resyncs.add(clientIdentity);
+        }
+    }
+
+    private String getBatchPath(ClientIdentity clientIdentity, Long batchId) {
+        return ZookeeperPathUtils.getBatchMarkWithIdPath(clientIdentity.getDestination(),
+            clientIdentity.getClientId(),
+            batchId);
+    }
+
+    /**
+     * 一个客户端在一个提交周期内的变更
+     */
+    private static class PendingCommit {
+
+        private Position                       cursor;                                        // 最新的cursor，null代表没有变化
+        private final Map<Long, PositionRange> adds    = new LinkedHashMap<Long, PositionRange>(); // 新增还未写入zookeeper的batch
+        private final Set<Long>                removes = new LinkedHashSet<Long>();          // 已写入zookeeper需要删除的batch
+
+        public void remove(Long batchId) {
+            if (adds.remove(batchId) == null) {
+                removes.add(batchId);
+            }
+        }
+    }
+
+    // =============== setter / getter ================
+
+    public void setZooKeeperMetaManager(ZooKeeperMetaManager zooKeeperMetaManager) {
+        this.zooKeeperMetaManager = zooKeeperMetaManager;
+    }
+
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    public void setCommitCount(int commitCount) {
+        this.commitCount = commitCount;
+    }
+
+}
@@ -1,9 +1,9 @@
 package com.alibaba.otter.canal.meta;
 
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
@@ -14,7 +14,6 @@ import com.alibaba.otter.canal.protocol.position.PositionRange;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
-import com.google.common.collect.Maps;
 import com.google.common.collect.MigrateMap;
 
 /**
@@ -131,12 +130,20 @@ public class MemoryMetaManager extends AbstractCanalLifeCycle implements CanalMe
 
     // ============================
 
-    //每一个客户端持有一个该对象
+    /**
+     * 每一个客户端持有一个该对象
+     * 
+     * <pre>
+     * batchId单调递增分配，基于跳表按batchId排序保存，读写都不需要加锁：
+     * 1. first/lastest直接取跳表的头/尾，不再遍历所有batchId
+     * 2. 移除时只需要和跳表的头比较，保证按batchId的顺序ack/rollback
+     * </pre>
+     */
     public static class MemoryClientIdentityBatch {
 
-        private ClientIdentity           clientIdentity;//客户端对象
-        private Map<Long, PositionRange> batches          = new MapMaker().makeMap();//每一个客户端批处理ID以及对应的批处理信息
-        private AtomicLong               atomicMaxBatchId = new AtomicLong(1);//自动更新批处理ID的最大值
+        private ClientIdentity                             clientIdentity;//客户端对象
+        private ConcurrentSkipListMap<Long, PositionRange> batches          = new ConcurrentSkipListMap<Long, PositionRange>();//每一个客户端批处理ID以及对应的批处理信息
+        private AtomicLong                                 atomicMaxBatchId = new AtomicLong(1);//自动更新批处理ID的最大值
 
         public static MemoryClientIdentityBatch create(ClientIdentity clientIdentity) {
             return new MemoryClientIdentityBatch(clientIdentity);
@@ -151,74 +158,63 @@ public class MemoryMetaManager extends AbstractCanalLifeCycle implements CanalMe
         }
 
         //添加一个批处理ID
-        public synchronized void addPositionRange(PositionRange positionRange, Long batchId) {
+        public void addPositionRange(PositionRange positionRange, Long batchId) {
             updateMaxId(batchId);//更新批处理ID
             batches.put(batchId, positionRange);
         }
 
-        public synchronized Long addPositionRange(PositionRange positionRange) {
+        public Long addPositionRange(PositionRange positionRange) {
             Long batchId = atomicMaxBatchId.getAndIncrement();//自动更新批处理
             batches.put(batchId, positionRange);
             return batchId;
         }
 
         //移除一个批处理
-        public synchronized PositionRange removePositionRange(Long batchId) {
-            if (batches.containsKey(batchId)) {
-                Long minBatchId = Collections.min(batches.keySet());
-                if (!minBatchId.equals(batchId)) {//移除的必须是最小的批处理
-                    // 检查一下提交的ack/rollback，必须按batchId分出去的顺序提交，否则容易出现丢数据
-                    throw new CanalMetaManagerException(String.format("batchId:%d is not the firstly:%d",
-                        batchId,
-                        minBatchId));
-                }
-                return batches.remove(batchId);
-            } else {
+        public PositionRange removePositionRange(Long batchId) {
+            Map.Entry<Long, PositionRange> first = batches.firstEntry();
+            if (first == null || !batches.containsKey(batchId)) {
                 return null;
             }
+
+            if (!first.getKey().equals(batchId)) {//移除的必须是最小的批处理
+                // 检查一下提交的ack/rollback，必须按batchId分出去的顺序提交，否则容易出现丢数据
+                throw new CanalMetaManagerException(String.format("batchId:%d is not the firstly:%d",
+                    batchId,
+                    first.getKey()));
+            }
+            return batches.remove(batchId);
         }
 
         //获取一个批处理信息
-        public synchronized PositionRange getPositionRange(Long batchId) {
+        public PositionRange getPositionRange(Long batchId) {
             return batches.get(batchId);
         }
 
         //最新的批处理
-        public synchronized PositionRange getLastestPositionRange() {
-            if (batches.size() == 0) {
-                return null;
-            } else {
-                Long batchId = Collections.max(batches.keySet());
-                return batches.get(batchId);
-            }
+        public PositionRange getLastestPositionRange() {
+            Map.Entry<Long, PositionRange> entry = batches.lastEntry();
+            return entry == null ? null : entry.getValue();
         }
 
         //最早的批处理
-        public synchronized PositionRange getFirstPositionRange() {
-            if (batches.size() == 0) {
-                return null;
-            } else {
-                Long batchId = Collections.min(batches.keySet());
-                return batches.get(batchId);
-            }
+        public PositionRange getFirstPositionRange() {
+            Map.Entry<Long, PositionRange> entry = batches.firstEntry();
+            return entry == null ? null : entry.getValue();
         }
 
-        //所有批处理
-        public synchronized Map<Long, PositionRange> listAllPositionRange() {
-            Set<Long> batchIdSets = batches.keySet();
-            List<Long> batchIds = Lists.newArrayList(batchIdSets);
-            Collections.sort(Lists.newArrayList(batchIds));
-
-            return Maps.newHashMap(batches);
+        //所有批处理，按batchId从小到大排列
+        public Map<Long, PositionRange> listAllPositionRange() {
+            return new LinkedHashMap<Long, PositionRange>(batches);
         }
 
-        public synchronized void clearPositionRanges() {
+        public void clearPositionRanges() {
             batches.clear();
         }
 
-        private synchronized void updateMaxId(Long batchId) {
-            if (atomicMaxBatchId.get() < batchId + 1) {
-                atomicMaxBatchId.set(batchId + 1);
+        private void updateMaxId(Long batchId) {
+            long current = atomicMaxBatchId.get();
+            while (current < batchId + 1 && !atomicMaxBatchId.compareAndSet(current, batchId + 1)) {
+                current = atomicMaxBatchId.get();
             }
         }
 
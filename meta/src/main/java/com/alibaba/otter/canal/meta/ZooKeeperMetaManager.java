@@ -338,4 +338,8 @@ public class ZooKeeperMetaManager extends AbstractCanalLifeCycle implements Cana
         this.zkClientx = zkClientx;
     }
 
+    public ZkClientx getZkClientx() {
+        return zkClientx;
+    }
+
 }
@@ -0,0 +1,272 @@
+package com.alibaba.otter.canal.meta.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alibaba.otter.canal.common.utils.JsonUtils;
+import com.alibaba.otter.canal.meta.exception.CanalMetaManagerException;
+
+/**
+ * 单个destination的append-only meta journal
+ *
+ * <pre>
+ * 文件：dataDir/destination/meta.snapshot + meta.journal
+ * 文件头 : [4字节magic][8字节generation]
+ * 记录   : [4字节长度][4字节crc32][json数据]
+ *
+ * 1. journal只追加写，多条记录写入后一次force，由调用方合并多个请求(group commit)
+ * 2. 压缩时将完整状态写入generation+1的snapshot(先写临时文件再rename)，然后将journal重置为新的generation
+ * 3. 加载时先回放snapshot，再回放generation相同的journal；generation更小的journal已经合并到snapshot中，直接丢弃
+ * 4. journal尾部长度不足或crc校验失败的记录视为崩溃时未写完的数据，截断后继续追加
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:30:46
+ * @version 1.0.22
+ */
+public class MetaJournal {
+
+    private static final Logger logger             = LoggerFactory.getLogger(MetaJournal.class);
+    private static final int    MAGIC              = 0x434D4A31;                                // CMJ1
+    private static final int    HEADER_SIZE        = 12;
+    private static final int    RECORD_HEADER_SIZE = 8;
+    private static final int    MAX_RECORD_SIZE    = 16 * 1024 * 1024;
+    private static final String JOURNAL_FILE       = "meta.journal";
+    private static final String SNAPSHOT_FILE      = "meta.snapshot";
+
+    private final File          dataDir;
+    private long                generation         = 0;
+    private RandomAccessFile    journalFile;
+    private FileChannel         channel;
+    private long                size;                                                           // journal当前的有效长度
+
+    public MetaJournal(File dataDir){
+        this.dataDir = dataDir;
+    }
+
+    /**
+     * 打开journal，按顺序返回snapshot和journal中的所有有效记录
+     */
+    public List<MetaJournalRecord> open() throws IOException {
+        if (!dataDir.exists()) {
+            FileUtils.forceMkdir(dataDir);
+        }
+
+        List<MetaJournalRecord> records = new ArrayList<MetaJournalRecord>();
+        File snapshot = new File(dataDir, SNAPSHOT_FILE);
+        if (snapshot.exists()) {
+            RandomAccessFile snapshotFile = new RandomAccessFile(snapshot, "r");
+            try {
+                FileChannel snapshotChannel = snapshotFile.getChannel();
+                generation = readHeader(snapshotChannel);
+                long end = readRecords(snapshotChannel, records);
+                if (generation < 0 || end != snapshotChannel.size()) {
+                    // snapshot是通过rename原子生成的，不应该出现不完整的数据
+                    throw new CanalMetaManagerException("snapshot[" + snapshot.getPath() + "] is corrupted");
+                }
+            } finally {
+                snapshotFile.close();
+            }
+        }
+
+        journalFile = new RandomAccessFile(new File(dataDir, JOURNAL_FILE), "rw");
+        channel = journalFile.getChannel();
+        long journalGeneration = readHeader(channel);
+        if (journalGeneration == generation) {
+            size = readRecords(channel, records);
+            if (size < channel.size()) {
+                logger.warn("truncate journal[{}] from {} to {}", new Object[] { dataDir.getPath(), channel.size(),
+                        size });
+                channel.truncate(size);
+            }
+        } else if (journalGeneration > generation) {
+            throw new CanalMetaManagerException("journal generation:" + journalGeneration
+                                                + " is newer than snapshot generation:" + generation
+                                                + ", snapshot may be lost");
+        } else {
+            reset(generation); // 新建的文件，或者压缩时snapshot已生成但journal还未重置
+        }
+        return records;
+    }
+
+    /**
+     * 追加写入一组记录，需要调用{@linkplain #sync()}后才能保证落盘
+     */
+    public void append(List<MetaJournalRecord> records) throws IOException {
+        ByteBuffer buffer = encode(records);
+        writeFully(channel, buffer, size);
+        size += buffer.limit();
+    }
+
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * 将完整的状态写入新的snapshot，并重置journal
+     */
+    public void compact(List<MetaJournalRecord> records) throws IOException {
+        long nextGeneration = generation + 1;
+        File snapshot = new File(dataDir, SNAPSHOT_FILE);
+        File tmp = new File(dataDir, SNAPSHOT_FILE + ".tmp");
+        RandomAccessFile tmpFile = new RandomAccessFile(tmp, "rw");
+        try {
+            FileChannel tmpChannel = tmpFile.getChannel();
+            tmpChannel.truncate(0);
+            writeFully(tmpChannel, header(nextGeneration), 0);
+            writeFully(tmpChannel, encode(records), HEADER_SIZE);
+            tmpChannel.force(true);
+        } finally {
+            tmpFile.close();
+        }
+
+        if (!tmp.renameTo(snapshot)) {
+            // 部分平台rename不能覆盖已有文件，此时journal仍然是上一个generation，删除后重试
+            FileUtils.forceDelete(snapshot);
+            if (!tmp.renameTo(snapshot)) {
+                throw new IOException("rename " + tmp.getPath() + " to " + snapshot.getPath() + " failed");
+            }
+        }
+
+        reset(nextGeneration);
+    }
+
+    public void close() throws IOException {
+        if (journalFile != null) {
+            channel.close();
+            journalFile.close();
+            journalFile = null;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * journal中是否有header之外的记录
+     */
+    public boolean isEmpty() {
+        return size <= HEADER_SIZE;
+    }
+
+    // ============================ helper method ======================
+
+    private void reset(long newGeneration) throws IOException {
+        channel.truncate(0);
+        writeFully(channel, header(newGeneration), 0);
+        channel.force(true);
+        generation = newGeneration;
+        size = HEADER_SIZE;
+    }
+
+    private ByteBuffer header(long headerGeneration) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putLong(headerGeneration);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 读取文件头，返回generation，文件头不完整时返回-1
+     */
+    private long readHeader(FileChannel fileChannel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        if (!readFully(fileChannel, buffer, 0) || buffer.getInt(0) != MAGIC) {
+            return -1;
+        }
+        return buffer.getLong(4);
+    }
+
+    /**
+     * 从文件头之后读取所有有效的记录，返回最后一条有效记录的结束位置
+     */
+    private long readRecords(FileChannel fileChannel, List<MetaJournalRecord> records) throws IOException {
+        long position = HEADER_SIZE;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        while (true) {
+            header.clear();
+            if (!readFully(fileChannel, header, position)) {
+                break;
+            }
+
+            int length = header.getInt(0);
+            int checksum = header.getInt(4);
+            if (length <= 0 || length > MAX_RECORD_SIZE) {
+                break;
+            }
+
+            ByteBuffer data = ByteBuffer.allocate(length);
+            if (!readFully(fileChannel, data, position + RECORD_HEADER_SIZE)) {
+                break;
+            }
+
+            crc.reset();
+            crc.update(data.array(), 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            try {
+                records.add(JsonUtils.unmarshalFromByte(data.array(), MetaJournalRecord.class));
+            } catch (Throwable e) {
+                logger.warn("parse journal record at " + position + " failed", e);
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private ByteBuffer encode(List<MetaJournalRecord> records) {
+        List<byte[]> datas = new ArrayList<byte[]>(records.size());
+        int length = 0;
+        for (MetaJournalRecord record : records) {
+            byte[] data = JsonUtils.marshalToByte(record, SerializerFeature.WriteClassName);
+            datas.add(data);
+            length += RECORD_HEADER_SIZE + data.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        CRC32 crc = new CRC32();
+        for (byte[] data : datas) {
+            crc.reset();
+            crc.update(data, 0, data.length);
+            buffer.putInt(data.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(data);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private boolean readFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = fileChannel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    private void writeFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer, position + buffer.position());
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.alibaba.otter.canal.meta.journal;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import com.alibaba.otter.canal.common.utils.CanalToStringStyle;
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.protocol.position.PositionRange;
+
+/**
+ * meta journal中的一条变更记录
+ *
+ * @author agent 2026-10-18 上午05:30:46
+ * @version 1.0.22
+ */
+public class MetaJournalRecord implements Serializable {
+
+    private static final long serialVersionUID = -3051233816467245384L;
+
+    public static enum RecordType {
+        /** 订阅 */
+        SUBSCRIBE,
+        /** 取消订阅 */
+        UNSUBSCRIBE,
+        /** 新增batch */
+        ADD_BATCH,
+        /** 删除batch */
+        REMOVE_BATCH,
+        /** 清空所有batch */
+        CLEAR_BATCH,
+        /** 更新cursor */
+        CURSOR;
+    }
+
+    private RecordType     type;
+    private ClientIdentity clientIdentity;
+    private Long           batchId;
+    private PositionRange  positionRange;
+    private Position       cursor;
+
+    public MetaJournalRecord(){
+
+    }
+
+    public MetaJournalRecord(RecordType type, ClientIdentity clientIdentity){
+        this.type = type;
+        this.clientIdentity = clientIdentity;
+    }
+
+    public static MetaJournalRecord subscribe(ClientIdentity clientIdentity) {
+        return new MetaJournalRecord(RecordType.SUBSCRIBE, clientIdentity);
+    }
+
+    public static MetaJournalRecord unsubscribe(ClientIdentity clientIdentity) {
+        return new MetaJournalRecord(RecordType.UNSUBSCRIBE, clientIdentity);
+    }
+
+    public static MetaJournalRecord addBatch(ClientIdentity clientIdentity, Long batchId, PositionRange positionRange) {
+        MetaJournalRecord record = new MetaJournalRecord(RecordType.ADD_BATCH, clientIdentity);
+        record.setBatchId(batchId);
+        record.setPositionRange(positionRange);
+        return record;
+    }
+
+    public static MetaJournalRecord removeBatch(ClientIdentity clientIdentity, Long batchId) {
+        MetaJournalRecord record = new MetaJournalRecord(RecordType.REMOVE_BATCH, clientIdentity);
+        record.setBatchId(batchId);
+        return record;
+    }
+
+    public static MetaJournalRecord clearBatch(ClientIdentity clientIdentity) {
+        return new MetaJournalRecord(RecordType.CLEAR_BATCH, clientIdentity);
+    }
+
+    public static MetaJournalRecord cursor(ClientIdentity clientIdentity, Position cursor) {
+        MetaJournalRecord record = new MetaJournalRecord(RecordType.CURSOR, clientIdentity);
+        record.setCursor(cursor);
+        return record;
+    }
+
+    public RecordType getType() {
+        return type;
+    }
+
+    public void setType(RecordType type) {
+        this.type = type;
+    }
+
+    public ClientIdentity getClientIdentity() {
+        return clientIdentity;
+    }
+
+    public void setClientIdentity(ClientIdentity clientIdentity) {
+        this.clientIdentity = clientIdentity;
+    }
+
+    public Long getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(Long batchId) {
+        this.batchId = batchId;
+    }
+
+    public PositionRange getPositionRange() {
+        return positionRange;
+    }
+
+    public void setPositionRange(PositionRange positionRange) {
+        this.positionRange = positionRange;
+    }
+
+    public Position getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(Position cursor) {
+        this.cursor = cursor;
+    }
+
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, CanalToStringStyle.DEFAULT_STYLE);
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.alibaba.otter.canal.meta;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.meta.exception.CanalMetaManagerException;
+import com.alibaba.otter.canal.meta.journal.MetaJournal;
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.protocol.position.PositionRange;
+
+public class FileJournalMetaManagerTest extends AbstractMetaManagerTest {
+
+    private static final String tmp     = System.getProperty("java.io.tmpdir", "/tmp");
+    private static final File   dataDir = new File(tmp, "canal_journal");
+
+    @Before
+    public void setUp() {
+        try {
+            FileUtils.deleteDirectory(dataDir);
+        } catch (IOException e) {
+            Assert.fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSubscribeAll() {
+        FileJournalMetaManager metaManager = buildMetaManager();
+        metaManager.start();
+        doSubscribeTest(metaManager);
+
+        // subscribe返回时已经落盘，不需要等待
+        FileJournalMetaManager metaManager2 = buildMetaManager();
+        metaManager2.start();
+
+        List<ClientIdentity> clients = metaManager2.listAllSubscribeInfo(destination);
+        Assert.assertEquals(2, clients.size());
+        metaManager2.stop();
+        metaManager.stop();
+    }
+
+    @Test
+    public void testBatchAll() {
+        FileJournalMetaManager metaManager = buildMetaManager();
+        metaManager.start();
+        doBatchTest(metaManager);
+        Map<Long, PositionRange> ranges = metaManager.listAllBatchs(clientIdentity);
+        metaManager.stop();
+
+        // 未ack的batch也会持久化
+        FileJournalMetaManager metaManager2 = buildMetaManager();
+        metaManager2.start();
+        Assert.assertEquals(ranges, metaManager2.listAllBatchs(clientIdentity));
+
+        metaManager2.clearAllBatchs(clientIdentity);
+        Assert.assertEquals(0, metaManager2.listAllBatchs(clientIdentity).size());
+        metaManager2.stop();
+    }
+
+    @Test
+    public void testCursorAll() {
+        FileJournalMetaManager metaManager = buildMetaManager();
+        metaManager.start();
+        Position lastPosition = doCursorTest(metaManager);
+
+        // updateCursor返回时已经落盘，不需要等待
+        FileJournalMetaManager metaManager2 = buildMetaManager();
+        metaManager2.start();
+
+        Position position = metaManager2.getCursor(clientIdentity);
+        Assert.assertEquals(position, lastPosition);
+        metaManager2.stop();
+        metaManager.stop();
+    }
+
+    @Test
+    public void testCompactAndTornTail() throws IOException {
+        FileJournalMetaManager metaManager = buildMetaManager();
+        metaManager.setCompactSize(256); // 每次写入后都触发压缩
+        metaManager.start();
+        doBatchTest(metaManager);
+        Position lastPosition = doCursorTest(metaManager);
+        Map<Long, PositionRange> ranges = metaManager.listAllBatchs(clientIdentity);
+        metaManager.stop();
+
+        // 模拟崩溃时写了一半的记录
+        FileOutputStream output = new FileOutputStream(new File(new File(dataDir, destination), "meta.journal"), true);
+        try {
+            output.write(new byte[] { 0, 0, 1, 0, 1, 2, 3 });
+        } finally {
+            output.close();
+        }
+
+        FileJournalMetaManager metaManager2 = buildMetaManager();
+        metaManager2.start();
+        Assert.assertEquals(lastPosition, metaManager2.getCursor(clientIdentity));
+        Assert.assertEquals(ranges, metaManager2.listAllBatchs(clientIdentity));
+
+        // 截断后可以继续追加
+        metaManager2.removeBatch(clientIdentity, minBatchId(ranges));
+        metaManager2.stop();
+
+        FileJournalMetaManager metaManager3 = buildMetaManager();
+        metaManager3.start();
+        Assert.assertEquals(ranges.size() - 1, metaManager3.listAllBatchs(clientIdentity).size());
+        metaManager3.stop();
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteFailed() throws Exception {
+        FileJournalMetaManager metaManager = buildMetaManager();
+        metaManager.start();
+        Position lastPosition = doCursorTest(metaManager);
+
+        // 模拟磁盘故障，journal的写入和压缩都会失败
+        closeJournal(metaManager);
+        try {
+            metaManager.updateCursor(clientIdentity, lastPosition);
+            Assert.fail();
+        } catch (CanalMetaManagerException e) {
+            // ack返回异常，而不是一直等待落盘
+        }
+
+        try {
+            metaManager.subscribe(clientIdentity);
+            Assert.fail();
+        } catch (CanalMetaManagerException e) {
+            // ignore
+        }
+        metaManager.stop();
+    }
+
+    private void closeJournal(FileJournalMetaManager metaManager) throws Exception {
+        Field journalsField = FileJournalMetaManager.class.getDeclaredField("journals");
+        journalsField.setAccessible(true);
+        Object destinationJournal = ((Map<?, ?>) journalsField.get(metaManager)).get(destination);
+        Field journalField = destinationJournal.getClass().getDeclaredField("journal");
+        journalField.setAccessible(true);
+        ((MetaJournal) journalField.get(destinationJournal)).close();
+    }
+
+    private Long minBatchId(Map<Long, PositionRange> ranges) {
+        Long min = null;
+        for (Long batchId : ranges.keySet()) {
+            if (min == null || batchId < min) {
+                min = batchId;
+            }
+        }
+        return min;
+    }
+
+    private FileJournalMetaManager buildMetaManager() {
+        FileJournalMetaManager metaManager = new FileJournalMetaManager();
+        metaManager.setDataDir(dataDir);
+        metaManager.setPeriod(100);
+        return metaManager;
+    }
+}
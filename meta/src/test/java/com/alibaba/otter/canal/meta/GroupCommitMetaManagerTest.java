@@ -0,0 +1,113 @@
+package com.alibaba.otter.canal.meta;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.common.zookeeper.ZkClientx;
+import com.alibaba.otter.canal.common.zookeeper.ZookeeperPathUtils;
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.protocol.position.PositionRange;
+
+public class GroupCommitMetaManagerTest extends AbstractMetaManagerTest {
+
+    private ZkClientx zkclientx = new ZkClientx(cluster1 + ";" + cluster2);
+
+    @Before
+    public void setUp() {
+        String path = ZookeeperPathUtils.getDestinationPath(destination);
+        zkclientx.deleteRecursive(path);
+    }
+
+    @After
+    public void tearDown() {
+        String path = ZookeeperPathUtils.getDestinationPath(destination);
+        zkclientx.deleteRecursive(path);
+    }
+
+    @Test
+    public void testSubscribeAll() {
+        GroupCommitMetaManager metaManager = buildMetaManager();
+        metaManager.start();
+        doSubscribeTest(metaManager);
+
+        sleep(1000L);
+        // 重新构建一次，能获得上一次zk上的记录
+        GroupCommitMetaManager metaManager2 = buildMetaManager();
+        metaManager2.start();
+
+        List<ClientIdentity> clients = metaManager2.listAllSubscribeInfo(destination);
+        Assert.assertEquals(2, clients.size());
+        metaManager.stop();
+    }
+
+    @Test
+    public void testBatchAll() {
+        GroupCommitMetaManager metaManager = buildMetaManager();
+        metaManager.start();
+        doBatchTest(metaManager);
+
+        sleep(1000L);
+        // 未ack的batch也会提交到zk中
+        GroupCommitMetaManager metaManager2 = buildMetaManager();
+        metaManager2.start();
+        Assert.assertEquals(metaManager.listAllBatchs(clientIdentity), metaManager2.listAllBatchs(clientIdentity));
+
+        metaManager.clearAllBatchs(clientIdentity);
+        Map<Long, PositionRange> ranges = metaManager.listAllBatchs(clientIdentity);
+        Assert.assertEquals(0, ranges.size());
+        metaManager.stop();
+
+        // 关闭时会提交剩余的变更
+        GroupCommitMetaManager metaManager3 = buildMetaManager();
+        metaManager3.start();
+        Assert.assertEquals(0, metaManager3.listAllBatchs(clientIdentity).size());
+        metaManager3.stop();
+    }
+
+    @Test
+    public void testCursorAll() {
+        GroupCommitMetaManager metaManager = buildMetaManager();
+        metaManager.start();
+        Position lastPosition = doCursorTest(metaManager);
+
+        sleep(1000L);
+        // 重新构建一次，能获得上一次zk上的记录
+        GroupCommitMetaManager metaManager2 = buildMetaManager();
+        metaManager2.start();
+
+        Position position = metaManager2.getCursor(clientIdentity);
+        Assert.assertEquals(position, lastPosition);
+        metaManager.stop();
+    }
+
+    @Test
+    public void testCommitCount() {
+        GroupCommitMetaManager metaManager = buildMetaManager();
+        metaManager.setPeriod(60 * 1000L); // 只依赖数量触发提交
+        metaManager.setCommitCount(1);
+        metaManager.start();
+        doBatchTest(metaManager);
+
+        sleep(1000L);
+        ZooKeeperMetaManager zooKeeperMetaManager = new ZooKeeperMetaManager();
+        zooKeeperMetaManager.setZkClientx(zkclientx);
+        Map<Long, PositionRange> ranges = zooKeeperMetaManager.listAllBatchs(clientIdentity);
+        Assert.assertEquals(metaManager.listAllBatchs(clientIdentity), ranges);
+        metaManager.stop();
+    }
+
+    private GroupCommitMetaManager buildMetaManager() {
+        ZooKeeperMetaManager zooKeeperMetaManager = new ZooKeeperMetaManager();
+        zooKeeperMetaManager.setZkClientx(zkclientx);
+
+        GroupCommitMetaManager metaManager = new GroupCommitMetaManager();
+        metaManager.setZooKeeperMetaManager(zooKeeperMetaManager);
+        return metaManager;
+    }
+}
@@ -1,11 +1,14 @@
 package com.alibaba.otter.canal.meta;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 
 import org.junit.Assert;
 
 import org.junit.Test;
 
+import com.alibaba.otter.canal.meta.exception.CanalMetaManagerException;
 import com.alibaba.otter.canal.protocol.position.PositionRange;
 
 public class MemoryMetaManagerTest extends AbstractMetaManagerTest {
@@ -37,4 +40,35 @@ public class MemoryMetaManagerTest extends AbstractMetaManagerTest {
         doCursorTest(metaManager);
         metaManager.stop();
     }
+
+    @Test
+    public void testBatchOrder() {
+        MemoryMetaManager metaManager = new MemoryMetaManager();
+        metaManager.start();
+        doBatchTest(metaManager);
+
+        // 按batchId从小到大返回
+        Map<Long, PositionRange> ranges = metaManager.listAllBatchs(clientIdentity);
+        Long[] batchIds = ranges.keySet().toArray(new Long[ranges.size()]);
+        Long[] sorted = batchIds.clone();
+        Arrays.sort(sorted);
+        Assert.assertArrayEquals(sorted, batchIds);
+
+        // 必须按batchId的顺序移除
+        try {
+            metaManager.removeBatch(clientIdentity, batchIds[batchIds.length - 1]);
+            Assert.fail();
+        } catch (CanalMetaManagerException e) {
+            // ignore
+        }
+
+        for (Long batchId : new ArrayList<Long>(ranges.keySet())) {
+            Assert.assertEquals(ranges.get(batchId), metaManager.getFirstBatch(clientIdentity));
+            Assert.assertEquals(ranges.get(batchIds[batchIds.length - 1]), metaManager.getLastestBatch(clientIdentity));
+            Assert.assertEquals(ranges.get(batchId), metaManager.removeBatch(clientIdentity, batchId));
+        }
+        Assert.assertNull(metaManager.getFirstBatch(clientIdentity));
+        Assert.assertNull(metaManager.getLastestBatch(clientIdentity));
+        metaManager.stop();
+    }
 }
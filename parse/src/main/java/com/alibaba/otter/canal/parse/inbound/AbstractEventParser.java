@@ -5,6 +5,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -17,10 +19,12 @@ import org.slf4j.MDC;
 
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
 import com.alibaba.otter.canal.common.alarm.CanalAlarmHandler;
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
 import com.alibaba.otter.canal.filter.CanalEventFilter;
 import com.alibaba.otter.canal.parse.CanalEventParser;
 import com.alibaba.otter.canal.parse.exception.CanalParseException;
 import com.alibaba.otter.canal.parse.exception.TableIdNotFoundException;
+import com.alibaba.otter.canal.parse.inbound.EventParsePipeline.EntryHandler;
 import com.alibaba.otter.canal.parse.inbound.EventTransactionBuffer.TransactionFlushCallback;
 import com.alibaba.otter.canal.parse.inbound.mysql.MysqlEventParser;
 import com.alibaba.otter.canal.parse.index.CanalLogPositionManager;
@@ -80,6 +84,9 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
 
     protected EventTransactionBuffer                 transactionBuffer;//不断的更新消费到哪个位置了
     protected int                                    transactionSize            = 1024;
+    protected int                                    groupCommitSize            = 0;                                       // 合并提交的entry数，<=0时不合并
+    protected long                                   groupCommitBytes           = 0;                                       // 合并提交的字节数
+    protected long                                   groupCommitTimeout         = 0;                                       // 合并提交的最大等待时间，单位微秒
     protected AtomicBoolean                          needTransactionPosition    = new AtomicBoolean(false);//true表示从事务的开始位置开始读取binlog数据
     protected long                                   lastEntryTime              = 0L;
     protected volatile boolean                       detectingEnable            = true;                                    // 是否开启心跳检查
@@ -94,6 +101,12 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
     protected int                                    specialExceptionCountThreshold = 3;//特殊异常计数阀值
     protected boolean								 isFindEndPosition = false;//true表示重连时查找数据库最新的位点
 
+    // 并行解析参数，开启后rows event由worker线程池并行解析，由单独的sink线程按顺序写入transactionBuffer
+    protected boolean                                parallel                   = false;
+    protected int                                    parallelThreadSize         = Runtime.getRuntime().availableProcessors();
+    protected int                                    parallelBufferSize         = 1024;                                    // 已解析未sink的事件数量上限
+    protected ExecutorService                        parserExecutor;
+
     protected abstract BinlogParser buildParser();//如何将binlog的事件转换成canal的Entry对象
 
     protected abstract ErosaConnection buildErosaConnection();//如何创建连接获取binlog信息
@@ -143,10 +156,17 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
         // 配置transaction buffer
         // 初始化缓冲队列
         transactionBuffer.setBufferSize(transactionSize);// 设置buffer大小
+        transactionBuffer.setGroupCommitSize(groupCommitSize);
+        transactionBuffer.setGroupCommitBytes(groupCommitBytes);
+        transactionBuffer.setGroupCommitTimeout(groupCommitTimeout);
         transactionBuffer.start();
         // 构造bin log parser
         binlogParser = buildParser();// 初始化一下BinLogParser
         binlogParser.start();
+        if (isParallel()) {
+            parserExecutor = Executors.newFixedThreadPool(parallelThreadSize,
+                new NamedThreadFactory(String.format("destination = %s , EventParser worker", destination)));
+        }
         // 启动工作线程
         parseThread = new Thread(new Runnable() {
 
@@ -154,6 +174,7 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
                 MDC.put("destination", String.valueOf(destination));
                 ErosaConnection erosaConnection = null;
                 while (running) {
+                    EventParsePipeline<EVENT> parsePipeline = null;
                     try {
 
                         // 开始执行replication
@@ -189,40 +210,17 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
                         erosaConnection.reconnect();
 
                         //设置如何处理事件对象
-                        final SinkFunction sinkHandler = new SinkFunction<EVENT>() {
-
-                            private LogPosition lastPosition;//最后一个sink的位置是哪个
-
-                            public boolean sink(EVENT event) {
-                                try {
-                                    CanalEntry.Entry entry = parseAndProfilingIfNecessary(event);
-
-                                    if (!running) {
-                                        return false;
-                                    }
-
-                                    if (entry != null) {
-                                        exception = null; // 有正常数据流过，清空exception
-                                        transactionBuffer.add(entry);
-                                        // 记录一下对应的positions
-                                        this.lastPosition = buildLastPosition(entry);
-                                        // 记录一下最后一次有数据的时间
-                                        lastEntryTime = System.currentTimeMillis();
-                                    }
-                                    return running;
-                                } catch (TableIdNotFoundException e) {
-                                    throw e;
-                                } catch (Exception e) {
-                                    // 记录一下，出错的位点信息
-                                    processError(e,
-                                        this.lastPosition,
-                                        startPosition.getJournalName(),
-                                        startPosition.getPosition());
-                                    throw new CanalParseException(e); // 继续抛出异常，让上层统一感知
-                                }
-                            }
-
-                        };
+                        final EventSinkHandler sinkHandler = new EventSinkHandler(startPosition);
+                        if (isParallel()) {
+                            // 开启并行解析流水线，本线程只负责fetch/decode
+                            parsePipeline = new EventParsePipeline<EVENT>(destination,
+                                (ParallelBinlogParser<EVENT>) binlogParser,
+                                parserExecutor,
+                                sinkHandler);
+                            parsePipeline.setBufferSize(parallelBufferSize);
+                            parsePipeline.start();
+                            sinkHandler.setParsePipeline(parsePipeline);
+                        }
 
                         // 4. 开始dump数据
                         if (StringUtils.isEmpty(startPosition.getJournalName()) && startPosition.getTimestamp() != null) {
@@ -264,6 +262,10 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
                     } finally {
                         // 重新置为中断状态
                         Thread.interrupted();
+                        // 先停止流水线的sink线程，再重置transactionBuffer
+                        if (parsePipeline != null && parsePipeline.isStart()) {
+                            parsePipeline.stop();
+                        }
                         // 关闭一下链接
                         afterDump(erosaConnection);
                         try {
@@ -318,6 +320,10 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
             // ignore
         }
 
+        if (parserExecutor != null) {
+            parserExecutor.shutdownNow();
+            parserExecutor = null;
+        }
         if (binlogParser.isStart()) {
             binlogParser.stop();
         }
@@ -371,6 +377,73 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
         return profilingEnabled.get();
     }
 
+    /**
+     * 只有支持并行解析的BinlogParser才会开启流水线
+     */
+    protected boolean isParallel() {
+        return parallel && binlogParser instanceof ParallelBinlogParser;
+    }
+
+    /**
+     * 处理dump出来的事件，串行模式下直接解析并写入transactionBuffer，并行模式下交给流水线，由流水线的sink线程回调handle
+     */
+    private class EventSinkHandler implements SinkFunction<EVENT>, EntryHandler {
+
+        private final EntryPosition       startPosition;
+        private EventParsePipeline<EVENT> parsePipeline;
+        private volatile LogPosition      lastPosition;  // 最后一个sink的位置是哪个
+
+        public EventSinkHandler(EntryPosition startPosition){
+            this.startPosition = startPosition;
+        }
+
+        public boolean sink(EVENT event) {
+            try {
+                if (parsePipeline != null) {
+                    parsePipeline.publish(event);
+                    return running;
+                }
+
+                CanalEntry.Entry entry = parseAndProfilingIfNecessary(event);
+
+                if (!running) {
+                    return false;
+                }
+
+                handle(entry);
+                return running;
+            } catch (TableIdNotFoundException e) {
+                throw e;
+            } catch (Exception e) {
+                // 记录一下，出错的位点信息
+                processError(e, this.lastPosition, startPosition.getJournalName(), startPosition.getPosition());
+                throw new CanalParseException(e); // 继续抛出异常，让上层统一感知
+            }
+        }
+
+        public void handle(CanalEntry.Entry entry) throws Exception {
+            if (parsePipeline != null && parsedEventCount.incrementAndGet() < 0) {
+                parsedEventCount.set(0);
+            }
+
+            if (entry != null) {
+                exception = null; // 有正常数据流过，清空exception
+                transactionBuffer.add(entry);
+                // 记录一下对应的positions
+                this.lastPosition = buildLastPosition(entry);
+                // 记录一下最后一次有数据的时间
+                lastEntryTime = System.currentTimeMillis();
+            } else {
+                // 没有产生数据的event(比如binlog空闲时master发送的heartbeat)，检查合并提交的等待时间
+                transactionBuffer.flushIfTimeout();
+            }
+        }
+
+        public void setParsePipeline(EventParsePipeline<EVENT> parsePipeline) {
+            this.parsePipeline = parsePipeline;
+        }
+    }
+
     protected LogPosition buildLastTransactionPosition(List<CanalEntry.Entry> entries) { // 初始化一下
         for (int i = entries.size() - 1; i > 0; i--) {
             CanalEntry.Entry entry = entries.get(i);
@@ -502,6 +575,18 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
         this.destination = destination;
     }
 
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void setParallelThreadSize(int parallelThreadSize) {
+        this.parallelThreadSize = parallelThreadSize;
+    }
+
+    public void setParallelBufferSize(int parallelBufferSize) {
+        this.parallelBufferSize = parallelBufferSize;
+    }
+
     public void setBinlogParser(BinlogParser binlogParser) {
         this.binlogParser = binlogParser;
     }
@@ -526,6 +611,18 @@ public abstract class AbstractEventParser<EVENT> extends AbstractCanalLifeCycle
         this.transactionSize = transactionSize;
     }
 
+    public void setGroupCommitSize(int groupCommitSize) {
+        this.groupCommitSize = groupCommitSize;
+    }
+
+    public void setGroupCommitBytes(long groupCommitBytes) {
+        this.groupCommitBytes = groupCommitBytes;
+    }
+
+    public void setGroupCommitTimeout(long groupCommitTimeout) {
+        this.groupCommitTimeout = groupCommitTimeout;
+    }
+
     public CanalLogPositionManager getLogPositionManager() {
         return logPositionManager;
     }
@@ -0,0 +1,177 @@
+package com.alibaba.otter.canal.parse.inbound;
+
+import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.MDC;
+
+import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.parse.exception.CanalParseException;
+import com.alibaba.otter.canal.protocol.CanalEntry;
+
+/**
+ * 分阶段的解析流水线，将一次dump拆成fetch/parse/sink三个阶段
+ *
+ * <pre>
+ * 1. fetch阶段：dump线程读取并decode事件后调用{@linkplain #publish}，按顺序为每个事件分配一个结果槽位放入有界队列
+ * 2. parse阶段：rows event提交到worker线程池并行解析，其余事件在dump线程中直接串行解析
+ * 3. sink阶段：单独的sink线程按照publish的顺序依次取出解析结果，交给{@linkplain EntryHandler}处理(写入transactionBuffer，记录位点)
+ *
+ * 任何一个阶段出现异常，后续的publish都会抛出该异常，由上层统一断开链接并重试
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:55:25
+ * @version 1.0.22
+ */
+public class EventParsePipeline<EVENT> extends AbstractCanalLifeCycle {
+
+    private static final long                       CHECK_INTERVAL = 100;
+
+    private String                                  destination;
+    private ParallelBinlogParser<EVENT>             binlogParser;
+    private ExecutorService                         parserExecutor;       // rows event的解析线程池，由parser统一创建和销毁
+    private EntryHandler                            entryHandler;
+    private int                                     bufferSize     = 1024; // 已分配槽位但还未sink的事件数量上限
+
+    private BlockingQueue<Future<CanalEntry.Entry>> slots;
+    private LinkedList<Future<CanalEntry.Entry>>    pendings;             // 最近一次barrier之后提交的并行解析任务
+    private Thread                                  sinkThread;
+    private volatile Throwable                      exception;
+
+    /**
+     * sink阶段处理每个解析结果的回调，entry可能为null(比如table map事件)
+     */
+    public static interface EntryHandler {
+
+        void handle(CanalEntry.Entry entry) throws Exception;
+    }
+
+    public EventParsePipeline(String destination, ParallelBinlogParser<EVENT> binlogParser,
+                              ExecutorService parserExecutor, EntryHandler entryHandler){
+        this.destination = destination;
+        this.binlogParser = binlogParser;
+        this.parserExecutor = parserExecutor;
+        this.entryHandler = entryHandler;
+    }
+
+    public void start() {
+        super.start();
+        slots = new ArrayBlockingQueue<Future<CanalEntry.Entry>>(bufferSize);
+        pendings = new LinkedList<Future<CanalEntry.Entry>>();
+        exception = null;
+        sinkThread = new Thread(new Runnable() {
+
+            public void run() {
+                MDC.put("destination", String.valueOf(destination));
+                try {
+                    while (running) {
+                        Future<CanalEntry.Entry> slot = slots.take();
+                        entryHandler.handle(getEntry(slot));
+                    }
+                } catch (InterruptedException e) {
+                    // 正常退出
+                } catch (Throwable e) {
+                    exception = e;
+                } finally {
+                    MDC.remove("destination");
+                }
+            }
+        });
+        sinkThread.setName(String.format("destination = %s , EventParsePipeline sink", destination));
+        sinkThread.start();
+    }
+
+    public void stop() {
+        super.stop();
+        sinkThread.interrupt();
+        try {
+            sinkThread.join();
+        } catch (InterruptedException e) {
+            // ignore
+        }
+
+        for (Future<CanalEntry.Entry> pending : pendings) {
+            pending.cancel(true);
+        }
+        pendings.clear();
+        slots.clear();
+    }
+
+    /**
+     * 提交一个decode后的事件，队列满时阻塞等待sink阶段消费. 只允许dump线程调用
+     */
+    public void publish(final EVENT event) throws InterruptedException {
+        checkException();
+        if (binlogParser.isBarrier(event)) {
+            // 等待之前提交的并行任务全部解析完成，避免table meta等上下文被提前修改
+            for (Future<CanalEntry.Entry> pending : pendings) {
+                getEntry(pending);
+            }
+            pendings.clear();
+        }
+
+        Future<CanalEntry.Entry> slot = null;
+        Callable<CanalEntry.Entry> task = binlogParser.buildParseTask(event);
+        if (task != null) {
+            slot = parserExecutor.submit(task);
+            pendings.add(slot);
+            // 清理掉已经完成的任务
+            while (!pendings.isEmpty() && pendings.getFirst().isDone()) {
+                pendings.removeFirst();
+            }
+        } else {
+            FutureTask<CanalEntry.Entry> serialTask = new FutureTask<CanalEntry.Entry>(new Callable<CanalEntry.Entry>() {
+
+                public CanalEntry.Entry call() throws Exception {
+                    return binlogParser.parse(event);
+                }
+            });
+            serialTask.run();
+            slot = serialTask;
+        }
+
+        while (!slots.offer(slot, CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+            checkException();
+        }
+    }
+
+    private void checkException() {
+        Throwable e = exception;
+        if (e != null) {
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else {
+                throw new CanalParseException(e);
+            }
+        }
+
+        if (!sinkThread.isAlive()) {
+            throw new CanalParseException("sink thread of EventParsePipeline is exited");
+        }
+    }
+
+    private CanalEntry.Entry getEntry(Future<CanalEntry.Entry> slot) throws InterruptedException {
+        try {
+            return slot.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause; // 保留TableIdNotFoundException等异常类型，让上层统一感知
+            } else {
+                throw new CanalParseException(cause);
+            }
+        }
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+}
@@ -2,8 +2,11 @@ package com.alibaba.otter.canal.parse.inbound;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
@@ -14,12 +17,23 @@ import com.alibaba.otter.canal.store.CanalStoreException;
 /**
  * 缓冲event队列，提供按事务刷新数据的机制
  * 
+ * <pre>
+ * 合并提交(groupCommitSize > 0)：
+ * 1. 事务结束时不立即刷新，累计的完整事务达到groupCommitSize条entry、groupCommitBytes字节或者等待超过groupCommitTimeout微秒后一次刷新
+ * 2. 只在事务边界刷新，buffer满时优先刷新已完成的事务，只有单个事务超过bufferSize时才会被拆分(和非合并模式一致)
+ * 3. DDL等非DML数据先刷新之前已完成的事务，再单独刷新
+ * 4. 等待时间只在解析线程中检查：每次add时，以及没有新数据时由解析线程调用{@linkplain #flushIfTimeout()}，不会在其他线程中刷新数据
+ * 5. 合并提交必须有等待上限，groupCommitTimeout<=0时使用默认值
+ * </pre>
+ * 
  * @author jianghang 2012-12-6 上午11:05:12
  * @version 1.0.0
  */
 public class EventTransactionBuffer extends AbstractCanalLifeCycle {
 
+    private static final Logger      logger        = LoggerFactory.getLogger(EventTransactionBuffer.class);
     private static final long        INIT_SQEUENCE = -1;
+    private static final long        DEFAULT_GROUP_COMMIT_TIMEOUT = 100 * 1000L; // 默认的合并提交等待时间，单位微秒
     private int                      bufferSize    = 1024;
     private int                      indexMask;
     private CanalEntry.Entry[]       entries;//存放事件对象的队列
@@ -30,6 +44,17 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
 
     private TransactionFlushCallback flushCallback;//数据事务提交的函数---确保事务可以同时提交和回滚
 
+    // 合并提交的参数
+    private int                      groupCommitSize    = 0;             // 合并提交的entry数，<=0时每个事务单独刷新
+    private long                     groupCommitBytes   = 0;             // 合并提交的字节数，<=0时不限制
+    private long                     groupCommitTimeout = 0;             // 合并提交的最大等待时间，单位微秒，<=0时使用默认值
+
+    // 合并提交的状态，都在对象锁内访问
+    private long                     commitSequence     = INIT_SQEUENCE; // 最后一个已完成事务的结束位置
+    private long                     groupBytes         = 0;             // 已完成未刷新的事务字节数
+    private long                     openBytes          = 0;             // 当前未完成事务的字节数
+    private long                     groupStartTime     = 0;             // 第一个未刷新事务完成的时间，单位纳秒
+
     public EventTransactionBuffer(){
 
     }
@@ -47,13 +72,21 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
         Assert.notNull(flushCallback, "flush callback is null!");
         indexMask = bufferSize - 1;
         entries = new CanalEntry.Entry[bufferSize];
+
+        if (isGroupCommit() && groupCommitTimeout <= 0) {
+            // 没有等待上限时，binlog空闲后已完成的事务会一直滞留在buffer中
+            logger.warn("groupCommitTimeout:{} is invalid for group commit, use default:{}",
+                groupCommitTimeout,
+                DEFAULT_GROUP_COMMIT_TIMEOUT);
+            groupCommitTimeout = DEFAULT_GROUP_COMMIT_TIMEOUT;
+        }
     }
 
     public void stop() throws CanalStoreException {
-        putSequence.set(INIT_SQEUENCE);
-        flushSequence.set(INIT_SQEUENCE);
-
-        entries = null;
+        synchronized (this) {
+            reset();
+            entries = null;
+        }
         super.stop();
     }
 
@@ -63,7 +96,12 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
         }
     }
 
-    public void add(CanalEntry.Entry entry) throws InterruptedException {
+    public synchronized void add(CanalEntry.Entry entry) throws InterruptedException {
+        if (isGroupCommit()) {
+            groupAdd(entry);
+            return;
+        }
+
         switch (entry.getEntryType()) {
             case TRANSACTIONBEGIN:
                 flush();// 刷新上一次的数据
@@ -86,9 +124,86 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
         }
     }
 
-    public void reset() {
+    public synchronized void reset() {
         putSequence.set(INIT_SQEUENCE);
         flushSequence.set(INIT_SQEUENCE);
+        commitSequence = INIT_SQEUENCE;
+        groupBytes = 0;
+        openBytes = 0;
+        groupStartTime = 0;
+    }
+
+    private void groupAdd(CanalEntry.Entry entry) throws InterruptedException {
+        if (commitSequence > flushSequence.get() && isGroupTimeout()) {
+            flush(commitSequence);// 已完成的事务等待超时，不再等待后续事务
+        }
+
+        switch (entry.getEntryType()) {
+            case TRANSACTIONBEGIN:
+                if (putSequence.get() > commitSequence) {
+                    flush();// 上一个事务没有正常结束，刷新残留的数据
+                }
+                put(entry);
+                break;
+            case TRANSACTIONEND:
+                put(entry);
+                commit();
+                if (isGroupFull()) {
+                    flush();
+                }
+                break;
+            case ROWDATA:
+                EventType eventType = entry.getHeader().getEventType();
+                if (eventType != null && !isDml(eventType)) {
+                    // 非DML的数据不和之前的事务合并，单独输出
+                    flush(commitSequence);
+                    put(entry);
+                    flush();
+                } else {
+                    put(entry);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 当前事务结束，合并到待刷新的事务中
+     */
+    private void commit() {
+        if (groupStartTime == 0) {
+            groupStartTime = System.nanoTime();
+        }
+        commitSequence = putSequence.get();
+        groupBytes += openBytes;
+        openBytes = 0;
+    }
+
+    private boolean isGroupFull() {
+        if (commitSequence - flushSequence.get() >= groupCommitSize) {
+            return true;
+        }
+
+        if (groupCommitBytes > 0 && groupBytes >= groupCommitBytes) {
+            return true;
+        }
+
+        return isGroupTimeout();
+    }
+
+    private boolean isGroupTimeout() {
+        return groupStartTime > 0
+               && TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - groupStartTime) >= groupCommitTimeout;
+    }
+
+    /**
+     * 刷新等待超时的已完成事务，当前未完成的事务继续等待. 由解析线程在没有新数据时调用(比如收到heartbeat)
+     */
+    public synchronized void flushIfTimeout() throws InterruptedException {
+        if (entries != null && isGroupCommit() && commitSequence > flushSequence.get() && isGroupTimeout()) {
+            flush(commitSequence);// 只刷新已完成的事务，当前未完成的事务继续等待
+        }
     }
 
     private void put(CanalEntry.Entry data) throws InterruptedException {
@@ -100,6 +215,12 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
             // 先写数据，再更新对应的cursor,并发度高的情况，putSequence会被get请求可见，拿出了ringbuffer中的老的Entry值
             entries[getIndex(next)] = data;
             putSequence.set(next);
+            if (isGroupCommit() && groupCommitBytes > 0) {
+                openBytes += data.getSerializedSize();
+            }
+        } else if (isGroupCommit() && commitSequence > flushSequence.get()) {
+            flush(commitSequence);// 优先刷新已完成的事务，避免拆分当前事务
+            put(data);
         } else {//说明没有空间了,则执行刷新操作,腾出空间
             flush();// buffer区满了，刷新一下
             put(data);// 继续加一下新数据
@@ -107,8 +228,11 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
     }
 
     private void flush() throws InterruptedException {
+        flush(this.putSequence.get());
+    }
+
+    private void flush(long end) throws InterruptedException {
         long start = this.flushSequence.get() + 1;//从哪里开始flush
-        long end = this.putSequence.get();
 
         if (start <= end) {
             List<CanalEntry.Entry> transaction = new ArrayList<CanalEntry.Entry>();
@@ -118,6 +242,16 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
 
             flushCallback.flush(transaction);
             flushSequence.set(end);// flush成功后，更新flush位置
+
+            if (end >= commitSequence) {
+                groupBytes = 0;
+                groupStartTime = 0;
+                if (end == putSequence.get()) {
+                    // 未完成的事务也一起刷新了(非合并模式、DDL或者事务超过buffer大小)
+                    commitSequence = end;
+                    openBytes = 0;
+                }
+            }
         }
     }
 
@@ -142,12 +276,32 @@ public class EventTransactionBuffer extends AbstractCanalLifeCycle {
         return eventType == EventType.INSERT || eventType == EventType.UPDATE || eventType == EventType.DELETE;
     }
 
+    private boolean isGroupCommit() {
+        return groupCommitSize > 0;
+    }
+
     // ================ setter / getter ==================
 
     public void setBufferSize(int bufferSize) {
         this.bufferSize = bufferSize;
     }
 
+    public void setGroupCommitSize(int groupCommitSize) {
+        this.groupCommitSize = groupCommitSize;
+    }
+
+    public void setGroupCommitBytes(long groupCommitBytes) {
+        this.groupCommitBytes = groupCommitBytes;
+    }
+
+    public long getGroupCommitTimeout() {
+        return groupCommitTimeout;
+    }
+
+    public void setGroupCommitTimeout(long groupCommitTimeout) {
+        this.groupCommitTimeout = groupCommitTimeout;
+    }
+
     public void setFlushCallback(TransactionFlushCallback flushCallback) {
         this.flushCallback = flushCallback;
     }
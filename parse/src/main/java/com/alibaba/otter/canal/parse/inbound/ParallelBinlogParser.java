@@ -0,0 +1,30 @@
+package com.alibaba.otter.canal.parse.inbound;
+
+import java.util.concurrent.Callable;
+
+import com.alibaba.otter.canal.protocol.CanalEntry;
+
+/**
+ * 支持并行解析的binlog parser，配合{@linkplain EventParsePipeline}使用
+ * 
+ * <pre>
+ * 1. 可并行的事件(比如rows event)，在fetch线程中捕获当前的解析上下文，生成一个可以在worker线程中执行的解析任务
+ * 2. 其余事件仍然在fetch线程中按顺序调用{@linkplain BinlogParser#parse}
+ * 3. barrier事件(比如DDL会清理table meta)，解析前需要等待之前提交的并行任务全部完成
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:55:25
+ * @version 1.0.22
+ */
+public interface ParallelBinlogParser<T> extends BinlogParser<T> {
+
+    /**
+     * 构造并行解析任务，返回null代表该事件需要串行解析
+     */
+    Callable<CanalEntry.Entry> buildParseTask(T event);
+
+    /**
+     * 是否需要等待之前的并行解析任务全部完成
+     */
+    boolean isBarrier(T event);
+}
@@ -25,6 +25,10 @@ public class TableMeta {
     private String          fullName; // schema.table 数据库.table表示表的路径名字
     private List<FieldMeta> fileds;//该表有哪些字段
 
+    public TableMeta(){
+
+    }
+
     public TableMeta(String fullName, List<FieldMeta> fileds){
         this.fullName = fullName;
         this.fileds = fileds;
@@ -24,6 +24,7 @@ public abstract class AbstractMysqlEventParser extends AbstractEventParser {
     protected boolean           filterQueryDdl          = false;
     protected boolean           filterRows              = false;
     protected boolean           filterTableError        = false;
+    protected boolean           typedColumnValue        = false; // 数值/二进制列使用typed字段编码
 
     //解析如何转换事件
     protected BinlogParser buildParser() {
@@ -42,6 +43,7 @@ public abstract class AbstractMysqlEventParser extends AbstractEventParser {
         convert.setFilterQueryDdl(filterQueryDdl);
         convert.setFilterRows(filterRows);
         convert.setFilterTableError(filterTableError);
+        convert.setTypedColumnValue(typedColumnValue);
         return convert;
     }
 
@@ -98,4 +100,8 @@ public abstract class AbstractMysqlEventParser extends AbstractEventParser {
         this.filterTableError = filterTableError;
     }
 
+    public void setTypedColumnValue(boolean typedColumnValue) {
+        this.typedColumnValue = typedColumnValue;
+    }
+
 }
@@ -8,15 +8,18 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.alibaba.otter.canal.parse.exception.CanalParseException;
 import com.alibaba.otter.canal.parse.inbound.ErosaConnection;
 import com.alibaba.otter.canal.parse.inbound.SinkFunction;
 import com.alibaba.otter.canal.parse.inbound.mysql.local.BinLogFileQueue;
+import com.alibaba.otter.canal.parse.inbound.mysql.local.ParallelBinLogFileReader;
+import com.alibaba.otter.canal.parse.inbound.mysql.local.ParallelBinLogFileReader.LogFetcherFactory;
 import com.taobao.tddl.dbsync.binlog.FileLogFetcher;
 import com.taobao.tddl.dbsync.binlog.LogContext;
 import com.taobao.tddl.dbsync.binlog.LogDecoder;
 import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.LogFetcher;
 import com.taobao.tddl.dbsync.binlog.LogPosition;
+import com.taobao.tddl.dbsync.binlog.MappedFileLogFetcher;
 import com.taobao.tddl.dbsync.binlog.event.QueryLogEvent;
 
 /**
@@ -26,12 +29,14 @@ import com.taobao.tddl.dbsync.binlog.event.QueryLogEvent;
  */
 public class LocalBinLogConnection implements ErosaConnection {
 
-    private static final Logger logger     = LoggerFactory.getLogger(LocalBinLogConnection.class);
-    private BinLogFileQueue     binlogs    = null;//存储binlog日志文件的集合
+    private static final Logger logger            = LoggerFactory.getLogger(LocalBinLogConnection.class);
+    private BinLogFileQueue     binlogs           = null;//存储binlog日志文件的集合
     private boolean             needWait;//true表示如果下一个binlog文件不存在的时候,可以等待一直到binlog存在未知
     private String              directory;//binlog所在目录
-    private int                 bufferSize = 16 * 1024;
-    private boolean             running    = false;//true表示正在抓去中
+    private int                 bufferSize        = 16 * 1024;
+    private boolean             running           = false;//true表示正在抓去中
+    private boolean             mmap              = false;//true表示使用mmap方式读取binlog文件，并后台预读下一个文件
+    private int                 parallelFileCount = 1;//同时decode的binlog文件数，大于1时开启并行回放
 
     public LocalBinLogConnection(){
     }
@@ -76,33 +81,38 @@ public class LocalBinLogConnection implements ErosaConnection {
     public void dump(String binlogfilename, Long binlogPosition, SinkFunction func) throws IOException {
         File current = new File(directory, binlogfilename);
 
-        FileLogFetcher fetcher = new FileLogFetcher(bufferSize);
+        LogFetcher fetcher = buildFetcher();
         LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
         LogContext context = new LogContext();
         try {
-            fetcher.open(current, binlogPosition);
-            context.setLogPosition(new LogPosition(binlogfilename, binlogPosition));
+            if (parallelFileCount > 1) {
+                // 先并行回放已经写完的文件，剩下的最后一个文件继续串行读取
+                File tail = buildParallelReader().dump(current, binlogPosition, func);
+                if (tail == null) {
+                    return;
+                }
+
+                if (!tail.getName().equals(current.getName())) {
+                    current = tail;
+                    binlogPosition = 0L;
+                }
+            }
+
+            open(fetcher, current, binlogPosition);
+            prefetch(current);
+            context.setLogPosition(new LogPosition(current.getName(), binlogPosition));
             while (running) {
                 boolean needContinue = true;
                 LogEvent event;
-                while (fetcher.fetch()) {
-                    event = decoder.decode(fetcher, context);
-                    if (event == null) {
-                        throw new CanalParseException("parse failed");
-                    }
-
-                    if (!func.sink(event)) {
-                        needContinue = false;
-                        break;
-                    }
-
-                    // do {
-                    // event = decoder.decode(fetcher, context);
-                    // if (event != null && !func.sink(event)) {
-                    // needContinue = false;
-                    // break;
-                    // }
-                    // } while (event != null);
+                while (needContinue && fetcher.fetch()) {
+                    // 一次fetch可能读入多个事件，需要全部decode完，否则读到文件末尾时buffer中剩余的事件会被丢弃
+                    do {
+                        event = decoder.decode(fetcher, context);
+                        if (event != null && !func.sink(event)) {
+                            needContinue = false;
+                            break;
+                        }
+                    } while (event != null);
                 }
 
                 if (needContinue) {// 读取下一个
@@ -121,7 +131,8 @@ public class LocalBinLogConnection implements ErosaConnection {
 
                     current = nextFile;
 
-                    fetcher.open(current);
+                    open(fetcher, current, 0L);
+                    prefetch(current);
                     context.setLogPosition(new LogPosition(nextFile.getName()));
                 } else {
                     break;// 跳出
@@ -146,13 +157,13 @@ public class LocalBinLogConnection implements ErosaConnection {
         String binlogFilename = null;
         long binlogFileOffset = 0;
 
-        FileLogFetcher fetcher = new FileLogFetcher(bufferSize);
+        LogFetcher fetcher = buildFetcher();
         LogDecoder decoder = new LogDecoder();
         decoder.handle(LogEvent.QUERY_EVENT);
         decoder.handle(LogEvent.XID_EVENT);
         LogContext context = new LogContext();
         try {
-            fetcher.open(current);
+            open(fetcher, current, 0L);
             context.setLogPosition(new LogPosition(current.getName()));
             while (running) {
                 boolean needContinue = true;
@@ -196,7 +207,7 @@ public class LocalBinLogConnection implements ErosaConnection {
                     }
 
                     current = nextFile;
-                    fetcher.open(current);
+                    open(fetcher, current, 0L);
                     context.setLogPosition(new LogPosition(current.getName()));
                 } else {
                     break;// 跳出
@@ -211,12 +222,48 @@ public class LocalBinLogConnection implements ErosaConnection {
         dump(binlogFilename, binlogFileOffset, func);
     }
 
+    private LogFetcher buildFetcher() {
+        if (mmap) {
+            return new MappedFileLogFetcher(bufferSize);
+        } else {
+            return new FileLogFetcher(bufferSize);
+        }
+    }
+
+    private void open(LogFetcher fetcher, File file, long position) throws IOException {
+        if (fetcher instanceof MappedFileLogFetcher) {
+            ((MappedFileLogFetcher) fetcher).open(file, position);
+        } else {
+            ((FileLogFetcher) fetcher).open(file, position);
+        }
+    }
+
+    private ParallelBinLogFileReader buildParallelReader() {
+        return new ParallelBinLogFileReader(binlogs, new LogFetcherFactory() {
+
+            public LogFetcher open(File file, long position) throws IOException {
+                LogFetcher fetcher = buildFetcher();
+                LocalBinLogConnection.this.open(fetcher, file, position);
+                return fetcher;
+            }
+        }, parallelFileCount);
+    }
+
+    // 后台预读下一个binlog文件，切换文件时不需要等待磁盘io
+    private void prefetch(File current) {
+        if (mmap) {
+            binlogs.prefetch(current);
+        }
+    }
+
     public ErosaConnection fork() {
         LocalBinLogConnection connection = new LocalBinLogConnection();
 
         connection.setBufferSize(this.bufferSize);
         connection.setDirectory(this.directory);
         connection.setNeedWait(this.needWait);
+        connection.setMmap(this.mmap);
+        connection.setParallelFileCount(this.parallelFileCount);
         return connection;
     }
 
@@ -244,4 +291,20 @@ public class LocalBinLogConnection implements ErosaConnection {
         this.bufferSize = bufferSize;
     }
 
+    public boolean isMmap() {
+        return mmap;
+    }
+
+    public void setMmap(boolean mmap) {
+        this.mmap = mmap;
+    }
+
+    public int getParallelFileCount() {
+        return parallelFileCount;
+    }
+
+    public void setParallelFileCount(int parallelFileCount) {
+        this.parallelFileCount = parallelFileCount;
+    }
+
 }
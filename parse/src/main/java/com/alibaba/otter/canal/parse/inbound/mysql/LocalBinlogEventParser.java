@@ -25,8 +25,10 @@ public class LocalBinlogEventParser extends AbstractMysqlEventParser implements
     private EntryPosition      masterPosition;        // binlog信息
 
     private String             directory;//binlog的目录
-    private boolean            needWait   = false;
-    private int                bufferSize = 16 * 1024;
+    private boolean            needWait          = false;
+    private int                bufferSize        = 16 * 1024;
+    private boolean            mmap              = false;    // 使用mmap读取binlog文件，默认关闭
+    private int                parallelFileCount = 1;        // 并行decode的binlog文件数，用于历史数据回溯
 
     public LocalBinlogEventParser(){
         // this.runningInfo = new AuthenticationInfo();
@@ -51,6 +53,8 @@ public class LocalBinlogEventParser extends AbstractMysqlEventParser implements
         connection.setBufferSize(this.bufferSize);
         connection.setDirectory(this.directory);
         connection.setNeedWait(this.needWait);
+        connection.setMmap(this.mmap);
+        connection.setParallelFileCount(this.parallelFileCount);
 
         return connection;
     }
@@ -123,4 +127,20 @@ public class LocalBinlogEventParser extends AbstractMysqlEventParser implements
     public void setNeedWait(boolean needWait) {
         this.needWait = needWait;
     }
+
+    public boolean isMmap() {
+        return mmap;
+    }
+
+    public void setMmap(boolean mmap) {
+        this.mmap = mmap;
+    }
+
+    public int getParallelFileCount() {
+        return parallelFileCount;
+    }
+
+    public void setParallelFileCount(int parallelFileCount) {
+        this.parallelFileCount = parallelFileCount;
+    }
 }
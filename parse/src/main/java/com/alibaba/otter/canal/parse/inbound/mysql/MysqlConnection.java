@@ -35,6 +35,8 @@ public class MysqlConnection implements ErosaConnection {
     private Charset             charset = Charset.forName("UTF-8");
     private BinlogFormat        binlogFormat;// SHOW VARIABLES LIKE 'binlog_format'的返回值,即binlog的格式
     private BinlogImage         binlogImage;//show variables like 'binlog_row_image'的返回值
+    private boolean             directBuffer = false;// true表示DirectLogFetcher使用direct buffer预读binlog
+    private long                heartbeatPeriod = 0;// master没有新binlog时发送heartbeat event的间隔，单位纳秒，<=0时不开启
 
     public MysqlConnection(){
     }
@@ -84,47 +86,55 @@ public class MysqlConnection implements ErosaConnection {
         updateSettings();//设置环境信息,即向mysql主库发送信息
 
         sendBinlogDump(binlogfilename, binlogPosition);//设置要读取哪些binlog信息,通知master节点
-        DirectLogFetcher fetcher = new DirectLogFetcher(connector.getReceiveBufferSize());//创建抓去master日志的对象
+        DirectLogFetcher fetcher = new DirectLogFetcher(connector.getReceiveBufferSize(), directBuffer);//创建抓去master日志的对象
         fetcher.start(connector.getChannel());
-        LogDecoder decoder = new LogDecoder();//日志解码器
-        //设置要解析哪些事件
-        decoder.handle(LogEvent.ROTATE_EVENT);
-        decoder.handle(LogEvent.FORMAT_DESCRIPTION_EVENT);
-        decoder.handle(LogEvent.QUERY_EVENT);
-        decoder.handle(LogEvent.XID_EVENT);
-        LogContext context = new LogContext();
-        while (fetcher.fetch()) {//不断的抓去数据
-            LogEvent event = null;
-            event = decoder.decode(fetcher, context);
-
-            if (event == null) {
-                throw new CanalParseException("parse failed");
-            }
+        try {
+            LogDecoder decoder = new LogDecoder();//日志解码器
+            //设置要解析哪些事件
+            decoder.handle(LogEvent.ROTATE_EVENT);
+            decoder.handle(LogEvent.FORMAT_DESCRIPTION_EVENT);
+            decoder.handle(LogEvent.QUERY_EVENT);
+            decoder.handle(LogEvent.XID_EVENT);
+            LogContext context = new LogContext();
+            while (fetcher.fetch()) {//不断的抓去数据
+                LogEvent event = null;
+                event = decoder.decode(fetcher, context);
+
+                if (event == null) {
+                    throw new CanalParseException("parse failed");
+                }
 
-            if (!func.sink(event)) {
-                break;
+                if (!func.sink(event)) {
+                    break;
+                }
             }
+        } finally {
+            fetcher.close();
         }
     }
 
     public void dump(String binlogfilename, Long binlogPosition, SinkFunction func) throws IOException {
         updateSettings();
         sendBinlogDump(binlogfilename, binlogPosition);//设置要读取哪些binlog信息,通知master节点
-        DirectLogFetcher fetcher = new DirectLogFetcher(connector.getReceiveBufferSize());//采用socket的方式,不断的从mater上获取数据
+        DirectLogFetcher fetcher = new DirectLogFetcher(connector.getReceiveBufferSize(), directBuffer);//采用socket的方式,不断的从mater上获取数据
         fetcher.start(connector.getChannel());
-        LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
-        LogContext context = new LogContext();
-        while (fetcher.fetch()) {//不断的抓去日志信息
-            LogEvent event = null;
-            event = decoder.decode(fetcher, context);
-
-            if (event == null) {
-                throw new CanalParseException("parse failed");
-            }
+        try {
+            LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+            LogContext context = new LogContext();
+            while (fetcher.fetch()) {//不断的抓去日志信息
+                LogEvent event = null;
+                event = decoder.decode(fetcher, context);
+
+                if (event == null) {
+                    throw new CanalParseException("parse failed");
+                }
 
-            if (!func.sink(event)) {
-                break;
+                if (!func.sink(event)) {
+                    break;
+                }
             }
+        } finally {
+            fetcher.close();
         }
     }
 
@@ -155,6 +165,8 @@ public class MysqlConnection implements ErosaConnection {
         MysqlConnection connection = new MysqlConnection();
         connection.setCharset(getCharset());
         connection.setSlaveId(getSlaveId());
+        connection.setDirectBuffer(directBuffer);
+        connection.setHeartbeatPeriod(heartbeatPeriod);
         connection.setConnector(connector.fork());
         return connection;
     }
@@ -212,6 +224,15 @@ public class MysqlConnection implements ErosaConnection {
         } catch (Exception e) {
             logger.warn(ExceptionUtils.getFullStackTrace(e));
         }
+
+        if (heartbeatPeriod > 0) {
+            try {
+                // binlog空闲时master按间隔发送heartbeat event，dump线程可以及时处理等待中的数据
+                update("set @master_heartbeat_period=" + heartbeatPeriod);
+            } catch (Exception e) {
+                logger.warn(ExceptionUtils.getFullStackTrace(e));
+            }
+        }
     }
 
     /**
@@ -359,6 +380,14 @@ public class MysqlConnection implements ErosaConnection {
         this.slaveId = slaveId;
     }
 
+    public void setDirectBuffer(boolean directBuffer) {
+        this.directBuffer = directBuffer;
+    }
+
+    public void setHeartbeatPeriod(long heartbeatPeriod) {
+        this.heartbeatPeriod = heartbeatPeriod;
+    }
+
     public MysqlConnector getConnector() {
         return connector;
     }
@@ -1,11 +1,13 @@
 package com.alibaba.otter.canal.parse.inbound.mysql;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.SocketTimeoutException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -50,6 +52,7 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
     private int                defaultConnectionTimeoutInSeconds = 30;       // sotimeout
     private int                receiveBufferSize                 = 64 * 1024;
     private int                sendBufferSize                    = 64 * 1024;
+    private boolean            directBuffer                      = false;    // 使用direct buffer预读binlog
     // 数据库信息
     private AuthenticationInfo masterInfo;                                   // 主库
     private AuthenticationInfo standbyInfo;                                  // 备库
@@ -65,6 +68,10 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
     private int                fallbackIntervalInSeconds         = 60;       // 切换回退时间
     private BinlogFormat[]     supportBinlogFormats;                         // 支持的binlogFormat,如果设置会执行强校验
     private BinlogImage[]      supportBinlogImages;                          // 支持的binlogImage,如果设置会执行强校验
+    // table meta预加载
+    private boolean            tableMetaPrefetch                 = false;    // 启动时批量加载table meta，DDL之后异步刷新
+    private long               tableMetaCacheSize                = 0;        // 缓存的表数量上限，<=0时不限制
+    private String             tableMetaSnapshotDir;                         // table meta snapshot的目录，为空时不保存
 
     // 心跳检查
 
@@ -114,11 +121,64 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
                 }
             }
 
-            tableMetaCache = new TableMetaCache(metaConnection);
+            if (tableMetaCache != null) {
+                tableMetaCache.close();
+            }
+            tableMetaCache = new TableMetaCache(metaConnection, tableMetaCacheSize, tableMetaPrefetch);
+            if (tableMetaPrefetch) {
+                initTableMetaCache();
+            }
             ((LogEventConvert) binlogParser).setTableMetaCache(tableMetaCache);
         }
     }
 
+    /**
+     * 优先从snapshot加载table meta，snapshot不可用时通过一次查询批量加载
+     */
+    private void initTableMetaCache() {
+        File snapshotFile = getTableMetaSnapshotFile();
+        if (snapshotFile != null) {
+            LogPosition logPosition = logPositionManager.getLatestIndexBy(destination);
+            if (logPosition != null && tableMetaCache.loadSnapshot(snapshotFile, logPosition.getPostion())) {
+                logger.info("load table meta snapshot from {}", snapshotFile.getPath());
+                return;
+            }
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            int count = tableMetaCache.prefetch(eventFilter, eventBlackFilter);
+            logger.info("prefetch {} table meta in {}ms", count, System.currentTimeMillis() - start);
+        } catch (Throwable e) {
+            // 预加载失败不影响解析，退化为按需desc
+            logger.warn("prefetch table meta failed", e);
+        }
+    }
+
+    private void saveTableMetaSnapshot() {
+        File snapshotFile = getTableMetaSnapshotFile();
+        if (snapshotFile == null || tableMetaCache == null) {
+            return;
+        }
+
+        try {
+            LogPosition logPosition = logPositionManager.getLatestIndexBy(destination);
+            if (logPosition != null) {
+                tableMetaCache.saveSnapshot(snapshotFile, logPosition.getPostion());
+            }
+        } catch (Throwable e) {
+            logger.warn("save table meta snapshot failed", e);
+        }
+    }
+
+    private File getTableMetaSnapshotFile() {
+        if (!tableMetaPrefetch || StringUtils.isEmpty(tableMetaSnapshotDir)) {
+            return null;
+        }
+
+        return new File(new File(tableMetaSnapshotDir, destination), "table_meta.dat");
+    }
+
     protected void afterDump(ErosaConnection connection) {
         super.afterDump(connection);
 
@@ -126,6 +186,10 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
             throw new CanalParseException("Unsupported connection type : " + connection.getClass().getSimpleName());
         }
 
+        if (running) {
+            saveTableMetaSnapshot();// 重连之前保存一下，关闭时由stop保存
+        }
+
         if (metaConnection != null) {
             try {
                 metaConnection.disconnect();
@@ -155,6 +219,8 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
         }
 
         if (tableMetaCache != null) {
+            saveTableMetaSnapshot();
+            tableMetaCache.close();
             tableMetaCache.clearTableMeta();
         }
 
@@ -303,9 +369,15 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
             runningInfo.getDefaultDatabaseName());
         connection.getConnector().setReceiveBufferSize(receiveBufferSize);
         connection.getConnector().setSendBufferSize(sendBufferSize);
+        connection.setDirectBuffer(directBuffer);
         connection.getConnector().setSoTimeout(defaultConnectionTimeoutInSeconds * 1000);
         connection.setCharset(connectionCharset);
         connection.setSlaveId(this.slaveId);
+        if (groupCommitSize > 0) {
+            // 合并提交的数据需要在binlog空闲时由dump线程按时刷新
+            connection.setHeartbeatPeriod(TimeUnit.MICROSECONDS.toNanos(Math.max(transactionBuffer.getGroupCommitTimeout(),
+                1000L)));
+        }
         return connection;
     }
 
@@ -742,6 +814,18 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
         }
     }
 
+    public void setTableMetaPrefetch(boolean tableMetaPrefetch) {
+        this.tableMetaPrefetch = tableMetaPrefetch;
+    }
+
+    public void setTableMetaCacheSize(long tableMetaCacheSize) {
+        this.tableMetaCacheSize = tableMetaCacheSize;
+    }
+
+    public void setTableMetaSnapshotDir(String tableMetaSnapshotDir) {
+        this.tableMetaSnapshotDir = tableMetaSnapshotDir;
+    }
+
     // ===================== setter / getter ========================
 
     public void setDefaultConnectionTimeoutInSeconds(int defaultConnectionTimeoutInSeconds) {
@@ -756,6 +840,10 @@ public class MysqlEventParser extends AbstractMysqlEventParser implements CanalE
         this.sendBufferSize = sendBufferSize;
     }
 
+    public void setDirectBuffer(boolean directBuffer) {
+        this.directBuffer = directBuffer;
+    }
+
     public void setMasterInfo(AuthenticationInfo masterInfo) {
         this.masterInfo = masterInfo;
     }
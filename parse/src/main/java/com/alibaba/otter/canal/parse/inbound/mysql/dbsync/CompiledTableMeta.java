@@ -0,0 +1,128 @@
+package com.alibaba.otter.canal.parse.inbound.mysql.dbsync;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.alibaba.otter.canal.parse.inbound.TableMeta;
+import com.alibaba.otter.canal.parse.inbound.TableMeta.FieldMeta;
+
+/**
+ * 预先解析好的table meta，行数据转换时直接按下标取字段信息，不再逐个值解析column type
+ *
+ * <pre>
+ * 和{@linkplain TableMeta}一一对应，table meta重新加载后是一个新的对象，需要重新编译
+ * 注意：不能持有TableMeta的引用，否则以TableMeta为weak key的缓存永远不会回收
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:51:19
+ * @version 1.0.22
+ */
+public class CompiledTableMeta {
+
+    private final CompiledField[] fields;
+    private volatile Projection   projection;  // 最近一次列裁剪的结果
+
+    public CompiledTableMeta(TableMeta tableMeta){
+        List<FieldMeta> fieldMetas = tableMeta.getFileds();
+        this.fields = new CompiledField[fieldMetas.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = new CompiledField(fieldMetas.get(i));
+        }
+    }
+
+    public int size() {
+        return fields.length;
+    }
+
+    public CompiledField getField(int index) {
+        return fields[index];
+    }
+
+    /**
+     * 根据订阅的列名(小写)计算需要解析的列，主键总是保留
+     */
+    public BitSet project(Set<String> columns) {
+        Projection current = projection;
+        // filter会缓存每个表的列集合，同一个订阅规则下直接按引用比较
+        if (current == null || current.columns != columns) {
+            BitSet bits = new BitSet(fields.length);
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i].isKey() || columns.contains(fields[i].getName().toLowerCase())) {
+                    bits.set(i);
+                }
+            }
+            current = new Projection(columns, bits);
+            projection = current;
+        }
+        return current.bits;
+    }
+
+    private static class Projection {
+
+        private final Set<String> columns;
+        private final BitSet      bits;
+
+        public Projection(Set<String> columns, BitSet bits){
+            this.columns = columns;
+            this.bits = bits;
+        }
+    }
+
+    /**
+     * 单个字段转换时需要的信息
+     */
+    public static class CompiledField {
+
+        private final String  name;
+        private final boolean key;
+        private final String  mysqlType;
+        private final boolean binary;   // binary/varbinary，不能做编码处理
+        private final boolean text;     // blob类型中的text，需要按编码解析
+        private final boolean unsigned;
+
+        public CompiledField(FieldMeta fieldMeta){
+            String columnType = fieldMeta.getColumnType();
+            this.name = fieldMeta.getColumnName();
+            this.key = fieldMeta.isKey();
+            this.mysqlType = columnType;
+            // fixed issue
+            // https://github.com/alibaba/canal/issues/66，特殊处理binary/varbinary，VARBINARY也包含BINARY
+            this.binary = StringUtils.containsIgnoreCase(columnType, "BINARY");
+            this.text = isText(columnType);
+            this.unsigned = fieldMeta.isUnsigned();
+        }
+
+        private static boolean isText(String columnType) {
+            return "LONGTEXT".equalsIgnoreCase(columnType) || "MEDIUMTEXT".equalsIgnoreCase(columnType)
+                   || "TEXT".equalsIgnoreCase(columnType) || "TINYTEXT".equalsIgnoreCase(columnType);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isKey() {
+            return key;
+        }
+
+        public String getMysqlType() {
+            return mysqlType;
+        }
+
+        public boolean isBinary() {
+            return binary;
+        }
+
+        public boolean isText() {
+            return text;
+        }
+
+        public boolean isUnsigned() {
+            return unsigned;
+        }
+    }
+
+}
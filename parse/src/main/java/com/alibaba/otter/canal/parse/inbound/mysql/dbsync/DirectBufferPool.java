@@ -0,0 +1,66 @@
+package com.alibaba.otter.canal.parse.inbound.mysql.dbsync;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * direct ByteBuffer的缓存池. direct buffer分配和回收的成本较高，而DirectLogFetcher在每次重连时都会重新创建，所以在进程内复用
+ *
+ * @author agent 2026-10-18 上午04:58:19
+ * @version 1.0.22
+ */
+public class DirectBufferPool {
+
+    private static final int              DEFAULT_MAX_IDLE = 16;
+    private static final DirectBufferPool INSTANCE         = new DirectBufferPool(DEFAULT_MAX_IDLE);
+
+    private ConcurrentLinkedQueue<ByteBuffer> idles        = new ConcurrentLinkedQueue<ByteBuffer>();
+    private AtomicInteger                     idleCount    = new AtomicInteger(0);
+    private int                               maxIdle;
+
+    public DirectBufferPool(int maxIdle){
+        this.maxIdle = maxIdle;
+    }
+
+    public static DirectBufferPool instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取一个容量不小于capacity的direct buffer，返回时position=0，limit=capacity
+     */
+    public ByteBuffer acquire(int capacity) {
+        // 最多尝试当前空闲的个数，容量不够的重新放回
+        for (int i = idleCount.get(); i > 0; i--) {
+            ByteBuffer buffer = idles.poll();
+            if (buffer == null) {
+                break;
+            }
+
+            idleCount.decrementAndGet();
+            if (buffer.capacity() >= capacity) {
+                buffer.clear();
+                return buffer;
+            }
+            release(buffer);
+        }
+
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * 归还buffer，超过maxIdle之后直接丢弃，由gc回收
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idles.offer(buffer);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
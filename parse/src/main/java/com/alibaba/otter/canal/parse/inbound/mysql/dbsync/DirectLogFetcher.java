@@ -5,7 +5,7 @@ import java.io.InterruptedIOException;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
-import java.nio.channels.SocketChannel;
+import java.nio.channels.ReadableByteChannel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +18,13 @@ import com.taobao.tddl.dbsync.binlog.LogFetcher;
  * @author jianghang 2013-1-14 下午07:39:30
  * @version 1.0.0
  * 直接抓去master的response日志
+ *
+ * <pre>
+ * directBuffer模式：
+ * 1. 从{@linkplain DirectBufferPool}中获取一个direct buffer，每次尽可能多的从socket中读取数据(一次系统调用可能包含多个packet)
+ * 2. packet header/body直接从direct buffer中批量拷贝到LogBuffer，避免对heap buffer读取时jdk内部临时direct buffer的额外拷贝，以及header的单独系统调用
+ * 3. close时归还direct buffer
+ * </pre>
  */
 public class DirectLogFetcher extends LogFetcher {
 
@@ -37,7 +44,13 @@ public class DirectLogFetcher extends LogFetcher {
     /** Maximum packet length */
     public static final int       MAX_PACKET_LENGTH = (256 * 256 * 256 - 1);//最大包的长度
 
-    private SocketChannel         channel;//该channel已经连接了master
+    /** Default read ahead buffer size in directBuffer mode */
+    public static final int       READ_BUFFER_SIZE  = 64 * 1024;
+
+    private ReadableByteChannel   channel;//该channel已经连接了master
+    private boolean               directBuffer      = false;
+    private int                   readBufferSize    = READ_BUFFER_SIZE;
+    private ByteBuffer            readBuffer;//directBuffer模式下预读的数据，flip状态
 
     // private BufferedInputStream input;
 
@@ -53,8 +66,20 @@ public class DirectLogFetcher extends LogFetcher {
         super(initialCapacity, growthFactor);
     }
 
-    public void start(SocketChannel channel) throws IOException {
+    public DirectLogFetcher(final int initialCapacity, final boolean directBuffer){
+        super(initialCapacity, DEFAULT_GROWTH_FACTOR);
+        this.directBuffer = directBuffer;
+        if (initialCapacity > readBufferSize) {
+            this.readBufferSize = initialCapacity;
+        }
+    }
+
+    public void start(ReadableByteChannel channel) throws IOException {
         this.channel = channel;
+        if (directBuffer && readBuffer == null) {
+            readBuffer = DirectBufferPool.instance().acquire(readBufferSize);
+            readBuffer.flip(); // 初始没有可读数据
+        }
         // 和mysql driver一样，提供buffer机制，提升读取binlog速度
         // this.input = new
         // BufferedInputStream(channel.socket().getInputStream(), 16384);
@@ -152,6 +177,10 @@ public class DirectLogFetcher extends LogFetcher {
     private final boolean fetch0(final int off, final int len) throws IOException {
         ensureCapacity(off + len);
 
+        if (readBuffer != null) {
+            return fetchFromReadBuffer(off, len);
+        }
+
         ByteBuffer buffer = ByteBuffer.wrap(this.buffer, off, len);
         while (buffer.hasRemaining()) {//读取数据
             int readNum = channel.read(buffer);
@@ -171,13 +200,42 @@ public class DirectLogFetcher extends LogFetcher {
         return true;
     }
 
+    /**
+     * 从预读的direct buffer中拷贝数据，不够时再从channel中批量读取
+     */
+    private final boolean fetchFromReadBuffer(final int off, final int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            if (!readBuffer.hasRemaining()) {
+                readBuffer.clear();
+                int readNum = channel.read(readBuffer);
+                readBuffer.flip();
+                if (readNum == -1) {
+                    throw new IOException("Unexpected End Stream");
+                }
+                continue;
+            }
+
+            int count = Math.min(len - n, readBuffer.remaining());
+            readBuffer.get(this.buffer, off + n, count);
+            n += count;
+        }
+
+        if (limit < off + len) limit = off + len;//更新buff的limit位置
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      * 
      * @see com.taobao.tddl.dbsync.binlog.LogFetcher#close()
+     * 归还directBuffer模式下的direct buffer
      */
     public void close() throws IOException {
-        // do nothing
+        if (readBuffer != null) {
+            DirectBufferPool.instance().release(readBuffer);
+            readBuffer = null;
+        }
     }
 
 }
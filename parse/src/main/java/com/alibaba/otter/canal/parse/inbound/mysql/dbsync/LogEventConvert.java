@@ -8,6 +8,9 @@ import java.nio.charset.Charset;
 import java.sql.Types;
 import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
@@ -18,9 +21,9 @@ import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
 import com.alibaba.otter.canal.filter.aviater.AviaterRegexFilter;
 import com.alibaba.otter.canal.parse.exception.CanalParseException;
 import com.alibaba.otter.canal.parse.exception.TableIdNotFoundException;
-import com.alibaba.otter.canal.parse.inbound.BinlogParser;
+import com.alibaba.otter.canal.parse.inbound.ParallelBinlogParser;
 import com.alibaba.otter.canal.parse.inbound.TableMeta;
-import com.alibaba.otter.canal.parse.inbound.TableMeta.FieldMeta;
+import com.alibaba.otter.canal.parse.inbound.mysql.dbsync.CompiledTableMeta.CompiledField;
 import com.alibaba.otter.canal.parse.inbound.mysql.dbsync.SimpleDdlParser.DdlResult;
 import com.alibaba.otter.canal.protocol.CanalEntry.Column;
 import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
@@ -33,6 +36,9 @@ import com.alibaba.otter.canal.protocol.CanalEntry.RowData;
 import com.alibaba.otter.canal.protocol.CanalEntry.TransactionBegin;
 import com.alibaba.otter.canal.protocol.CanalEntry.TransactionEnd;
 import com.alibaba.otter.canal.protocol.CanalEntry.Type;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.protobuf.ByteString;
 import com.taobao.tddl.dbsync.binlog.LogEvent;
 import com.taobao.tddl.dbsync.binlog.event.DeleteRowsLogEvent;
@@ -59,7 +65,7 @@ import com.taobao.tddl.dbsync.binlog.event.mariadb.AnnotateRowsEvent;
  * @author jianghang 2013-1-17 下午02:41:14
  * @version 1.0.0
  */
-public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogParser<LogEvent> {
+public class LogEventConvert extends AbstractCanalLifeCycle implements ParallelBinlogParser<LogEvent> {
 
     public static final String          ISO_8859_1          = "ISO-8859-1";
     public static final String          UTF_8               = "UTF-8";
@@ -86,6 +92,17 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
     private boolean                     filterTableError    = false;
     // 新增rows过滤，用于仅订阅除rows以外的数据
     private boolean                     filterRows      = false;
+    // 整数/浮点/二进制列额外使用longValue/doubleValue/bytesValue编码，value文本仍然保留，老的客户端不受影响
+    private boolean                     typedColumnValue    = false;
+    // 按table meta对象缓存编译结果，table meta重新加载后是新的对象，旧对象回收后自然失效(value不能引用key)
+    private final LoadingCache<TableMeta, CompiledTableMeta> compiledTableMetas = CacheBuilder.newBuilder()
+                                                                                   .weakKeys()
+                                                                                   .build(new CacheLoader<TableMeta, CompiledTableMeta>() {
+
+                                                                                       public CompiledTableMeta load(TableMeta tableMeta) {
+                                                                                           return new CompiledTableMeta(tableMeta);
+                                                                                       }
+                                                                                   });
 
     //事件对象如何转换成Entry实体
     public Entry parse(LogEvent logEvent) throws CanalParseException {
@@ -106,13 +123,13 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                 break;
             case LogEvent.WRITE_ROWS_EVENT_V1:
             case LogEvent.WRITE_ROWS_EVENT:
-                return parseRowsEvent((WriteRowsLogEvent) logEvent);
+                return parseRowsEvent((WriteRowsLogEvent) logEvent, binlogFileName);
             case LogEvent.UPDATE_ROWS_EVENT_V1:
             case LogEvent.UPDATE_ROWS_EVENT:
-                return parseRowsEvent((UpdateRowsLogEvent) logEvent);
+                return parseRowsEvent((UpdateRowsLogEvent) logEvent, binlogFileName);
             case LogEvent.DELETE_ROWS_EVENT_V1:
             case LogEvent.DELETE_ROWS_EVENT:
-                return parseRowsEvent((DeleteRowsLogEvent) logEvent);
+                return parseRowsEvent((DeleteRowsLogEvent) logEvent, binlogFileName);
             case LogEvent.ROWS_QUERY_LOG_EVENT://解析原始sql内容
                 return parseRowsQueryEvent((RowsQueryLogEvent) logEvent);
             case LogEvent.ANNOTATE_ROWS_EVENT://解析原始sql内容
@@ -130,6 +147,47 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
         return null;
     }
 
+    /**
+     * rows event不修改解析上下文，可以并行解析，需要在当前线程中先记录下所在的binlog文件
+     */
+    public Callable<Entry> buildParseTask(LogEvent logEvent) {
+        if (logEvent == null || logEvent instanceof UnknownLogEvent) {
+            return null;
+        }
+
+        switch (logEvent.getHeader().getType()) {
+            case LogEvent.WRITE_ROWS_EVENT_V1:
+            case LogEvent.WRITE_ROWS_EVENT:
+            case LogEvent.UPDATE_ROWS_EVENT_V1:
+            case LogEvent.UPDATE_ROWS_EVENT:
+            case LogEvent.DELETE_ROWS_EVENT_V1:
+            case LogEvent.DELETE_ROWS_EVENT:
+                final RowsLogEvent event = (RowsLogEvent) logEvent;
+                final String currentBinlogFileName = binlogFileName;
+                return new Callable<Entry>() {
+
+                    public Entry call() throws Exception {
+                        return parseRowsEvent(event, currentBinlogFileName);
+                    }
+                };
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * DDL会清理table meta cache，需要等待之前的rows event解析完成，BEGIN/COMMIT不需要
+     */
+    public boolean isBarrier(LogEvent logEvent) {
+        if (logEvent != null && logEvent.getHeader().getType() == LogEvent.QUERY_EVENT) {
+            String queryString = ((QueryLogEvent) logEvent).getQuery();
+            return !StringUtils.endsWithIgnoreCase(queryString, BEGIN)
+                   && !StringUtils.endsWithIgnoreCase(queryString, COMMIT);
+        }
+
+        return false;
+    }
+
     public void reset() {
         // do nothing
         binlogFileName = "mysql-bin.000001";
@@ -226,8 +284,12 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
 
                     tableName = renameResult.getTableName();
                     if (StringUtils.isNotEmpty(tableName)) {
-                        // 如果解析到了正确的表信息，则根据全名进行清除
-                        tableMetaCache.clearTableMeta(schemaName0, tableName);
+                        // 如果解析到了正确的表信息，则根据全名进行清除，表结构变化时提前在后台重新加载
+                        if (result.getType() == EventType.ERASE) {
+                            tableMetaCache.clearTableMeta(schemaName0, tableName);
+                        } else {
+                            tableMetaCache.refreshTableMeta(schemaName0, tableName);
+                        }
                     } else {
                         // 如果无法解析正确的表信息，则根据schema进行清除
                         tableMetaCache.clearTableMetaWithSchemaName(schemaName0);
@@ -309,7 +371,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
     }
 
     //处理行事件
-    private Entry parseRowsEvent(RowsLogEvent event) {
+    private Entry parseRowsEvent(RowsLogEvent event, String binlogFileName) {
         if (filterRows) {
             return null;
         }
@@ -351,6 +413,8 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
             rowChangeBuider.setIsDdl(false);
 
             rowChangeBuider.setEventType(eventType);
+            // 订阅规则中指定的列，null表示需要所有列
+            Set<String> projection = nameFilter != null ? nameFilter.getColumns(fullname) : null;
             RowsLogBuffer buffer = event.getRowsBuf(charset.name());
             BitSet columns = event.getColumns();
             BitSet changeColumns = event.getChangeColumns();
@@ -371,19 +435,19 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                 RowData.Builder rowDataBuilder = RowData.newBuilder();
                 if (EventType.INSERT == eventType) {
                     // insert的记录放在before字段中
-                    tableError |= parseOneRow(rowDataBuilder, event, buffer, columns, true, tableMeta);
+                    tableError |= parseOneRow(rowDataBuilder, event, buffer, columns, true, tableMeta, projection);
                 } else if (EventType.DELETE == eventType) {
                     // delete的记录放在before字段中
-                    tableError |= parseOneRow(rowDataBuilder, event, buffer, columns, false, tableMeta);
+                    tableError |= parseOneRow(rowDataBuilder, event, buffer, columns, false, tableMeta, projection);
                 } else {
                     // update需要处理before/after
-                    tableError |= parseOneRow(rowDataBuilder, event, buffer, columns, false, tableMeta);
+                    tableError |= parseOneRow(rowDataBuilder, event, buffer, columns, false, tableMeta, projection);
                     if (!buffer.nextOneRow(changeColumns)) {
                         rowChangeBuider.addRowDatas(rowDataBuilder.build());
                         break;
                     }
 
-                    tableError |= parseOneRow(rowDataBuilder, event, buffer, changeColumns, true, tableMeta);
+                    tableError |= parseOneRow(rowDataBuilder, event, buffer, changeColumns, true, tableMeta, projection);
                 }
 
                 rowChangeBuider.addRowDatas(rowDataBuilder.build());
@@ -413,11 +477,13 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
      * @param cols 要获取的列集合
      * @param isAfter insert表示inster,delete是false,update 原始内容是false,新的数据是true
      * @param tableMeta 元数据管理对象
+     * @param projection 订阅的列名，null表示需要所有列
      * @return
      * @throws UnsupportedEncodingException
      */
     private boolean parseOneRow(RowData.Builder rowDataBuilder, RowsLogEvent event, RowsLogBuffer buffer, BitSet cols,
-                                boolean isAfter, TableMeta tableMeta) throws UnsupportedEncodingException {
+                                boolean isAfter, TableMeta tableMeta, Set<String> projection)
+                                                                                              throws UnsupportedEncodingException {
         final int columnCnt = event.getTable().getColumnCnt();//事件中的列数量
         final ColumnInfo[] columnInfo = event.getTable().getColumnInfo();//事件中存在的列集合
 
@@ -449,6 +515,17 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
             }
         }
 
+        CompiledTableMeta compiledTableMeta = null;
+        if (tableMeta != null && !tableError) {
+            compiledTableMeta = getCompiledTableMeta(tableMeta);
+        }
+        // 列裁剪需要依赖table meta获取列名，没有table meta时解析所有列
+        BitSet projected = null;
+        if (projection != null && compiledTableMeta != null) {
+            projected = compiledTableMeta.project(projection);
+        }
+
+        Column.Builder columnBuilder = Column.newBuilder();// 每一列build之后clear复用
         for (int i = 0; i < columnCnt; i++) {//循环事件中每一个字段
             ColumnInfo info = columnInfo[i];
             // mysql 5.6开始支持nolob/mininal类型,并不一定记录所有的列,需要进行判断
@@ -456,35 +533,41 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                 continue;
             }
 
-            Column.Builder columnBuilder = Column.newBuilder();
+            if (projected != null && !projected.get(i)) {
+                buffer.skipValue(info.type, info.meta);// 未订阅的列只跳过，不生成value
+                continue;
+            }
 
-            FieldMeta fieldMeta = null;//该列的对象描述信息
-            if (tableMeta != null && !tableError) {
+            columnBuilder.clear();
+
+            CompiledField field = null;//该列的对象描述信息
+            if (compiledTableMeta != null) {
                 // 处理file meta
-                fieldMeta = tableMeta.getFileds().get(i);
-                columnBuilder.setName(fieldMeta.getColumnName());
-                columnBuilder.setIsKey(fieldMeta.isKey());
+                field = compiledTableMeta.getField(i);
+                columnBuilder.setName(field.getName());
+                columnBuilder.setIsKey(field.isKey());
                 // 增加mysql type类型,issue 73
-                columnBuilder.setMysqlType(fieldMeta.getColumnType());
+                columnBuilder.setMysqlType(field.getMysqlType());
             }
             columnBuilder.setIndex(i);
             columnBuilder.setIsNull(false);
 
             // fixed issue
             // https://github.com/alibaba/canal/issues/66，特殊处理binary/varbinary，不能做编码处理
-            boolean isBinary = false;
-            if (fieldMeta != null) {
-                if (StringUtils.containsIgnoreCase(fieldMeta.getColumnType(), "VARBINARY")) {
-                    isBinary = true;
-                } else if (StringUtils.containsIgnoreCase(fieldMeta.getColumnType(), "BINARY")) {
-                    isBinary = true;
-                }
+            boolean isBinary = field != null && field.isBinary();
+            boolean isUnsigned = field != null && field.isUnsigned();
+            boolean primitive = false;
+            if (typedColumnValue) {
+                primitive = buffer.nextPrimitiveValue(info.type, info.meta, isBinary);//整数/浮点不装箱
+            } else {
+                buffer.nextValue(info.type, info.meta, isBinary);//获取值
             }
-            buffer.nextValue(info.type, info.meta, isBinary);//获取值
 
             int javaType = buffer.getJavaType();//获取java的类型
             if (buffer.isNull()) {
                 columnBuilder.setIsNull(true);
+            } else if (primitive) {
+                javaType = setPrimitiveValue(columnBuilder, buffer, isUnsigned, javaType);
             } else {
                 final Serializable value = buffer.getValue();
                 // 处理各种类型
@@ -495,7 +578,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                     case Types.BIGINT:
                         // 处理unsigned类型
                         Number number = (Number) value;
-                        if (fieldMeta != null && fieldMeta.isUnsigned() && number.longValue() < 0) {
+                        if (isUnsigned && number.longValue() < 0) {
                             switch (buffer.getLength()) {
                                 case 1: /* MYSQL_TYPE_TINY */
                                     columnBuilder.setValue(String.valueOf(Integer.valueOf(TINYINT_MAX_VALUE
@@ -562,12 +645,11 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
                         // https://github.com/AlibabaTech/canal/issues/18
                         // mysql binlog中blob/text都处理为blob类型，需要反查table
                         // meta，按编码解析text
-                        if (fieldMeta != null && isText(fieldMeta.getColumnType())) {
+                        if (field != null && field.isText()) {
                             columnBuilder.setValue(new String((byte[]) value, charset));
                             javaType = Types.CLOB;
                         } else {
-                            // byte数组，直接使用iso-8859-1保留对应编码，浪费内存
-                            columnBuilder.setValue(new String((byte[]) value, ISO_8859_1));
+                            setBinaryValue(columnBuilder, (byte[]) value, typedColumnValue);
                             javaType = Types.BLOB;
                         }
                         break;
@@ -584,10 +666,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
             columnBuilder.setSqlType(javaType);
             // 设置是否update的标记位
             //isAfter是true,说明是insert 或者update关于修改后的内容
-            columnBuilder.setUpdated(isAfter
-                                     && isUpdate(rowDataBuilder.getBeforeColumnsList(),
-                                         columnBuilder.getIsNull() ? null : columnBuilder.getValue(),
-                                         i));
+            columnBuilder.setUpdated(isAfter && isUpdate(rowDataBuilder.getBeforeColumnsList(), columnBuilder, i));
             if (isAfter) {
                 rowDataBuilder.addAfterColumns(columnBuilder.build());
             } else {
@@ -640,7 +719,7 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
      * @param index 该值是第几个列
      * true表示这个列的值确实是在update前后有变化了
      */
-    private boolean isUpdate(List<Column> bfColumns, String newValue, int index) {
+    private boolean isUpdate(List<Column> bfColumns, Column.Builder newColumn, int index) {
         if (bfColumns == null) {
             throw new CanalParseException("ERROR ## the bfColumns is null");
         }
@@ -652,10 +731,10 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
         //比较前后两次修改后的值是否相同
         for (Column column : bfColumns) {
             if (column.getIndex() == index) {// 比较before / after的column index
-                if (column.getIsNull() && newValue == null) {
+                if (column.getIsNull() && newColumn.getIsNull()) {
                     // 如果全是null
                     return false;
-                } else if (newValue != null && (!column.getIsNull() && column.getValue().equals(newValue))) {
+                } else if (!newColumn.getIsNull() && !column.getIsNull() && isSameValue(column, newColumn)) {
                     // fixed issue #135, old column is Null
                     // 如果不为null，并且相等
                     return false;
@@ -667,6 +746,86 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
         return true;
     }
 
+    // 依次比较typed编码的值和value文本
+    private boolean isSameValue(Column column, Column.Builder newColumn) {
+        if (column.hasLongValue() || newColumn.hasLongValue()) {
+            return column.hasLongValue() && newColumn.hasLongValue()
+                   && column.getLongValue() == newColumn.getLongValue();
+        } else if (column.hasDoubleValue() || newColumn.hasDoubleValue()) {
+            return column.hasDoubleValue() && newColumn.hasDoubleValue()
+                   && Double.compare(column.getDoubleValue(), newColumn.getDoubleValue()) == 0;
+        } else if (column.hasBytesValue() || newColumn.hasBytesValue()) {
+            return column.hasBytesValue() && newColumn.hasBytesValue()
+                   && column.getBytesValue().equals(newColumn.getBytesValue());
+        } else {
+            return column.getValue().equals(newColumn.getValue());
+        }
+    }
+
+    /**
+     * typed编码模式下处理整数/浮点类型，写入longValue/doubleValue，返回调整后的javaType
+     *
+     * <pre>
+     * typed编码是instance级别的开关，客户端并不感知，所以value文本和非typed模式保持一致，只读取value的老客户端不受影响
+     * </pre>
+     */
+    static int setPrimitiveValue(Column.Builder columnBuilder, RowsLogBuffer buffer, boolean isUnsigned, int javaType) {
+        if (javaType == Types.REAL) {
+            double value = buffer.getDoubleValue();
+            columnBuilder.setDoubleValue(value);
+            columnBuilder.setValue(String.valueOf((float) value)); // 和Float.toString的结果保持一致
+            return javaType;
+        } else if (javaType == Types.DOUBLE) {
+            double value = buffer.getDoubleValue();
+            columnBuilder.setDoubleValue(value);
+            columnBuilder.setValue(String.valueOf(value));
+            return javaType;
+        }
+
+        long value = buffer.getLongValue();
+        // 处理unsigned类型，和文本模式保持一致往上加一个量级
+        if (isUnsigned && value < 0) {
+            switch (buffer.getLength()) {
+                case 1: /* MYSQL_TYPE_TINY */
+                    value = TINYINT_MAX_VALUE + value;
+                    javaType = Types.SMALLINT;
+                    break;
+                case 2: /* MYSQL_TYPE_SHORT */
+                    value = SMALLINT_MAX_VALUE + value;
+                    javaType = Types.INTEGER;
+                    break;
+                case 3: /* MYSQL_TYPE_INT24 */
+                    value = MEDIUMINT_MAX_VALUE + value;
+                    javaType = Types.INTEGER;
+                    break;
+                case 4: /* MYSQL_TYPE_LONG */
+                    value = INTEGER_MAX_VALUE + value;
+                    javaType = Types.BIGINT;
+                    break;
+                case 8: /* MYSQL_TYPE_LONGLONG */
+                    // 超出了sint64的范围，只能使用文本
+                    columnBuilder.setValue(BIGINT_MAX_VALUE.add(BigInteger.valueOf(value)).toString());
+                    return Types.DECIMAL;
+            }
+        }
+
+        columnBuilder.setLongValue(value);
+        columnBuilder.setValue(String.valueOf(value));
+        return javaType;
+    }
+
+    /**
+     * 处理非text的binary/blob类型，value使用iso-8859-1保留对应编码，typed编码模式下额外保留原始的byte数组
+     */
+    static void setBinaryValue(Column.Builder columnBuilder, byte[] value, boolean typed)
+                                                                                         throws UnsupportedEncodingException {
+        // byte数组，直接使用iso-8859-1保留对应编码，浪费内存
+        columnBuilder.setValue(new String(value, ISO_8859_1));
+        if (typed) {
+            columnBuilder.setBytesValue(ByteString.copyFrom(value));
+        }
+    }
+
     private TableMeta getTableMeta(String dbName, String tbName, boolean useCache) {
         try {
             return tableMetaCache.getTableMeta(dbName, tbName, useCache);
@@ -682,9 +841,12 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
         }
     }
 
-    private boolean isText(String columnType) {
-        return "LONGTEXT".equalsIgnoreCase(columnType) || "MEDIUMTEXT".equalsIgnoreCase(columnType)
-               || "TEXT".equalsIgnoreCase(columnType) || "TINYTEXT".equalsIgnoreCase(columnType);
+    private CompiledTableMeta getCompiledTableMeta(TableMeta tableMeta) {
+        try {
+            return compiledTableMetas.get(tableMeta);
+        } catch (ExecutionException e) {
+            throw new CanalParseException(e);
+        }
     }
 
     //query 模式下begin 对应的线程ID
@@ -752,4 +914,8 @@ public class LogEventConvert extends AbstractCanalLifeCycle implements BinlogPar
         this.filterRows = filterRows;
     }
 
+    public void setTypedColumnValue(boolean typedColumnValue) {
+        this.typedColumnValue = typedColumnValue;
+    }
+
 }
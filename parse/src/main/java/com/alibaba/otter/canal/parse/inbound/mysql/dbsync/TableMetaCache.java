@@ -1,30 +1,66 @@
 package com.alibaba.otter.canal.parse.inbound.mysql.dbsync;
 
+import java.io.File;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.alibaba.otter.canal.common.utils.JsonUtils;
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
+import com.alibaba.otter.canal.filter.CanalEventFilter;
 import com.alibaba.otter.canal.parse.driver.mysql.packets.server.FieldPacket;
 import com.alibaba.otter.canal.parse.driver.mysql.packets.server.ResultSetPacket;
 import com.alibaba.otter.canal.parse.exception.CanalParseException;
 import com.alibaba.otter.canal.parse.inbound.TableMeta;
 import com.alibaba.otter.canal.parse.inbound.TableMeta.FieldMeta;
 import com.alibaba.otter.canal.parse.inbound.mysql.MysqlConnection;
-import com.google.common.base.Function;
-import com.google.common.collect.MigrateMap;
+import com.alibaba.otter.canal.protocol.position.EntryPosition;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 /**
  * 处理table meta解析和缓存
  * 使用desc 数据库.table命令返回具体的信息就是该表数据
+ * 
+ * <pre>
+ * 批量预加载模式：
+ * 1. {@linkplain #prefetch}先查询information_schema.TABLES找出有表匹配filter的schema，
+ *    再按这些schema查询一次information_schema.COLUMNS加载所有匹配的表，避免启动时逐个desc，也不会扫描无关schema的字段
+ * 2. maxSize > 0时按照LRU淘汰，淘汰后再次访问时重新desc
+ * 3. snapshot记录生成时的binlog位点，只有位点不早于本次的起始位点时才使用，
+ *    否则起始位点之前的DDL不会重放，snapshot中的表结构可能已经过期
+ * 4. asyncRefresh开启时，ALTER/RENAME之后由后台线程重新加载，解析线程只有用到该表时才等待加载完成
+ * </pre>
+ * 
  * @author jianghang 2013-1-17 下午10:15:16
  * @version 1.0.0
  */
 public class TableMetaCache {
 
+    private static final Logger    logger         = LoggerFactory.getLogger(TableMetaCache.class);
+    private static final Charset   charset        = Charset.forName("UTF-8");
+    private static final String    TABLES_SQL     = "select TABLE_SCHEMA,TABLE_NAME from information_schema.TABLES "
+                                                    + "where TABLE_SCHEMA not in ('information_schema','mysql','performance_schema','sys')";
+    private static final String    COLUMNS_SQL    = "select TABLE_SCHEMA,TABLE_NAME,COLUMN_NAME,COLUMN_TYPE,IS_NULLABLE,COLUMN_KEY,COLUMN_DEFAULT,EXTRA "
+                                                    + "from information_schema.COLUMNS "
+                                                    + "where TABLE_SCHEMA in (%s) "
+                                                    + "order by TABLE_SCHEMA,TABLE_NAME,ORDINAL_POSITION";
+
     //属性的描述内容
     public static final String     COLUMN_NAME    = "COLUMN_NAME";
     public static final String     COLUMN_TYPE    = "COLUMN_TYPE";
@@ -32,17 +68,28 @@ public class TableMetaCache {
     public static final String     COLUMN_KEY     = "COLUMN_KEY";
     public static final String     COLUMN_DEFAULT = "COLUMN_DEFAULT";
     public static final String     EXTRA          = "EXTRA";
+    public static final String     TABLE_SCHEMA   = "TABLE_SCHEMA";
+    public static final String     TABLE_NAME     = "TABLE_NAME";
     private MysqlConnection        connection;
 
     // 第一层tableId,第二层schema.table,解决tableId重复，对应多张表
-    private Map<String, TableMeta> tableMetaCache;
+    private LoadingCache<String, TableMeta> tableMetaCache;
+    private ExecutorService        refreshExecutor;                                                // 异步刷新的线程，为空时同步加载
 
     public TableMetaCache(MysqlConnection con){
+        this(con, 0, false);
+    }
+
+    public TableMetaCache(MysqlConnection con, long maxSize, boolean asyncRefresh){
         this.connection = con;
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+        if (maxSize > 0) {
+            builder.maximumSize(maxSize);
+        }
         //获取一个表的元数据信息,缓存存在则用缓存,否则使用desc 表名命令去加载
-        tableMetaCache = MigrateMap.makeComputingMap(new Function<String, TableMeta>() {
+        tableMetaCache = builder.build(new CacheLoader<String, TableMeta>() {
 
-            public TableMeta apply(String name) {
+            public TableMeta load(String name) throws Exception {
                 try {
                     return getTableMeta0(name);
                 } catch (IOException e) {
@@ -58,6 +105,9 @@ public class TableMetaCache {
 
         });
 
+        if (asyncRefresh) {
+            refreshExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("TableMetaCache-refresh"));
+        }
     }
 
     public TableMeta getTableMeta(String schema, String table) {
@@ -67,25 +117,52 @@ public class TableMetaCache {
     //获取元数据信息
     public TableMeta getTableMeta(String schema, String table, boolean useCache) {
         if (!useCache) {
-            tableMetaCache.remove(getFullName(schema, table));
+            tableMetaCache.invalidate(getFullName(schema, table));
         }
 
-        return tableMetaCache.get(getFullName(schema, table));
+        return tableMetaCache.getUnchecked(getFullName(schema, table));
     }
 
     //删除一张表的元数据信息
     public void clearTableMeta(String schema, String table) {
-        tableMetaCache.remove(getFullName(schema, table));
+        tableMetaCache.invalidate(getFullName(schema, table));
+    }
+
+    /**
+     * 表结构发生变化，删除缓存后在后台重新加载，加载期间访问该表会等待加载完成
+     */
+    public void refreshTableMeta(String schema, String table) {
+        final String fullName = getFullName(schema, table);
+        tableMetaCache.invalidate(fullName);
+        if (refreshExecutor == null) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(new Runnable() {
+
+                public void run() {
+                    try {
+                        tableMetaCache.get(fullName);
+                    } catch (Throwable e) {
+                        // 加载失败不会缓存，下次访问时再同步加载
+                        logger.warn("refresh table meta:" + fullName + " failed", e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 已经关闭，下次访问时同步加载
+        }
     }
 
     //删除schema这个库的所有表的元数据信息
     public void clearTableMetaWithSchemaName(String schema) {
         // Set<String> removeNames = new HashSet<String>(); //
         // 存一份临时变量，避免在遍历的时候进行删除
-        for (String name : tableMetaCache.keySet()) {
-            if (StringUtils.startsWithIgnoreCase(name, schema + ".")) {
+        for (String name : tableMetaCache.asMap().keySet()) {
+            if (StringUtils.startsWithIgnoreCase(name, "`" + schema + "`.")) {
                 // removeNames.add(name);
-                tableMetaCache.remove(name);
+                tableMetaCache.invalidate(name);
             }
         }
 
@@ -95,11 +172,150 @@ public class TableMetaCache {
     }
 
     public void clearTableMeta() {
-        tableMetaCache.clear();
+        tableMetaCache.invalidateAll();
+    }
+
+    /**
+     * 关闭异步刷新的线程
+     */
+    public void close() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
+    }
+
+    /**
+     * 批量加载所有匹配filter的表，返回加载的表数量
+     */
+    public synchronized int prefetch(CanalEventFilter<String> filter, CanalEventFilter<String> blackFilter)
+                                                                                                            throws IOException {
+        // information_schema.COLUMNS按schema过滤时只需要打开这些schema下的表
+        Set<String> schemas = new TreeSet<String>();
+        ResultSetPacket tablesPacket = connection.query(TABLES_SQL);
+        List<String> tableValues = tablesPacket.getFieldValues();
+        for (int i = 0; i + 1 < tableValues.size(); i += 2) {
+            if (isMatch(tableValues.get(i) + "." + tableValues.get(i + 1), filter, blackFilter)) {
+                schemas.add(tableValues.get(i));
+            }
+        }
+
+        if (schemas.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder schemaList = new StringBuilder();
+        for (String schema : schemas) {
+            if (schemaList.length() > 0) {
+                schemaList.append(',');
+            }
+            schemaList.append('\'').append(schema.replace("\\", "\\\\").replace("'", "''")).append('\'');
+        }
+
+        ResultSetPacket packet = connection.query(String.format(COLUMNS_SQL, schemaList.toString()));
+        Map<String, Integer> nameMaps = new HashMap<String, Integer>(8, 1f);
+        int index = 0;
+        for (FieldPacket fieldPacket : packet.getFieldDescriptors()) {
+            nameMaps.put(fieldPacket.getOriginalName(), index++);
+        }
+
+        List<String> values = packet.getFieldValues();
+        int size = packet.getFieldDescriptors().size();
+        int count = values.size() / size;
+        int tables = 0;
+        String currentName = null;
+        List<FieldMeta> fields = null;
+        for (int i = 0; i < count; i++) {
+            // 按照schema.table排序返回，同一张表的字段是连续的
+            String schema = values.get(nameMaps.get(TABLE_SCHEMA) + i * size);
+            String table = values.get(nameMaps.get(TABLE_NAME) + i * size);
+            String fullName = getFullName(schema, table);
+            if (!fullName.equals(currentName)) {
+                if (fields != null) {
+                    tableMetaCache.put(currentName, new TableMeta(currentName, fields));
+                    tables++;
+                }
+
+                currentName = fullName;
+                fields = null;
+                if (!isMatch(schema + "." + table, filter, blackFilter)) {
+                    continue;
+                }
+                fields = new ArrayList<FieldMeta>();
+            }
+
+            if (fields != null) {
+                FieldMeta meta = new FieldMeta();
+                meta.setColumnName(values.get(nameMaps.get(COLUMN_NAME) + i * size).intern());
+                meta.setColumnType(values.get(nameMaps.get(COLUMN_TYPE) + i * size));
+                meta.setIsNullable(values.get(nameMaps.get(IS_NULLABLE) + i * size));
+                meta.setIskey(values.get(nameMaps.get(COLUMN_KEY) + i * size));
+                meta.setDefaultValue(values.get(nameMaps.get(COLUMN_DEFAULT) + i * size));
+                meta.setExtra(values.get(nameMaps.get(EXTRA) + i * size));
+                fields.add(meta);
+            }
+        }
+
+        if (fields != null) {
+            tableMetaCache.put(currentName, new TableMeta(currentName, fields));
+            tables++;
+        }
+        return tables;
     }
 
-    //使用desc 数据库.table命令返回具体的信息就是该表数据
-    private TableMeta getTableMeta0(String fullname) throws IOException {
+    /**
+     * 加载snapshot，snapshot的位点早于起始位点时忽略，返回是否加载成功
+     */
+    public boolean loadSnapshot(File file, EntryPosition startPosition) {
+        if (!file.exists() || startPosition == null) {
+            return false;
+        }
+
+        try {
+            String json = FileUtils.readFileToString(file, charset.name());
+            TableMetaSnapshot snapshot = JsonUtils.unmarshalFromString(json, TableMetaSnapshot.class);
+            if (!isNotBefore(snapshot.getPosition(), startPosition)) {
+                logger.info("ignore table meta snapshot at {}, start position : {}",
+                    snapshot.getPosition(),
+                    startPosition);
+                return false;
+            }
+
+            for (TableMeta tableMeta : snapshot.getTables()) {
+                tableMetaCache.put(tableMeta.getFullName(), tableMeta);
+            }
+            return true;
+        } catch (Throwable e) {
+            logger.warn("load table meta snapshot from " + file.getPath() + " failed", e);
+            return false;
+        }
+    }
+
+    /**
+     * 将当前缓存的所有表结构写入snapshot，position为对应的binlog位点
+     */
+    public void saveSnapshot(File file, EntryPosition position) {
+        if (position == null || tableMetaCache.size() == 0) {
+            return; // 不覆盖已有的snapshot
+        }
+
+        TableMetaSnapshot snapshot = new TableMetaSnapshot();
+        snapshot.setPosition(position);
+        snapshot.setTables(new ArrayList<TableMeta>(tableMetaCache.asMap().values()));
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            FileUtils.writeStringToFile(tmp, JsonUtils.marshalToString(snapshot), charset.name());
+            if (file.exists()) {
+                FileUtils.forceDelete(file);
+            }
+            FileUtils.moveFile(tmp, file);
+        } catch (IOException e) {
+            logger.warn("save table meta snapshot to " + file.getPath() + " failed", e);
+        }
+    }
+
+    //使用desc 数据库.table命令返回具体的信息就是该表数据,并行解析时多个线程共用一个connection,需要串行执行
+    private synchronized TableMeta getTableMeta0(String fullname) throws IOException {
         ResultSetPacket packet = connection.query("desc " + fullname);
         return new TableMeta(fullname, parserTableMeta(packet));
     }
@@ -132,6 +348,32 @@ public class TableMetaCache {
         return result;
     }
 
+    private boolean isMatch(String name, CanalEventFilter<String> filter, CanalEventFilter<String> blackFilter) {
+        return (filter == null || filter.filter(name)) && (blackFilter == null || !blackFilter.filter(name));
+    }
+
+    // snapshot的位点是否不早于起始位点
+    private boolean isNotBefore(EntryPosition snapshot, EntryPosition start) {
+        if (snapshot == null || StringUtils.isEmpty(snapshot.getJournalName())
+            || StringUtils.isEmpty(start.getJournalName()) || snapshot.getPosition() == null
+            || start.getPosition() == null) {
+            return false;
+        }
+
+        // binlog文件名为basename.序号，序号超过6位之后长度会变化，需要按数字比较
+        String snapshotBase = StringUtils.substringBeforeLast(snapshot.getJournalName(), ".");
+        String startBase = StringUtils.substringBeforeLast(start.getJournalName(), ".");
+        String snapshotIndex = StringUtils.substringAfterLast(snapshot.getJournalName(), ".");
+        String startIndex = StringUtils.substringAfterLast(start.getJournalName(), ".");
+        if (!snapshotBase.equals(startBase) || !StringUtils.isNumeric(snapshotIndex)
+            || !StringUtils.isNumeric(startIndex) || snapshotIndex.length() == 0 || startIndex.length() == 0) {
+            return false; // 无法比较先后，不使用snapshot
+        }
+
+        int compare = new BigInteger(snapshotIndex).compareTo(new BigInteger(startIndex));
+        return compare > 0 || (compare == 0 && snapshot.getPosition() >= start.getPosition());
+    }
+
     //数据库.table
     private String getFullName(String schema, String table) {
         StringBuilder builder = new StringBuilder();
@@ -144,4 +386,29 @@ public class TableMetaCache {
             .append('`')
             .toString();
     }
+
+    /**
+     * table meta的本地snapshot
+     */
+    public static class TableMetaSnapshot {
+
+        private EntryPosition   position; // 生成snapshot时的binlog位点
+        private List<TableMeta> tables;
+
+        public EntryPosition getPosition() {
+            return position;
+        }
+
+        public void setPosition(EntryPosition position) {
+            this.position = position;
+        }
+
+        public List<TableMeta> getTables() {
+            return tables;
+        }
+
+        public void setTables(List<TableMeta> tables) {
+            this.tables = tables;
+        }
+    }
 }
@@ -1,18 +1,29 @@
 package com.alibaba.otter.canal.parse.inbound.mysql.local;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.alibaba.otter.canal.common.utils.MappedBufferUtils;
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
 import com.alibaba.otter.canal.parse.exception.CanalParseException;
 
 /**
@@ -23,13 +34,18 @@ import com.alibaba.otter.canal.parse.exception.CanalParseException;
  */
 public class BinLogFileQueue {
 
-    private String        baseName       = "mysql-bin.";//文件名字的前缀
-    private List<File>    binlogs        = new ArrayList<File>();//存储binlog文件集合
-    private File          directory;//binlog文件夹
-    private ReentrantLock lock           = new ReentrantLock();
-    private Condition     nextCondition  = lock.newCondition();
-    private Timer         timer          = new Timer(true);
-    private long          reloadInterval = 10 * 1000L;           // 10秒
+    private static final Logger logger           = LoggerFactory.getLogger(BinLogFileQueue.class);
+    private String              baseName         = "mysql-bin.";//文件名字的前缀
+    private List<File>          binlogs          = new ArrayList<File>();//存储binlog文件集合
+    private File                directory;//binlog文件夹
+    private ReentrantLock       lock             = new ReentrantLock();
+    private Condition           nextCondition    = lock.newCondition();
+    private Timer               timer            = new Timer(true);
+    private long                reloadInterval   = 10 * 1000L;           // 10秒
+    private long                prefetchSize     = 64 * 1024 * 1024L;    // 每个文件预读的字节数
+    private ExecutorService     prefetchExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("BinLogFileQueue-prefetch",
+                                                     true));
+    private volatile File       prefetched;                              // 最近一次已提交预读的文件
 
     public BinLogFileQueue(String directory){
         this(new File(directory));
@@ -146,6 +162,46 @@ public class BinLogFileQueue {
         }
     }
 
+    /**
+     * 后台预读当前文件的下一个binlog文件，将其头部内容加载到page cache中，避免切换文件时等待磁盘io
+     */
+    public void prefetch(File current) {
+        final File next = getNextFile(current);
+        if (next == null || next.equals(prefetched)) {
+            return;
+        }
+
+        prefetched = next;
+        try {
+            prefetchExecutor.submit(new Runnable() {
+
+                public void run() {
+                    load(next);
+                }
+            });
+        } catch (Exception e) {
+            // destory之后提交会被拒绝，直接忽略
+        }
+    }
+
+    private void load(File file) {
+        RandomAccessFile input = null;
+        try {
+            input = new RandomAccessFile(file, "r");
+            FileChannel channel = input.getChannel();
+            long size = Math.min(channel.size(), prefetchSize);
+            if (size > 0) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                buffer.load();
+                MappedBufferUtils.unmap(buffer);// 释放映射，page cache中的数据依然保留
+            }
+        } catch (IOException e) {
+            logger.warn("prefetch binlog " + file.getPath() + " failed", e);
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
     /**
      * 获取当前所有binlog文件
      */
@@ -157,6 +213,7 @@ public class BinLogFileQueue {
         try {
             lock.lockInterruptibly();
             timer.cancel();
+            prefetchExecutor.shutdownNow();
             binlogs.clear();
 
             nextCondition.signalAll();// 唤醒线程，通知退出
@@ -227,4 +284,8 @@ public class BinLogFileQueue {
     public void setBaseName(String baseName) {
         this.baseName = baseName;
     }
+
+    public void setPrefetchSize(long prefetchSize) {
+        this.prefetchSize = prefetchSize;
+    }
 }
@@ -0,0 +1,213 @@
+package com.alibaba.otter.canal.parse.inbound.mysql.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
+import com.alibaba.otter.canal.parse.exception.CanalParseException;
+import com.alibaba.otter.canal.parse.inbound.SinkFunction;
+import com.taobao.tddl.dbsync.binlog.LogContext;
+import com.taobao.tddl.dbsync.binlog.LogDecoder;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.LogFetcher;
+import com.taobao.tddl.dbsync.binlog.LogPosition;
+
+/**
+ * 并行回放多个本地binlog文件，用于历史数据的回溯
+ *
+ * <pre>
+ * 1. 同时最多decode parallelism个binlog文件，每个文件一个worker线程，使用独立的LogDecoder/LogContext
+ * 2. 每个binlog文件都以自己的FormatDescription事件开头，事务(以及其中的TableMap)不会跨文件，
+ *    因此每个worker从文件头开始decode就能得到完整的上下文，RowsLogEvent在decode时已经绑定了对应的TableMap
+ * 3. merge阶段在调用线程中按照文件顺序依次消费各个worker的结果，一个文件消费完之后才消费下一个，保证和串行读取的顺序完全一致
+ * 4. 只并行处理已经写完的文件(存在下一个文件)，最后一个可能还在写入的文件返回给调用方串行读取
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:04:02
+ * @version 1.0.22
+ */
+public class ParallelBinLogFileReader {
+
+    private static final Logger logger         = LoggerFactory.getLogger(ParallelBinLogFileReader.class);
+    private static final long   CHECK_INTERVAL = 100;
+    private BinLogFileQueue     binlogs;
+    private LogFetcherFactory   fetcherFactory;
+    private int                 parallelism;
+    private int                 queueSize      = 4096;                                                   // 每个文件已decode但还未消费的事件上限
+
+    /**
+     * 打开指定binlog文件的fetcher
+     */
+    public static interface LogFetcherFactory {
+
+        LogFetcher open(File file, long position) throws IOException;
+    }
+
+    public ParallelBinLogFileReader(BinLogFileQueue binlogs, LogFetcherFactory fetcherFactory, int parallelism){
+        this.binlogs = binlogs;
+        this.fetcherFactory = fetcherFactory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 从first文件的position位置开始并行回放，直到剩下最后一个可能还在写入的文件
+     *
+     * @return 需要继续串行读取的文件，如果就是first则从position继续，否则从文件头开始；返回null表示sink要求停止
+     */
+    public File dump(File first, long position, SinkFunction func) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+            new NamedThreadFactory("LocalBinlog-parallel-reader"));
+        LinkedList<FileTask> tasks = new LinkedList<FileTask>();
+        File current = first; // 下一个待调度的文件
+        long currentPosition = position;
+        long startTime = System.currentTimeMillis();
+        long totalEvents = 0;
+        int totalFiles = 0;
+        try {
+            while (true) {
+                // 补齐并行窗口
+                while (tasks.size() < parallelism) {
+                    File next = binlogs.getNextFile(current);
+                    if (next == null) {
+                        break;// current为最后一个文件，留给调用方串行读取
+                    }
+
+                    FileTask task = new FileTask(current, currentPosition);
+                    tasks.add(task);
+                    executor.execute(task);
+                    current = next;
+                    currentPosition = 0L;
+                }
+
+                if (tasks.isEmpty()) {
+                    return current;
+                }
+
+                FileTask task = tasks.removeFirst();
+                long events = merge(task, func);
+                if (events < 0) {
+                    return null;
+                }
+
+                totalEvents += events;
+                totalFiles++;
+                long cost = Math.max(task.endTime - task.startTime, 1);
+                logger.info("parallel read binlog:{} finished, events:{} bytes:{} cost:{}ms tps:{}/s throughput:{}KB/s",
+                    new Object[] { task.file.getName(), events, task.bytes, cost, events * 1000 / cost,
+                            task.bytes * 1000 / 1024 / cost });
+            }
+        } finally {
+            executor.shutdownNow();
+
+            long cost = Math.max(System.currentTimeMillis() - startTime, 1);
+            logger.info("parallel read {} binlog files, events:{} cost:{}ms tps:{}/s", new Object[] { totalFiles,
+                    totalEvents, cost, totalEvents * 1000 / cost });
+        }
+    }
+
+    /**
+     * 按顺序消费一个文件的全部事件，返回事件数量，sink要求停止时返回-1
+     */
+    private long merge(FileTask task, SinkFunction func) throws InterruptedException {
+        long events = 0;
+        while (true) {
+            LogEvent event = task.queue.poll(CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+            if (event != null) {
+                events++;
+                if (!func.sink(event)) {
+                    return -1;
+                }
+                continue;
+            }
+
+            task.checkException();
+            if (task.done && task.queue.isEmpty()) {// done在最后一个事件放入之后才设置
+                return events;
+            }
+        }
+    }
+
+    /**
+     * 单个binlog文件的decode任务
+     */
+    private class FileTask implements Runnable {
+
+        private final File                     file;
+        private final long                     position;
+        private final BlockingQueue<LogEvent> queue;
+        private volatile boolean               done;
+        private volatile Throwable             exception;
+        private volatile long                  startTime;
+        private volatile long                  endTime;
+        private volatile long                  bytes;
+
+        public FileTask(File file, long position){
+            this.file = file;
+            this.position = position;
+            this.queue = new ArrayBlockingQueue<LogEvent>(queueSize);
+        }
+
+        public void run() {
+            startTime = System.currentTimeMillis();
+            LogFetcher fetcher = null;
+            try {
+                fetcher = fetcherFactory.open(file, position);
+                LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+                LogContext context = new LogContext();
+                context.setLogPosition(new LogPosition(file.getName(), position));
+                while (fetcher.fetch()) {
+                    LogEvent event;
+                    do {
+                        event = decoder.decode(fetcher, context);
+                        if (event != null) {
+                            queue.put(event);
+                        }
+                    } while (event != null);
+                }
+
+                bytes = file.length() - position;
+                endTime = System.currentTimeMillis();
+                done = true;
+            } catch (InterruptedException e) {
+                // 被merge阶段中断，直接退出
+            } catch (Throwable e) {
+                exception = e;
+            } finally {
+                if (fetcher != null) {
+                    try {
+                        fetcher.close();
+                    } catch (IOException e) {
+                        logger.warn("close binlog " + file.getName() + " failed", e);
+                    }
+                }
+            }
+        }
+
+        public void checkException() {
+            Throwable e = exception;
+            if (e != null) {
+                if (e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                } else {
+                    throw new CanalParseException("parallel read binlog " + file.getName() + " failed", e);
+                }
+            }
+        }
+    }
+
+    // ================== setter / getter ===================
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+}
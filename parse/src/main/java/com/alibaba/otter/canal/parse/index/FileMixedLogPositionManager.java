@@ -3,23 +3,14 @@ package com.alibaba.otter.canal.parse.index;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
 import com.alibaba.otter.canal.common.utils.JsonUtils;
 import com.alibaba.otter.canal.meta.exception.CanalMetaManagerException;
+import com.alibaba.otter.canal.parse.index.LogPositionPersister.LogPositionFlusher;
 import com.alibaba.otter.canal.protocol.position.LogPosition;
 import com.google.common.base.Function;
 import com.google.common.collect.MigrateMap;
@@ -29,7 +20,7 @@ import com.google.common.collect.MigrateMap;
  * 
  * <pre>
  * 策略：
- * 1. 先写内存，然后定时刷新数据到File
+ * 1. 先写内存，然后由{@linkplain LogPositionPersister}定时刷新数据到File
  * 2. 数据采取overwrite模式(只保留最后一次)
  * </pre>
  * 
@@ -39,18 +30,16 @@ import com.google.common.collect.MigrateMap;
  */
 public class FileMixedLogPositionManager extends MemoryLogPositionManager {
 
-    private static final Logger      logger       = LoggerFactory.getLogger(FileMixedLogPositionManager.class);
     private static final Charset     charset      = Charset.forName("UTF-8");
     private File                     dataDir;//目录
     private String                   dataFileName = "parse.dat";//文件名
     private Map<String, File>        dataFileCaches;//每一个destination对应的文件映射
-    private ScheduledExecutorService executor;
+    private LogPositionPersister     persister;
     @SuppressWarnings("serial")
     private final LogPosition        nullPosition = new LogPosition() {
                                                   };
 
     private long                     period       = 1000;                                                      // 单位ms
-    private Set<String>              persistTasks;//有更改的destination,因此调度里面要进行重写
 
     public void start() {
         super.start();
@@ -75,7 +64,6 @@ public class FileMixedLogPositionManager extends MemoryLogPositionManager {
             }
         });
 
-        executor = Executors.newScheduledThreadPool(1);
         positions = MigrateMap.makeComputingMap(new Function<String, LogPosition>() {
 
             public LogPosition apply(String destination) {
@@ -88,38 +76,28 @@ public class FileMixedLogPositionManager extends MemoryLogPositionManager {
             }
         });
 
-        persistTasks = Collections.synchronizedSet(new HashSet<String>());
-
-        // 启动定时工作任务
-        executor.scheduleAtFixedRate(new Runnable() {
-
-            public void run() {
-                List<String> tasks = new ArrayList<String>(persistTasks);
-                for (String destination : tasks) {
-                    try {
-                        // 定时将内存中的最新值刷到file中，多次变更只刷一次
-                        flushDataToFile(destination);
-                        persistTasks.remove(destination);
-                    } catch (Throwable e) {
-                        // ignore
-                        logger.error("period update" + destination + " curosr failed!", e);
-                    }
-                }
+        // 定时将内存中的最新值刷到file中，多次变更只刷一次
+        persister = new LogPositionPersister(new LogPositionFlusher() {
+
+            public void flush(String destination, LogPosition position) {
+                flushDataToFile(destination, position);
             }
-        }, period, period, TimeUnit.MILLISECONDS);
+        });
+        persister.setPeriod(period);
+        persister.start();
     }
 
     public void stop() {
         super.stop();
 
+        persister.stop();
         flushDataToFile();
-        executor.shutdownNow();
         positions.clear();
     }
 
     public void persistLogPosition(String destination, LogPosition logPosition) {
-        persistTasks.add(destination);// 添加到任务队列中进行触发
         super.persistLogPosition(destination, logPosition);//添加到内存中
+        persister.submit(destination, logPosition);// 提交给persister合并写入
     }
 
     public LogPosition getLatestIndexBy(String destination) {
@@ -153,12 +131,12 @@ public class FileMixedLogPositionManager extends MemoryLogPositionManager {
     }
 
     private void flushDataToFile(String destination) {
-        flushDataToFile(destination, dataFileCaches.get(destination));
+        flushDataToFile(destination, positions.get(destination));
     }
 
-    //将内存中队列对应的json信息写入到文件中
-    private void flushDataToFile(String destination, File dataFile) {
-        LogPosition position = positions.get(destination);
+    //将队列对应的json信息写入到文件中
+    private void flushDataToFile(String destination, LogPosition position) {
+        File dataFile = dataFileCaches.get(destination);
         if (position != null && position != nullPosition) {
             String json = JsonUtils.marshalToString(position);
             try {
@@ -194,4 +172,8 @@ public class FileMixedLogPositionManager extends MemoryLogPositionManager {
     public void setPeriod(long period) {
         this.period = period;
     }
+
+    public LogPositionPersister getPersister() {
+        return persister;
+    }
 }
@@ -0,0 +1,210 @@
+package com.alibaba.otter.canal.parse.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
+import com.alibaba.otter.canal.protocol.position.LogPosition;
+
+/**
+ * 合并写入的position持久化，供mixed系列的position manager共用
+ *
+ * <pre>
+ * 1. 每个destination只保留一个待写入的position，新的position直接覆盖旧值(latest-wins)，内存占用和写入次数与事务频率无关
+ * 2. 按照period定时写入，写入失败时保留该position，如果期间没有更新的值，下一次重试
+ * 3. 统计信息：backlog为待写入的destination数，lag为最早一次未写入的更新距今的时间
+ * 4. 关闭时写入所有待写入的position
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:45:42
+ * @version 1.0.22
+ */
+public class LogPositionPersister extends AbstractCanalLifeCycle {
+
+    private static final Logger                                 logger         = LoggerFactory.getLogger(LogPositionPersister.class);
+    private long                                                period         = 1000;                                               // 单位ms
+    private LogPositionFlusher                                  flusher;
+    private ScheduledExecutorService                            executor;
+    private final ConcurrentMap<String, AtomicReference<Slot>> slots          = new ConcurrentHashMap<String, AtomicReference<Slot>>();
+    private final AtomicLong                                    coalescedCount = new AtomicLong(0);                                  // 被覆盖未写入的position数
+    private final AtomicLong                                    flushedCount   = new AtomicLong(0);
+
+    public LogPositionPersister(){
+
+    }
+
+    public LogPositionPersister(LogPositionFlusher flusher){
+        this.flusher = flusher;
+    }
+
+    public void start() {
+        super.start();
+        Assert.notNull(flusher);
+        executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("canal-position-persister"));
+        executor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                flush();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        super.stop();
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(period, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+
+        flush();
+    }
+
+    /**
+     * 提交一个position，覆盖该destination之前未写入的值
+     */
+    public void submit(String destination, LogPosition position) {
+        AtomicReference<Slot> ref = getSlot(destination);
+        while (true) {
+            Slot current = ref.get();
+            Slot next = new Slot(position, current == null ? System.currentTimeMillis() : current.since);
+            if (ref.compareAndSet(current, next)) {
+                if (current != null) {
+                    coalescedCount.incrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 写入所有待写入的position
+     */
+    public synchronized void flush() {
+        for (Map.Entry<String, AtomicReference<Slot>> entry : slots.entrySet()) {
+            Slot slot = entry.getValue().getAndSet(null);
+            if (slot == null) {
+                continue;
+            }
+
+            try {
+                flusher.flush(entry.getKey(), slot.position);
+                flushedCount.incrementAndGet();
+            } catch (Throwable e) {
+                logger.error("persist position for " + entry.getKey() + " failed!", e);
+                restore(entry.getValue(), slot);
+            }
+        }
+    }
+
+    /**
+     * 待写入的destination数
+     */
+    public int getBacklog() {
+        int backlog = 0;
+        for (AtomicReference<Slot> ref : slots.values()) {
+            if (ref.get() != null) {
+                backlog++;
+            }
+        }
+        return backlog;
+    }
+
+    /**
+     * destination最早一次未写入的更新距今的时间，单位ms，没有待写入的数据时返回0
+     */
+    public long getLag(String destination) {
+        AtomicReference<Slot> ref = slots.get(destination);
+        Slot slot = ref == null ? null : ref.get();
+        return slot == null ? 0 : System.currentTimeMillis() - slot.since;
+    }
+
+    /**
+     * 所有destination中最大的lag，单位ms
+     */
+    public long getMaxLag() {
+        long maxLag = 0;
+        for (String destination : slots.keySet()) {
+            maxLag = Math.max(maxLag, getLag(destination));
+        }
+        return maxLag;
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    // ============================ helper method ======================
+
+    private AtomicReference<Slot> getSlot(String destination) {
+        AtomicReference<Slot> ref = slots.get(destination);
+        if (ref == null) {
+            ref = new AtomicReference<Slot>();
+            AtomicReference<Slot> exist = slots.putIfAbsent(destination, ref);
+            if (exist != null) {
+                ref = exist;
+            }
+        }
+        return ref;
+    }
+
+    /**
+     * 写入失败，放回slot中等待重试，如果已经有更新的position，只保留最早的更新时间
+     */
+    private void restore(AtomicReference<Slot> ref, Slot failed) {
+        while (true) {
+            Slot current = ref.get();
+            Slot next = current == null ? failed : new Slot(current.position, Math.min(current.since, failed.since));
+            if (ref.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private static class Slot {
+
+        private final LogPosition position;
+        private final long        since;   // 最早一次未写入的更新时间
+
+        public Slot(LogPosition position, long since){
+            this.position = position;
+            this.since = since;
+        }
+    }
+
+    /**
+     * 实际写入position的操作
+     */
+    public static interface LogPositionFlusher {
+
+        public void flush(String destination, LogPosition position);
+    }
+
+    public void setFlusher(LogPositionFlusher flusher) {
+        this.flusher = flusher;
+    }
+
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+}
@@ -1,12 +1,8 @@
 package com.alibaba.otter.canal.parse.index;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
+import com.alibaba.otter.canal.parse.index.LogPositionPersister.LogPositionFlusher;
 import com.alibaba.otter.canal.protocol.position.LogPosition;
 import com.google.common.base.Function;
 import com.google.common.collect.MigrateMap;
@@ -14,18 +10,23 @@ import com.google.common.collect.MigrateMap;
 /**
  * 混合memory + zookeeper的存储模式
  * 
+ * <pre>
+ * zookeeper的写入由{@linkplain LogPositionPersister}异步合并完成，每个destination只保留最新的position
+ * </pre>
+ * 
  * @author jianghang 2012-7-7 上午10:33:19
  * @version 1.0.0
  */
 public class MixedLogPositionManager extends MemoryLogPositionManager implements CanalLogPositionManager {
 
-    private static final Logger         logger       = LoggerFactory.getLogger(MixedLogPositionManager.class);
     private ZooKeeperLogPositionManager zooKeeperLogPositionManager;
-    private ExecutorService             executor;
+    private LogPositionPersister        persister;
     @SuppressWarnings("serial")
     private final LogPosition           nullPosition = new LogPosition() {
                                                      };
 
+    private long                        period       = 100;             // 写入zookeeper的间隔，单位ms
+
     public void start() {
         super.start();
 
@@ -33,7 +34,14 @@ public class MixedLogPositionManager extends MemoryLogPositionManager implements
         if (!zooKeeperLogPositionManager.isStart()) {
             zooKeeperLogPositionManager.start();
         }
-        executor = Executors.newFixedThreadPool(1);
+        persister = new LogPositionPersister(new LogPositionFlusher() {
+
+            public void flush(String destination, LogPosition position) {
+                zooKeeperLogPositionManager.persistLogPosition(destination, position);
+            }
+        });
+        persister.setPeriod(period);
+        persister.start();
         //从zookeeper中进行初始化数据
         positions = MigrateMap.makeComputingMap(new Function<String, LogPosition>() {
 
@@ -51,27 +59,17 @@ public class MixedLogPositionManager extends MemoryLogPositionManager implements
     public void stop() {
         super.stop();
 
+        persister.stop();// 先写入未完成的position
         if (zooKeeperLogPositionManager.isStart()) {
             zooKeeperLogPositionManager.stop();
         }
-        executor.shutdownNow();
         positions.clear();
     }
 
     //存储的时候,要存储内存和zookeeper
-    public void persistLogPosition(final String destination, final LogPosition logPosition) {
+    public void persistLogPosition(String destination, LogPosition logPosition) {
         super.persistLogPosition(destination, logPosition);
-        executor.submit(new Runnable() {
-
-            public void run() {
-                try {
-                    zooKeeperLogPositionManager.persistLogPosition(destination, logPosition);
-                } catch (Exception e) {
-                    logger.error("ERROR # persist to zookeepr has an error", e);
-                }
-            }
-        });
-
+        persister.submit(destination, logPosition);
     }
 
     //get的时候直接从内存中获取
@@ -90,4 +88,12 @@ public class MixedLogPositionManager extends MemoryLogPositionManager implements
         this.zooKeeperLogPositionManager = zooKeeperLogPositionManager;
     }
 
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    public LogPositionPersister getPersister() {
+        return persister;
+    }
+
 }
@@ -1,18 +1,8 @@
 package com.alibaba.otter.canal.parse.index;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
+import com.alibaba.otter.canal.parse.index.LogPositionPersister.LogPositionFlusher;
 import com.alibaba.otter.canal.protocol.position.LogPosition;
 import com.google.common.base.Function;
 import com.google.common.collect.MigrateMap;
@@ -25,15 +15,13 @@ import com.google.common.collect.MigrateMap;
  */
 public class PeriodMixedLogPositionManager extends MemoryLogPositionManager implements CanalLogPositionManager {
 
-    private static final Logger         logger       = LoggerFactory.getLogger(PeriodMixedLogPositionManager.class);
     private ZooKeeperLogPositionManager zooKeeperLogPositionManager;
-    private ScheduledExecutorService    executor;
+    private LogPositionPersister        persister;
     @SuppressWarnings("serial")
     private final LogPosition           nullPosition = new LogPosition() {
                                                      };
 
     private long                        period       = 1000;                                                        // 单位ms
-    private Set<String>                 persistTasks;
 
     public void start() {
         super.start();
@@ -42,7 +30,6 @@ public class PeriodMixedLogPositionManager extends MemoryLogPositionManager impl
         if (!zooKeeperLogPositionManager.isStart()) {
             zooKeeperLogPositionManager.start();
         }
-        executor = Executors.newScheduledThreadPool(1);
         positions = MigrateMap.makeComputingMap(new Function<String, LogPosition>() {
 
             public LogPosition apply(String destination) {
@@ -55,40 +42,30 @@ public class PeriodMixedLogPositionManager extends MemoryLogPositionManager impl
             }
         });
 
-        persistTasks = Collections.synchronizedSet(new HashSet<String>());
-
-        // 启动定时工作任务
-        executor.scheduleAtFixedRate(new Runnable() {
-
-            public void run() {
-                List<String> tasks = new ArrayList<String>(persistTasks);
-                for (String destination : tasks) {
-                    try {
-                        // 定时将内存中的最新值刷到zookeeper中，多次变更只刷一次
-                        zooKeeperLogPositionManager.persistLogPosition(destination, getLatestIndexBy(destination));
-                        persistTasks.remove(destination);
-                    } catch (Throwable e) {
-                        // ignore
-                        logger.error("period update" + destination + " curosr failed!", e);
-                    }
-                }
+        // 定时将内存中的最新值刷到zookeeper中，多次变更只刷一次
+        persister = new LogPositionPersister(new LogPositionFlusher() {
+
+            public void flush(String destination, LogPosition position) {
+                zooKeeperLogPositionManager.persistLogPosition(destination, position);
             }
-        }, period, period, TimeUnit.MILLISECONDS);
+        });
+        persister.setPeriod(period);
+        persister.start();
     }
 
     public void stop() {
         super.stop();
 
+        persister.stop();// 先写入未完成的position
         if (zooKeeperLogPositionManager.isStart()) {
             zooKeeperLogPositionManager.stop();
         }
-        executor.shutdownNow();
         positions.clear();
     }
 
     public void persistLogPosition(String destination, LogPosition logPosition) {
-        persistTasks.add(destination);// 添加到任务队列中进行触发
         super.persistLogPosition(destination, logPosition);//添加到内存中
+        persister.submit(destination, logPosition);// 提交给persister合并写入
     }
 
     //从内存中获取数据
@@ -109,4 +86,8 @@ public class PeriodMixedLogPositionManager extends MemoryLogPositionManager impl
         this.period = period;
     }
 
+    public LogPositionPersister getPersister() {
+        return persister;
+    }
+
 }
@@ -0,0 +1,141 @@
+package com.alibaba.otter.canal.parse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.parse.inbound.mysql.dbsync.DirectLogFetcher;
+import com.taobao.tddl.dbsync.binlog.LogContext;
+import com.taobao.tddl.dbsync.binlog.LogDecoder;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.LogPosition;
+
+/**
+ * 对比heap/direct buffer两种模式下DirectLogFetcher的吞吐和内存分配
+ *
+ * <pre>
+ * 将测试用的binlog文件按照mysql binlog dump协议重新封装成packet流(可重复多轮)，通过FileChannel回放
+ * 耗时较长，命名为NoRunTest不在默认的测试中执行，需要时手工运行
+ * </pre>
+ */
+public class DirectLogFetcherBenchmarkNoRunTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectLogFetcherBenchmarkNoRunTest.class);
+    private static final int    ROUNDS = 200;
+    private static final int    LOOPS  = 5;
+
+    @Test
+    public void testHeapVsDirect() throws IOException {
+        File stream = buildPacketStream(new File("src/test/resources/binlog/mysql-bin.000001"), ROUNDS);
+        try {
+            // 预热
+            long heapCount = replay(stream, false, false);
+            long directCount = replay(stream, true, false);
+            Assert.assertEquals(heapCount, directCount);
+
+            for (int i = 0; i < LOOPS; i++) {
+                replay(stream, false, true);
+                replay(stream, true, true);
+            }
+        } finally {
+            FileUtils.deleteQuietly(stream);
+        }
+    }
+
+    private long replay(File stream, boolean directBuffer, boolean stat) throws IOException {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long startAllocated = allocatedBytes(threadMXBean);
+        long start = System.nanoTime();
+
+        FileInputStream input = new FileInputStream(stream);
+        DirectLogFetcher fetcher = new DirectLogFetcher(16 * 1024, directBuffer);
+        long count = 0;
+        try {
+            fetcher.start(input.getChannel());
+            LogDecoder decoder = new LogDecoder(LogEvent.UNKNOWN_EVENT, LogEvent.ENUM_END_EVENT);
+            LogContext context = new LogContext();
+            context.setLogPosition(new LogPosition("mysql-bin.000001"));
+            while (fetcher.fetch()) {
+                LogEvent event = decoder.decode(fetcher, context);
+                Assert.assertNotNull(event);
+                count++;
+            }
+        } finally {
+            fetcher.close();
+            IOUtils.closeQuietly(input);
+        }
+
+        long cost = System.nanoTime() - start;
+        long allocated = allocatedBytes(threadMXBean) - startAllocated;
+        if (stat) {
+            logger.info(String.format("directBuffer:%s events:%d cost:%dms throughput:%.2fMB/s allocated:%.2fMB",
+                directBuffer,
+                count,
+                cost / 1000000,
+                stream.length() / 1024.0 / 1024.0 / (cost / 1000000000.0),
+                allocated / 1024.0 / 1024.0));
+        }
+        return count;
+    }
+
+    private long allocatedBytes(ThreadMXBean threadMXBean) {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread()
+                .getId());
+        }
+        return 0;
+    }
+
+    /**
+     * 每个binlog event封装成一个packet : [3字节长度][1字节序号][0x00][event]，最后追加一个EOF packet
+     */
+    private File buildPacketStream(File binlog, int rounds) throws IOException {
+        byte[] data = FileUtils.readFileToByteArray(binlog);
+        ByteArrayOutputStream packets = new ByteArrayOutputStream();
+        int seq = 1;
+        int offset = 4; // 跳过binlog magic
+        while (offset + 19 <= data.length) {
+            int eventLen = (data[offset + 9] & 0xff) | (data[offset + 10] & 0xff) << 8
+                           | (data[offset + 11] & 0xff) << 16 | (data[offset + 12] & 0xff) << 24;
+            writePacketHeader(packets, eventLen + 1, seq++);
+            packets.write(0);
+            packets.write(data, offset, eventLen);
+            offset += eventLen;
+        }
+
+        File stream = File.createTempFile("canal_binlog_stream", ".dat");
+        FileOutputStream output = new FileOutputStream(stream);
+        try {
+            byte[] round = packets.toByteArray();
+            for (int i = 0; i < rounds; i++) {
+                output.write(round);
+            }
+
+            ByteArrayOutputStream eof = new ByteArrayOutputStream();
+            writePacketHeader(eof, 5, seq);
+            eof.write(new byte[] { (byte) 254, 0, 0, 0, 0 });
+            output.write(eof.toByteArray());
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+        return stream;
+    }
+
+    private void writePacketHeader(ByteArrayOutputStream out, int len, int seq) {
+        out.write(len & 0xff);
+        out.write((len >>> 8) & 0xff);
+        out.write((len >>> 16) & 0xff);
+        out.write(seq & 0xff);
+    }
+}
@@ -0,0 +1,101 @@
+package com.alibaba.otter.canal.parse.inbound;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.parse.inbound.EventParsePipeline.EntryHandler;
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
+import com.alibaba.otter.canal.protocol.CanalEntry.Header;
+
+public class EventParsePipelineTest {
+
+    @Test
+    public void testOrderedSink() throws Exception {
+        final int count = 2000;
+        final List<Long> result = Collections.synchronizedList(new ArrayList<Long>());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        EventParsePipeline<Long> pipeline = new EventParsePipeline<Long>("example",
+            new DummyParallelParser(),
+            executor,
+            new EntryHandler() {
+
+                public void handle(Entry entry) throws Exception {
+                    if (entry != null) {
+                        result.add(entry.getHeader().getLogfileOffset());
+                    }
+                }
+            });
+        pipeline.setBufferSize(64);
+        pipeline.start();
+
+        for (long i = 0; i < count; i++) {
+            pipeline.publish(i);
+        }
+
+        long timeout = System.currentTimeMillis() + 10 * 1000;
+        while (result.size() < count && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        pipeline.stop();
+        executor.shutdownNow();
+
+        Assert.assertEquals(count, result.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, result.get(i).longValue()); // 顺序和publish保持一致
+        }
+    }
+
+    /**
+     * 偶数并行解析，奇数串行解析，每100个做一次barrier
+     */
+    private static class DummyParallelParser extends AbstractCanalLifeCycle implements ParallelBinlogParser<Long> {
+
+        private Random random = new Random();
+
+        public Callable<Entry> buildParseTask(final Long event) {
+            if (event % 2 != 0) {
+                return null;
+            }
+
+            final int sleep = random.nextInt(3);
+            return new Callable<Entry>() {
+
+                public Entry call() throws Exception {
+                    Thread.sleep(sleep);
+                    return buildEntry(event);
+                }
+            };
+        }
+
+        public boolean isBarrier(Long event) {
+            return event % 100 == 0;
+        }
+
+        public Entry parse(Long event) {
+            return buildEntry(event);
+        }
+
+        public void reset() {
+        }
+
+        private Entry buildEntry(long offset) {
+            Header.Builder headerBuilder = Header.newBuilder();
+            headerBuilder.setLogfileName("mysql-bin.000001");
+            headerBuilder.setLogfileOffset(offset);
+            Entry.Builder entryBuilder = Entry.newBuilder();
+            entryBuilder.setHeader(headerBuilder.build());
+            entryBuilder.setEntryType(EntryType.ROWDATA);
+            return entryBuilder.build();
+        }
+    }
+}
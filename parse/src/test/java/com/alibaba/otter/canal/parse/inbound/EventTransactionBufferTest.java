@@ -2,6 +2,8 @@ package com.alibaba.otter.canal.parse.inbound;
 
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -13,6 +15,7 @@ import com.alibaba.otter.canal.parse.inbound.EventTransactionBuffer.TransactionF
 import com.alibaba.otter.canal.protocol.CanalEntry;
 import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
 import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
 import com.alibaba.otter.canal.protocol.CanalEntry.Header;
 
 public class EventTransactionBufferTest {
@@ -117,6 +120,107 @@ public class EventTransactionBufferTest {
         buffer.stop();
     }
 
+    @Test
+    public void testGroupCommit() {
+        final List<Integer> flushSizes = new ArrayList<Integer>();
+        EventTransactionBuffer buffer = new EventTransactionBuffer();
+        buffer.setBufferSize(64);
+        buffer.setGroupCommitSize(15);
+        buffer.setFlushCallback(new TransactionFlushCallback() {
+
+            public void flush(List<Entry> transaction) throws InterruptedException {
+                // 只能在事务边界或者DDL之后刷新
+                Entry last = transaction.get(transaction.size() - 1);
+                Assert.assertTrue(last.getEntryType() == EntryType.TRANSACTIONEND
+                                  || last.getHeader().getEventType() == EventType.CREATE);
+                flushSizes.add(transaction.size());
+            }
+        });
+        buffer.start();
+
+        try {
+            long offset = 1L;
+            for (int i = 0; i < 12; i++) {
+                buffer.add(buildEntry("1", offset++, 40L, EntryType.TRANSACTIONBEGIN));
+                buffer.add(buildEntry("1", offset++, 40L));
+                buffer.add(buildEntry("1", offset++, 40L, EntryType.TRANSACTIONEND));
+            }
+            Assert.assertEquals(Arrays.asList(15, 15), flushSizes);
+
+            // DDL之前的事务先刷新，DDL单独刷新
+            Header.Builder headerBuilder = Header.newBuilder();
+            headerBuilder.setLogfileName("1");
+            headerBuilder.setLogfileOffset(offset++);
+            headerBuilder.setExecuteTime(40L);
+            headerBuilder.setEventType(EventType.CREATE);
+            Entry.Builder entryBuilder = Entry.newBuilder();
+            entryBuilder.setHeader(headerBuilder.build());
+            entryBuilder.setEntryType(EntryType.ROWDATA);
+            buffer.add(entryBuilder.build());
+            Assert.assertEquals(Arrays.asList(15, 15, 6, 1), flushSizes);
+        } catch (InterruptedException e) {
+            Assert.fail(e.getMessage());
+        }
+
+        buffer.stop();
+    }
+
+    @Test
+    public void testGroupCommitTimeout() throws InterruptedException {
+        final List<Integer> flushSizes = new ArrayList<Integer>();
+        EventTransactionBuffer buffer = new EventTransactionBuffer();
+        buffer.setBufferSize(64);
+        buffer.setGroupCommitSize(100);
+        buffer.setGroupCommitTimeout(50 * 1000L);
+        buffer.setFlushCallback(new TransactionFlushCallback() {
+
+            public void flush(List<Entry> transaction) throws InterruptedException {
+                flushSizes.add(transaction.size());
+            }
+        });
+        buffer.start();
+
+        long offset = 1L;
+        buffer.add(buildEntry("1", offset++, 40L, EntryType.TRANSACTIONBEGIN));
+        buffer.add(buildEntry("1", offset++, 40L));
+        buffer.add(buildEntry("1", offset++, 40L, EntryType.TRANSACTIONEND));
+        buffer.flushIfTimeout();
+        Assert.assertTrue(flushSizes.isEmpty());
+
+        // 没有新数据时，由解析线程检查等待时间
+        Thread.sleep(100);
+        buffer.flushIfTimeout();
+        Assert.assertEquals(Arrays.asList(3), flushSizes);
+
+        // 有新数据时，add之前先刷新等待超时的事务，未完成的事务继续等待
+        buffer.add(buildEntry("1", offset++, 40L, EntryType.TRANSACTIONBEGIN));
+        buffer.add(buildEntry("1", offset++, 40L));
+        buffer.add(buildEntry("1", offset++, 40L, EntryType.TRANSACTIONEND));
+        Thread.sleep(100);
+        buffer.add(buildEntry("1", offset++, 40L, EntryType.TRANSACTIONBEGIN));
+        buffer.add(buildEntry("1", offset++, 40L));
+        Assert.assertEquals(Arrays.asList(3, 3), flushSizes);
+        buffer.flushIfTimeout();
+        Assert.assertEquals(Arrays.asList(3, 3), flushSizes);
+
+        buffer.stop();
+    }
+
+    @Test
+    public void testGroupCommitDefaultTimeout() {
+        EventTransactionBuffer buffer = new EventTransactionBuffer();
+        buffer.setGroupCommitSize(100);
+        buffer.setFlushCallback(new TransactionFlushCallback() {
+
+            public void flush(List<Entry> transaction) throws InterruptedException {
+            }
+        });
+        buffer.start();
+        // 合并提交必须有等待上限
+        Assert.assertTrue(buffer.getGroupCommitTimeout() > 0);
+        buffer.stop();
+    }
+
     private static Entry buildEntry(String binlogFile, long offset, long timestamp) {
         Header.Builder headerBuilder = Header.newBuilder();
         headerBuilder.setLogfileName(binlogFile);
@@ -1,14 +1,23 @@
 package com.alibaba.otter.canal.parse.inbound;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.alibaba.otter.canal.common.utils.JsonUtils;
 import com.alibaba.otter.canal.parse.inbound.TableMeta.FieldMeta;
 import com.alibaba.otter.canal.parse.inbound.mysql.MysqlConnection;
 import com.alibaba.otter.canal.parse.inbound.mysql.dbsync.TableMetaCache;
+import com.alibaba.otter.canal.parse.inbound.mysql.dbsync.TableMetaCache.TableMetaSnapshot;
+import com.alibaba.otter.canal.protocol.position.EntryPosition;
 
 public class TableMetaCacheTest {
 
@@ -30,4 +39,50 @@ public class TableMetaCacheTest {
                                + field.isNullable());
         }
     }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "canal_table_meta_test");
+        FileUtils.deleteDirectory(dir);
+        File file = new File(dir, "table_meta.dat");
+
+        FieldMeta field = new FieldMeta();
+        field.setColumnName("id");
+        field.setColumnType("bigint(20)");
+        field.setIskey("PRI");
+        List<TableMeta> tables = new ArrayList<TableMeta>();
+        tables.add(new TableMeta("`otter1`.`otter_stability1`", Arrays.asList(field)));
+        TableMetaSnapshot snapshot = new TableMetaSnapshot();
+        snapshot.setPosition(new EntryPosition("mysql-bin.000002", 1000L));
+        snapshot.setTables(tables);
+        FileUtils.writeStringToFile(file, JsonUtils.marshalToString(snapshot), "UTF-8");
+
+        // snapshot早于起始位点，期间的DDL不会重放，不能使用
+        TableMetaCache cache = new TableMetaCache(null, 100, false);
+        Assert.assertFalse(cache.loadSnapshot(file, new EntryPosition("mysql-bin.000002", 2000L)));
+        Assert.assertTrue(cache.loadSnapshot(file, new EntryPosition("mysql-bin.000002", 1000L)));
+        Assert.assertTrue(cache.loadSnapshot(file, new EntryPosition("mysql-bin.000001", 3000L)));
+
+        // 已经在缓存中，不需要连接数据库
+        TableMeta meta = cache.getTableMeta("otter1", "otter_stability1");
+        Assert.assertEquals(1, meta.getFileds().size());
+        Assert.assertTrue(meta.getFileds().get(0).isKey());
+
+        // 重新保存后可以再次加载
+        cache.saveSnapshot(file, new EntryPosition("mysql-bin.000003", 4L));
+        TableMetaCache cache2 = new TableMetaCache(null, 100, false);
+        Assert.assertTrue(cache2.loadSnapshot(file, new EntryPosition("mysql-bin.000003", 4L)));
+        Assert.assertEquals("bigint(20)", cache2.getTableMeta("otter1", "otter_stability1")
+            .getFileds()
+            .get(0)
+            .getColumnType());
+
+        // binlog序号按数字比较，超过6位之后长度变化
+        cache.saveSnapshot(file, new EntryPosition("mysql-bin.1000000", 4L));
+        Assert.assertTrue(cache2.loadSnapshot(file, new EntryPosition("mysql-bin.999999", 5000L)));
+        Assert.assertFalse(cache2.loadSnapshot(file, new EntryPosition("mysql-bin.1000001", 4L)));
+        // 不同的binlog basename无法比较先后
+        Assert.assertFalse(cache2.loadSnapshot(file, new EntryPosition("other-bin.000001", 4L)));
+        FileUtils.deleteDirectory(dir);
+    }
 }
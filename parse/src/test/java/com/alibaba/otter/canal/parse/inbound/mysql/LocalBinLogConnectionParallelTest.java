@@ -0,0 +1,58 @@
+package com.alibaba.otter.canal.parse.inbound.mysql;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.parse.inbound.SinkFunction;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+
+/**
+ * 对比串行和多文件并行回放本地binlog，事件顺序需要完全一致
+ */
+public class LocalBinLogConnectionParallelTest {
+
+    @Test
+    public void testSameOrderAsSerial() throws IOException {
+        File directory = new File(FileUtils.getTempDirectory(), "canal_parallel_binlog_" + System.currentTimeMillis());
+        try {
+            // 构造多个binlog文件
+            File source = new File("src/test/resources/binlog");
+            for (int i = 1; i <= 6; i++) {
+                String from = (i % 2 == 0) ? "mysql-bin.000002" : "mysql-bin.000001";
+                FileUtils.copyFile(new File(source, from), new File(directory, "mysql-bin.00000" + i));
+            }
+
+            List<String> serial = dump(directory, 1);
+            Assert.assertTrue(serial.size() > 0);
+            Assert.assertEquals(serial, dump(directory, 3));
+            Assert.assertEquals(serial, dump(directory, 8));
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    private List<String> dump(File directory, int parallelFileCount) throws IOException {
+        final List<String> result = new ArrayList<String>();
+        LocalBinLogConnection connection = new LocalBinLogConnection(directory.getPath(), false);
+        connection.setParallelFileCount(parallelFileCount);
+        connection.connect();
+        try {
+            connection.dump("mysql-bin.000001", 4L, new SinkFunction<LogEvent>() {
+
+                public boolean sink(LogEvent event) {
+                    result.add(event.getHeader().getType() + ":" + event.getLogPos());
+                    return true;
+                }
+            });
+        } finally {
+            connection.disconnect();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.alibaba.otter.canal.parse.inbound.mysql.dbsync;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.parse.inbound.TableMeta;
+import com.alibaba.otter.canal.parse.inbound.TableMeta.FieldMeta;
+import com.alibaba.otter.canal.parse.inbound.mysql.dbsync.CompiledTableMeta.CompiledField;
+
+public class CompiledTableMetaTest {
+
+    @Test
+    public void testCompile() {
+        List<FieldMeta> fileds = new ArrayList<FieldMeta>();
+        fileds.add(buildField("id", "int(10) unsigned", "PRI"));
+        fileds.add(buildField("name", "varchar(32)", ""));
+        fileds.add(buildField("content", "text", ""));
+        fileds.add(buildField("data", "blob", ""));
+        fileds.add(buildField("md5", "varbinary(16)", ""));
+        fileds.add(buildField("flag", "binary(1)", ""));
+        CompiledTableMeta compiled = new CompiledTableMeta(new TableMeta("test.test", fileds));
+        Assert.assertEquals(6, compiled.size());
+
+        CompiledField id = compiled.getField(0);
+        Assert.assertEquals("id", id.getName());
+        Assert.assertEquals("int(10) unsigned", id.getMysqlType());
+        Assert.assertTrue(id.isKey());
+        Assert.assertTrue(id.isUnsigned());
+        Assert.assertFalse(id.isBinary());
+
+        CompiledField name = compiled.getField(1);
+        Assert.assertFalse(name.isKey());
+        Assert.assertFalse(name.isUnsigned());
+        Assert.assertFalse(name.isText());
+
+        Assert.assertTrue(compiled.getField(2).isText());
+        Assert.assertFalse(compiled.getField(3).isText());
+        Assert.assertFalse(compiled.getField(3).isBinary());
+        Assert.assertTrue(compiled.getField(4).isBinary());
+        Assert.assertTrue(compiled.getField(5).isBinary());
+
+        // 列裁剪总是保留主键
+        Set<String> columns = new HashSet<String>(Arrays.asList("content", "md5"));
+        BitSet projected = compiled.project(columns);
+        Assert.assertEquals("{0, 2, 4}", projected.toString());
+        Assert.assertSame(projected, compiled.project(columns));
+    }
+
+    private FieldMeta buildField(String name, String type, String key) {
+        FieldMeta fieldMeta = new FieldMeta();
+        fieldMeta.setColumnName(name);
+        fieldMeta.setColumnType(type);
+        fieldMeta.setIskey(key);
+        return fieldMeta;
+    }
+}
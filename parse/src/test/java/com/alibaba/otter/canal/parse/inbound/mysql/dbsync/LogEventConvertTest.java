@@ -0,0 +1,161 @@
+package com.alibaba.otter.canal.parse.inbound.mysql.dbsync;
+
+import java.io.UnsupportedEncodingException;
+import java.sql.Types;
+import java.util.BitSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.CanalEntry.Column;
+import com.taobao.tddl.dbsync.binlog.LogBuffer;
+import com.taobao.tddl.dbsync.binlog.LogEvent;
+import com.taobao.tddl.dbsync.binlog.event.RowsLogBuffer;
+
+/**
+ * typed编码模式下整数/浮点/二进制列的转换，unsigned的处理以及value文本都需要和文本模式保持一致
+ */
+public class LogEventConvertTest {
+
+    @Test
+    public void testSigned() {
+        assertLong(LogEvent.MYSQL_TYPE_TINY, 1, false, -1L, -1L, Types.TINYINT);
+        assertLong(LogEvent.MYSQL_TYPE_SHORT, 2, false, -32768L, -32768L, Types.SMALLINT);
+        assertLong(LogEvent.MYSQL_TYPE_INT24, 3, false, -8388608L, -8388608L, Types.INTEGER);
+        assertLong(LogEvent.MYSQL_TYPE_LONG, 4, false, Integer.MIN_VALUE, Integer.MIN_VALUE, Types.INTEGER);
+        assertLong(LogEvent.MYSQL_TYPE_LONGLONG, 8, false, Long.MIN_VALUE, Long.MIN_VALUE, Types.BIGINT);
+    }
+
+    @Test
+    public void testUnsignedInRange() {
+        // 没有超出signed范围的unsigned值不需要提升类型
+        assertLong(LogEvent.MYSQL_TYPE_TINY, 1, true, 127L, 127L, Types.TINYINT);
+        assertLong(LogEvent.MYSQL_TYPE_LONG, 4, true, Integer.MAX_VALUE, Integer.MAX_VALUE, Types.INTEGER);
+        assertLong(LogEvent.MYSQL_TYPE_LONGLONG, 8, true, Long.MAX_VALUE, Long.MAX_VALUE, Types.BIGINT);
+    }
+
+    @Test
+    public void testUnsignedWidening() {
+        assertLong(LogEvent.MYSQL_TYPE_TINY, 1, true, -1L, 255L, Types.SMALLINT);
+        assertLong(LogEvent.MYSQL_TYPE_TINY, 1, true, -128L, 128L, Types.SMALLINT);
+        assertLong(LogEvent.MYSQL_TYPE_SHORT, 2, true, -1L, 65535L, Types.INTEGER);
+        assertLong(LogEvent.MYSQL_TYPE_INT24, 3, true, -1L, 16777215L, Types.INTEGER);
+        assertLong(LogEvent.MYSQL_TYPE_LONG, 4, true, -1L, 4294967295L, Types.BIGINT);
+    }
+
+    @Test
+    public void testUnsignedBigint() {
+        // 超出sint64范围，只能退回文本
+        RowsLogBuffer buffer = newBuffer(LogEvent.MYSQL_TYPE_LONGLONG, littleEndian(-1L, 8));
+        Column.Builder builder = Column.newBuilder();
+        int javaType = LogEventConvert.setPrimitiveValue(builder, buffer, true, buffer.getJavaType());
+        Assert.assertEquals(Types.DECIMAL, javaType);
+        Assert.assertFalse(builder.hasLongValue());
+        Assert.assertEquals("18446744073709551615", builder.getValue());
+
+        buffer = newBuffer(LogEvent.MYSQL_TYPE_LONGLONG, littleEndian(Long.MIN_VALUE, 8));
+        builder = Column.newBuilder();
+        javaType = LogEventConvert.setPrimitiveValue(builder, buffer, true, buffer.getJavaType());
+        Assert.assertEquals(Types.DECIMAL, javaType);
+        Assert.assertEquals("9223372036854775808", builder.getValue());
+    }
+
+    @Test
+    public void testFloat() {
+        RowsLogBuffer buffer = newBuffer(LogEvent.MYSQL_TYPE_FLOAT, littleEndian(Float.floatToIntBits(0.1f), 4));
+        Column.Builder builder = Column.newBuilder();
+        int javaType = LogEventConvert.setPrimitiveValue(builder, buffer, false, buffer.getJavaType());
+        Assert.assertEquals(Types.REAL, javaType);
+        Assert.assertEquals("0.1", builder.getValue());
+        Assert.assertFalse(builder.hasLongValue());
+        Assert.assertTrue(builder.hasDoubleValue());
+        // float按double传输，数值和float本身一致
+        Assert.assertEquals(0.1f, (float) builder.getDoubleValue(), 0f);
+    }
+
+    @Test
+    public void testDouble() {
+        RowsLogBuffer buffer = newBuffer(LogEvent.MYSQL_TYPE_DOUBLE, littleEndian(Double.doubleToLongBits(-2.25d), 8));
+        Column.Builder builder = Column.newBuilder();
+        // unsigned对浮点类型没有影响
+        int javaType = LogEventConvert.setPrimitiveValue(builder, buffer, true, buffer.getJavaType());
+        Assert.assertEquals(Types.DOUBLE, javaType);
+        Assert.assertEquals("-2.25", builder.getValue());
+        Assert.assertEquals(-2.25d, builder.getDoubleValue(), 0d);
+    }
+
+    private void assertLong(int type, int length, boolean isUnsigned, long raw, long expected, int expectedJavaType) {
+        RowsLogBuffer buffer = newBuffer(type, littleEndian(raw, length));
+        Column.Builder builder = Column.newBuilder();
+        int javaType = LogEventConvert.setPrimitiveValue(builder, buffer, isUnsigned, buffer.getJavaType());
+        Assert.assertEquals(expectedJavaType, javaType);
+        Assert.assertTrue(builder.hasLongValue());
+        Assert.assertEquals(expected, builder.getLongValue());
+        Assert.assertEquals(String.valueOf(expected), builder.getValue());
+        Assert.assertFalse(builder.hasDoubleValue());
+    }
+
+    @Test
+    public void testUntypedClient() {
+        // 只读取value的客户端，typed模式下看到的文本和非typed模式完全一致
+        assertSameValue(LogEvent.MYSQL_TYPE_TINY, littleEndian(-1L, 1));
+        assertSameValue(LogEvent.MYSQL_TYPE_SHORT, littleEndian(-32768L, 2));
+        assertSameValue(LogEvent.MYSQL_TYPE_INT24, littleEndian(8388607L, 3));
+        assertSameValue(LogEvent.MYSQL_TYPE_LONG, littleEndian(Integer.MIN_VALUE, 4));
+        assertSameValue(LogEvent.MYSQL_TYPE_LONGLONG, littleEndian(Long.MAX_VALUE, 8));
+        assertSameValue(LogEvent.MYSQL_TYPE_FLOAT, littleEndian(Float.floatToIntBits(0.1f), 4));
+        assertSameValue(LogEvent.MYSQL_TYPE_FLOAT, littleEndian(Float.floatToIntBits(-3.4028235E38f), 4));
+        assertSameValue(LogEvent.MYSQL_TYPE_DOUBLE, littleEndian(Double.doubleToLongBits(0.1d), 8));
+        assertSameValue(LogEvent.MYSQL_TYPE_DOUBLE, littleEndian(Double.doubleToLongBits(1.0E-300d), 8));
+    }
+
+    @Test
+    public void testBinary() throws UnsupportedEncodingException {
+        byte[] value = new byte[] { 0, -1, 65, -128 };
+        Column.Builder builder = Column.newBuilder();
+        LogEventConvert.setBinaryValue(builder, value, false);
+        Assert.assertEquals(new String(value, LogEventConvert.ISO_8859_1), builder.getValue());
+        Assert.assertFalse(builder.hasBytesValue());
+
+        // typed模式下额外保留原始的byte数组，value不变
+        builder = Column.newBuilder();
+        LogEventConvert.setBinaryValue(builder, value, true);
+        Assert.assertEquals(new String(value, LogEventConvert.ISO_8859_1), builder.getValue());
+        Assert.assertArrayEquals(value, builder.getBytesValue().toByteArray());
+    }
+
+    private void assertSameValue(int type, byte[] value) {
+        RowsLogBuffer buffer = newBuffer(type, value);
+        Column.Builder builder = Column.newBuilder();
+        LogEventConvert.setPrimitiveValue(builder, buffer, false, buffer.getJavaType());
+
+        RowsLogBuffer textBuffer = newRow(value);
+        textBuffer.nextValue(type, 0, false);
+        Assert.assertEquals(String.valueOf(textBuffer.getValue()), builder.getValue());
+    }
+
+    private RowsLogBuffer newBuffer(int type, byte[] value) {
+        RowsLogBuffer buffer = newRow(value);
+        Assert.assertTrue(buffer.nextPrimitiveValue(type, 0, false));
+        return buffer;
+    }
+
+    private RowsLogBuffer newRow(byte[] value) {
+        byte[] row = new byte[value.length + 1]; // 第一个字节为null bitmap
+        System.arraycopy(value, 0, row, 1, value.length);
+
+        BitSet columns = new BitSet(1);
+        columns.set(0);
+        RowsLogBuffer buffer = new RowsLogBuffer(new LogBuffer(row, 0, row.length), 1, "UTF-8");
+        Assert.assertTrue(buffer.nextOneRow(columns));
+        return buffer;
+    }
+
+    private static byte[] littleEndian(long value, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (value >> (8 * i));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,57 @@
+package com.alibaba.otter.canal.parse.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.parse.index.LogPositionPersister.LogPositionFlusher;
+import com.alibaba.otter.canal.protocol.position.LogPosition;
+
+public class LogPositionPersisterTest extends AbstractLogPositionManagerTest {
+
+    @Test
+    public void testCoalesce() {
+        final List<LogPosition> flushed = new ArrayList<LogPosition>();
+        final boolean[] failed = new boolean[] { true };
+        LogPositionPersister persister = new LogPositionPersister(new LogPositionFlusher() {
+
+            public void flush(String destination, LogPosition position) {
+                if (failed[0]) {
+                    throw new RuntimeException("mock failed");
+                }
+                flushed.add(position);
+            }
+        });
+        persister.setPeriod(60 * 1000L);// 手动触发flush
+        persister.start();
+
+        LogPosition position = null;
+        for (int i = 1; i <= 5; i++) {
+            position = buildPosition(i);
+            persister.submit(destination, position);
+        }
+        Assert.assertEquals(1, persister.getBacklog());
+        Assert.assertEquals(4, persister.getCoalescedCount());
+
+        // 写入失败后保留，等待下一次重试
+        persister.flush();
+        Assert.assertEquals(1, persister.getBacklog());
+        Assert.assertTrue(flushed.isEmpty());
+
+        failed[0] = false;
+        persister.flush();
+        Assert.assertEquals(0, persister.getBacklog());
+        Assert.assertEquals(0, persister.getLag(destination));
+        Assert.assertEquals(1, flushed.size());
+        Assert.assertEquals(position, flushed.get(0));
+
+        // 关闭时写入未完成的position
+        LogPosition last = buildPosition(6);
+        persister.submit(destination, last);
+        persister.stop();
+        Assert.assertEquals(2, flushed.size());
+        Assert.assertEquals(last, flushed.get(1));
+    }
+}
@@ -2196,6 +2196,18 @@ public final class CanalEntry {
     // optional string mysqlType = 10;
     boolean hasMysqlType();
     String getMysqlType();
+    
+    // optional sint64 longValue = 11;
+    boolean hasLongValue();
+    long getLongValue();
+    
+    // optional double doubleValue = 12;
+    boolean hasDoubleValue();
+    double getDoubleValue();
+    
+    // optional bytes bytesValue = 13;
+    boolean hasBytesValue();
+    com.google.protobuf.ByteString getBytesValue();
   }
   public static final class Column extends
       com.google.protobuf.GeneratedMessage
@@ -2403,6 +2415,36 @@ public final class CanalEntry {
       }
     }
     
+    // optional sint64 longValue = 11;
+    public static final int LONGVALUE_FIELD_NUMBER = 11;
+    private long longValue_;
+    public boolean hasLongValue() {
+      return ((bitField0_ & 0x00000200) == 0x00000200);
+    }
+    public long getLongValue() {
+      return longValue_;
+    }
+    
+    // optional double doubleValue = 12;
+    public static final int DOUBLEVALUE_FIELD_NUMBER = 12;
+    private double doubleValue_;
+    public boolean hasDoubleValue() {
+      return ((bitField0_ & 0x00000400) == 0x00000400);
+    }
+    public double getDoubleValue() {
+      return doubleValue_;
+    }
+    
+    // optional bytes bytesValue = 13;
+    public static final int BYTESVALUE_FIELD_NUMBER = 13;
+    private com.google.protobuf.ByteString bytesValue_;
+    public boolean hasBytesValue() {
+      return ((bitField0_ & 0x00000800) == 0x00000800);
+    }
+    public com.google.protobuf.ByteString getBytesValue() {
+      return bytesValue_;
+    }
+    
     private void initFields() {
       index_ = 0;
       sqlType_ = 0;
@@ -2414,6 +2456,9 @@ public final class CanalEntry {
       value_ = "";
       length_ = 0;
       mysqlType_ = "";
+      longValue_ = 0L;
+      doubleValue_ = 0D;
+      bytesValue_ = com.google.protobuf.ByteString.EMPTY;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -2457,6 +2502,15 @@ public final class CanalEntry {
       if (((bitField0_ & 0x00000100) == 0x00000100)) {
         output.writeBytes(10, getMysqlTypeBytes());
       }
+      if (((bitField0_ & 0x00000200) == 0x00000200)) {
+        output.writeSInt64(11, longValue_);
+      }
+      if (((bitField0_ & 0x00000400) == 0x00000400)) {
+        output.writeDouble(12, doubleValue_);
+      }
+      if (((bitField0_ & 0x00000800) == 0x00000800)) {
+        output.writeBytes(13, bytesValue_);
+      }
       getUnknownFields().writeTo(output);
     }
     
@@ -2506,6 +2560,18 @@ public final class CanalEntry {
         size += com.google.protobuf.CodedOutputStream
           .computeBytesSize(10, getMysqlTypeBytes());
       }
+      if (((bitField0_ & 0x00000200) == 0x00000200)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeSInt64Size(11, longValue_);
+      }
+      if (((bitField0_ & 0x00000400) == 0x00000400)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeDoubleSize(12, doubleValue_);
+      }
+      if (((bitField0_ & 0x00000800) == 0x00000800)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(13, bytesValue_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -2655,6 +2721,12 @@ public final class CanalEntry {
         bitField0_ = (bitField0_ & ~0x00000100);
         mysqlType_ = "";
         bitField0_ = (bitField0_ & ~0x00000200);
+        longValue_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000400);
+        doubleValue_ = 0D;
+        bitField0_ = (bitField0_ & ~0x00000800);
+        bytesValue_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00001000);
         return this;
       }
       
@@ -2738,6 +2810,18 @@ public final class CanalEntry {
           to_bitField0_ |= 0x00000100;
         }
         result.mysqlType_ = mysqlType_;
+        if (((from_bitField0_ & 0x00000400) == 0x00000400)) {
+          to_bitField0_ |= 0x00000200;
+        }
+        result.longValue_ = longValue_;
+        if (((from_bitField0_ & 0x00000800) == 0x00000800)) {
+          to_bitField0_ |= 0x00000400;
+        }
+        result.doubleValue_ = doubleValue_;
+        if (((from_bitField0_ & 0x00001000) == 0x00001000)) {
+          to_bitField0_ |= 0x00000800;
+        }
+        result.bytesValue_ = bytesValue_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -2807,6 +2891,15 @@ public final class CanalEntry {
         if (other.hasMysqlType()) {
           setMysqlType(other.getMysqlType());
         }
+        if (other.hasLongValue()) {
+          setLongValue(other.getLongValue());
+        }
+        if (other.hasDoubleValue()) {
+          setDoubleValue(other.getDoubleValue());
+        }
+        if (other.hasBytesValue()) {
+          setBytesValue(other.getBytesValue());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -2889,6 +2982,21 @@ public final class CanalEntry {
               mysqlType_ = input.readBytes();
               break;
             }
+            case 88: {
+              bitField0_ |= 0x00000400;
+              longValue_ = input.readSInt64();
+              break;
+            }
+            case 97: {
+              bitField0_ |= 0x00000800;
+              doubleValue_ = input.readDouble();
+              break;
+            }
+            case 106: {
+              bitField0_ |= 0x00001000;
+              bytesValue_ = input.readBytes();
+              break;
+            }
           }
         }
       }
@@ -3315,6 +3423,72 @@ public final class CanalEntry {
         onChanged();
       }
       
+      // optional sint64 longValue = 11;
+      private long longValue_ ;
+      public boolean hasLongValue() {
+        return ((bitField0_ & 0x00000400) == 0x00000400);
+      }
+      public long getLongValue() {
+        return longValue_;
+      }
+      public Builder setLongValue(long value) {
+        bitField0_ |= 0x00000400;
+        longValue_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearLongValue() {
+        bitField0_ = (bitField0_ & ~0x00000400);
+        longValue_ = 0L;
+        onChanged();
+        return this;
+      }
+      
+      // optional double doubleValue = 12;
+      private double doubleValue_ ;
+      public boolean hasDoubleValue() {
+        return ((bitField0_ & 0x00000800) == 0x00000800);
+      }
+      public double getDoubleValue() {
+        return doubleValue_;
+      }
+      public Builder setDoubleValue(double value) {
+        bitField0_ |= 0x00000800;
+        doubleValue_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearDoubleValue() {
+        bitField0_ = (bitField0_ & ~0x00000800);
+        doubleValue_ = 0D;
+        onChanged();
+        return this;
+      }
+      
+      // optional bytes bytesValue = 13;
+      private com.google.protobuf.ByteString bytesValue_ = com.google.protobuf.ByteString.EMPTY;
+      public boolean hasBytesValue() {
+        return ((bitField0_ & 0x00001000) == 0x00001000);
+      }
+      public com.google.protobuf.ByteString getBytesValue() {
+        return bytesValue_;
+      }
+      public Builder setBytesValue(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00001000;
+        bytesValue_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearBytesValue() {
+        bitField0_ = (bitField0_ & ~0x00001000);
+        bytesValue_ = getDefaultInstance().getBytesValue();
+        onChanged();
+        return this;
+      }
+      
       // @@protoc_insertion_point(builder_scope:com.alibaba.otter.canal.protocol.Column)
     }
     
@@ -7618,39 +7792,41 @@ public final class CanalEntry {
       "F\n\teventType\030\013 \001(\0162+.com.alibaba.otter.c" +
       "anal.protocol.EventType:\006UPDATE\0225\n\005props" +
       "\030\014 \003(\0132&.com.alibaba.otter.canal.protoco" +
-      "l.Pair\"\326\001\n\006Column\022\r\n\005index\030\001 \001(\005\022\017\n\007sqlT" +
+      "l.Pair\"\222\002\n\006Column\022\r\n\005index\030\001 \001(\005\022\017\n\007sqlT" +
       "ype\030\002 \001(\005\022\014\n\004name\030\003 \001(\t\022\r\n\005isKey\030\004 \001(\010\022\017" +
       "\n\007updated\030\005 \001(\010\022\025\n\006isNull\030\006 \001(\010:\005false\0225" +
       "\n\005props\030\007 \003(\0132&.com.alibaba.otter.canal." +
       "protocol.Pair\022\r\n\005value\030\010 \001(\t\022\016\n\006length\030\t",
-      " \001(\005\022\021\n\tmysqlType\030\n \001(\t\"\301\001\n\007RowData\022?\n\rb" +
-      "eforeColumns\030\001 \003(\0132(.com.alibaba.otter.c" +
-      "anal.protocol.Column\022>\n\014afterColumns\030\002 \003" +
-      "(\0132(.com.alibaba.otter.canal.protocol.Co" +
-      "lumn\0225\n\005props\030\003 \003(\0132&.com.alibaba.otter." +
-      "canal.protocol.Pair\"\222\002\n\tRowChange\022\017\n\007tab" +
-      "leId\030\001 \001(\003\022F\n\teventType\030\002 \001(\0162+.com.alib" +
-      "aba.otter.canal.protocol.EventType:\006UPDA" +
-      "TE\022\024\n\005isDdl\030\n \001(\010:\005false\022\013\n\003sql\030\013 \001(\t\022;\n" +
-      "\010rowDatas\030\014 \003(\0132).com.alibaba.otter.cana",
-      "l.protocol.RowData\0225\n\005props\030\r \003(\0132&.com." +
-      "alibaba.otter.canal.protocol.Pair\022\025\n\rddl" +
-      "SchemaName\030\016 \001(\t\"\207\001\n\020TransactionBegin\022\023\n" +
-      "\013executeTime\030\001 \001(\003\022\025\n\rtransactionId\030\002 \001(" +
-      "\t\0225\n\005props\030\003 \003(\0132&.com.alibaba.otter.can" +
-      "al.protocol.Pair\022\020\n\010threadId\030\004 \001(\003\"s\n\016Tr" +
-      "ansactionEnd\022\023\n\013executeTime\030\001 \001(\003\022\025\n\rtra" +
-      "nsactionId\030\002 \001(\t\0225\n\005props\030\003 \003(\0132&.com.al" +
-      "ibaba.otter.canal.protocol.Pair\"\"\n\004Pair\022" +
-      "\013\n\003key\030\001 \001(\t\022\r\n\005value\030\002 \001(\t*Q\n\tEntryType",
-      "\022\024\n\020TRANSACTIONBEGIN\020\001\022\013\n\007ROWDATA\020\002\022\022\n\016T" +
-      "RANSACTIONEND\020\003\022\r\n\tHEARTBEAT\020\004*\216\001\n\tEvent" +
-      "Type\022\n\n\006INSERT\020\001\022\n\n\006UPDATE\020\002\022\n\n\006DELETE\020\003" +
-      "\022\n\n\006CREATE\020\004\022\t\n\005ALTER\020\005\022\t\n\005ERASE\020\006\022\t\n\005QU" +
-      "ERY\020\007\022\014\n\010TRUNCATE\020\010\022\n\n\006RENAME\020\t\022\n\n\006CINDE" +
-      "X\020\n\022\n\n\006DINDEX\020\013*(\n\004Type\022\n\n\006ORACLE\020\001\022\t\n\005M" +
-      "YSQL\020\002\022\t\n\005PGSQL\020\003B0\n com.alibaba.otter.c" +
-      "anal.protocolB\nCanalEntryH\001"
+      " \001(\005\022\021\n\tmysqlType\030\n \001(\t\022\021\n\tlongValue\030\013 \001" +
+      "(\022\022\023\n\013doubleValue\030\014 \001(\001\022\022\n\nbytesValue\030\r " +
+      "\001(\014\"\301\001\n\007RowData\022?\n\rbeforeColumns\030\001 \003(\0132(" +
+      ".com.alibaba.otter.canal.protocol.Column" +
+      "\022>\n\014afterColumns\030\002 \003(\0132(.com.alibaba.ott" +
+      "er.canal.protocol.Column\0225\n\005props\030\003 \003(\0132" +
+      "&.com.alibaba.otter.canal.protocol.Pair\"" +
+      "\222\002\n\tRowChange\022\017\n\007tableId\030\001 \001(\003\022F\n\teventT" +
+      "ype\030\002 \001(\0162+.com.alibaba.otter.canal.prot" +
+      "ocol.EventType:\006UPDATE\022\024\n\005isDdl\030\n \001(\010:\005f",
+      "alse\022\013\n\003sql\030\013 \001(\t\022;\n\010rowDatas\030\014 \003(\0132).co" +
+      "m.alibaba.otter.canal.protocol.RowData\0225" +
+      "\n\005props\030\r \003(\0132&.com.alibaba.otter.canal." +
+      "protocol.Pair\022\025\n\rddlSchemaName\030\016 \001(\t\"\207\001\n" +
+      "\020TransactionBegin\022\023\n\013executeTime\030\001 \001(\003\022\025" +
+      "\n\rtransactionId\030\002 \001(\t\0225\n\005props\030\003 \003(\0132&.c" +
+      "om.alibaba.otter.canal.protocol.Pair\022\020\n\010" +
+      "threadId\030\004 \001(\003\"s\n\016TransactionEnd\022\023\n\013exec" +
+      "uteTime\030\001 \001(\003\022\025\n\rtransactionId\030\002 \001(\t\0225\n\005" +
+      "props\030\003 \003(\0132&.com.alibaba.otter.canal.pr",
+      "otocol.Pair\"\"\n\004Pair\022\013\n\003key\030\001 \001(\t\022\r\n\005valu" +
+      "e\030\002 \001(\t*Q\n\tEntryType\022\024\n\020TRANSACTIONBEGIN" +
+      "\020\001\022\013\n\007ROWDATA\020\002\022\022\n\016TRANSACTIONEND\020\003\022\r\n\tH" +
+      "EARTBEAT\020\004*\216\001\n\tEventType\022\n\n\006INSERT\020\001\022\n\n\006" +
+      "UPDATE\020\002\022\n\n\006DELETE\020\003\022\n\n\006CREATE\020\004\022\t\n\005ALTE" +
+      "R\020\005\022\t\n\005ERASE\020\006\022\t\n\005QUERY\020\007\022\014\n\010TRUNCATE\020\010\022" +
+      "\n\n\006RENAME\020\t\022\n\n\006CINDEX\020\n\022\n\n\006DINDEX\020\013*(\n\004T" +
+      "ype\022\n\n\006ORACLE\020\001\022\t\n\005MYSQL\020\002\022\t\n\005PGSQL\020\003B0\n" +
+      " com.alibaba.otter.canal.protocolB\nCanal" +
+      "EntryH\001"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -7678,7 +7854,7 @@ public final class CanalEntry {
           internal_static_com_alibaba_otter_canal_protocol_Column_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_com_alibaba_otter_canal_protocol_Column_descriptor,
-              new java.lang.String[] { "Index", "SqlType", "Name", "IsKey", "Updated", "IsNull", "Props", "Value", "Length", "MysqlType", },
+              new java.lang.String[] { "Index", "SqlType", "Name", "IsKey", "Updated", "IsNull", "Props", "Value", "Length", "MysqlType", "LongValue", "DoubleValue", "BytesValue", },
               com.alibaba.otter.canal.protocol.CanalEntry.Column.class,
               com.alibaba.otter.canal.protocol.CanalEntry.Column.Builder.class);
           internal_static_com_alibaba_otter_canal_protocol_RowData_descriptor =
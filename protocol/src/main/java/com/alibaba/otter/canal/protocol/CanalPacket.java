@@ -14,12 +14,14 @@ public final class CanalPacket {
     ZLIB(1, 2),
     GZIP(2, 3),
     LZF(3, 4),
+    LZ4(4, 5),
     ;
     
     public static final int NONE_VALUE = 1;
     public static final int ZLIB_VALUE = 2;
     public static final int GZIP_VALUE = 3;
     public static final int LZF_VALUE = 4;
+    public static final int LZ4_VALUE = 5;
     
     
     public final int getNumber() { return value; }
@@ -30,6 +32,7 @@ public final class CanalPacket {
         case 2: return ZLIB;
         case 3: return GZIP;
         case 4: return LZF;
+        case 5: return LZ4;
         default: return null;
       }
     }
@@ -60,7 +63,7 @@ public final class CanalPacket {
     }
     
     private static final Compression[] VALUES = {
-      NONE, ZLIB, GZIP, LZF, 
+      NONE, ZLIB, GZIP, LZF, LZ4, 
     };
     
     public static Compression valueOf(
@@ -97,6 +100,7 @@ public final class CanalPacket {
     DUMP(9, 10),
     HEARTBEAT(10, 11),
     CLIENTROLLBACK(11, 12),
+    STREAM(12, 13),
     ;
     
     public static final int HANDSHAKE_VALUE = 1;
@@ -111,6 +115,7 @@ public final class CanalPacket {
     public static final int DUMP_VALUE = 10;
     public static final int HEARTBEAT_VALUE = 11;
     public static final int CLIENTROLLBACK_VALUE = 12;
+    public static final int STREAM_VALUE = 13;
     
     
     public final int getNumber() { return value; }
@@ -129,6 +134,7 @@ public final class CanalPacket {
         case 10: return DUMP;
         case 11: return HEARTBEAT;
         case 12: return CLIENTROLLBACK;
+        case 13: return STREAM;
         default: return null;
       }
     }
@@ -159,7 +165,7 @@ public final class CanalPacket {
     }
     
     private static final PacketType[] VALUES = {
-      HANDSHAKE, CLIENTAUTHENTICATION, ACK, SUBSCRIPTION, UNSUBSCRIPTION, GET, MESSAGES, CLIENTACK, SHUTDOWN, DUMP, HEARTBEAT, CLIENTROLLBACK, 
+      HANDSHAKE, CLIENTAUTHENTICATION, ACK, SUBSCRIPTION, UNSUBSCRIPTION, GET, MESSAGES, CLIENTACK, SHUTDOWN, DUMP, HEARTBEAT, CLIENTROLLBACK, STREAM, 
     };
     
     public static PacketType valueOf(
@@ -1757,6 +1763,10 @@ public final class CanalPacket {
     // optional int64 start_timestamp = 8;
     boolean hasStartTimestamp();
     long getStartTimestamp();
+    
+    // optional .com.alibaba.otter.canal.protocol.Compression compression = 9 [default = NONE];
+    boolean hasCompression();
+    com.alibaba.otter.canal.protocol.CanalPacket.Compression getCompression();
   }
   public static final class ClientAuth extends
       com.google.protobuf.GeneratedMessage
@@ -1955,6 +1965,16 @@ public final class CanalPacket {
       return startTimestamp_;
     }
     
+    // optional .com.alibaba.otter.canal.protocol.Compression compression = 9 [default = NONE];
+    public static final int COMPRESSION_FIELD_NUMBER = 9;
+    private com.alibaba.otter.canal.protocol.CanalPacket.Compression compression_;
+    public boolean hasCompression() {
+      return ((bitField0_ & 0x00000100) == 0x00000100);
+    }
+    public com.alibaba.otter.canal.protocol.CanalPacket.Compression getCompression() {
+      return compression_;
+    }
+    
     private void initFields() {
       username_ = "";
       password_ = com.google.protobuf.ByteString.EMPTY;
@@ -1964,6 +1984,7 @@ public final class CanalPacket {
       clientId_ = "";
       filter_ = "";
       startTimestamp_ = 0L;
+      compression_ = com.alibaba.otter.canal.protocol.CanalPacket.Compression.NONE;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -2001,6 +2022,9 @@ public final class CanalPacket {
       if (((bitField0_ & 0x00000080) == 0x00000080)) {
         output.writeInt64(8, startTimestamp_);
       }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        output.writeEnum(9, compression_.getNumber());
+      }
       getUnknownFields().writeTo(output);
     }
     
@@ -2042,6 +2066,10 @@ public final class CanalPacket {
         size += com.google.protobuf.CodedOutputStream
           .computeInt64Size(8, startTimestamp_);
       }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeEnumSize(9, compression_.getNumber());
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -2182,6 +2210,8 @@ public final class CanalPacket {
         bitField0_ = (bitField0_ & ~0x00000040);
         startTimestamp_ = 0L;
         bitField0_ = (bitField0_ & ~0x00000080);
+        compression_ = com.alibaba.otter.canal.protocol.CanalPacket.Compression.NONE;
+        bitField0_ = (bitField0_ & ~0x00000100);
         return this;
       }
       
@@ -2252,6 +2282,10 @@ public final class CanalPacket {
           to_bitField0_ |= 0x00000080;
         }
         result.startTimestamp_ = startTimestamp_;
+        if (((from_bitField0_ & 0x00000100) == 0x00000100)) {
+          to_bitField0_ |= 0x00000100;
+        }
+        result.compression_ = compression_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -2292,6 +2326,9 @@ public final class CanalPacket {
         if (other.hasStartTimestamp()) {
           setStartTimestamp(other.getStartTimestamp());
         }
+        if (other.hasCompression()) {
+          setCompression(other.getCompression());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -2363,6 +2400,17 @@ public final class CanalPacket {
               startTimestamp_ = input.readInt64();
               break;
             }
+            case 72: {
+              int rawValue = input.readEnum();
+              com.alibaba.otter.canal.protocol.CanalPacket.Compression value = com.alibaba.otter.canal.protocol.CanalPacket.Compression.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(9, rawValue);
+              } else {
+                bitField0_ |= 0x00000100;
+                compression_ = value;
+              }
+              break;
+            }
           }
         }
       }
@@ -2600,6 +2648,30 @@ public final class CanalPacket {
         return this;
       }
       
+      // optional .com.alibaba.otter.canal.protocol.Compression compression = 9 [default = NONE];
+      private com.alibaba.otter.canal.protocol.CanalPacket.Compression compression_ = com.alibaba.otter.canal.protocol.CanalPacket.Compression.NONE;
+      public boolean hasCompression() {
+        return ((bitField0_ & 0x00000100) == 0x00000100);
+      }
+      public com.alibaba.otter.canal.protocol.CanalPacket.Compression getCompression() {
+        return compression_;
+      }
+      public Builder setCompression(com.alibaba.otter.canal.protocol.CanalPacket.Compression value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000100;
+        compression_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearCompression() {
+        bitField0_ = (bitField0_ & ~0x00000100);
+        compression_ = com.alibaba.otter.canal.protocol.CanalPacket.Compression.NONE;
+        onChanged();
+        return this;
+      }
+      
       // @@protoc_insertion_point(builder_scope:com.alibaba.otter.canal.protocol.ClientAuth)
     }
     
@@ -6850,216 +6922,816 @@ public final class CanalPacket {
     // @@protoc_insertion_point(class_scope:com.alibaba.otter.canal.protocol.ClientRollback)
   }
   
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_Packet_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_HeartBeat_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_HeartBeat_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_Handshake_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_Handshake_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_ClientAuth_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_ClientAuth_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_Ack_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_Ack_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_ClientAck_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_ClientAck_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_Sub_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_Sub_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_Unsub_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_Unsub_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_Get_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_Get_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_Messages_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_Messages_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_Dump_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_Dump_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_com_alibaba_otter_canal_protocol_ClientRollback_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_com_alibaba_otter_canal_protocol_ClientRollback_fieldAccessorTable;
-  
-  public static com.google.protobuf.Descriptors.FileDescriptor
-      getDescriptor() {
-    return descriptor;
+  public interface StreamOrBuilder
+      extends com.google.protobuf.MessageOrBuilder {
+    
+    // optional string destination = 1;
+    boolean hasDestination();
+    String getDestination();
+    
+    // optional string client_id = 2;
+    boolean hasClientId();
+    String getClientId();
+    
+    // optional int32 fetch_size = 3;
+    boolean hasFetchSize();
+    int getFetchSize();
+    
+    // optional int32 window = 4;
+    boolean hasWindow();
+    int getWindow();
   }
-  private static com.google.protobuf.Descriptors.FileDescriptor
-      descriptor;
-  static {
-    java.lang.String[] descriptorData = {
-      "\n\023CanalProtocol.proto\022 com.alibaba.otter" +
-      ".canal.protocol\"\312\001\n\006Packet\022\030\n\014magic_numb" +
-      "er\030\001 \001(\005:\00217\022\022\n\007version\030\002 \001(\005:\0011\022:\n\004type" +
-      "\030\003 \001(\0162,.com.alibaba.otter.canal.protoco" +
-      "l.PacketType\022H\n\013compression\030\004 \001(\0162-.com." +
-      "alibaba.otter.canal.protocol.Compression" +
-      ":\004NONE\022\014\n\004body\030\005 \001(\014\"<\n\tHeartBeat\022\026\n\016sen" +
-      "d_timestamp\030\001 \001(\003\022\027\n\017start_timestamp\030\002 \001" +
-      "(\003\"\217\001\n\tHandshake\022$\n\026communication_encodi" +
-      "ng\030\001 \001(\t:\004utf8\022\r\n\005seeds\030\002 \001(\014\022M\n\026support",
-      "ed_compressions\030\003 \003(\0162-.com.alibaba.otte" +
-      "r.canal.protocol.Compression\"\274\001\n\nClientA" +
-      "uth\022\020\n\010username\030\001 \001(\t\022\020\n\010password\030\002 \001(\014\022" +
-      "\033\n\020net_read_timeout\030\003 \001(\005:\0010\022\034\n\021net_writ" +
-      "e_timeout\030\004 \001(\005:\0010\022\023\n\013destination\030\005 \001(\t\022" +
-      "\021\n\tclient_id\030\006 \001(\t\022\016\n\006filter\030\007 \001(\t\022\027\n\017st" +
-      "art_timestamp\030\010 \001(\003\"3\n\003Ack\022\025\n\nerror_code" +
-      "\030\001 \001(\005:\0010\022\025\n\rerror_message\030\002 \001(\t\"E\n\tClie" +
-      "ntAck\022\023\n\013destination\030\001 \001(\t\022\021\n\tclient_id\030" +
-      "\002 \001(\t\022\020\n\010batch_id\030\003 \001(\003\"=\n\003Sub\022\023\n\013destin",
-      "ation\030\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022\016\n\006filter" +
-      "\030\007 \001(\t\"?\n\005Unsub\022\023\n\013destination\030\001 \001(\t\022\021\n\t" +
-      "client_id\030\002 \001(\t\022\016\n\006filter\030\007 \001(\t\"\200\001\n\003Get\022" +
-      "\023\n\013destination\030\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022" +
-      "\022\n\nfetch_size\030\003 \001(\005\022\023\n\007timeout\030\004 \001(\003:\002-1" +
-      "\022\017\n\004unit\030\005 \001(\005:\0012\022\027\n\010auto_ack\030\006 \001(\010:\005fal" +
-      "se\".\n\010Messages\022\020\n\010batch_id\030\001 \001(\003\022\020\n\010mess" +
-      "ages\030\002 \003(\014\"?\n\004Dump\022\017\n\007journal\030\001 \001(\t\022\020\n\010p" +
-      "osition\030\002 \001(\003\022\024\n\ttimestamp\030\003 \001(\003:\0010\"J\n\016C" +
-      "lientRollback\022\023\n\013destination\030\001 \001(\t\022\021\n\tcl",
-      "ient_id\030\002 \001(\t\022\020\n\010batch_id\030\003 \001(\003*4\n\013Compr" +
-      "ession\022\010\n\004NONE\020\001\022\010\n\004ZLIB\020\002\022\010\n\004GZIP\020\003\022\007\n\003" +
-      "LZF\020\004*\305\001\n\nPacketType\022\r\n\tHANDSHAKE\020\001\022\030\n\024C" +
-      "LIENTAUTHENTICATION\020\002\022\007\n\003ACK\020\003\022\020\n\014SUBSCR" +
-      "IPTION\020\004\022\022\n\016UNSUBSCRIPTION\020\005\022\007\n\003GET\020\006\022\014\n" +
-      "\010MESSAGES\020\007\022\r\n\tCLIENTACK\020\010\022\014\n\010SHUTDOWN\020\t" +
-      "\022\010\n\004DUMP\020\n\022\r\n\tHEARTBEAT\020\013\022\022\n\016CLIENTROLLB" +
-      "ACK\020\014B1\n com.alibaba.otter.canal.protoco" +
-      "lB\013CanalPacketH\001"
-    };
-    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
-      new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
-        public com.google.protobuf.ExtensionRegistry assignDescriptors(
-            com.google.protobuf.Descriptors.FileDescriptor root) {
-          descriptor = root;
-          internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor =
-            getDescriptor().getMessageTypes().get(0);
-          internal_static_com_alibaba_otter_canal_protocol_Packet_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor,
-              new java.lang.String[] { "MagicNumber", "Version", "Type", "Compression", "Body", },
-              com.alibaba.otter.canal.protocol.CanalPacket.Packet.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.Packet.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_HeartBeat_descriptor =
-            getDescriptor().getMessageTypes().get(1);
-          internal_static_com_alibaba_otter_canal_protocol_HeartBeat_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_HeartBeat_descriptor,
-              new java.lang.String[] { "SendTimestamp", "StartTimestamp", },
-              com.alibaba.otter.canal.protocol.CanalPacket.HeartBeat.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.HeartBeat.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_Handshake_descriptor =
-            getDescriptor().getMessageTypes().get(2);
-          internal_static_com_alibaba_otter_canal_protocol_Handshake_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_Handshake_descriptor,
-              new java.lang.String[] { "CommunicationEncoding", "Seeds", "SupportedCompressions", },
-              com.alibaba.otter.canal.protocol.CanalPacket.Handshake.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.Handshake.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_ClientAuth_descriptor =
-            getDescriptor().getMessageTypes().get(3);
-          internal_static_com_alibaba_otter_canal_protocol_ClientAuth_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_ClientAuth_descriptor,
-              new java.lang.String[] { "Username", "Password", "NetReadTimeout", "NetWriteTimeout", "Destination", "ClientId", "Filter", "StartTimestamp", },
-              com.alibaba.otter.canal.protocol.CanalPacket.ClientAuth.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.ClientAuth.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_Ack_descriptor =
-            getDescriptor().getMessageTypes().get(4);
-          internal_static_com_alibaba_otter_canal_protocol_Ack_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_Ack_descriptor,
-              new java.lang.String[] { "ErrorCode", "ErrorMessage", },
-              com.alibaba.otter.canal.protocol.CanalPacket.Ack.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.Ack.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_ClientAck_descriptor =
-            getDescriptor().getMessageTypes().get(5);
-          internal_static_com_alibaba_otter_canal_protocol_ClientAck_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_ClientAck_descriptor,
-              new java.lang.String[] { "Destination", "ClientId", "BatchId", },
-              com.alibaba.otter.canal.protocol.CanalPacket.ClientAck.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.ClientAck.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_Sub_descriptor =
-            getDescriptor().getMessageTypes().get(6);
-          internal_static_com_alibaba_otter_canal_protocol_Sub_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_Sub_descriptor,
-              new java.lang.String[] { "Destination", "ClientId", "Filter", },
-              com.alibaba.otter.canal.protocol.CanalPacket.Sub.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.Sub.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_Unsub_descriptor =
-            getDescriptor().getMessageTypes().get(7);
-          internal_static_com_alibaba_otter_canal_protocol_Unsub_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_Unsub_descriptor,
-              new java.lang.String[] { "Destination", "ClientId", "Filter", },
-              com.alibaba.otter.canal.protocol.CanalPacket.Unsub.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.Unsub.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_Get_descriptor =
-            getDescriptor().getMessageTypes().get(8);
-          internal_static_com_alibaba_otter_canal_protocol_Get_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_Get_descriptor,
-              new java.lang.String[] { "Destination", "ClientId", "FetchSize", "Timeout", "Unit", "AutoAck", },
-              com.alibaba.otter.canal.protocol.CanalPacket.Get.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.Get.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_Messages_descriptor =
-            getDescriptor().getMessageTypes().get(9);
-          internal_static_com_alibaba_otter_canal_protocol_Messages_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_Messages_descriptor,
-              new java.lang.String[] { "BatchId", "Messages", },
-              com.alibaba.otter.canal.protocol.CanalPacket.Messages.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.Messages.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_Dump_descriptor =
-            getDescriptor().getMessageTypes().get(10);
-          internal_static_com_alibaba_otter_canal_protocol_Dump_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_Dump_descriptor,
-              new java.lang.String[] { "Journal", "Position", "Timestamp", },
-              com.alibaba.otter.canal.protocol.CanalPacket.Dump.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.Dump.Builder.class);
-          internal_static_com_alibaba_otter_canal_protocol_ClientRollback_descriptor =
-            getDescriptor().getMessageTypes().get(11);
-          internal_static_com_alibaba_otter_canal_protocol_ClientRollback_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_com_alibaba_otter_canal_protocol_ClientRollback_descriptor,
-              new java.lang.String[] { "Destination", "ClientId", "BatchId", },
-              com.alibaba.otter.canal.protocol.CanalPacket.ClientRollback.class,
-              com.alibaba.otter.canal.protocol.CanalPacket.ClientRollback.Builder.class);
+  public static final class Stream extends
+      com.google.protobuf.GeneratedMessage
+      implements StreamOrBuilder {
+    // Use Stream.newBuilder() to construct.
+    private Stream(Builder builder) {
+      super(builder);
+    }
+    private Stream(boolean noInit) {}
+    
+    private static final Stream defaultInstance;
+    public static Stream getDefaultInstance() {
+      return defaultInstance;
+    }
+    
+    public Stream getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+    
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor;
+    }
+    
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Stream_fieldAccessorTable;
+    }
+    
+    private int bitField0_;
+    // optional string destination = 1;
+    public static final int DESTINATION_FIELD_NUMBER = 1;
+    private java.lang.Object destination_;
+    public boolean hasDestination() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    public String getDestination() {
+      java.lang.Object ref = destination_;
+      if (ref instanceof String) {
+        return (String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        String s = bs.toStringUtf8();
+        if (com.google.protobuf.Internal.isValidUtf8(bs)) {
+          destination_ = s;
+        }
+        return s;
+      }
+    }
+    private com.google.protobuf.ByteString getDestinationBytes() {
+      java.lang.Object ref = destination_;
+      if (ref instanceof String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8((String) ref);
+        destination_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+    
+    // optional string client_id = 2;
+    public static final int CLIENT_ID_FIELD_NUMBER = 2;
+    private java.lang.Object clientId_;
+    public boolean hasClientId() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    public String getClientId() {
+      java.lang.Object ref = clientId_;
+      if (ref instanceof String) {
+        return (String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        String s = bs.toStringUtf8();
+        if (com.google.protobuf.Internal.isValidUtf8(bs)) {
+          clientId_ = s;
+        }
+        return s;
+      }
+    }
+    private com.google.protobuf.ByteString getClientIdBytes() {
+      java.lang.Object ref = clientId_;
+      if (ref instanceof String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8((String) ref);
+        clientId_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+    
+    // optional int32 fetch_size = 3;
+    public static final int FETCH_SIZE_FIELD_NUMBER = 3;
+    private int fetchSize_;
+    public boolean hasFetchSize() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    public int getFetchSize() {
+      return fetchSize_;
+    }
+    
+    // optional int32 window = 4;
+    public static final int WINDOW_FIELD_NUMBER = 4;
+    private int window_;
+    public boolean hasWindow() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    public int getWindow() {
+      return window_;
+    }
+    
+    private void initFields() {
+      destination_ = "";
+      clientId_ = "";
+      fetchSize_ = 0;
+      window_ = 0;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized != -1) return isInitialized == 1;
+      
+      memoizedIsInitialized = 1;
+      return true;
+    }
+    
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeBytes(1, getDestinationBytes());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeBytes(2, getClientIdBytes());
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeInt32(3, fetchSize_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeInt32(4, window_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+    
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+    
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(1, getDestinationBytes());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(2, getClientIdBytes());
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(3, fetchSize_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(4, window_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+    
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+    
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input, extensionRegistry)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static com.alibaba.otter.canal.protocol.CanalPacket.Stream parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(com.alibaba.otter.canal.protocol.CanalPacket.Stream prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+    
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder>
+       implements com.alibaba.otter.canal.protocol.CanalPacket.StreamOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor;
+      }
+      
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.alibaba.otter.canal.protocol.CanalPacket.internal_static_com_alibaba_otter_canal_protocol_Stream_fieldAccessorTable;
+      }
+      
+      // Construct using com.alibaba.otter.canal.protocol.CanalPacket.Stream.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+      
+      private Builder(BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+      
+      public Builder clear() {
+        super.clear();
+        destination_ = "";
+        bitField0_ = (bitField0_ & ~0x00000001);
+        clientId_ = "";
+        bitField0_ = (bitField0_ & ~0x00000002);
+        fetchSize_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        window_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        return this;
+      }
+      
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+      
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.alibaba.otter.canal.protocol.CanalPacket.Stream.getDescriptor();
+      }
+      
+      public com.alibaba.otter.canal.protocol.CanalPacket.Stream getDefaultInstanceForType() {
+        return com.alibaba.otter.canal.protocol.CanalPacket.Stream.getDefaultInstance();
+      }
+      
+      public com.alibaba.otter.canal.protocol.CanalPacket.Stream build() {
+        com.alibaba.otter.canal.protocol.CanalPacket.Stream result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+      
+      private com.alibaba.otter.canal.protocol.CanalPacket.Stream buildParsed()
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        com.alibaba.otter.canal.protocol.CanalPacket.Stream result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(
+            result).asInvalidProtocolBufferException();
+        }
+        return result;
+      }
+      
+      public com.alibaba.otter.canal.protocol.CanalPacket.Stream buildPartial() {
+        com.alibaba.otter.canal.protocol.CanalPacket.Stream result = new com.alibaba.otter.canal.protocol.CanalPacket.Stream(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.destination_ = destination_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.clientId_ = clientId_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.fetchSize_ = fetchSize_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.window_ = window_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+      
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.alibaba.otter.canal.protocol.CanalPacket.Stream) {
+          return mergeFrom((com.alibaba.otter.canal.protocol.CanalPacket.Stream)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+      
+      public Builder mergeFrom(com.alibaba.otter.canal.protocol.CanalPacket.Stream other) {
+        if (other == com.alibaba.otter.canal.protocol.CanalPacket.Stream.getDefaultInstance()) return this;
+        if (other.hasDestination()) {
+          setDestination(other.getDestination());
+        }
+        if (other.hasClientId()) {
+          setClientId(other.getClientId());
+        }
+        if (other.hasFetchSize()) {
+          setFetchSize(other.getFetchSize());
+        }
+        if (other.hasWindow()) {
+          setWindow(other.getWindow());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+      
+      public final boolean isInitialized() {
+        return true;
+      }
+      
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder(
+            this.getUnknownFields());
+        while (true) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              this.setUnknownFields(unknownFields.build());
+              onChanged();
+              return this;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                this.setUnknownFields(unknownFields.build());
+                onChanged();
+                return this;
+              }
+              break;
+            }
+            case 10: {
+              bitField0_ |= 0x00000001;
+              destination_ = input.readBytes();
+              break;
+            }
+            case 18: {
+              bitField0_ |= 0x00000002;
+              clientId_ = input.readBytes();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              fetchSize_ = input.readInt32();
+              break;
+            }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              window_ = input.readInt32();
+              break;
+            }
+          }
+        }
+      }
+      
+      private int bitField0_;
+      
+      // optional string destination = 1;
+      private java.lang.Object destination_ = "";
+      public boolean hasDestination() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      public String getDestination() {
+        java.lang.Object ref = destination_;
+        if (!(ref instanceof String)) {
+          String s = ((com.google.protobuf.ByteString) ref).toStringUtf8();
+          destination_ = s;
+          return s;
+        } else {
+          return (String) ref;
+        }
+      }
+      public Builder setDestination(String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000001;
+        destination_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearDestination() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        destination_ = getDefaultInstance().getDestination();
+        onChanged();
+        return this;
+      }
+      void setDestination(com.google.protobuf.ByteString value) {
+        bitField0_ |= 0x00000001;
+        destination_ = value;
+        onChanged();
+      }
+      
+      // optional string client_id = 2;
+      private java.lang.Object clientId_ = "";
+      public boolean hasClientId() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      public String getClientId() {
+        java.lang.Object ref = clientId_;
+        if (!(ref instanceof String)) {
+          String s = ((com.google.protobuf.ByteString) ref).toStringUtf8();
+          clientId_ = s;
+          return s;
+        } else {
+          return (String) ref;
+        }
+      }
+      public Builder setClientId(String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000002;
+        clientId_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearClientId() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        clientId_ = getDefaultInstance().getClientId();
+        onChanged();
+        return this;
+      }
+      void setClientId(com.google.protobuf.ByteString value) {
+        bitField0_ |= 0x00000002;
+        clientId_ = value;
+        onChanged();
+      }
+      
+      // optional int32 fetch_size = 3;
+      private int fetchSize_ ;
+      public boolean hasFetchSize() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      public int getFetchSize() {
+        return fetchSize_;
+      }
+      public Builder setFetchSize(int value) {
+        bitField0_ |= 0x00000004;
+        fetchSize_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearFetchSize() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        fetchSize_ = 0;
+        onChanged();
+        return this;
+      }
+      
+      // optional int32 window = 4;
+      private int window_ ;
+      public boolean hasWindow() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      public int getWindow() {
+        return window_;
+      }
+      public Builder setWindow(int value) {
+        bitField0_ |= 0x00000008;
+        window_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearWindow() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        window_ = 0;
+        onChanged();
+        return this;
+      }
+      
+      // @@protoc_insertion_point(builder_scope:com.alibaba.otter.canal.protocol.Stream)
+    }
+    
+    static {
+      defaultInstance = new Stream(true);
+      defaultInstance.initFields();
+    }
+    
+    // @@protoc_insertion_point(class_scope:com.alibaba.otter.canal.protocol.Stream)
+  }
+  
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_Packet_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_HeartBeat_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_HeartBeat_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_Handshake_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_Handshake_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_ClientAuth_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_ClientAuth_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_Ack_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_Ack_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_ClientAck_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_ClientAck_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_Sub_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_Sub_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_Unsub_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_Unsub_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_Get_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_Get_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_Messages_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_Messages_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_Dump_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_Dump_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_ClientRollback_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_ClientRollback_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_com_alibaba_otter_canal_protocol_Stream_fieldAccessorTable;
+  
+  public static com.google.protobuf.Descriptors.FileDescriptor
+      getDescriptor() {
+    return descriptor;
+  }
+  private static com.google.protobuf.Descriptors.FileDescriptor
+      descriptor;
+  static {
+    java.lang.String[] descriptorData = {
+      "\n\023CanalProtocol.proto\022 com.alibaba.otter" +
+      ".canal.protocol\"\312\001\n\006Packet\022\030\n\014magic_numb" +
+      "er\030\001 \001(\005:\00217\022\022\n\007version\030\002 \001(\005:\0011\022:\n\004type" +
+      "\030\003 \001(\0162,.com.alibaba.otter.canal.protoco" +
+      "l.PacketType\022H\n\013compression\030\004 \001(\0162-.com." +
+      "alibaba.otter.canal.protocol.Compression" +
+      ":\004NONE\022\014\n\004body\030\005 \001(\014\"<\n\tHeartBeat\022\026\n\016sen" +
+      "d_timestamp\030\001 \001(\003\022\027\n\017start_timestamp\030\002 \001" +
+      "(\003\"\217\001\n\tHandshake\022$\n\026communication_encodi" +
+      "ng\030\001 \001(\t:\004utf8\022\r\n\005seeds\030\002 \001(\014\022M\n\026support",
+      "ed_compressions\030\003 \003(\0162-.com.alibaba.otte" +
+      "r.canal.protocol.Compression\"\206\002\n\nClientA" +
+      "uth\022\020\n\010username\030\001 \001(\t\022\020\n\010password\030\002 \001(\014\022" +
+      "\033\n\020net_read_timeout\030\003 \001(\005:\0010\022\034\n\021net_writ" +
+      "e_timeout\030\004 \001(\005:\0010\022\023\n\013destination\030\005 \001(\t\022" +
+      "\021\n\tclient_id\030\006 \001(\t\022\016\n\006filter\030\007 \001(\t\022\027\n\017st" +
+      "art_timestamp\030\010 \001(\003\022H\n\013compression\030\t \001(\016" +
+      "2-.com.alibaba.otter.canal.protocol.Comp" +
+      "ression:\004NONE\"3\n\003Ack\022\025\n\nerror_code\030\001 \001(\005" +
+      ":\0010\022\025\n\rerror_message\030\002 \001(\t\"E\n\tClientAck\022",
+      "\023\n\013destination\030\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022" +
+      "\020\n\010batch_id\030\003 \001(\003\"=\n\003Sub\022\023\n\013destination\030" +
+      "\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022\016\n\006filter\030\007 \001(\t" +
+      "\"?\n\005Unsub\022\023\n\013destination\030\001 \001(\t\022\021\n\tclient" +
+      "_id\030\002 \001(\t\022\016\n\006filter\030\007 \001(\t\"\200\001\n\003Get\022\023\n\013des" +
+      "tination\030\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022\022\n\nfet" +
+      "ch_size\030\003 \001(\005\022\023\n\007timeout\030\004 \001(\003:\002-1\022\017\n\004un" +
+      "it\030\005 \001(\005:\0012\022\027\n\010auto_ack\030\006 \001(\010:\005false\".\n\010" +
+      "Messages\022\020\n\010batch_id\030\001 \001(\003\022\020\n\010messages\030\002" +
+      " \003(\014\"?\n\004Dump\022\017\n\007journal\030\001 \001(\t\022\020\n\010positio",
+      "n\030\002 \001(\003\022\024\n\ttimestamp\030\003 \001(\003:\0010\"J\n\016ClientR" +
+      "ollback\022\023\n\013destination\030\001 \001(\t\022\021\n\tclient_i" +
+      "d\030\002 \001(\t\022\020\n\010batch_id\030\003 \001(\003\"T\n\006Stream\022\023\n\013d" +
+      "estination\030\001 \001(\t\022\021\n\tclient_id\030\002 \001(\t\022\022\n\nf" +
+      "etch_size\030\003 \001(\005\022\016\n\006window\030\004 \001(\005*=\n\013Compr" +
+      "ession\022\010\n\004NONE\020\001\022\010\n\004ZLIB\020\002\022\010\n\004GZIP\020\003\022\007\n\003" +
+      "LZF\020\004\022\007\n\003LZ4\020\005*\321\001\n\nPacketType\022\r\n\tHANDSHA" +
+      "KE\020\001\022\030\n\024CLIENTAUTHENTICATION\020\002\022\007\n\003ACK\020\003\022" +
+      "\020\n\014SUBSCRIPTION\020\004\022\022\n\016UNSUBSCRIPTION\020\005\022\007\n" +
+      "\003GET\020\006\022\014\n\010MESSAGES\020\007\022\r\n\tCLIENTACK\020\010\022\014\n\010S",
+      "HUTDOWN\020\t\022\010\n\004DUMP\020\n\022\r\n\tHEARTBEAT\020\013\022\022\n\016CL" +
+      "IENTROLLBACK\020\014\022\n\n\006STREAM\020\rB1\n com.alibab" +
+      "a.otter.canal.protocolB\013CanalPacketH\001"
+    };
+    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
+      new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
+        public com.google.protobuf.ExtensionRegistry assignDescriptors(
+            com.google.protobuf.Descriptors.FileDescriptor root) {
+          descriptor = root;
+          internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor =
+            getDescriptor().getMessageTypes().get(0);
+          internal_static_com_alibaba_otter_canal_protocol_Packet_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_Packet_descriptor,
+              new java.lang.String[] { "MagicNumber", "Version", "Type", "Compression", "Body", },
+              com.alibaba.otter.canal.protocol.CanalPacket.Packet.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.Packet.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_HeartBeat_descriptor =
+            getDescriptor().getMessageTypes().get(1);
+          internal_static_com_alibaba_otter_canal_protocol_HeartBeat_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_HeartBeat_descriptor,
+              new java.lang.String[] { "SendTimestamp", "StartTimestamp", },
+              com.alibaba.otter.canal.protocol.CanalPacket.HeartBeat.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.HeartBeat.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_Handshake_descriptor =
+            getDescriptor().getMessageTypes().get(2);
+          internal_static_com_alibaba_otter_canal_protocol_Handshake_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_Handshake_descriptor,
+              new java.lang.String[] { "CommunicationEncoding", "Seeds", "SupportedCompressions", },
+              com.alibaba.otter.canal.protocol.CanalPacket.Handshake.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.Handshake.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_ClientAuth_descriptor =
+            getDescriptor().getMessageTypes().get(3);
+          internal_static_com_alibaba_otter_canal_protocol_ClientAuth_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_ClientAuth_descriptor,
+              new java.lang.String[] { "Username", "Password", "NetReadTimeout", "NetWriteTimeout", "Destination", "ClientId", "Filter", "StartTimestamp", "Compression", },
+              com.alibaba.otter.canal.protocol.CanalPacket.ClientAuth.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.ClientAuth.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_Ack_descriptor =
+            getDescriptor().getMessageTypes().get(4);
+          internal_static_com_alibaba_otter_canal_protocol_Ack_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_Ack_descriptor,
+              new java.lang.String[] { "ErrorCode", "ErrorMessage", },
+              com.alibaba.otter.canal.protocol.CanalPacket.Ack.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.Ack.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_ClientAck_descriptor =
+            getDescriptor().getMessageTypes().get(5);
+          internal_static_com_alibaba_otter_canal_protocol_ClientAck_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_ClientAck_descriptor,
+              new java.lang.String[] { "Destination", "ClientId", "BatchId", },
+              com.alibaba.otter.canal.protocol.CanalPacket.ClientAck.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.ClientAck.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_Sub_descriptor =
+            getDescriptor().getMessageTypes().get(6);
+          internal_static_com_alibaba_otter_canal_protocol_Sub_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_Sub_descriptor,
+              new java.lang.String[] { "Destination", "ClientId", "Filter", },
+              com.alibaba.otter.canal.protocol.CanalPacket.Sub.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.Sub.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_Unsub_descriptor =
+            getDescriptor().getMessageTypes().get(7);
+          internal_static_com_alibaba_otter_canal_protocol_Unsub_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_Unsub_descriptor,
+              new java.lang.String[] { "Destination", "ClientId", "Filter", },
+              com.alibaba.otter.canal.protocol.CanalPacket.Unsub.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.Unsub.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_Get_descriptor =
+            getDescriptor().getMessageTypes().get(8);
+          internal_static_com_alibaba_otter_canal_protocol_Get_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_Get_descriptor,
+              new java.lang.String[] { "Destination", "ClientId", "FetchSize", "Timeout", "Unit", "AutoAck", },
+              com.alibaba.otter.canal.protocol.CanalPacket.Get.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.Get.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_Messages_descriptor =
+            getDescriptor().getMessageTypes().get(9);
+          internal_static_com_alibaba_otter_canal_protocol_Messages_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_Messages_descriptor,
+              new java.lang.String[] { "BatchId", "Messages", },
+              com.alibaba.otter.canal.protocol.CanalPacket.Messages.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.Messages.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_Dump_descriptor =
+            getDescriptor().getMessageTypes().get(10);
+          internal_static_com_alibaba_otter_canal_protocol_Dump_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_Dump_descriptor,
+              new java.lang.String[] { "Journal", "Position", "Timestamp", },
+              com.alibaba.otter.canal.protocol.CanalPacket.Dump.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.Dump.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_ClientRollback_descriptor =
+            getDescriptor().getMessageTypes().get(11);
+          internal_static_com_alibaba_otter_canal_protocol_ClientRollback_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_ClientRollback_descriptor,
+              new java.lang.String[] { "Destination", "ClientId", "BatchId", },
+              com.alibaba.otter.canal.protocol.CanalPacket.ClientRollback.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.ClientRollback.Builder.class);
+          internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor =
+            getDescriptor().getMessageTypes().get(12);
+          internal_static_com_alibaba_otter_canal_protocol_Stream_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_com_alibaba_otter_canal_protocol_Stream_descriptor,
+              new java.lang.String[] { "Destination", "ClientId", "FetchSize", "Window", },
+              com.alibaba.otter.canal.protocol.CanalPacket.Stream.class,
+              com.alibaba.otter.canal.protocol.CanalPacket.Stream.Builder.class);
           return null;
         }
       };
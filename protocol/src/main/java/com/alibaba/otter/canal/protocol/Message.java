@@ -1,6 +1,7 @@
 package com.alibaba.otter.canal.protocol;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,6 +9,9 @@ import org.apache.commons.lang.builder.ToStringBuilder;
 
 import com.alibaba.otter.canal.common.utils.CanalToStringStyle;
 import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.exception.CanalClientException;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 
 /**
  * @author zebin.xuzb @ 2012-6-19
@@ -16,16 +20,32 @@ import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
  */
 public class Message implements Serializable {
 
-    private static final long      serialVersionUID = 1234034768477580009L;
+    private static final long          serialVersionUID = 1234034768477580009L;
 
-    private long                   id;//表示一个批处理的ID
-    private List<CanalEntry.Entry> entries          = new ArrayList<CanalEntry.Entry>();//抓去回来的事件集合
+    private long                       id;//表示一个批处理的ID
+    private List<CanalEntry.Entry>     entries          = new ArrayList<CanalEntry.Entry>();//抓去回来的事件集合
+    private transient List<ByteString> rawEntries;//事件对应的protobuf序列化数据，为null时按需从entries序列化
 
     public Message(long id, List<Entry> entries){
         this.id = id;
         this.entries = entries == null ? new ArrayList<Entry>() : entries;
     }
 
+    /**
+     * entries为null时，基于rawEntries延迟解析，访问到某个entry时才反序列化
+     */
+    public Message(long id, List<Entry> entries, List<ByteString> rawEntries){
+        this.id = id;
+        this.rawEntries = rawEntries;
+        if (entries != null) {
+            this.entries = entries;
+        } else if (rawEntries != null) {
+            this.entries = new LazyEntryList(rawEntries);
+        } else {
+            this.entries = new ArrayList<Entry>();
+        }
+    }
+
     public Message(long id){
         this.id = id;
     }
@@ -44,10 +64,63 @@ public class Message implements Serializable {
 
     public void setEntries(List<CanalEntry.Entry> entries) {
         this.entries = entries;
+        this.rawEntries = null;
     }
 
     public void addEntry(CanalEntry.Entry entry) {
         this.entries.add(entry);
+        this.rawEntries = null;
+    }
+
+    /**
+     * 返回每个entry的序列化数据，存在rawEntries时直接返回，不再重复序列化
+     */
+    public List<ByteString> getRawEntries() {
+        if (rawEntries != null) {
+            return rawEntries;
+        }
+
+        List<ByteString> result = new ArrayList<ByteString>(entries.size());
+        for (Entry entry : entries) {
+            result.add(entry.toByteString());
+        }
+        return result;
+    }
+
+    /**
+     * 延迟解析的entry列表，get时才反序列化对应的entry
+     */
+    private static class LazyEntryList extends AbstractList<Entry> implements Serializable {
+
+        private static final long      serialVersionUID = -5197480235069390457L;
+        private final List<ByteString> rawEntries;
+        private final Entry[]          entries;
+
+        public LazyEntryList(List<ByteString> rawEntries){
+            this.rawEntries = rawEntries;
+            this.entries = new Entry[rawEntries.size()];
+        }
+
+        public Entry get(int index) {
+            Entry entry = entries[index];
+            if (entry == null) {
+                try {
+                    entry = Entry.parseFrom(rawEntries.get(index));
+                } catch (InvalidProtocolBufferException e) {
+                    throw new CanalClientException("parse entry failed", e);
+                }
+                entries[index] = entry;
+            }
+            return entry;
+        }
+
+        public int size() {
+            return entries.length;
+        }
+
+        private Object writeReplace() {
+            return new ArrayList<Entry>(this);// 序列化时全部解析，不依赖ByteString的序列化
+        }
     }
 
     public String toString() {
@@ -0,0 +1,127 @@
+package com.alibaba.otter.canal.protocol.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.exception.CanalClientException;
+import com.google.protobuf.ByteString;
+
+/**
+ * Packet body的压缩/解压，server和client共用
+ *
+ * <pre>
+ * ZLIB : deflate流
+ * GZIP : gzip流
+ * LZ4  : [4字节原始长度(BE)][lz4 block]
+ * LZF暂不支持
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:11:49
+ * @version 1.0.22
+ */
+public class CompressionUtils {
+
+    /** 当前实现支持的压缩方式 */
+    public static final List<Compression> SUPPORTED_COMPRESSIONS = Collections.unmodifiableList(Arrays.asList(Compression.NONE,
+                                                                     Compression.ZLIB,
+                                                                     Compression.GZIP,
+                                                                     Compression.LZ4));
+
+    public static boolean isSupported(Compression compression) {
+        return SUPPORTED_COMPRESSIONS.contains(compression);
+    }
+
+    public static ByteString compress(Compression compression, ByteString data) {
+        switch (compression) {
+            case NONE:
+                return data;
+            case ZLIB:
+                return deflate(new ByteArrayOutputStream(data.size() / 2 + 16), data, false);
+            case GZIP:
+                return deflate(new ByteArrayOutputStream(data.size() / 2 + 32), data, true);
+            case LZ4:
+                byte[] source = data.toByteArray();
+                byte[] compressed = LZ4Codec.compress(source);
+                byte[] result = new byte[compressed.length + 4];
+                writeInt(result, source.length);
+                System.arraycopy(compressed, 0, result, 4, compressed.length);
+                return ByteString.copyFrom(result);
+            default:
+                throw new CanalClientException("compression " + compression + " is not supported");
+        }
+    }
+
+    public static ByteString decompress(Compression compression, ByteString data) {
+        try {
+            switch (compression) {
+                case NONE:
+                    return data;
+                case ZLIB:
+                    return readFully(new InflaterInputStream(data.newInput()));
+                case GZIP:
+                    return readFully(new GZIPInputStream(data.newInput()));
+                case LZ4:
+                    byte[] source = data.toByteArray();
+                    if (source.length < 4) {
+                        throw new CanalClientException("malformed lz4 packet, length:" + source.length);
+                    }
+                    return ByteString.copyFrom(LZ4Codec.decompress(source, 4, source.length - 4, readInt(source)));
+                default:
+                    throw new CanalClientException("compression " + compression + " is not supported");
+            }
+        } catch (IOException e) {
+            throw new CanalClientException("decompress " + compression + " failed", e);
+        } catch (IllegalArgumentException e) {
+            throw new CanalClientException("decompress " + compression + " failed", e);
+        }
+    }
+
+    private static ByteString deflate(ByteArrayOutputStream output, ByteString data, boolean gzip) {
+        try {
+            OutputStream stream = gzip ? new GZIPOutputStream(output) : new DeflaterOutputStream(output);
+            try {
+                stream.write(data.toByteArray());
+            } finally {
+                stream.close();// 释放native的Deflater
+            }
+            return ByteString.copyFrom(output.toByteArray());
+        } catch (IOException e) {
+            throw new CanalClientException("compress failed", e);
+        }
+    }
+
+    private static ByteString readFully(InputStream input) throws IOException {
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int len;
+            while ((len = input.read(buffer)) != -1) {
+                output.write(buffer, 0, len);
+            }
+            return ByteString.copyFrom(output.toByteArray());
+        } finally {
+            input.close();
+        }
+    }
+
+    private static void writeInt(byte[] buf, int value) {
+        buf[0] = (byte) (value >>> 24);
+        buf[1] = (byte) (value >>> 16);
+        buf[2] = (byte) (value >>> 8);
+        buf[3] = (byte) value;
+    }
+
+    private static int readInt(byte[] buf) {
+        return ((buf[0] & 0xff) << 24) | ((buf[1] & 0xff) << 16) | ((buf[2] & 0xff) << 8) | (buf[3] & 0xff);
+    }
+}
@@ -0,0 +1,240 @@
+package com.alibaba.otter.canal.protocol.compress;
+
+import java.util.Arrays;
+
+/**
+ * 纯java实现的LZ4 block格式编解码，输出和标准lz4 block格式兼容(不包含frame头)
+ *
+ * <pre>
+ * 每个sequence : [token][literal长度扩展][literals][2字节offset(LE)][match长度扩展]
+ * token高4位为literal长度，低4位为match长度-4，等于15时后续字节继续累加(遇到非255结束)
+ * 最后一个sequence只有literals，最后5个字节必须为literals
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:11:49
+ * @version 1.0.22
+ */
+public final class LZ4Codec {
+
+    private static final int MIN_MATCH        = 4;
+    private static final int LAST_LITERALS    = 5;
+    private static final int MF_LIMIT         = 12;                   // 最后一个match距离结尾至少12个字节
+    private static final int MIN_LENGTH       = MF_LIMIT + 1;
+    private static final int MAX_DISTANCE     = (1 << 16) - 1;
+    private static final int ML_BITS          = 4;
+    private static final int ML_MASK          = (1 << ML_BITS) - 1;
+    private static final int RUN_MASK         = (1 << (8 - ML_BITS)) - 1;
+    private static final int HASH_LOG         = 12;
+    private static final int HASH_TABLE_SIZE  = 1 << HASH_LOG;
+    private static final int SKIP_STRENGTH    = 6;                    // 连续未命中时加大步长，避免不可压缩数据退化
+    private static final int MAX_RATIO        = 255;                  // 每个压缩字节最多还原出255个字节
+
+    private LZ4Codec(){
+    }
+
+    /**
+     * 压缩后的最大长度
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    public static byte[] compress(byte[] src) {
+        return compress(src, 0, src.length);
+    }
+
+    public static byte[] compress(byte[] src, int srcOff, int srcLen) {
+        byte[] dest = new byte[maxCompressedLength(srcLen)];
+        final int srcEnd = srcOff + srcLen;
+        int dp = 0;
+        int anchor = srcOff;
+
+        if (srcLen >= MIN_LENGTH) {
+            final int mfLimit = srcEnd - MF_LIMIT;
+            final int matchLimit = srcEnd - LAST_LITERALS;
+            int[] hashTable = new int[HASH_TABLE_SIZE];
+            Arrays.fill(hashTable, -1);
+
+            int sp = srcOff;
+            int attempts = 1 << SKIP_STRENGTH;
+            while (sp < mfLimit) {
+                int h = hash(readInt(src, sp));
+                int ref = hashTable[h];
+                hashTable[h] = sp;
+                if (ref < 0 || sp - ref > MAX_DISTANCE || readInt(src, ref) != readInt(src, sp)) {
+                    sp += attempts++ >>> SKIP_STRENGTH;
+                    continue;
+                }
+
+                // 往前扩展match
+                while (sp > anchor && ref > srcOff && src[sp - 1] == src[ref - 1]) {
+                    sp--;
+                    ref--;
+                }
+
+                // 往后扩展match
+                int matchLen = MIN_MATCH;
+                while (sp + matchLen < matchLimit && src[sp + matchLen] == src[ref + matchLen]) {
+                    matchLen++;
+                }
+
+                dp = writeSequence(src, anchor, sp - anchor, sp - ref, matchLen, dest, dp);
+                sp += matchLen;
+                anchor = sp;
+                attempts = 1 << SKIP_STRENGTH;
+            }
+        }
+
+        dp = writeLastLiterals(src, anchor, srcEnd - anchor, dest, dp);
+        return Arrays.copyOf(dest, dp);
+    }
+
+    /**
+     * 解压后的最大长度，超过说明originalLength是错误的，避免按错误的长度分配内存
+     */
+    public static long maxDecompressedLength(int length) {
+        return (long) length * MAX_RATIO;
+    }
+
+    /**
+     * 解压数据，originalLength为压缩前的长度
+     */
+    public static byte[] decompress(byte[] src, int srcOff, int srcLen, int originalLength) {
+        if (srcLen <= 0) {
+            throw new IllegalArgumentException("Malformed lz4 input, empty block");
+        }
+        if (originalLength < 0 || originalLength > maxDecompressedLength(srcLen)) {
+            throw new IllegalArgumentException("Malformed lz4 input, invalid original length " + originalLength
+                                               + " for " + srcLen + " compressed bytes");
+        }
+
+        byte[] dest = new byte[originalLength];
+        final int srcEnd = srcOff + srcLen;
+        int sp = srcOff;
+        int dp = 0;
+        try {
+            while (true) {
+                final int token = src[sp++] & 0xff;
+
+                // literals
+                int literalLen = token >>> ML_BITS;
+                if (literalLen == RUN_MASK) {
+                    int len;
+                    do {
+                        len = src[sp++] & 0xff;
+                        literalLen += len;
+                    } while (len == 255);
+                }
+
+                if (sp + literalLen > srcEnd || dp + literalLen > originalLength) {
+                    throw new IllegalArgumentException("Malformed lz4 input at " + (sp - srcOff));
+                }
+                System.arraycopy(src, sp, dest, dp, literalLen);
+                sp += literalLen;
+                dp += literalLen;
+                if (sp == srcEnd) {
+                    break;// 最后一个sequence
+                }
+
+                // match
+                if (sp + 2 > srcEnd) {
+                    throw new IllegalArgumentException("Malformed lz4 input, unexpected end of data");
+                }
+                final int offset = (src[sp++] & 0xff) | ((src[sp++] & 0xff) << 8);
+                int ref = dp - offset;
+                if (offset == 0 || ref < 0) {
+                    throw new IllegalArgumentException("Malformed lz4 input at " + (sp - srcOff));
+                }
+
+                int matchLen = token & ML_MASK;
+                if (matchLen == ML_MASK) {
+                    int len;
+                    do {
+                        len = src[sp++] & 0xff;
+                        matchLen += len;
+                    } while (len == 255);
+                }
+                matchLen += MIN_MATCH;
+
+                if (dp + matchLen > originalLength) {
+                    throw new IllegalArgumentException("Malformed lz4 input at " + (sp - srcOff));
+                }
+                if (offset >= matchLen) {
+                    System.arraycopy(dest, ref, dest, dp, matchLen);
+                    dp += matchLen;
+                } else {
+                    // 重叠拷贝，逐字节处理
+                    for (int i = 0; i < matchLen; i++) {
+                        dest[dp++] = dest[ref++];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed lz4 input, unexpected end of data", e);
+        }
+
+        if (dp != originalLength) {
+            throw new IllegalArgumentException("Malformed lz4 input, expect " + originalLength + " bytes but found "
+                                               + dp);
+        }
+        return dest;
+    }
+
+    private static int writeSequence(byte[] src, int literalOff, int literalLen, int offset, int matchLen,
+                                     byte[] dest, int dp) {
+        final int tokenPos = dp++;
+        int token;
+        if (literalLen >= RUN_MASK) {
+            token = RUN_MASK << ML_BITS;
+            dp = writeLength(literalLen - RUN_MASK, dest, dp);
+        } else {
+            token = literalLen << ML_BITS;
+        }
+
+        System.arraycopy(src, literalOff, dest, dp, literalLen);
+        dp += literalLen;
+
+        dest[dp++] = (byte) offset;
+        dest[dp++] = (byte) (offset >>> 8);
+
+        final int len = matchLen - MIN_MATCH;
+        if (len >= ML_MASK) {
+            token |= ML_MASK;
+            dp = writeLength(len - ML_MASK, dest, dp);
+        } else {
+            token |= len;
+        }
+
+        dest[tokenPos] = (byte) token;
+        return dp;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalOff, int literalLen, byte[] dest, int dp) {
+        if (literalLen >= RUN_MASK) {
+            dest[dp++] = (byte) (RUN_MASK << ML_BITS);
+            dp = writeLength(literalLen - RUN_MASK, dest, dp);
+        } else {
+            dest[dp++] = (byte) (literalLen << ML_BITS);
+        }
+
+        System.arraycopy(src, literalOff, dest, dp, literalLen);
+        return dp + literalLen;
+    }
+
+    private static int writeLength(int len, byte[] dest, int dp) {
+        while (len >= 255) {
+            dest[dp++] = (byte) 255;
+            len -= 255;
+        }
+        dest[dp++] = (byte) len;
+        return dp;
+    }
+
+    private static int readInt(byte[] buf, int i) {
+        return (buf[i] & 0xff) | ((buf[i + 1] & 0xff) << 8) | ((buf[i + 2] & 0xff) << 16) | ((buf[i + 3] & 0xff) << 24);
+    }
+
+    private static int hash(int value) {
+        return (value * -1640531535) >>> ((MIN_MATCH * 8) - HASH_LOG);
+    }
+}
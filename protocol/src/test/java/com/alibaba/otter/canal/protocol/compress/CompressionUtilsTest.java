@@ -0,0 +1,96 @@
+package com.alibaba.otter.canal.protocol.compress;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.exception.CanalClientException;
+import com.google.protobuf.ByteString;
+
+public class CompressionUtilsTest {
+
+    @Test
+    public void testRoundTrip() {
+        byte[] random = new byte[32 * 1024];
+        new Random(11).nextBytes(random);
+        byte[] repetitive = new byte[128 * 1024];
+        Arrays.fill(repetitive, (byte) 'x');
+
+        for (Compression compression : CompressionUtils.SUPPORTED_COMPRESSIONS) {
+            assertRoundTrip(compression, ByteString.EMPTY);
+            assertRoundTrip(compression, ByteString.copyFrom(random));
+            ByteString compressed = assertRoundTrip(compression, ByteString.copyFrom(repetitive));
+            if (compression != Compression.NONE) {
+                Assert.assertTrue(compression + " should compress", compressed.size() < repetitive.length / 10);
+            }
+        }
+    }
+
+    @Test
+    public void testLz4Header() {
+        byte[] data = "canal canal canal canal canal".getBytes();
+        ByteString compressed = CompressionUtils.compress(Compression.LZ4, ByteString.copyFrom(data));
+        byte[] bytes = compressed.toByteArray();
+        // 前4个字节为原始长度(BE)
+        Assert.assertEquals(data.length, ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16)
+                                         | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff));
+    }
+
+    @Test
+    public void testUnsupported() {
+        Assert.assertFalse(CompressionUtils.isSupported(Compression.LZF));
+        try {
+            CompressionUtils.compress(Compression.LZF, ByteString.copyFromUtf8("canal"));
+            Assert.fail();
+        } catch (CanalClientException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTruncated() {
+        byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 13);
+        }
+
+        for (Compression compression : new Compression[] { Compression.ZLIB, Compression.GZIP, Compression.LZ4 }) {
+            ByteString compressed = CompressionUtils.compress(compression, ByteString.copyFrom(data));
+            assertMalformed(compression, compressed.substring(0, compressed.size() / 2));
+        }
+        assertMalformed(Compression.LZ4, ByteString.copyFrom(new byte[] { 0, 0, 1 }));
+    }
+
+    @Test
+    public void testCorrupt() {
+        byte[] data = "corrupt".getBytes();
+        assertMalformed(Compression.ZLIB, ByteString.copyFrom(data));
+        assertMalformed(Compression.GZIP, ByteString.copyFrom(data));
+
+        // 伪造的lz4原始长度
+        ByteString compressed = CompressionUtils.compress(Compression.LZ4, ByteString.copyFrom(data));
+        byte[] bytes = compressed.toByteArray();
+        bytes[0] = (byte) 0x7f;
+        assertMalformed(Compression.LZ4, ByteString.copyFrom(bytes));
+        bytes[0] = (byte) 0xff;
+        assertMalformed(Compression.LZ4, ByteString.copyFrom(bytes));
+    }
+
+    private static ByteString assertRoundTrip(Compression compression, ByteString data) {
+        ByteString compressed = CompressionUtils.compress(compression, data);
+        Assert.assertEquals(compression.toString(), data, CompressionUtils.decompress(compression, compressed));
+        return compressed;
+    }
+
+    private static void assertMalformed(Compression compression, ByteString data) {
+        try {
+            CompressionUtils.decompress(compression, data);
+            Assert.fail(compression + " malformed data should be rejected");
+        } catch (CanalClientException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.alibaba.otter.canal.protocol.compress;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LZ4CodecTest {
+
+    @Test
+    public void testEmpty() {
+        byte[] compressed = LZ4Codec.compress(new byte[0]);
+        Assert.assertEquals(1, compressed.length);
+        Assert.assertArrayEquals(new byte[0], LZ4Codec.decompress(compressed, 0, compressed.length, 0));
+    }
+
+    @Test
+    public void testShort() {
+        // 小于最小match长度，只有literals
+        byte[] data = "canal".getBytes();
+        assertRoundTrip(data);
+    }
+
+    @Test
+    public void testIncompressible() {
+        byte[] data = new byte[64 * 1024 + 17];
+        new Random(7).nextBytes(data);
+        byte[] compressed = assertRoundTrip(data);
+        Assert.assertTrue(compressed.length <= LZ4Codec.maxCompressedLength(data.length));
+    }
+
+    @Test
+    public void testRepetitive() {
+        byte[] data = new byte[256 * 1024];
+        Arrays.fill(data, (byte) 'a');
+        byte[] compressed = assertRoundTrip(data);
+        Assert.assertTrue(compressed.length < data.length / 100);
+
+        // 重复的短模式，offset小于match长度需要重叠拷贝
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("abc").append(i % 10);
+        }
+        assertRoundTrip(builder.toString().getBytes());
+    }
+
+    @Test
+    public void testOffset() {
+        // 压缩数据位于数组中间
+        byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 31);
+        }
+        byte[] compressed = LZ4Codec.compress(data, 100, 3000);
+        byte[] padded = new byte[compressed.length + 10];
+        System.arraycopy(compressed, 0, padded, 5, compressed.length);
+        byte[] result = LZ4Codec.decompress(padded, 5, compressed.length, 3000);
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, 100, 3100), result);
+    }
+
+    @Test
+    public void testTruncated() {
+        byte[] data = new byte[8192];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 97);
+        }
+        byte[] compressed = LZ4Codec.compress(data);
+        for (int len = 1; len < compressed.length; len++) {
+            try {
+                LZ4Codec.decompress(compressed, 0, len, data.length);
+                Assert.fail("truncated input at " + len + " should be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidOriginalLength() {
+        byte[] data = new byte[1024];
+        Arrays.fill(data, (byte) 1);
+        byte[] compressed = LZ4Codec.compress(data);
+
+        assertMalformed(compressed, -1);
+        assertMalformed(compressed, data.length - 1);
+        assertMalformed(compressed, data.length + 1);
+        // 超出最大压缩比，不能按照这个长度分配内存
+        assertMalformed(compressed, Integer.MAX_VALUE);
+        assertMalformed(new byte[0], 0);
+    }
+
+    @Test
+    public void testCorrupt() {
+        // offset为0
+        assertMalformed(new byte[] { 0x10, 'a', 0x00, 0x00 }, 5);
+        // offset超出已解压的数据
+        assertMalformed(new byte[] { 0x10, 'a', 0x02, 0x00 }, 5);
+        // literal长度超出输入
+        assertMalformed(new byte[] { (byte) 0x50, 'a', 'b' }, 5);
+    }
+
+    private static byte[] assertRoundTrip(byte[] data) {
+        byte[] compressed = LZ4Codec.compress(data);
+        byte[] result = LZ4Codec.decompress(compressed, 0, compressed.length, data.length);
+        Assert.assertArrayEquals(data, result);
+        return compressed;
+    }
+
+    private static void assertMalformed(byte[] compressed, int originalLength) {
+        try {
+            LZ4Codec.decompress(compressed, 0, compressed.length, originalLength);
+            Assert.fail("malformed input should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
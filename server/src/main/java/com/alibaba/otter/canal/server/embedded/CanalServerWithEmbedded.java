@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -14,6 +16,7 @@ import org.springframework.util.CollectionUtils;
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
 import com.alibaba.otter.canal.instance.core.CanalInstance;
 import com.alibaba.otter.canal.instance.core.CanalInstanceGenerator;
+import com.alibaba.otter.canal.meta.exception.CanalMetaManagerException;
 import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
 import com.alibaba.otter.canal.protocol.Message;
@@ -23,13 +26,17 @@ import com.alibaba.otter.canal.protocol.position.PositionRange;
 import com.alibaba.otter.canal.server.CanalServer;
 import com.alibaba.otter.canal.server.CanalService;
 import com.alibaba.otter.canal.server.exception.CanalServerException;
+import com.alibaba.otter.canal.store.AbstractCanalStoreScavenge;
 import com.alibaba.otter.canal.store.CanalEventStore;
+import com.alibaba.otter.canal.store.CanalMultiCursorEventStore;
+import com.alibaba.otter.canal.store.CanalStoreListener;
 import com.alibaba.otter.canal.store.model.Event;
 import com.alibaba.otter.canal.store.model.Events;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.MigrateMap;
+import com.google.protobuf.ByteString;
 
 /**
  * 嵌入式版本实现
@@ -40,10 +47,18 @@ import com.google.common.collect.MigrateMap;
  */
 public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements CanalServer, CanalService {
 
-    private static final Logger        logger = LoggerFactory.getLogger(CanalServerWithEmbedded.class);
-    private Map<String, CanalInstance> canalInstances;
+    private static final Logger         logger = LoggerFactory.getLogger(CanalServerWithEmbedded.class);
+    private static final Function<Event, ByteString> RAW_ENTRY_FUNCTION = new Function<Event, ByteString>() {
+
+                                                                              public ByteString apply(Event input) {
+                                                                                  return input.getRawEntry();
+                                                                              }
+                                                                          };
+    private Map<String, CanalInstance>  canalInstances;
+    private Map<ClientIdentity, Object> clientLocks;                                                 // 多游标store下每个客户端的get/rollback锁
+    private Map<ClientIdentity, SortedSet<Long>> pendingAcks;                                        // 乱序到达，等待前面的batch确认后再提交的ack
     // private Map<ClientIdentity, Position> lastRollbackPostions;
-    private CanalInstanceGenerator     canalInstanceGenerator;
+    private CanalInstanceGenerator      canalInstanceGenerator;
 
     private static class SingletonHolder {
 
@@ -70,6 +85,19 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
                 }
             });
 
+            clientLocks = MigrateMap.makeComputingMap(new Function<ClientIdentity, Object>() {
+
+                public Object apply(ClientIdentity clientIdentity) {
+                    return new Object();
+                }
+            });
+
+            pendingAcks = MigrateMap.makeComputingMap(new Function<ClientIdentity, SortedSet<Long>>() {
+
+                public SortedSet<Long> apply(ClientIdentity clientIdentity) {
+                    return new TreeSet<Long>();
+                }
+            });
             // lastRollbackPostions = new MapMaker().makeMap();
         }
     }
@@ -143,9 +171,14 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
 
         canalInstance.getMetaManager().subscribe(clientIdentity); // 执行一下meta订阅
 
+        CanalEventStore eventStore = canalInstance.getEventStore();
+        if (eventStore instanceof CanalMultiCursorEventStore) {
+            ((CanalMultiCursorEventStore) eventStore).subscribe(clientIdentity); // 在store中注册独立的消费游标
+        }
+
         Position position = canalInstance.getMetaManager().getCursor(clientIdentity);//获取客户端的指针
         if (position == null) {
-            position = canalInstance.getEventStore().getFirstPosition();// 获取一下store中的第一条
+            position = getFirstPosition(eventStore, clientIdentity);// 获取一下store中的第一条
             if (position != null) {
                 canalInstance.getMetaManager().updateCursor(clientIdentity, position); // 更新一下cursor
             }
@@ -165,6 +198,14 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
     public void unsubscribe(ClientIdentity clientIdentity) throws CanalServerException {
         CanalInstance canalInstance = canalInstances.get(clientIdentity.getDestination());
         canalInstance.getMetaManager().unsubscribe(clientIdentity); // 执行一下meta订阅
+        if (canalInstance.getEventStore() instanceof CanalMultiCursorEventStore) {
+            ((CanalMultiCursorEventStore) canalInstance.getEventStore()).unsubscribe(clientIdentity);
+        }
+        if (canalInstance.getEventStore() instanceof AbstractCanalStoreScavenge) {
+            ((AbstractCanalStoreScavenge) canalInstance.getEventStore()).removeCursor(clientIdentity);
+        }
+        clientLocks.remove(clientIdentity);
+        pendingAcks.remove(clientIdentity);
 
         logger.info("unsubscribe successfully, {}", clientIdentity);
     }
@@ -208,7 +249,7 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         checkStart(clientIdentity.getDestination());//校验队列是否存在
         checkSubscribe(clientIdentity);//校验客户端是否订阅了
         CanalInstance canalInstance = canalInstances.get(clientIdentity.getDestination());//获取服务器上的队列实例
-        synchronized (canalInstance) {
+        synchronized (getLock(canalInstance, clientIdentity)) {
             // 获取到流式数据中的最后一批获取的位置
             PositionRange<LogPosition> positionRanges = canalInstance.getMetaManager().getLastestBatch(clientIdentity);
 
@@ -220,7 +261,7 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
 
             Events<Event> events = null;
             Position start = canalInstance.getMetaManager().getCursor(clientIdentity);//客户端的位置
-            events = getEvents(canalInstance.getEventStore(), start, batchSize, timeout, unit);//获取该位置之后的数据
+            events = getEvents(canalInstance.getEventStore(), clientIdentity, start, batchSize, timeout, unit);//获取该位置之后的数据
 
             if (CollectionUtils.isEmpty(events.getEvents())) {
                 logger.debug("get successfully, clientId:{} batchSize:{} but result is null", new Object[] {
@@ -229,22 +270,17 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
             } else {
                 // 记录到流式信息
                 Long batchId = canalInstance.getMetaManager().addBatch(clientIdentity, events.getPositionRange());//创建一个批处理
-                List<Entry> entrys = Lists.transform(events.getEvents(), new Function<Event, Entry>() {//将抓去回来的事件转换成Entry对象
-
-                    public Entry apply(Event input) {
-                        return input.getEntry();
-                    }
-                });
+                List<ByteString> rawEntrys = Lists.transform(events.getEvents(), RAW_ENTRY_FUNCTION);//直接使用store中序列化好的数据，entry按需解析
 
                 logger.info("get successfully, clientId:{} batchSize:{} real size is {} and result is [batchId:{} , position:{}]",
                     clientIdentity.getClientId(),
                     batchSize,
-                    entrys.size(),
+                    rawEntrys.size(),
                     batchId,
                     events.getPositionRange());
                 // 直接提交ack
                 ack(clientIdentity, batchId);
-                return new Message(batchId, entrys);
+                return new Message(batchId, null, rawEntrys);
             }
         }
     }
@@ -283,20 +319,25 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         checkSubscribe(clientIdentity);
 
         CanalInstance canalInstance = canalInstances.get(clientIdentity.getDestination());
-        synchronized (canalInstance) {
+        synchronized (getLock(canalInstance, clientIdentity)) {
             // 获取到流式数据中的最后一批获取的位置
             PositionRange<LogPosition> positionRanges = canalInstance.getMetaManager().getLastestBatch(clientIdentity);
 
             Events<Event> events = null;
             if (positionRanges != null) { // 存在流数据
-                events = getEvents(canalInstance.getEventStore(), positionRanges.getStart(), batchSize, timeout, unit);
+                events = getEvents(canalInstance.getEventStore(),
+                    clientIdentity,
+                    positionRanges.getStart(),
+                    batchSize,
+                    timeout,
+                    unit);
             } else {// ack后第一次获取
                 Position start = canalInstance.getMetaManager().getCursor(clientIdentity);
                 if (start == null) { // 第一次，还没有过ack记录，则获取当前store中的第一条
-                    start = canalInstance.getEventStore().getFirstPosition();
+                    start = getFirstPosition(canalInstance.getEventStore(), clientIdentity);
                 }
 
-                events = getEvents(canalInstance.getEventStore(), start, batchSize, timeout, unit);
+                events = getEvents(canalInstance.getEventStore(), clientIdentity, start, batchSize, timeout, unit);
             }
 
             if (CollectionUtils.isEmpty(events.getEvents())) {
@@ -306,20 +347,15 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
             } else {
                 // 记录到流式信息
                 Long batchId = canalInstance.getMetaManager().addBatch(clientIdentity, events.getPositionRange());
-                List<Entry> entrys = Lists.transform(events.getEvents(), new Function<Event, Entry>() {
-
-                    public Entry apply(Event input) {
-                        return input.getEntry();
-                    }
-                });
+                List<ByteString> rawEntrys = Lists.transform(events.getEvents(), RAW_ENTRY_FUNCTION);
 
                 logger.info("getWithoutAck successfully, clientId:{} batchSize:{}  real size is {} and result is [batchId:{} , position:{}]",
                     clientIdentity.getClientId(),
                     batchSize,
-                    entrys.size(),
+                    rawEntrys.size(),
                     batchId,
                     events.getPositionRange());
-                return new Message(batchId, entrys);
+                return new Message(batchId, null, rawEntrys);
             }
 
         }
@@ -343,7 +379,8 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
      * 进行 batch id 的确认。确认之后，小于等于此 batchId 的 Message 都会被确认。
      * 
      * <pre>
-     * 注意：进行反馈时必须按照batchId的顺序进行ack(需有客户端保证)
+     * 1. meta中batch必须按照batchId的顺序移除，cursor也只能顺序推进
+     * 2. 客户端流水线get时可以乱序ack，未轮到的batchId先记录下来，等前面的batch都ack之后再按顺序提交
      * </pre>
      */
     @Override
@@ -352,12 +389,46 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         checkSubscribe(clientIdentity);
 
         CanalInstance canalInstance = canalInstances.get(clientIdentity.getDestination());
+        SortedSet<Long> pendings = pendingAcks.get(clientIdentity);
+        synchronized (pendings) {
+            try {
+                if (!doAck(canalInstance, clientIdentity, batchId)) { // 说明是重复的ack/rollback
+                    throw new CanalServerException(String.format("ack error , clientId:%s batchId:%d is not exist , please check",
+                        clientIdentity.getClientId(),
+                        batchId));
+                }
+            } catch (CanalMetaManagerException e) {
+                if (canalInstance.getMetaManager().getBatch(clientIdentity, batchId) == null) {
+                    throw e;
+                }
+
+                // batch存在但不是最小的batchId，等待前面的batch确认
+                pendings.add(batchId);
+                logger.info("ack out of order, clientId:{} batchId:{} is pending", clientIdentity.getClientId(), batchId);
+                return;
+            }
+
+            // 按顺序提交之前乱序到达的ack
+            while (!pendings.isEmpty()) {
+                Long pendingBatchId = pendings.first();
+                try {
+                    doAck(canalInstance, clientIdentity, pendingBatchId); // 返回false说明已经被rollback，直接丢弃
+                } catch (CanalMetaManagerException e) {
+                    break; // 前面还有未确认的batch
+                }
+                pendings.remove(pendingBatchId);
+            }
+        }
+    }
+
+    /**
+     * 移除batch并推进cursor，batch不存在时返回false，不是最小的batchId时抛出{@linkplain CanalMetaManagerException}
+     */
+    private boolean doAck(CanalInstance canalInstance, ClientIdentity clientIdentity, Long batchId) {
         PositionRange<LogPosition> positionRanges = null;
         positionRanges = canalInstance.getMetaManager().removeBatch(clientIdentity, batchId); // 更新位置
-        if (positionRanges == null) { // 说明是重复的ack/rollback
-            throw new CanalServerException(String.format("ack error , clientId:%s batchId:%d is not exist , please check",
-                clientIdentity.getClientId(),
-                batchId));
+        if (positionRanges == null) {
+            return false;
         }
 
         // 更新cursor最好严格判断下位置是否有跳跃更新
@@ -380,6 +451,11 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         // 更新cursor
         if (positionRanges.getAck() != null) {
             canalInstance.getMetaManager().updateCursor(clientIdentity, positionRanges.getAck());
+            if (canalInstance.getEventStore() instanceof AbstractCanalStoreScavenge) {
+                // 增量维护store回收使用的最小cursor
+                ((AbstractCanalStoreScavenge) canalInstance.getEventStore()).updateCursor(clientIdentity,
+                    positionRanges.getAck());
+            }
             logger.info("ack successfully, clientId:{} batchId:{} position:{}",
                 clientIdentity.getClientId(),
                 batchId,
@@ -387,8 +463,13 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         }
 
         // 可定时清理数据
-        canalInstance.getEventStore().ack(positionRanges.getEnd());
-
+        CanalEventStore eventStore = canalInstance.getEventStore();
+        if (eventStore instanceof CanalMultiCursorEventStore) {
+            ((CanalMultiCursorEventStore) eventStore).ack(clientIdentity, positionRanges.getEnd());
+        } else {
+            eventStore.ack(positionRanges.getEnd());
+        }
+        return true;
     }
 
     /**
@@ -404,11 +485,12 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
             return;
         }
 
-        synchronized (canalInstance) {
+        synchronized (getLock(canalInstance, clientIdentity)) {
             // 清除batch信息
             canalInstance.getMetaManager().clearAllBatchs(clientIdentity);
+            clearPendingAcks(clientIdentity);
             // rollback eventStore中的状态信息
-            canalInstance.getEventStore().rollback();
+            rollbackEventStore(canalInstance.getEventStore(), clientIdentity);
             logger.info("rollback successfully, clientId:{}", new Object[] { clientIdentity.getClientId() });
         }
     }
@@ -426,7 +508,7 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         if (!hasSubscribe) {
             return;
         }
-        synchronized (canalInstance) {
+        synchronized (getLock(canalInstance, clientIdentity)) {
             // 清除batch信息
             PositionRange<LogPosition> positionRanges = canalInstance.getMetaManager().removeBatch(clientIdentity,
                 batchId);
@@ -436,11 +518,16 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
                     batchId));
             }
 
+            SortedSet<Long> pendings = pendingAcks.get(clientIdentity);
+            synchronized (pendings) {
+                pendings.remove(batchId);
+            }
+
             // lastRollbackPostions.put(clientIdentity,
             // positionRanges.getEnd());// 记录一下最后rollback的位置
             // TODO 后续rollback到指定的batchId位置
-            canalInstance.getEventStore().rollback();// rollback
-                                                     // eventStore中的状态信息
+            rollbackEventStore(canalInstance.getEventStore(), clientIdentity);// rollback
+                                                                             // eventStore中的状态信息
             logger.info("rollback successfully, clientId:{} batchId:{} position:{}",
                 clientIdentity.getClientId(),
                 batchId,
@@ -448,6 +535,30 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         }
     }
 
+    /**
+     * 注册store的数据变化监听，store不支持监听时返回false
+     */
+    public boolean addStoreListener(String destination, CanalStoreListener listener) throws CanalServerException {
+        checkStart(destination);
+        CanalEventStore eventStore = canalInstances.get(destination).getEventStore();
+        if (eventStore instanceof AbstractCanalStoreScavenge) {
+            ((AbstractCanalStoreScavenge) eventStore).addListener(listener);
+            return true;
+        }
+        return false;
+    }
+
+    public void removeStoreListener(String destination, CanalStoreListener listener) {
+        if (!canalInstances.containsKey(destination)) {
+            return;
+        }
+
+        CanalInstance canalInstance = canalInstances.get(destination);
+        if (canalInstance.getEventStore() instanceof AbstractCanalStoreScavenge) {
+            ((AbstractCanalStoreScavenge) canalInstance.getEventStore()).removeListener(listener);
+        }
+    }
+
     public Map<String, CanalInstance> getCanalInstances() {
         return Maps.newHashMap(canalInstances);
     }
@@ -455,10 +566,27 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
     // ======================== helper method =======================
 
     /**
-     * 根据不同的参数，选择不同的方式获取数据
+     * 根据不同的参数，选择不同的方式获取数据. 多游标的store按照clientIdentity获取各自的数据
      */
-    private Events<Event> getEvents(CanalEventStore eventStore, Position start, int batchSize, Long timeout,
-                                    TimeUnit unit) {
+    private Events<Event> getEvents(CanalEventStore eventStore, ClientIdentity clientIdentity, Position start,
+                                    int batchSize, Long timeout, TimeUnit unit) {
+        if (eventStore instanceof CanalMultiCursorEventStore) {
+            CanalMultiCursorEventStore<Event> multiCursorEventStore = (CanalMultiCursorEventStore<Event>) eventStore;
+            if (timeout == null) {
+                return multiCursorEventStore.tryGet(clientIdentity, start, batchSize);
+            } else {
+                try {
+                    if (timeout <= 0) {
+                        return multiCursorEventStore.get(clientIdentity, start, batchSize);
+                    } else {
+                        return multiCursorEventStore.get(clientIdentity, start, batchSize, timeout, unit);
+                    }
+                } catch (Exception e) {
+                    throw new CanalServerException(e);
+                }
+            }
+        }
+
         if (timeout == null) {
             return eventStore.tryGet(start, batchSize);
         } else {
@@ -474,6 +602,49 @@ public class CanalServerWithEmbedded extends AbstractCanalLifeCycle implements C
         }
     }
 
+    /**
+     * 清除客户端乱序到达、还未提交的ack
+     */
+    private void clearPendingAcks(ClientIdentity clientIdentity) {
+        SortedSet<Long> pendings = pendingAcks.get(clientIdentity);
+        synchronized (pendings) {
+            pendings.clear();
+        }
+    }
+
+    /**
+     * meta和数据的获取需要保证顺序性的范围：
+     * 
+     * <pre>
+     * 1. 多游标的store每个客户端有独立的get/rollback位置，只需要保证同一个客户端内的顺序，不同客户端之间互不阻塞
+     * 2. 单游标的store(默认的buffer/disruptor/spill)所有客户端共用一个get/rollback位置，仍然需要按instance同步，
+     *    同一个instance下多个客户端的get会串行执行，需要并发消费时应配置canal.instance.memory.store.mode = multi
+     * </pre>
+     */
+    private Object getLock(CanalInstance canalInstance, ClientIdentity clientIdentity) {
+        if (canalInstance.getEventStore() instanceof CanalMultiCursorEventStore) {
+            return clientLocks.get(clientIdentity);
+        } else {
+            return canalInstance;
+        }
+    }
+
+    private Position getFirstPosition(CanalEventStore eventStore, ClientIdentity clientIdentity) {
+        if (eventStore instanceof CanalMultiCursorEventStore) {
+            return ((CanalMultiCursorEventStore) eventStore).getFirstPosition(clientIdentity);
+        } else {
+            return eventStore.getFirstPosition();
+        }
+    }
+
+    private void rollbackEventStore(CanalEventStore eventStore, ClientIdentity clientIdentity) {
+        if (eventStore instanceof CanalMultiCursorEventStore) {
+            ((CanalMultiCursorEventStore) eventStore).rollback(clientIdentity);
+        } else {
+            eventStore.rollback();
+        }
+    }
+
     //校验该客户端是否订阅了
     private void checkSubscribe(ClientIdentity clientIdentity) {
         CanalInstance canalInstance = canalInstances.get(clientIdentity.getDestination());
@@ -0,0 +1,211 @@
+package com.alibaba.otter.canal.server.netty;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
+
+/**
+ * 处理阻塞请求的工作线程池，避免长轮询的GET阻塞netty的I/O线程
+ *
+ * <pre>
+ * 线程划分：
+ * 1. request : 按连接顺序处理排队请求的线程，不会阻塞等待数据，队列长度为queueSize，队列满时拒绝
+ * 2. longPoll : 执行带timeout的GET，会一直阻塞到有数据或者超时，线程用满时排队等待空闲线程，
+ *    每个连接同时最多只有一个GET在排队，不限制队列长度
+ * 
+ * 统计信息：
+ * 1. pending : 已经提交但还未处理完成的请求数，包括排在异步请求之后等待按顺序处理的请求
+ * 2. active : 正在执行的request线程数
+ * 3. longPoll : 正在阻塞等待数据的GET数，longPollWaiting : 排队等待longPoll线程的GET数
+ * 4. utilization : 上一个统计周期内request线程的繁忙比例，请求完成时计入其执行时间
+ * 每隔statInterval输出一次日志
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:42:02
+ * @version 1.0.22
+ */
+public class CanalRequestExecutor extends AbstractCanalLifeCycle {
+
+    private static final Logger      logger           = LoggerFactory.getLogger(CanalRequestExecutor.class);
+    private int                      threads          = 32;
+    private int                      queueSize        = 1024;                                                  // request线程的排队上限
+    private int                      longPollThreads  = 64;                                                    // 同时阻塞等待数据的GET上限
+    private long                     statInterval     = 60 * 1000L;                                            // 统计日志的输出间隔，单位ms
+    private ThreadPoolExecutor       executor;
+    private ThreadPoolExecutor       longPollExecutor;
+    private ScheduledExecutorService statExecutor;
+
+    private final AtomicInteger      pendingCount     = new AtomicInteger(0);
+    private final AtomicLong         completedCount   = new AtomicLong(0);
+    private final AtomicLong         busyNanos        = new AtomicLong(0);
+    private volatile double          utilization      = 0;
+    private long                     lastBusyNanos;
+    private long                     lastStatTime;
+
+    public void start() {
+        super.start();
+        executor = new ThreadPoolExecutor(threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize),
+            new NamedThreadFactory("canal-request-worker"));
+        executor.allowCoreThreadTimeOut(true);
+        // 没有空闲线程时排队，排队的GET数受连接数限制
+        longPollExecutor = new ThreadPoolExecutor(longPollThreads,
+            longPollThreads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new NamedThreadFactory("canal-request-longpoll"));
+        longPollExecutor.allowCoreThreadTimeOut(true);
+
+        lastBusyNanos = busyNanos.get();
+        lastStatTime = System.nanoTime();
+        statExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("canal-request-stat"));
+        statExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                stat();
+            }
+        }, statInterval, statInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        super.stop();
+        if (statExecutor != null) {
+            statExecutor.shutdownNow();
+            statExecutor = null;
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+
+        if (longPollExecutor != null) {
+            longPollExecutor.shutdownNow();
+            longPollExecutor = null;
+        }
+    }
+
+    /**
+     * 提交一个不会阻塞的异步任务，已经关闭或者队列已满时抛出{@linkplain RejectedExecutionException}
+     */
+    public void execute(final Runnable task) {
+        ThreadPoolExecutor current = executor;
+        if (current == null) {
+            throw new RejectedExecutionException("request executor is not started");
+        }
+
+        current.execute(new Runnable() {
+
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    busyNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    /**
+     * 提交一个阻塞等待数据的长轮询任务，没有空闲线程时排队，已经关闭时抛出{@linkplain RejectedExecutionException}
+     */
+    public void executeLongPoll(Runnable task) {
+        ThreadPoolExecutor current = longPollExecutor;
+        if (current == null) {
+            throw new RejectedExecutionException("request executor is not started");
+        }
+
+        current.execute(task);
+    }
+
+    /**
+     * 请求进入异步处理队列
+     */
+    public void requestQueued() {
+        pendingCount.incrementAndGet();
+    }
+
+    /**
+     * 异步处理的请求完成
+     */
+    public void requestCompleted() {
+        pendingCount.decrementAndGet();
+        completedCount.incrementAndGet();
+    }
+
+    private synchronized void stat() {
+        long now = System.nanoTime();
+        long busy = busyNanos.get();
+        long elapsed = now - lastStatTime;
+        if (elapsed > 0) {
+            utilization = Math.min(1.0, (double) (busy - lastBusyNanos) / ((double) elapsed * threads));
+        }
+        lastBusyNanos = busy;
+        lastStatTime = now;
+
+        logger.info("request executor stat, pending:{} active:{} longPoll:{} longPollWaiting:{} utilization:{}% completed:{}",
+            new Object[] { pendingCount.get(), getActiveCount(), getLongPollCount(), getLongPollWaitingCount(),
+                    Math.round(utilization * 100), completedCount.get() });
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public int getActiveCount() {
+        ThreadPoolExecutor current = executor;
+        return current == null ? 0 : current.getActiveCount();
+    }
+
+    public int getLongPollCount() {
+        ThreadPoolExecutor current = longPollExecutor;
+        return current == null ? 0 : current.getActiveCount();
+    }
+
+    public int getLongPollWaitingCount() {
+        ThreadPoolExecutor current = longPollExecutor;
+        return current == null ? 0 : current.getQueue().size();
+    }
+
+    public double getUtilization() {
+        return utilization;
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setLongPollThreads(int longPollThreads) {
+        this.longPollThreads = longPollThreads;
+    }
+
+    public void setStatInterval(long statInterval) {
+        this.statInterval = statInterval;
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.alibaba.otter.canal.server.netty;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.concurrent.Executors;
 
 import org.apache.commons.lang.StringUtils;
@@ -12,6 +13,8 @@ import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
+import com.alibaba.otter.canal.protocol.compress.CompressionUtils;
 import com.alibaba.otter.canal.server.CanalServer;
 import com.alibaba.otter.canal.server.embedded.CanalServerWithEmbedded;
 import com.alibaba.otter.canal.server.netty.handler.ClientAuthenticationHandler;
@@ -27,11 +30,19 @@ import com.alibaba.otter.canal.server.netty.handler.SessionHandler;
  */
 public class CanalServerWithNetty extends AbstractCanalLifeCycle implements CanalServer {
 
-    private CanalServerWithEmbedded embeddedServer;      // 嵌入式server
+    private CanalServerWithEmbedded embeddedServer;                                                  // 嵌入式server
     private String                  ip;
     private int                     port;
-    private Channel                 serverChannel = null;
-    private ServerBootstrap         bootstrap     = null;
+    private Channel                 serverChannel         = null;
+    private ServerBootstrap         bootstrap             = null;
+    private List<Compression>       supportedCompressions = CompressionUtils.SUPPORTED_COMPRESSIONS; // 握手时告知客户端可选的压缩方式
+    private int                     compressionThreshold  = 1024;                                    // MESSAGES包体超过该字节数才压缩
+    private int                     streamThreads         = 1;                                       // 推送模式的分发线程数
+    private CanalStreamDispatcher   streamDispatcher      = null;
+    private int                     requestThreads        = 32;                                      // 按连接顺序处理排队请求的线程数，<=0时在I/O线程中处理
+    private int                     requestQueueSize      = 1024;                                    // 排队请求的上限，超过时关闭连接
+    private int                     longPollThreads       = 64;                                      // 处理阻塞GET的线程数，用满时GET排队等待
+    private CanalRequestExecutor    requestExecutor       = null;
 
     private static class SingletonHolder {
 
@@ -53,6 +64,18 @@ public class CanalServerWithNetty extends AbstractCanalLifeCycle implements Cana
             embeddedServer.start();
         }
 
+        streamDispatcher = new CanalStreamDispatcher();
+        streamDispatcher.setThreads(streamThreads);
+        streamDispatcher.start();
+
+        if (requestThreads > 0) {
+            requestExecutor = new CanalRequestExecutor();
+            requestExecutor.setThreads(requestThreads);
+            requestExecutor.setQueueSize(requestQueueSize);
+            requestExecutor.setLongPollThreads(longPollThreads);
+            requestExecutor.start();
+        }
+
         this.bootstrap = new ServerBootstrap(new NioServerSocketChannelFactory(Executors.newCachedThreadPool(),
             Executors.newCachedThreadPool()));
 
@@ -62,11 +85,16 @@ public class CanalServerWithNetty extends AbstractCanalLifeCycle implements Cana
             public ChannelPipeline getPipeline() throws Exception {
                 ChannelPipeline pipelines = Channels.pipeline();
                 pipelines.addLast(FixedHeaderFrameDecoder.class.getName(), new FixedHeaderFrameDecoder());//读取header头内容,通过头内容,获取整个包内容
-                pipelines.addLast(HandshakeInitializationHandler.class.getName(), new HandshakeInitializationHandler());//握手协议
-                pipelines.addLast(ClientAuthenticationHandler.class.getName(),
-                    new ClientAuthenticationHandler(embeddedServer));
+                pipelines.addLast(HandshakeInitializationHandler.class.getName(),
+                    new HandshakeInitializationHandler(supportedCompressions));//握手协议
+                ClientAuthenticationHandler authenticationHandler = new ClientAuthenticationHandler(embeddedServer);
+                authenticationHandler.setSupportedCompressions(supportedCompressions);
+                pipelines.addLast(ClientAuthenticationHandler.class.getName(), authenticationHandler);
 
                 SessionHandler sessionHandler = new SessionHandler(embeddedServer);
+                sessionHandler.setCompressionThreshold(compressionThreshold);
+                sessionHandler.setStreamDispatcher(streamDispatcher);
+                sessionHandler.setRequestExecutor(requestExecutor);
                 pipelines.addLast(SessionHandler.class.getName(), sessionHandler);
                 return pipelines;
             }
@@ -91,6 +119,16 @@ public class CanalServerWithNetty extends AbstractCanalLifeCycle implements Cana
             this.bootstrap.releaseExternalResources();
         }
 
+        if (streamDispatcher != null) {
+            streamDispatcher.stop();
+            streamDispatcher = null;
+        }
+
+        if (requestExecutor != null) {
+            requestExecutor.stop();
+            requestExecutor = null;
+        }
+
         if (embeddedServer.isStart()) {
             embeddedServer.stop();
         }
@@ -108,4 +146,32 @@ public class CanalServerWithNetty extends AbstractCanalLifeCycle implements Cana
         this.embeddedServer = embeddedServer;
     }
 
+    public void setSupportedCompressions(List<Compression> supportedCompressions) {
+        this.supportedCompressions = supportedCompressions;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public void setStreamThreads(int streamThreads) {
+        this.streamThreads = streamThreads;
+    }
+
+    public void setRequestThreads(int requestThreads) {
+        this.requestThreads = requestThreads;
+    }
+
+    public void setRequestQueueSize(int requestQueueSize) {
+        this.requestQueueSize = requestQueueSize;
+    }
+
+    public void setLongPollThreads(int longPollThreads) {
+        this.longPollThreads = longPollThreads;
+    }
+
+    public CanalRequestExecutor getRequestExecutor() {
+        return requestExecutor;
+    }
+
 }
@@ -0,0 +1,115 @@
+package com.alibaba.otter.canal.server.netty;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
+
+/**
+ * 推送模式下的数据分发
+ *
+ * <pre>
+ * 1. 所有推送客户端共用少量的分发线程，客户端等待数据时不占用线程
+ * 2. store有新数据、客户端ack归还credit、rollback之后调用{@linkplain #schedule}，同一个任务同时只会在一个线程中执行
+ * 3. 按照checkInterval定时检查所有任务，避免instance重启等原因丢失store的通知
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:39:46
+ * @version 1.0.22
+ */
+public class CanalStreamDispatcher extends AbstractCanalLifeCycle {
+
+    private static final Logger       logger        = LoggerFactory.getLogger(CanalStreamDispatcher.class);
+    private int                       threads       = 1;
+    private long                      checkInterval = 1000;                                                // 定时检查的间隔，单位ms
+    private final Set<StreamTask>     tasks         = new CopyOnWriteArraySet<StreamTask>();
+    private ScheduledExecutorService  executor;
+
+    public void start() {
+        super.start();
+        executor = Executors.newScheduledThreadPool(threads, new NamedThreadFactory("canal-stream-dispatcher"));
+        executor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                for (StreamTask task : tasks) {
+                    schedule(task);
+                }
+            }
+        }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        super.stop();
+        tasks.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public void register(StreamTask task) {
+        tasks.add(task);
+        schedule(task);
+    }
+
+    public void unregister(StreamTask task) {
+        tasks.remove(task);
+    }
+
+    /**
+     * 提交一次分发，任务已经在等待执行时直接忽略
+     */
+    public void schedule(final StreamTask task) {
+        ScheduledExecutorService current = executor;
+        if (current == null || !task.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            current.execute(new Runnable() {
+
+                public void run() {
+                    task.scheduled.set(false); // 先清除标记，执行过程中的通知会触发下一次分发
+                    try {
+                        task.dispatch();
+                    } catch (Throwable e) {
+                        logger.warn("stream dispatch failed", e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            task.scheduled.set(false); // 已经关闭
+        }
+    }
+
+    /**
+     * 一个推送客户端的分发任务
+     */
+    public static abstract class StreamTask {
+
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        /**
+         * 在credit允许的范围内推送数据，不能阻塞等待
+         */
+        protected abstract void dispatch();
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setCheckInterval(long checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
+}
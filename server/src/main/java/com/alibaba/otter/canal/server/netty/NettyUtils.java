@@ -1,8 +1,11 @@
 package com.alibaba.otter.canal.server.netty;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.List;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFutureListener;
@@ -15,6 +18,10 @@ import org.slf4j.LoggerFactory;
 import com.alibaba.otter.canal.protocol.CanalPacket;
 import com.alibaba.otter.canal.protocol.CanalPacket.Ack;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
+import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
 
 public class NettyUtils {
 
@@ -31,6 +38,66 @@ public class NettyUtils {
         }
     }
 
+    /**
+     * 输出MESSAGES包，entry直接使用已有的序列化数据
+     *
+     * <pre>
+     * 按照protobuf的编码规则手工写入Packet(type=MESSAGES, body=Messages)的字段头，和Packet.toByteArray()的结果一致
+     * [header][type][body tag/length][batch_id]([messages tag/length][entry])*
+     * entry数据通过ByteBuffer组合成CompositeChannelBuffer，不再拷贝和重新编码
+     * </pre>
+     */
+    public static void writeMessages(Channel channel, long batchId, List<ByteString> entries,
+                                     ChannelFutureListener channelFutureListner) throws IOException {
+        ChannelBuffer buffer = buildMessages(batchId, entries);
+        if (channelFutureListner == null) {
+            Channels.write(channel, buffer);
+        } else {
+            Channels.write(channel, buffer).addListener(channelFutureListner);
+        }
+    }
+
+    /**
+     * 组装MESSAGES包(包含4字节的长度头)，内容和Packet.toByteArray()一致
+     */
+    static ChannelBuffer buildMessages(long batchId, List<ByteString> entries) throws IOException {
+        final int lengthDelimited = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+        int bodySize = CodedOutputStream.computeInt64Size(1, batchId);
+        int headsSize = bodySize;
+        for (ByteString entry : entries) {
+            int entryHeadSize = CodedOutputStream.computeTagSize(2) + CodedOutputStream.computeRawVarint32Size(entry.size());
+            bodySize += entryHeadSize + entry.size();
+            headsSize += entryHeadSize;
+        }
+        int packetHeadSize = CodedOutputStream.computeEnumSize(3, PacketType.MESSAGES.getNumber())
+                             + CodedOutputStream.computeTagSize(5) + CodedOutputStream.computeRawVarint32Size(bodySize);
+        headsSize += HEADER_LENGTH + packetHeadSize;
+
+        // 所有的字段头写入一个数组，按段切分
+        byte[] heads = new byte[headsSize];
+        ByteBuffer.wrap(heads).order(ByteOrder.BIG_ENDIAN).putInt(packetHeadSize + bodySize);
+        CodedOutputStream output = CodedOutputStream.newInstance(heads, HEADER_LENGTH, headsSize - HEADER_LENGTH);
+        output.writeEnum(3, PacketType.MESSAGES.getNumber());
+        output.writeTag(5, lengthDelimited);
+        output.writeRawVarint32(bodySize);
+        output.writeInt64(1, batchId);
+
+        ByteBuffer[] buffers = new ByteBuffer[1 + entries.size() * 2];
+        int offset = headsSize - output.spaceLeft();
+        buffers[0] = ByteBuffer.wrap(heads, 0, offset);
+        int index = 1;
+        for (ByteString entry : entries) {
+            output.writeTag(2, lengthDelimited);
+            output.writeRawVarint32(entry.size());
+            int end = headsSize - output.spaceLeft();
+            buffers[index++] = ByteBuffer.wrap(heads, offset, end - offset);
+            buffers[index++] = entry.asReadOnlyByteBuffer();
+            offset = end;
+        }
+        output.checkNoSpaceLeft();
+        return ChannelBuffers.wrappedBuffer(buffers);
+    }
+
     //发送给客户端的response信息
     public static void ack(Channel channel, ChannelFutureListener channelFutureListner) {
         write(channel,
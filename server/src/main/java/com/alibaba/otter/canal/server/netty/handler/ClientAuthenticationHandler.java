@@ -1,5 +1,7 @@
 package com.alibaba.otter.canal.server.netty.handler;
 
+import java.util.List;
+
 import org.apache.commons.lang.StringUtils;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.ChannelFuture;
@@ -17,8 +19,10 @@ import org.slf4j.MDC;
 import com.alibaba.otter.canal.common.zookeeper.running.ServerRunningMonitor;
 import com.alibaba.otter.canal.common.zookeeper.running.ServerRunningMonitors;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientAuth;
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.compress.CompressionUtils;
 import com.alibaba.otter.canal.server.embedded.CanalServerWithEmbedded;
 import com.alibaba.otter.canal.server.netty.NettyUtils;
 
@@ -34,6 +38,7 @@ public class ClientAuthenticationHandler extends SimpleChannelHandler {
     private final int               SUPPORTED_VERSION                       = 3;
     private final int               defaultSubscriptorDisconnectIdleTimeout = 5 * 60 * 1000;
     private CanalServerWithEmbedded embeddedServer;
+    private List<Compression>       supportedCompressions                   = CompressionUtils.SUPPORTED_COMPRESSIONS;
 
     public ClientAuthenticationHandler(){
 
@@ -50,6 +55,14 @@ public class ClientAuthenticationHandler extends SimpleChannelHandler {
             case SUPPORTED_VERSION:
             default:
                 final ClientAuth clientAuth = ClientAuth.parseFrom(packet.getBody());//客户端传递的权限信息对象
+                // 客户端选择的压缩方式必须在handshake中声明过
+                final Compression compression = clientAuth.getCompression();
+                if (compression != Compression.NONE && !supportedCompressions.contains(compression)) {
+                    NettyUtils.error(400, "compression " + compression + " is not supported, supported : "
+                                          + supportedCompressions, ctx.getChannel(), null);
+                    return;
+                }
+
                 // 如果存在订阅信息
                 if (StringUtils.isNotEmpty(clientAuth.getDestination())
                     && StringUtils.isNotEmpty(clientAuth.getClientId())) {
@@ -72,6 +85,10 @@ public class ClientAuthenticationHandler extends SimpleChannelHandler {
                     }
                 }
 
+                // 后续MESSAGES包按照协商的方式压缩，在ack之前设置，避免和客户端紧接着的get请求并发
+                SessionHandler sessionHandler = (SessionHandler) ctx.getPipeline().get(SessionHandler.class.getName());
+                sessionHandler.setCompression(compression);
+
                 //回复给客户端信息
                 NettyUtils.ack(ctx.getChannel(), new ChannelFutureListener() {
 
@@ -122,4 +139,8 @@ public class ClientAuthenticationHandler extends SimpleChannelHandler {
         this.embeddedServer = embeddedServer;
     }
 
+    public void setSupportedCompressions(List<Compression> supportedCompressions) {
+        this.supportedCompressions = supportedCompressions;
+    }
+
 }
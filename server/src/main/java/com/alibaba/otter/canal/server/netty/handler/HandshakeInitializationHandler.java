@@ -1,5 +1,7 @@
 package com.alibaba.otter.canal.server.netty.handler;
 
+import java.util.List;
+
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelStateEvent;
 import org.jboss.netty.channel.SimpleChannelHandler;
@@ -7,8 +9,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.otter.canal.protocol.CanalPacket;
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
 import com.alibaba.otter.canal.protocol.CanalPacket.Handshake;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
+import com.alibaba.otter.canal.protocol.compress.CompressionUtils;
 import com.alibaba.otter.canal.server.netty.NettyUtils;
 
 /**
@@ -19,13 +23,22 @@ import com.alibaba.otter.canal.server.netty.NettyUtils;
  */
 public class HandshakeInitializationHandler extends SimpleChannelHandler {
 
-    private static final Logger logger = LoggerFactory.getLogger(HandshakeInitializationHandler.class);
+    private static final Logger     logger = LoggerFactory.getLogger(HandshakeInitializationHandler.class);
+    private final List<Compression> supportedCompressions;
+
+    public HandshakeInitializationHandler(){
+        this(CompressionUtils.SUPPORTED_COMPRESSIONS);
+    }
+
+    public HandshakeInitializationHandler(List<Compression> supportedCompressions){
+        this.supportedCompressions = supportedCompressions;
+    }
 
-    //发送握手事件给客户端,内容就是一个空的内容
+    //发送握手事件给客户端,内容为服务端支持的压缩方式
     public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
         byte[] body = Packet.newBuilder()
             .setType(CanalPacket.PacketType.HANDSHAKE)
-            .setBody(Handshake.newBuilder().build().toByteString())
+            .setBody(Handshake.newBuilder().addAllSupportedCompressions(supportedCompressions).build().toByteString())
             .build()
             .toByteArray();
         NettyUtils.write(ctx.getChannel(), body, null);
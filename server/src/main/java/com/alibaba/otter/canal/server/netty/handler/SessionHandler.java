@@ -1,11 +1,15 @@
 package com.alibaba.otter.canal.server.netty.handler;
 
+import java.io.IOException;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelStateEvent;
 import org.jboss.netty.channel.ExceptionEvent;
@@ -15,35 +19,62 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.slf4j.helpers.MessageFormatter;
-import org.springframework.util.CollectionUtils;
 
 import com.alibaba.otter.canal.common.zookeeper.running.ServerRunningMonitor;
 import com.alibaba.otter.canal.common.zookeeper.running.ServerRunningMonitors;
-import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
 import com.alibaba.otter.canal.protocol.CanalPacket;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientAck;
 import com.alibaba.otter.canal.protocol.CanalPacket.ClientRollback;
+import com.alibaba.otter.canal.protocol.CanalPacket.Compression;
 import com.alibaba.otter.canal.protocol.CanalPacket.Get;
 import com.alibaba.otter.canal.protocol.CanalPacket.Messages;
 import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
 import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.protocol.CanalPacket.Stream;
 import com.alibaba.otter.canal.protocol.CanalPacket.Sub;
 import com.alibaba.otter.canal.protocol.CanalPacket.Unsub;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
 import com.alibaba.otter.canal.protocol.Message;
+import com.alibaba.otter.canal.protocol.compress.CompressionUtils;
 import com.alibaba.otter.canal.server.embedded.CanalServerWithEmbedded;
+import com.alibaba.otter.canal.server.netty.CanalRequestExecutor;
+import com.alibaba.otter.canal.server.netty.CanalStreamDispatcher;
+import com.alibaba.otter.canal.server.netty.CanalStreamDispatcher.StreamTask;
 import com.alibaba.otter.canal.server.netty.NettyUtils;
+import com.alibaba.otter.canal.store.CanalStoreListener;
+import com.google.protobuf.ByteString;
 
 /**
  * 处理具体的客户端请求
  * 
+ * <pre>
+ * 推送模式：
+ * 1. 订阅之后发送STREAM(window > 0)开启推送，服务端有数据时主动输出MESSAGES，已推送未ack的batch数不超过window
+ * 2. 每ack一个batch归还一个credit，rollback之后未ack的batch全部作废，credit恢复
+ * 3. STREAM(window <= 0)关闭推送，返回的Ack一定在已推送的MESSAGES之后，客户端读到Ack即可认为推送已经停止
+ * 4. 推送模式下不再处理同一个客户端的GET请求
+ * 
+ * 异步处理：
+ * 1. 带timeout的GET会阻塞等待数据，交给requestExecutor的longPoll线程处理，不占用netty的I/O线程和request线程
+ * 2. 异步处理期间收到的后续请求按顺序排队，由request线程依次处理，遇到带timeout的GET时转交给longPoll线程，完成后再继续处理后面的请求，
+ *    保证同一个连接上的响应顺序和请求顺序一致
+ * 3. longPoll线程用满时，GET排队等待空闲的longPoll线程，排队的时间从timeout中扣除，客户端看到的等待时间不变，排队期间已经超时的GET不再等待数据
+ * </pre>
+ * 
  * @author jianghang 2012-10-24 下午02:21:13
  * @version 1.0.0
  */
 public class SessionHandler extends SimpleChannelHandler {
 
-    private static final Logger     logger = LoggerFactory.getLogger(SessionHandler.class);
+    private static final Logger     logger               = LoggerFactory.getLogger(SessionHandler.class);
     private CanalServerWithEmbedded embeddedServer;
+    private volatile Compression    compression          = Compression.NONE;                   // 认证时和客户端协商的压缩方式
+    private int                     compressionThreshold = 1024;                               // 包体小于该字节数时不压缩
+    private CanalStreamDispatcher   streamDispatcher;                                          // 推送模式的分发线程，为空时不支持推送
+    private volatile StreamSession  streamSession;                                             // 当前连接上开启推送的客户端
+    private CanalRequestExecutor    requestExecutor;                                           // 阻塞请求的工作线程，为空时在I/O线程中直接处理
+    private final LinkedList<Packet> pendingPackets      = new LinkedList<Packet>();              // 等待异步处理的请求
+    private boolean                 asyncRunning         = false;                              // 是否有异步任务正在处理pendingPackets
 
     public SessionHandler(){
     }
@@ -56,6 +87,33 @@ public class SessionHandler extends SimpleChannelHandler {
         logger.info("message receives in session handler...");
         ChannelBuffer buffer = (ChannelBuffer) e.getMessage();
         Packet packet = Packet.parseFrom(buffer.readBytes(buffer.readableBytes()).array());//接收客户端发过来的包对象
+        if (requestExecutor == null) {
+            handle(ctx, packet);
+            return;
+        }
+
+        boolean async;
+        synchronized (pendingPackets) {
+            async = asyncRunning || isBlocking(packet);
+            if (async) {
+                // 前面还有请求在异步处理时，必须排在其后面，避免ack/rollback和get的顺序错乱
+                pendingPackets.add(packet);
+                requestExecutor.requestQueued();
+                if (asyncRunning) {
+                    return;
+                }
+                asyncRunning = true;
+            }
+        }
+
+        if (async) {
+            submitPendingPackets(ctx);
+        } else {
+            handle(ctx, packet);
+        }
+    }
+
+    void handle(ChannelHandlerContext ctx, Packet packet) {
         ClientIdentity clientIdentity = null;
         try {
             switch (packet.getType()) {
@@ -92,6 +150,7 @@ public class SessionHandler extends SimpleChannelHandler {
                             Short.valueOf(unsub.getClientId()),
                             unsub.getFilter());
                         MDC.put("destination", clientIdentity.getDestination());
+                        stopStream();
                         embeddedServer.unsubscribe(clientIdentity);
                         stopCanalInstanceIfNecessary(clientIdentity);// 尝试关闭
                         NettyUtils.ack(ctx.getChannel(), null);
@@ -107,6 +166,14 @@ public class SessionHandler extends SimpleChannelHandler {
                     if (StringUtils.isNotEmpty(get.getDestination()) && StringUtils.isNotEmpty(get.getClientId())) {
                         clientIdentity = new ClientIdentity(get.getDestination(), Short.valueOf(get.getClientId()));
                         MDC.put("destination", clientIdentity.getDestination());
+                        if (getStreamSession(clientIdentity) != null) {
+                            NettyUtils.error(400,
+                                MessageFormatter.format("clientId:{} is in stream mode, GET is NOT allowed",
+                                    clientIdentity.getClientId()).getMessage(),
+                                ctx.getChannel(),
+                                null);
+                            break;
+                        }
                         Message message = null;
 
                         // if (get.getAutoAck()) {
@@ -130,18 +197,7 @@ public class SessionHandler extends SimpleChannelHandler {
                         }
                         // }
 
-                        Packet.Builder packetBuilder = CanalPacket.Packet.newBuilder();
-                        packetBuilder.setType(PacketType.MESSAGES);
-
-                        Messages.Builder messageBuilder = CanalPacket.Messages.newBuilder();
-                        messageBuilder.setBatchId(message.getId());
-                        if (message.getId() != -1 && !CollectionUtils.isEmpty(message.getEntries())) {
-                            for (Entry entry : message.getEntries()) {
-                                messageBuilder.addMessages(entry.toByteString());
-                            }
-                        }
-                        packetBuilder.setBody(messageBuilder.build().toByteString());
-                        NettyUtils.write(ctx.getChannel(), packetBuilder.build().toByteArray(), null);// 输出数据
+                        writeMessages(ctx.getChannel(), message);
                     } else {
                         NettyUtils.error(401,
                             MessageFormatter.format("destination or clientId is null", get.toString()).getMessage(),
@@ -163,6 +219,10 @@ public class SessionHandler extends SimpleChannelHandler {
                         } else {
                             clientIdentity = new ClientIdentity(ack.getDestination(), Short.valueOf(ack.getClientId()));
                             embeddedServer.ack(clientIdentity, ack.getBatchId());
+                            StreamSession session = getStreamSession(clientIdentity);
+                            if (session != null) {
+                                session.release(1);
+                            }
                         }
                     } else {
                         NettyUtils.error(401,
@@ -178,10 +238,17 @@ public class SessionHandler extends SimpleChannelHandler {
                         && StringUtils.isNotEmpty(rollback.getClientId())) {
                         clientIdentity = new ClientIdentity(rollback.getDestination(),
                             Short.valueOf(rollback.getClientId()));
+                        StreamSession session = getStreamSession(clientIdentity);
                         if (rollback.getBatchId() == 0L) {
                             embeddedServer.rollback(clientIdentity);// 回滚所有批次
+                            if (session != null) {
+                                session.release(Integer.MAX_VALUE);
+                            }
                         } else {
                             embeddedServer.rollback(clientIdentity, rollback.getBatchId()); // 只回滚单个批次
+                            if (session != null) {
+                                session.release(1);
+                            }
                         }
                     } else {
                         NettyUtils.error(401,
@@ -191,6 +258,32 @@ public class SessionHandler extends SimpleChannelHandler {
                             null);
                     }
                     break;
+                case STREAM:
+                    Stream stream = CanalPacket.Stream.parseFrom(packet.getBody());
+                    MDC.put("destination", stream.getDestination());
+                    if (StringUtils.isNotEmpty(stream.getDestination()) && StringUtils.isNotEmpty(stream.getClientId())) {
+                        clientIdentity = new ClientIdentity(stream.getDestination(), Short.valueOf(stream.getClientId()));
+                        if (stream.getWindow() <= 0) {
+                            stopStream();
+                            NettyUtils.ack(ctx.getChannel(), null);
+                        } else if (streamDispatcher == null) {
+                            NettyUtils.error(400, "stream is NOT supported by this server", ctx.getChannel(), null);
+                        } else {
+                            StreamSession session = startStream(ctx.getChannel(),
+                                clientIdentity,
+                                stream.getFetchSize(),
+                                stream.getWindow());
+                            // 先返回ack，再开始推送
+                            NettyUtils.ack(ctx.getChannel(), null);
+                            streamDispatcher.register(session);
+                        }
+                    } else {
+                        NettyUtils.error(401,
+                            MessageFormatter.format("destination or clientId is null", stream.toString()).getMessage(),
+                            ctx.getChannel(),
+                            null);
+                    }
+                    break;
                 default:
                     NettyUtils.error(400, MessageFormatter.format("packet type={} is NOT supported!", packet.getType())
                         .getMessage(), ctx.getChannel(), null);
@@ -216,7 +309,20 @@ public class SessionHandler extends SimpleChannelHandler {
         ctx.getChannel().close();
     }
 
+    public void channelInterestChanged(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        // 发送缓冲区有空间之后继续推送
+        StreamSession session = streamSession;
+        if (session != null && ctx.getChannel().isWritable()) {
+            streamDispatcher.schedule(session);
+        }
+        super.channelInterestChanged(ctx, e);
+    }
+
     public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        stopStream();
+        if (requestExecutor != null) {
+            discardPendingPackets();
+        }
         // logger.info("remove binding subscription value object if any...");
         // ClientIdentity clientIdentity = (ClientIdentity) ctx.getAttachment();
         // // 如果唯一的订阅者都取消了订阅，直接关闭服务，针对内部版本模式下可以减少资源浪费
@@ -225,6 +331,175 @@ public class SessionHandler extends SimpleChannelHandler {
         // }
     }
 
+    /**
+     * 带timeout的GET会阻塞等待，需要异步处理
+     */
+    private boolean isBlocking(Packet packet) {
+        if (packet.getType() != PacketType.GET) {
+            return false;
+        }
+
+        try {
+            return Get.parseFrom(packet.getBody()).getTimeout() != -1;
+        } catch (IOException e) {
+            return false; // 交给handle返回错误
+        }
+    }
+
+    /**
+     * 从GET的timeout中扣除等待longPoll线程的时间，已经超时的GET不再等待数据
+     */
+    private Packet deductTimeout(Packet packet, long waitedNanos) {
+        try {
+            Get get = Get.parseFrom(packet.getBody());
+            if (get.getTimeout() <= 0) {
+                return packet; // 一直等待数据，不受排队影响
+            }
+
+            Get.Builder builder = Get.newBuilder(get);
+            long remaining = convertTimeUnit(get.getUnit()).toNanos(get.getTimeout()) - waitedNanos;
+            if (remaining > 0) {
+                builder.setTimeout(remaining).setUnit(0);
+            } else {
+                builder.setTimeout(-1);
+            }
+            return Packet.newBuilder(packet).setBody(builder.build().toByteString()).build();
+        } catch (IOException e) {
+            return packet; // isBlocking已经解析成功，不会出现
+        }
+    }
+
+    private void submitPendingPackets(final ChannelHandlerContext ctx) {
+        try {
+            requestExecutor.execute(new Runnable() {
+
+                public void run() {
+                    processPendingPackets(ctx);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("request executor is stopped or busy, close channel:{}", ctx.getChannel());
+            discardPendingPackets();
+            ctx.getChannel().close();
+        }
+    }
+
+    /**
+     * 按顺序处理所有排队的请求，处理完之后新的请求重新回到I/O线程中处理
+     */
+    private void processPendingPackets(ChannelHandlerContext ctx) {
+        while (true) {
+            Packet packet;
+            synchronized (pendingPackets) {
+                packet = pendingPackets.poll();
+                if (packet == null) {
+                    asyncRunning = false;
+                    return;
+                }
+            }
+
+            if (isBlocking(packet)) {
+                submitLongPoll(ctx, packet);
+                return; // longPoll线程处理完之后继续处理后面的请求
+            }
+
+            handlePendingPacket(ctx, packet);
+        }
+    }
+
+    private void submitLongPoll(final ChannelHandlerContext ctx, final Packet packet) {
+        final long queuedTime = System.nanoTime();
+        try {
+            requestExecutor.executeLongPoll(new Runnable() {
+
+                public void run() {
+                    long waited = System.nanoTime() - queuedTime;
+                    // 不足10ms时认为没有排队(只是线程调度的耗时)，不改写请求
+                    handlePendingPacket(ctx, waited >= 10 * 1000 * 1000L ? deductTimeout(packet, waited) : packet);
+                    submitPendingPackets(ctx);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("request executor is stopped, close channel:{}", ctx.getChannel());
+            requestExecutor.requestCompleted();
+            discardPendingPackets();
+            ctx.getChannel().close();
+        }
+    }
+
+    private void handlePendingPacket(ChannelHandlerContext ctx, Packet packet) {
+        try {
+            if (ctx.getChannel().isOpen()) {
+                handle(ctx, packet);
+            }
+        } finally {
+            requestExecutor.requestCompleted();
+        }
+    }
+
+    private void discardPendingPackets() {
+        synchronized (pendingPackets) {
+            while (pendingPackets.poll() != null) {
+                requestExecutor.requestCompleted();
+            }
+            asyncRunning = false;
+        }
+    }
+
+    private void writeMessages(Channel channel, Message message) throws IOException {
+        // 每个entry只序列化一次，压缩判断和输出共用，不再整体重新编码packet
+        List<ByteString> rawEntries = message.getRawEntries();
+        if (compression != Compression.NONE && sizeOf(rawEntries) >= compressionThreshold) {
+            Packet.Builder packetBuilder = CanalPacket.Packet.newBuilder();
+            packetBuilder.setType(PacketType.MESSAGES);
+
+            Messages.Builder messageBuilder = CanalPacket.Messages.newBuilder();
+            messageBuilder.setBatchId(message.getId());
+            messageBuilder.addAllMessages(rawEntries);
+            packetBuilder.setCompression(compression);
+            packetBuilder.setBody(CompressionUtils.compress(compression, messageBuilder.build().toByteString()));
+            NettyUtils.write(channel, packetBuilder.build().toByteArray(), null);// 输出数据
+        } else {
+            NettyUtils.writeMessages(channel, message.getId(), rawEntries, null);// 输出数据
+        }
+    }
+
+    private StreamSession startStream(Channel channel, ClientIdentity clientIdentity, int fetchSize, int window) {
+        StreamSession session = streamSession;
+        if (session != null && !session.clientIdentity.equals(clientIdentity)) {
+            stopStream(); // 一个连接只允许一个客户端推送
+            session = null;
+        }
+
+        if (session == null) {
+            session = new StreamSession(channel, clientIdentity);
+            if (!embeddedServer.addStoreListener(clientIdentity.getDestination(), session)) {
+                logger.warn("store of destination:{} does not support listener, stream relies on periodic check",
+                    clientIdentity.getDestination());
+            }
+            streamSession = session;
+        }
+        session.update(fetchSize, window);
+        return session;
+    }
+
+    private void stopStream() {
+        StreamSession session = streamSession;
+        if (session == null) {
+            return;
+        }
+
+        streamSession = null;
+        session.close();
+        streamDispatcher.unregister(session);
+        embeddedServer.removeStoreListener(session.clientIdentity.getDestination(), session);
+    }
+
+    private StreamSession getStreamSession(ClientIdentity clientIdentity) {
+        StreamSession session = streamSession;
+        return (session != null && session.clientIdentity.equals(clientIdentity)) ? session : null;
+    }
+
     private void stopCanalInstanceIfNecessary(ClientIdentity clientIdentity) {
         List<ClientIdentity> clientIdentitys = embeddedServer.listAllSubscribe(clientIdentity.getDestination());
         if (clientIdentitys != null && clientIdentitys.size() == 1 && clientIdentitys.contains(clientIdentity)) {
@@ -235,6 +510,14 @@ public class SessionHandler extends SimpleChannelHandler {
         }
     }
 
+    private int sizeOf(List<ByteString> rawEntries) {
+        int size = 0;
+        for (ByteString rawEntry : rawEntries) {
+            size += rawEntry.size();
+        }
+        return size;
+    }
+
     private TimeUnit convertTimeUnit(int unit) {
         switch (unit) {
             case 0:
@@ -256,8 +539,88 @@ public class SessionHandler extends SimpleChannelHandler {
         }
     }
 
+    /**
+     * 推送模式的客户端，在credit允许的范围内推送数据
+     */
+    private class StreamSession extends StreamTask implements CanalStoreListener {
+
+        private final Channel        channel;
+        private final ClientIdentity clientIdentity;
+        private int                  fetchSize;
+        private int                  window;
+        private int                  inflight;     // 已推送未ack的batch数
+        private boolean              active = true;
+
+        public StreamSession(Channel channel, ClientIdentity clientIdentity){
+            this.channel = channel;
+            this.clientIdentity = clientIdentity;
+        }
+
+        public void onPut() {
+            streamDispatcher.schedule(this);
+        }
+
+        protected synchronized void dispatch() {
+            MDC.put("destination", clientIdentity.getDestination());
+            try {
+                // 不可写时等待channelInterestChanged，连接断开时isWritable也为false
+                while (active && inflight < window && channel.isWritable()) {
+                    Message message = embeddedServer.getWithoutAck(clientIdentity, fetchSize);
+                    if (message.getId() == -1L) {
+                        break; // 没有数据，等待store的通知
+                    }
+
+                    inflight++;
+                    writeMessages(channel, message);
+                }
+            } catch (IOException e) {
+                logger.warn("stream messages to " + clientIdentity + " failed", e);
+            } finally {
+                MDC.remove("destination");
+            }
+        }
+
+        public synchronized void update(int fetchSize, int window) {
+            this.fetchSize = fetchSize;
+            this.window = window;
+        }
+
+        /**
+         * ack/rollback之后归还credit
+         */
+        public void release(int credits) {
+            synchronized (this) {
+                inflight = Math.max(0, inflight - credits);
+            }
+            streamDispatcher.schedule(this);
+        }
+
+        /**
+         * 等待正在进行的推送完成，之后不会再输出数据
+         */
+        public synchronized void close() {
+            active = false;
+        }
+    }
+
     public void setEmbeddedServer(CanalServerWithEmbedded embeddedServer) {
         this.embeddedServer = embeddedServer;
     }
 
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public void setRequestExecutor(CanalRequestExecutor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+    }
+
+    public void setStreamDispatcher(CanalStreamDispatcher streamDispatcher) {
+        this.streamDispatcher = streamDispatcher;
+    }
+
 }
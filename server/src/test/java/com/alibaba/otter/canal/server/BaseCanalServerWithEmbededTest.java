@@ -1,5 +1,9 @@
 package com.alibaba.otter.canal.server;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -103,6 +107,49 @@ public abstract class BaseCanalServerWithEmbededTest {
         server.unsubscribe(clientIdentity);
     }
 
+    @Test
+    public void testAckOutOfOrder() {
+        int maxEmptyCount = 10;
+        int emptyCount = 0;
+        int totalCount = 0;
+        server.subscribe(clientIdentity);
+        while (emptyCount < maxEmptyCount) {
+            // 模拟流水线get，连续获取多个batch后倒序ack
+            List<Long> batchIds = new ArrayList<Long>();
+            for (int i = 0; i < 3; i++) {
+                Message message = server.getWithoutAck(clientIdentity, 11);
+                if (!CollectionUtils.isEmpty(message.getEntries())) {
+                    batchIds.add(message.getId());
+                    totalCount += message.getEntries().size();
+                }
+            }
+
+            if (batchIds.isEmpty()) {
+                emptyCount++;
+                try {
+                    Thread.sleep(emptyCount * 300L);
+                } catch (InterruptedException e) {
+                    Assert.fail();
+                }
+
+                System.out.println("empty count : " + emptyCount);
+            } else {
+                emptyCount = 0;
+                Collections.reverse(batchIds);
+                for (Long batchId : batchIds) {
+                    server.ack(clientIdentity, batchId);
+                }
+                Assert.assertNull(server.getCanalInstances()
+                    .get(DESTINATION)
+                    .getMetaManager()
+                    .getFirstBatch(clientIdentity));
+            }
+        }
+
+        System.out.println("!!!!!! testAckOutOfOrder totalCount : " + totalCount);
+        server.unsubscribe(clientIdentity);
+    }
+
     // @Test
     public void testRollback() {
         int maxEmptyCount = 10;
@@ -0,0 +1,141 @@
+package com.alibaba.otter.canal.server.netty;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * request线程和longPoll线程相互隔离，并且都有上限
+ */
+public class CanalRequestExecutorTest {
+
+    private CanalRequestExecutor executor;
+    private CountDownLatch       release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (executor != null && executor.isStart()) {
+            executor.stop();
+        }
+    }
+
+    @Test
+    public void testLongPollNotBlockRequest() throws Exception {
+        executor = newExecutor(1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.executeLongPoll(blocking(started));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 唯一的request线程不会被阻塞的长轮询占用
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(countDown(done));
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, executor.getLongPollCount());
+    }
+
+    @Test
+    public void testLongPollRejected() throws Exception {
+        executor = newExecutor(1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.executeLongPoll(blocking(started));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 长轮询不排队，线程用满时直接拒绝
+        try {
+            executor.executeLongPoll(blocking(null));
+            Assert.fail();
+        } catch (RejectedExecutionException e) {
+            // ignore
+        }
+
+        // 线程空闲之后可以再次提交
+        release.countDown();
+        CountDownLatch done = new CountDownLatch(1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            try {
+                executor.executeLongPoll(countDown(done));
+                break;
+            } catch (RejectedExecutionException e) {
+                Assert.assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+        }
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRequestQueueBounded() throws Exception {
+        executor = newExecutor(1, 2, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(blocking(started));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        executor.execute(blocking(null));
+        executor.execute(blocking(null));
+        try {
+            executor.execute(blocking(null));
+            Assert.fail();
+        } catch (RejectedExecutionException e) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void testStopped() {
+        executor = newExecutor(1, 1, 1);
+        executor.stop();
+        try {
+            executor.execute(countDown(new CountDownLatch(1)));
+            Assert.fail();
+        } catch (RejectedExecutionException e) {
+            // ignore
+        }
+
+        try {
+            executor.executeLongPoll(countDown(new CountDownLatch(1)));
+            Assert.fail();
+        } catch (RejectedExecutionException e) {
+            // ignore
+        }
+    }
+
+    private CanalRequestExecutor newExecutor(int threads, int queueSize, int longPollThreads) {
+        CanalRequestExecutor executor = new CanalRequestExecutor();
+        executor.setThreads(threads);
+        executor.setQueueSize(queueSize);
+        executor.setLongPollThreads(longPollThreads);
+        executor.start();
+        return executor;
+    }
+
+    private Runnable blocking(final CountDownLatch started) {
+        return new Runnable() {
+
+            public void run() {
+                if (started != null) {
+                    started.countDown();
+                }
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.alibaba.otter.canal.server.netty;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.CanalPacket.Messages;
+import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
+import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.google.protobuf.ByteString;
+
+/**
+ * 手工组装的MESSAGES包需要和protobuf编码的结果逐字节一致
+ */
+public class NettyUtilsTest {
+
+    @Test
+    public void testEmpty() throws IOException {
+        assertSameAsProtobuf(1L, Collections.<ByteString> emptyList());
+        assertSameAsProtobuf(-1L, Collections.<ByteString> emptyList());
+    }
+
+    @Test
+    public void testSingle() throws IOException {
+        List<ByteString> entries = new ArrayList<ByteString>();
+        entries.add(ByteString.copyFromUtf8("canal"));
+        assertSameAsProtobuf(100L, entries);
+    }
+
+    @Test
+    public void testVarintBoundary() throws IOException {
+        // entry长度和body长度跨越varint的字节边界
+        Random random = new Random(3);
+        int[] sizes = { 0, 1, 127, 128, 16383, 16384, 300000 };
+        List<ByteString> entries = new ArrayList<ByteString>();
+        for (int size : sizes) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            entries.add(ByteString.copyFrom(data));
+            assertSameAsProtobuf(Long.MAX_VALUE, entries);
+        }
+    }
+
+    @Test
+    public void testMany() throws IOException {
+        List<ByteString> entries = new ArrayList<ByteString>();
+        for (int i = 0; i < 1000; i++) {
+            entries.add(ByteString.copyFromUtf8("entry-" + i));
+        }
+        assertSameAsProtobuf(Integer.MAX_VALUE + 1L, entries);
+    }
+
+    private void assertSameAsProtobuf(long batchId, List<ByteString> entries) throws IOException {
+        byte[] body = Packet.newBuilder()
+            .setType(PacketType.MESSAGES)
+            .setBody(Messages.newBuilder().setBatchId(batchId).addAllMessages(entries).build().toByteString())
+            .build()
+            .toByteArray();
+        byte[] expected = ByteBuffer.allocate(4 + body.length).putInt(body.length).put(body).array();
+
+        ChannelBuffer buffer = NettyUtils.buildMessages(batchId, entries);
+        byte[] actual = new byte[buffer.readableBytes()];
+        buffer.readBytes(actual);
+        Assert.assertArrayEquals(expected, actual);
+    }
+}
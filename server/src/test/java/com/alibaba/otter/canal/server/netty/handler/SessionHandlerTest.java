@@ -0,0 +1,236 @@
+package com.alibaba.otter.canal.server.netty.handler;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.MessageEvent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.CanalPacket.ClientAck;
+import com.alibaba.otter.canal.protocol.CanalPacket.Get;
+import com.alibaba.otter.canal.protocol.CanalPacket.Packet;
+import com.alibaba.otter.canal.protocol.CanalPacket.PacketType;
+import com.alibaba.otter.canal.server.netty.CanalRequestExecutor;
+
+/**
+ * 请求的分发：非阻塞请求在I/O线程处理，带timeout的GET交给longPoll线程，同一个连接上的请求保持顺序
+ */
+public class SessionHandlerTest {
+
+    private CanalRequestExecutor   executor;
+    private CountDownLatch         release = new CountDownLatch(1);
+    private BlockingQueue<Handled> handled = new LinkedBlockingQueue<Handled>();
+
+    @Before
+    public void setUp() {
+        executor = new CanalRequestExecutor();
+        executor.setThreads(1);
+        executor.setLongPollThreads(1);
+        executor.start();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.stop();
+    }
+
+    @Test
+    public void testInline() throws Exception {
+        SessionHandler handler = newHandler();
+        handler.messageReceived(newContext(), newEvent(ack(1L)));
+
+        // 非阻塞请求直接在当前线程处理
+        Handled result = handled.poll();
+        Assert.assertNotNull(result);
+        Assert.assertEquals(PacketType.CLIENTACK, result.type);
+        Assert.assertEquals(Thread.currentThread().getName(), result.thread);
+        Assert.assertEquals(0, executor.getPendingCount());
+    }
+
+    @Test
+    public void testLongPoll() throws Exception {
+        SessionHandler handler = newHandler();
+        ChannelHandlerContext ctx = newContext();
+        handler.messageReceived(ctx, newEvent(get(1000L)));
+        handler.messageReceived(ctx, newEvent(ack(1L)));
+
+        Handled result = handled.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(result);
+        Assert.assertEquals(PacketType.GET, result.type);
+        Assert.assertEquals(1000L, result.timeout);
+        Assert.assertTrue(result.thread.startsWith("canal-request-longpoll"));
+
+        // GET完成之前，后面的ack需要等待，但是request线程仍然可用
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+
+            public void run() {
+                done.countDown();
+            }
+        });
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertNull(handled.poll(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, executor.getPendingCount());
+
+        release.countDown();
+        result = handled.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(result);
+        Assert.assertEquals(PacketType.CLIENTACK, result.type);
+        Assert.assertTrue(result.thread.startsWith("canal-request-worker"));
+        waitPending(0);
+    }
+
+    @Test
+    public void testLongPollBusy() throws Exception {
+        SessionHandler first = newHandler();
+        first.messageReceived(newContext(), newEvent(get(1000L)));
+        Handled result = handled.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(result);
+        Assert.assertEquals(1000L, result.timeout);
+
+        // longPoll线程用满，GET排队等待空闲线程，排队的时间从timeout中扣除
+        SessionHandler second = newHandler();
+        second.messageReceived(newContext(), newEvent(get(1000L)));
+        Assert.assertNull(handled.poll(200, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, executor.getLongPollWaitingCount());
+
+        release.countDown();
+        result = handled.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(result);
+        Assert.assertEquals(PacketType.GET, result.type);
+        Assert.assertEquals(0, result.unit);
+        Assert.assertTrue(result.timeout > 0 && result.timeout <= TimeUnit.MILLISECONDS.toNanos(800));
+        Assert.assertTrue(result.thread.startsWith("canal-request-longpoll"));
+        waitPending(0);
+    }
+
+    @Test
+    public void testLongPollExpired() throws Exception {
+        SessionHandler first = newHandler();
+        first.messageReceived(newContext(), newEvent(get(1000L)));
+        Assert.assertNotNull(handled.poll(5, TimeUnit.SECONDS));
+
+        // 排队期间已经超时，拿到线程之后不再等待数据
+        SessionHandler second = newHandler();
+        second.messageReceived(newContext(), newEvent(get(100L)));
+        Assert.assertNull(handled.poll(300, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        Handled result = handled.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(result);
+        Assert.assertEquals(PacketType.GET, result.type);
+        Assert.assertEquals(-1L, result.timeout);
+        Assert.assertTrue(result.thread.startsWith("canal-request-longpoll"));
+        waitPending(0);
+    }
+
+    private SessionHandler newHandler() {
+        SessionHandler handler = new SessionHandler() {
+
+            void handle(ChannelHandlerContext ctx, Packet packet) {
+                long timeout = -1L;
+                int unit = -1;
+                if (packet.getType() == PacketType.GET) {
+                    try {
+                        Get get = Get.parseFrom(packet.getBody());
+                        timeout = get.getTimeout();
+                        unit = get.getUnit();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+
+                handled.add(new Handled(packet.getType(), timeout, unit, Thread.currentThread().getName()));
+                if (timeout != -1L) {
+                    try {
+                        release.await(); // 模拟阻塞等待数据
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        handler.setRequestExecutor(executor);
+        return handler;
+    }
+
+    private void waitPending(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getPendingCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(expected, executor.getPendingCount());
+    }
+
+    private Packet get(long timeout) {
+        Get get = Get.newBuilder().setDestination("example").setClientId("1001").setFetchSize(100).setTimeout(timeout).build();
+        return Packet.newBuilder().setType(PacketType.GET).setBody(get.toByteString()).build();
+    }
+
+    private Packet ack(long batchId) {
+        ClientAck ack = ClientAck.newBuilder().setDestination("example").setClientId("1001").setBatchId(batchId).build();
+        return Packet.newBuilder().setType(PacketType.CLIENTACK).setBody(ack.toByteString()).build();
+    }
+
+    private ChannelHandlerContext newContext() {
+        Channel channel = newProxy(Channel.class, null);
+        return newProxy(ChannelHandlerContext.class, channel);
+    }
+
+    private MessageEvent newEvent(Packet packet) {
+        return newProxy(MessageEvent.class, ChannelBuffers.wrappedBuffer(packet.toByteArray()));
+    }
+
+    /**
+     * 只实现测试用到的方法，getChannel/getMessage返回指定的对象，isOpen返回true
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T newProxy(Class<T> clazz, final Object value) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { clazz }, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if ("getChannel".equals(name) || "getMessage".equals(name)) {
+                    return value;
+                } else if ("isOpen".equals(name)) {
+                    return true;
+                } else if ("hashCode".equals(name)) {
+                    return System.identityHashCode(proxy);
+                } else if ("equals".equals(name)) {
+                    return proxy == args[0];
+                } else if ("toString".equals(name)) {
+                    return "proxy of " + method.getDeclaringClass().getSimpleName();
+                }
+                return null;
+            }
+        });
+    }
+
+    private static class Handled {
+
+        private final PacketType type;
+        private final long       timeout;
+        private final int        unit;
+        private final String     thread;
+
+        public Handled(PacketType type, long timeout, int unit, String thread){
+            this.type = type;
+            this.timeout = timeout;
+            this.unit = unit;
+            this.thread = thread;
+        }
+    }
+}
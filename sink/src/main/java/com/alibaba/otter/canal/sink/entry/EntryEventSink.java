@@ -115,7 +115,7 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
         } else {
             // 需要过滤的数据
             if (filterEmtryTransactionEntry && !CollectionUtils.isEmpty(events)) {//true表示事件只有开始和结束,没有数据内容的事件,要被过滤掉,不去执行
-                long currentTimestamp = events.get(0).getEntry().getHeader().getExecuteTime();//第一个事件的执行时间
+                long currentTimestamp = events.get(0).getHeader().getExecuteTime();//第一个事件的执行时间
                 // 基于一定的策略控制，放过空的事务头和尾，便于及时更新数据库位点，表明工作正常
                 if (Math.abs(currentTimestamp - lastEmptyTransactionTimestamp) > emptyTransactionInterval
                     || lastEmptyTransactionCount.incrementAndGet() > emptyTransctionThresold) {
@@ -133,14 +133,14 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
     //对数据库.table进行过滤
     //true表示过滤成功,选择要处理该表,false表示要对该事件进行丢弃掉
     protected boolean doFilter(Event event) {
-        if (filter != null && event.getEntry().getEntryType() == EntryType.ROWDATA) {
-            String name = getSchemaNameAndTableName(event.getEntry());
+        if (filter != null && event.getEntryType() == EntryType.ROWDATA) {
+            String name = getSchemaNameAndTableName(event.getHeader());
             boolean need = filter.filter(name);
             if (!need) {
                 logger.debug("filter name[{}] entry : {}:{}",
                     name,
-                    event.getEntry().getHeader().getLogfileName(),
-                    event.getEntry().getHeader().getLogfileOffset());
+                    event.getHeader().getLogfileName(),
+                    event.getHeader().getLogfileOffset());
             }
 
             return need;
@@ -185,8 +185,8 @@ public class EntryEventSink extends AbstractCanalEventSink<List<CanalEntry.Entry
     }
 
     //返回数据库.table名字
-    private String getSchemaNameAndTableName(CanalEntry.Entry entry) {
-        return entry.getHeader().getSchemaName() + "." + entry.getHeader().getTableName();
+    private String getSchemaNameAndTableName(CanalEntry.Header header) {
+        return header.getSchemaName() + "." + header.getTableName();
     }
 
     public void setEventStore(CanalEventStore<Event> eventStore) {
@@ -19,7 +19,7 @@ public class HeartBeatEntryEventHandler extends AbstractCanalEventDownStreamHand
     public List<Event> before(List<Event> events) {
         boolean existHeartBeat = false;//判断是否存在心跳事件
         for (Event event : events) {//循环所有事件,判断是否存在心跳事件
-            if (event.getEntry().getEntryType() == EntryType.HEARTBEAT) {
+            if (event.getEntryType() == EntryType.HEARTBEAT) {
                 existHeartBeat = true;
             }
         }
@@ -30,7 +30,7 @@ public class HeartBeatEntryEventHandler extends AbstractCanalEventDownStreamHand
             // 目前heartbeat和其他事件是分离的，保险一点还是做一下检查处理
             List<Event> result = new ArrayList<Event>();
             for (Event event : events) {
-                if (event.getEntry().getEntryType() != EntryType.HEARTBEAT) {
+                if (event.getEntryType() != EntryType.HEARTBEAT) {
                     result.add(event);
                 }
             }
@@ -1,29 +1,62 @@
 package com.alibaba.otter.canal.sink.entry.group;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
 import com.alibaba.otter.canal.sink.CanalEventDownStreamHandler;
 import com.alibaba.otter.canal.sink.entry.EntryEventSink;
 import com.alibaba.otter.canal.store.model.Event;
 
 /**
  * 基于归并排序的sink处理
- * 
+ *
  * <pre>
  * 几点设计说明：
  * 1. 多库合并时，需要控制不满足groupSize的条件，就会阻塞其他库的合并操作.  (比如刚启动时会所有通道正常工作才开始合并，或者中间过程出现主备切换)
- * 2. 库解析出现问题，但没有进行主备切换，此时需要通过{@linkplain CanalEventDownStreamHandler}进行定时监听合并数据的产生时间间隔 
+ * 2. 库解析出现问题，但没有进行主备切换，此时需要通过{@linkplain CanalEventDownStreamHandler}进行定时监听合并数据的产生时间间隔
  *    a. 因为一旦库解析异常，就不会再sink数据，此时groupSize就会一直缺少，就会阻塞其他库的合并，也就是不会有数据写入到store中
+ *
+ * 合并方式：
+ * 1. 每个parser线程对应一个通道(lane)，sink时将整批数据放入自己的通道，不再逐条经过{@linkplain TimelineBarrier}
+ *    a. sink会等待merge线程将该批次写入store后再返回写入结果，parser记录的位点不会超前于store中的数据
+ * 2. 单独的merge线程在所有通道都有数据时，按照批次的executeTime做堆排序的k路归并，多个批次合并后一次写入store
+ * 3. 时间回退(大事务/主备切换)时，回退通道的批次时间更小，会被优先合并，和{@linkplain TimelineBarrier}的处理一致
+ * 4. 保留事务时，一个通道的事务未结束之前只会从该通道继续合并，保证事务的原子性，和{@linkplain TimelineTransactionBarrier}一致
+ * 5. parser出现异常调用interrupt时，在通道中插入reset标记，merge到该位置时强制结束未完成的事务；parser线程退出后，通道数据合并完成即移除
  * </pre>
- * 
+ *
  * @author jianghang 2012-10-15 下午09:54:18
  * @version 1.0.0
  */
 public class GroupEventSink extends EntryEventSink {
 
-    private int          groupSize;
-    private GroupBarrier barrier;  // 归并排序需要预先知道组的大小，用于判断是否组内所有的sink都已经开始正常取数据
+    private static final Logger   logger         = LoggerFactory.getLogger(GroupEventSink.class);
+    private static final long     CHECK_INTERVAL = 100;                                          // 检查parser线程是否退出的间隔
+    private static final Batch    RESET          = new Batch(null, 0L);
+
+    private String                destination;                                                   // 用于区分merge线程
+    private int                   groupSize;
+    private int                   mergeBatchSize = 4096;                                         // merge线程单次写入store的记录数
+    private final List<Lane>      lanes          = new ArrayList<Lane>();
+    private final ThreadLocal<Lane> currentLane  = new ThreadLocal<Lane>();
+    private final ReentrantLock   lock           = new ReentrantLock();
+    private final Condition       notEmpty       = lock.newCondition();
+    private Lane                  openLane;                                                      // 事务未结束的通道，在事务结束前只从该通道合并
+    private long                  laneSequence   = 0;
+    private Thread                mergeThread;
 
     public GroupEventSink(){
         this(1);
@@ -37,39 +70,324 @@ public class GroupEventSink extends EntryEventSink {
     public void start() {
         super.start();
 
-        if (filterTransactionEntry) {
-            barrier = new TimelineBarrier(groupSize);
-        } else {
-            barrier = new TimelineTransactionBarrier(groupSize);// 支持事务保留
+        mergeThread = new NamedThreadFactory("GroupEventSink-merge-" + destination).newThread(new Runnable() {
+
+            public void run() {
+                merge();
+            }
+        });
+        mergeThread.start();
+    }
+
+    public void stop() {
+        super.stop();
+
+        if (mergeThread != null) {
+            mergeThread.interrupt();
+            try {
+                mergeThread.join();
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            mergeThread = null;
+        }
+
+        lock.lock();
+        try {
+            // 唤醒还在等待的sink线程
+            for (Lane lane : lanes) {
+                Batch batch;
+                while ((batch = lane.queue.poll()) != null) {
+                    batch.complete(false);
+                }
+            }
+            lanes.clear();
+            openLane = null;
+        } finally {
+            lock.unlock();
         }
     }
 
     protected boolean doSink(List<Event> events) {
-        int size = events.size();
-        for (int i = 0; i < events.size(); i++) {
-            Event event = events.get(i);
+        Lane lane = currentLane.get();
+        if (lane == null) {
+            lane = register();
+        }
+
+        Batch batch = new Batch(events, getTimestamp(events));
+        lane.queue.add(batch);
+        signal();
+
+        // 等待merge线程写入store，返回真实的写入结果
+        try {
+            while (!batch.done.await(CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+                if (!running && remove(lane, batch)) {
+                    return false; // 已经关闭，批次还未被合并
+                }
+            }
+        } catch (InterruptedException e) {
+            remove(lane, batch); // 可能已经被合并，parser会从上一次记录的位点重新解析
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return batch.result;
+    }
+
+    public void interrupt() {
+        super.interrupt();
+
+        // 出现主备切换/异常，对应的事务尾不会正常发送，需要在当前位置强制结束事务，允许其他通道通过
+        Lane lane = currentLane.get();
+        if (lane != null) {
+            lane.queue.add(RESET);
+            signal();
+        }
+    }
+
+    // =================== merge =================
+
+    private void merge() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            List<Batch> batches = new ArrayList<Batch>();
+            List<Event> output = new ArrayList<Event>();
             try {
-                barrier.await(event);// 进行timeline的归并调度处理
-                if (filterTransactionEntry) {
-                    return super.doSink(Arrays.asList(event));
-                } else if (i == size - 1) {
-                    // 针对事务数据，只有到最后一条数据都通过后，才进行sink操作，保证原子性
-                    // 同时批量sink，也要保证在最后一条数据释放状态之前写出数据，否则就有并发问题
-                    return super.doSink(events);
+                lock.lockInterruptibly();
+                try {
+                    while (!collect(batches, output)) {
+                        notEmpty.await(CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                    }
+                } finally {
+                    lock.unlock();
                 }
             } catch (InterruptedException e) {
-                return false;
+                return;
+            }
+
+            boolean result = false;
+            try {
+                result = super.doSink(output);
+            } catch (Throwable e) {
+                logger.error("sink merged events failed", e); // sink线程返回失败，parser会重新解析
             } finally {
-                barrier.clear(event);
+                // 写入结果通知到每个批次的sink线程
+                for (Batch batch : batches) {
+                    batch.complete(result);
+                }
+            }
+
+            if (!result && !running) {
+                return; // 已经关闭，stop时会通知剩余的批次
             }
         }
+    }
+
+    /**
+     * 按照executeTime进行k路归并，最多收集mergeBatchSize条记录，没有可以合并的数据时返回false
+     */
+    private boolean collect(List<Batch> batches, List<Event> output) {
+        removeDeadLanes();
 
-        return false;
+        PriorityQueue<Lane> heap = null;
+        while (output.size() < mergeBatchSize) {
+            Lane lane = openLane;
+            if (lane != null) {
+                if (head(lane) == null) {
+                    break; // 等待事务的后续数据
+                } else if (openLane != lane) {
+                    continue; // 遇到reset标记，事务被强制结束
+                }
+            } else {
+                if (heap == null) {
+                    heap = buildHeap();
+                    if (heap == null) {
+                        break; // 存在没有数据的通道，不满足合并条件
+                    }
+                }
+                lane = heap.poll();
+            }
+
+            Batch batch = lane.queue.poll();
+            batches.add(batch);
+            output.addAll(batch.events);
+            if (!filterTransactionEntry && inTransaction(lane, batch.events)) {
+                openLane = lane;
+                heap = null;
+            } else {
+                openLane = null;
+                if (heap != null) {
+                    if (head(lane) == null) {
+                        break; // 通道的下一个批次还未到达，无法判断最小值
+                    }
+                    heap.add(lane);
+                }
+            }
+        }
+
+        return !batches.isEmpty();
     }
 
-    public void interrupt() {
-        super.interrupt();
-        barrier.interrupt();
+    private PriorityQueue<Lane> buildHeap() {
+        if (lanes.size() < groupSize) {
+            return null;
+        }
+
+        PriorityQueue<Lane> heap = new PriorityQueue<Lane>(lanes.size(), new Comparator<Lane>() {
+
+            public int compare(Lane o1, Lane o2) {
+                long t1 = o1.queue.peek().timestamp;
+                long t2 = o2.queue.peek().timestamp;
+                if (t1 != t2) {
+                    return t1 < t2 ? -1 : 1;
+                }
+                return o1.sequence < o2.sequence ? -1 : (o1.sequence == o2.sequence ? 0 : 1);
+            }
+        });
+        for (Lane lane : lanes) {
+            if (head(lane) == null) {
+                return null;
+            }
+            heap.add(lane);
+        }
+        return heap;
+    }
+
+    /**
+     * 返回通道的第一个批次，跳过并处理reset标记
+     */
+    private Batch head(Lane lane) {
+        Batch batch = lane.queue.peek();
+        while (batch == RESET) {
+            lane.queue.poll();
+            lane.inTransaction = false;
+            if (openLane == lane) {
+                openLane = null;
+            }
+            batch = lane.queue.peek();
+        }
+        return batch;
+    }
+
+    /**
+     * parser线程退出后，通道中的数据合并完成即移除，不再占用groupSize
+     */
+    private void removeDeadLanes() {
+        Iterator<Lane> iter = lanes.iterator();
+        while (iter.hasNext()) {
+            Lane lane = iter.next();
+            if (!lane.owner.isAlive() && head(lane) == null) {
+                iter.remove();
+                if (openLane == lane) {
+                    openLane = null;
+                }
+                logger.info("remove group lane for thread:{}", lane.owner.getName());
+            }
+        }
+    }
+
+    private boolean inTransaction(Lane lane, List<Event> events) {
+        for (Event event : events) {
+            EntryType type = event.getEntryType();
+            if (type == EntryType.TRANSACTIONBEGIN) {
+                lane.inTransaction = true;
+            } else if (type == EntryType.TRANSACTIONEND) {
+                lane.inTransaction = false;
+            }
+        }
+        return lane.inTransaction;
+    }
+
+    private Lane register() {
+        lock.lock();
+        try {
+            Lane lane = new Lane(Thread.currentThread(), laneSequence++);
+            lanes.add(lane);
+            currentLane.set(lane);
+            return lane;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从通道中移除还未合并的批次，和merge线程互斥
+     */
+    private boolean remove(Lane lane, Batch batch) {
+        lock.lock();
+        try {
+            return lane.queue.remove(batch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批次的合并时间，保留事务时以事务头为准，否则取最小的时间以处理批次内的时间回退
+     */
+    private long getTimestamp(List<Event> events) {
+        if (events.isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+
+        long timestamp = events.get(0).getHeader().getExecuteTime();
+        if (filterTransactionEntry) {
+            for (Event event : events) {
+                timestamp = Math.min(timestamp, event.getHeader().getExecuteTime());
+            }
+        }
+        return timestamp;
+    }
+
+    /**
+     * 单个parser线程提交数据的通道
+     */
+    private static class Lane {
+
+        private final Thread                       owner;
+        private final long                         sequence;
+        private final ConcurrentLinkedQueue<Batch> queue = new ConcurrentLinkedQueue<Batch>();
+        private boolean                            inTransaction;                              // 只在merge线程中访问
+
+        public Lane(Thread owner, long sequence){
+            this.owner = owner;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class Batch {
+
+        private final List<Event>    events;
+        private final long           timestamp;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean     result;
+
+        public Batch(List<Event> events, long timestamp){
+            this.events = events;
+            this.timestamp = timestamp;
+        }
+
+        public void complete(boolean result) {
+            this.result = result;
+            done.countDown();
+        }
+    }
+
+    // ================== setter / getter ===================
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public void setMergeBatchSize(int mergeBatchSize) {
+        this.mergeBatchSize = mergeBatchSize;
     }
 
 }
@@ -140,7 +140,7 @@ public class TimelineBarrier implements GroupBarrier<Event> {
 
     //返回该sql执行的时间
     private Long getTimestamp(Event event) {
-        return event.getEntry().getHeader().getExecuteTime();
+        return event.getHeader().getExecuteTime();
     }
 
 }
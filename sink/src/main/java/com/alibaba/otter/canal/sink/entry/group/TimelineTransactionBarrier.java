@@ -113,12 +113,12 @@ public class TimelineTransactionBarrier extends TimelineBarrier {
 
     //是否是事务开始
     private boolean isTransactionBegin(Event event) {
-        return event.getEntry().getEntryType() == EntryType.TRANSACTIONBEGIN;
+        return event.getEntryType() == EntryType.TRANSACTIONBEGIN;
     }
 
     //是否是事务结束
     private boolean isTransactionEnd(Event event) {
-        return event.getEntry().getEntryType() == EntryType.TRANSACTIONEND;
+        return event.getEntryType() == EntryType.TRANSACTIONEND;
     }
 
 }
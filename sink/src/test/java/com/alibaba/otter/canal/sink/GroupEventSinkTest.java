@@ -1,18 +1,28 @@
 package com.alibaba.otter.canal.sink;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.lang.math.RandomUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EntryType;
 import com.alibaba.otter.canal.protocol.CanalEntry.Header;
 import com.alibaba.otter.canal.sink.entry.group.GroupEventSink;
 import com.alibaba.otter.canal.sink.stub.DummyEventStore;
+import com.alibaba.otter.canal.store.model.Event;
 
 public class GroupEventSinkTest {
 
@@ -105,6 +115,113 @@ public class GroupEventSinkTest {
         executor.shutdownNow();
     }
 
+    @Test
+    public void testMergeOrder() throws InterruptedException {
+        final List<Long> timestamps = Collections.synchronizedList(new ArrayList<Long>());
+        final DummyEventStore eventStore = new DummyEventStore() {
+
+            public boolean tryPut(List<Event> datas) {
+                for (Event data : datas) {
+                    timestamps.add(data.getEntry().getHeader().getExecuteTime());
+                }
+                return true;
+            }
+        };
+        final GroupEventSink eventSink = new GroupEventSink(3);
+        eventSink.setFilterTransactionEntry(true);
+        eventSink.setEventStore(eventStore);
+        eventSink.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        final CountDownLatch latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            final int lane = i;
+            executor.submit(new Runnable() {
+
+                public void run() {
+                    for (int j = 0; j < 100; j++) {
+                        try {
+                            long timestamp = 1L + j * 3 + lane;
+                            Entry entry = Entry.newBuilder(buildEntry("1", timestamp, timestamp))
+                                .setEntryType(EntryType.ROWDATA)
+                                .build();
+                            eventSink.sink(Arrays.asList(entry), address, "ljhtest" + lane);
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+
+        // sink等待数据写入store后才返回，每个通道最后一条数据之后没有可以比较的数据，会一直等待到stop
+        long deadline = System.currentTimeMillis() + 30000L;
+        while (timestamps.size() < 297 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50L);
+        }
+        Thread.sleep(200L);
+        eventSink.stop();
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS)); // stop之后等待中的sink全部返回
+        executor.shutdownNow();
+
+        // 其余数据都需要按照时间顺序合并
+        Assert.assertTrue(timestamps.size() >= 297);
+        for (int i = 1; i < timestamps.size(); i++) {
+            Assert.assertTrue(timestamps.get(i - 1) <= timestamps.get(i));
+        }
+    }
+
+    @Test
+    public void testSinkResult() throws Exception {
+        final AtomicBoolean accept = new AtomicBoolean(false);
+        final List<Long> timestamps = Collections.synchronizedList(new ArrayList<Long>());
+        final DummyEventStore eventStore = new DummyEventStore() {
+
+            public boolean tryPut(List<Event> datas) {
+                if (!accept.get()) {
+                    return false; // 模拟store已满
+                }
+                for (Event data : datas) {
+                    timestamps.add(data.getEntry().getHeader().getExecuteTime());
+                }
+                return true;
+            }
+        };
+        final GroupEventSink eventSink = new GroupEventSink(1);
+        eventSink.setEventStore(eventStore);
+        eventSink.start();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Callable<Boolean> sink = new Callable<Boolean>() {
+
+            public Boolean call() throws Exception {
+                Entry entry = Entry.newBuilder(buildEntry("1", 1L, 1L)).setEntryType(EntryType.ROWDATA).build();
+                return eventSink.sink(Arrays.asList(entry), address, "ljhtest1");
+            }
+        };
+
+        // store写入成功之前sink不会返回
+        Future<Boolean> result = executor.submit(sink);
+        Thread.sleep(300L);
+        Assert.assertFalse(result.isDone());
+        Assert.assertTrue(timestamps.isEmpty());
+
+        accept.set(true);
+        Assert.assertTrue(result.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, timestamps.size());
+
+        // 关闭时等待中的sink返回失败，不会一直阻塞
+        accept.set(false);
+        result = executor.submit(sink);
+        Thread.sleep(300L);
+        Assert.assertFalse(result.isDone());
+        eventSink.stop();
+        Assert.assertFalse(result.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, timestamps.size());
+        executor.shutdownNow();
+    }
+
     private static Entry buildEntry(String binlogFile, long offset, long timestamp) {
         Header.Builder headerBuilder = Header.newBuilder();
         headerBuilder.setLogfileName(binlogFile);
@@ -1,10 +1,21 @@
 package com.alibaba.otter.canal.store;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.util.CollectionUtils;
 
 import com.alibaba.otter.canal.common.AbstractCanalLifeCycle;
+import com.alibaba.otter.canal.common.utils.NamedThreadFactory;
 import com.alibaba.otter.canal.meta.CanalMetaManager;
 import com.alibaba.otter.canal.protocol.ClientIdentity;
 import com.alibaba.otter.canal.protocol.position.LogPosition;
@@ -16,49 +27,251 @@ import com.alibaba.otter.canal.protocol.position.Position;
  * @author jianghang 2012-8-8 下午12:57:36
  * @version 1.0.0
  * 找到最小的客户端确定的位置,用于删除该位置之前的数据
+ * 
+ * <pre>
+ * 1. onSchedule : 按照scavengeSchedule定时回收，支持"500ms"/"30s"/"5m"/"1h"或者毫秒数
+ * 2. onFull : store使用量超过scavengeWatermark百分比时，异步触发一次回收
+ * 3. 客户端ack时通过{@linkplain #updateCursor}增量维护最小的cursor，回收时不再遍历metaManager
+ * 
+ * 另外提供{@linkplain CanalStoreListener}的注册，store在put成功后调用{@linkplain #notifyPut}通知监听者
+ * </pre>
  */
 public abstract class AbstractCanalStoreScavenge extends AbstractCanalLifeCycle implements CanalStoreScavenge {
 
-    protected String           destination;//要监控的队列
-    protected CanalMetaManager canalMetaManager;//server上的元数据中心
-    protected boolean          onAck            = true;
-    protected boolean          onFull           = false;
-    protected boolean          onSchedule       = false;
-    protected String           scavengeSchedule = null;
+    private static final Logger                  logger            = LoggerFactory.getLogger(AbstractCanalStoreScavenge.class);
+    protected String                             destination;//要监控的队列
+    protected CanalMetaManager                   canalMetaManager;//server上的元数据中心
+    protected boolean                            onAck             = true;
+    protected boolean                            onFull            = false;
+    protected boolean                            onSchedule        = false;
+    protected String                             scavengeSchedule  = null;
+    protected int                                scavengeWatermark = 80;                                                       // onFull模式下触发回收的使用量百分比
+
+    private final Map<ClientIdentity, LogPosition> cursors           = new HashMap<ClientIdentity, LogPosition>();
+    private volatile boolean                     cursorLoaded      = false;                                                    // 是否已经从metaManager加载过cursor
+    private volatile LogPosition                 minCursor;                                                                    // 所有客户端中最小的ack位置
+    private volatile Position                    lastScavengePosition;
+    private volatile ScheduledExecutorService    scavengeExecutor;
+    private final AtomicBoolean                  scavengePending   = new AtomicBoolean(false);
+    private final List<CanalStoreListener>       listeners         = new CopyOnWriteArrayList<CanalStoreListener>();
+
+    public void start() {
+        super.start();
+        if (onSchedule || onFull) {
+            scavengeExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("canal-store-scavenge-"
+                                                                                                 + destination));
+        }
+
+        if (onSchedule) {
+            long period = parseSchedule(scavengeSchedule);
+            scavengeExecutor.scheduleWithFixedDelay(new Runnable() {
+
+                public void run() {
+                    safeScavenge();
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop() {
+        super.stop();
+        if (scavengeExecutor != null) {
+            scavengeExecutor.shutdownNow();
+            scavengeExecutor = null;
+        }
+
+        synchronized (cursors) {
+            cursors.clear();
+            cursorLoaded = false;
+            minCursor = null;
+        }
+        lastScavengePosition = null;
+    }
 
     public void scavenge() {
         Position position = getLatestAckPosition(destination);
+        if (position == null || position.equals(lastScavengePosition)) {
+            return; // 没有任何客户端ack过，或者最小位置没有变化
+        }
+
+        scavengeUntil(position);
+        lastScavengePosition = position;
+    }
+
+    /**
+     * 回收所有客户端都已经ack的数据，默认直接调用{@linkplain #cleanUntil}，store可以覆盖为批量释放已ack的数据
+     */
+    protected void scavengeUntil(Position position) {
         cleanUntil(position);
     }
 
+    /**
+     * store使用量达到scavengeWatermark时异步触发回收，多次触发会合并为一次
+     */
+    protected void checkWatermark(long used, long capacity) {
+        if (!onFull || capacity <= 0 || used * 100 < capacity * scavengeWatermark) {
+            return;
+        }
+
+        ScheduledExecutorService executor = scavengeExecutor;
+        if (executor != null && scavengePending.compareAndSet(false, true)) {
+            executor.execute(new Runnable() {
+
+                public void run() {
+                    scavengePending.set(false);
+                    safeScavenge();
+                }
+            });
+        }
+    }
+
+    public void addListener(CanalStoreListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CanalStoreListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 数据put成功之后通知监听者
+     */
+    protected void notifyPut() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+
+        for (CanalStoreListener listener : listeners) {
+            try {
+                listener.onPut();
+            } catch (Throwable e) {
+                logger.warn("notify store listener for destination:" + destination + " failed", e);
+            }
+        }
+    }
+
+    private void safeScavenge() {
+        try {
+            scavenge();
+        } catch (Throwable e) {
+            logger.warn("scavenge store for destination:" + destination + " failed", e);
+        }
+    }
+
+    /**
+     * 客户端ack之后更新cursor，只有当前最小cursor对应的客户端前进时才需要重新计算最小值
+     */
+    public void updateCursor(ClientIdentity clientIdentity, Position position) {
+        synchronized (cursors) {
+            loadCursors();
+            LogPosition current = (LogPosition) position;
+            LogPosition old = cursors.put(clientIdentity, current);
+            if (minCursor == null) {
+                minCursor = current;
+            } else if (old == null) {
+                minCursor = min(minCursor, current);
+            } else if (old.equals(minCursor)) {
+                // 按位置比较，多个客户端可能ack到同一个位置
+                minCursor = computeMinCursor();
+            }
+        }
+    }
+
+    /**
+     * 客户端取消订阅之后移除cursor
+     */
+    public void removeCursor(ClientIdentity clientIdentity) {
+        synchronized (cursors) {
+            loadCursors();
+            LogPosition old = cursors.remove(clientIdentity);
+            if (old != null && old.equals(minCursor)) {
+                minCursor = computeMinCursor();
+            }
+        }
+    }
+
     /**
      * 找出该destination中可被清理掉的position位置
      *
-     * 即所有监听该destination队列的客户端集合,循环每一个客户端,找到每一个客户端ack确定的最小的位置
+     * 即所有监听该destination队列的客户端集合中ack确定的最小的位置，cursor在ack时增量维护，只有第一次需要从metaManager加载
      * @param destination
      */
     private Position getLatestAckPosition(String destination) {
+        if (!cursorLoaded) {
+            synchronized (cursors) {
+                loadCursors();
+            }
+        }
+
+        return minCursor;
+    }
+
+    private void loadCursors() {
+        if (cursorLoaded || canalMetaManager == null) {
+            return;
+        }
+
         List<ClientIdentity> clientIdentitys = canalMetaManager.listAllSubscribeInfo(destination);//所有监听该destination队列的客户端集合
-        LogPosition result = null;
         if (!CollectionUtils.isEmpty(clientIdentitys)) {
-            // 尝试找到一个最小的logPosition
             for (ClientIdentity clientIdentity : clientIdentitys) {//循环每一个客户端
                 LogPosition position = (LogPosition) canalMetaManager.getCursor(clientIdentity);//找到每一个客户端ack确定的最小的位置
-                if (position == null) {
-                    continue;
+                if (position != null && !cursors.containsKey(clientIdentity)) {
+                    cursors.put(clientIdentity, position);
                 }
+            }
+        }
 
-                if (result == null) {
-                    result = position;
-                } else {
-                    result = min(result, position);
-                }
+        minCursor = computeMinCursor();
+        cursorLoaded = true;
+    }
+
+    private LogPosition computeMinCursor() {
+        LogPosition result = null;
+        for (LogPosition position : cursors.values()) {
+            if (result == null) {
+                result = position;
+            } else {
+                result = min(result, position);
             }
         }
 
         return result;
     }
 
+    /**
+     * 解析回收周期，单位为毫秒
+     */
+    private long parseSchedule(String schedule) {
+        if (StringUtils.isBlank(schedule)) {
+            throw new CanalStoreException("scavengeSchedule is required for onSchedule");
+        }
+
+        String value = StringUtils.trim(schedule).toLowerCase();
+        long unit = 1;
+        if (value.endsWith("ms")) {
+            value = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("s")) {
+            unit = 1000;
+            value = value.substring(0, value.length() - 1);
+        } else if (value.endsWith("m")) {
+            unit = 60 * 1000;
+            value = value.substring(0, value.length() - 1);
+        } else if (value.endsWith("h")) {
+            unit = 60 * 60 * 1000;
+            value = value.substring(0, value.length() - 1);
+        }
+
+        try {
+            long period = Long.parseLong(StringUtils.trim(value)) * unit;
+            if (period <= 0) {
+                throw new CanalStoreException("scavengeSchedule must be positive : " + schedule);
+            }
+            return period;
+        } catch (NumberFormatException e) {
+            throw new CanalStoreException("invalid scavengeSchedule : " + schedule, e);
+        }
+    }
+
     /**
      * 找出一个最小的position位置
      */
@@ -66,23 +279,23 @@ public abstract class AbstractCanalStoreScavenge extends AbstractCanalLifeCycle
         if (position1.getIdentity().equals(position2.getIdentity())) {
             // 首先根据文件进行比较
             if (position1.getPostion().getJournalName().compareTo(position2.getPostion().getJournalName()) < 0) {
-                return position2;
-            } else if (position1.getPostion().getJournalName().compareTo(position2.getPostion().getJournalName()) > 0) {
                 return position1;
+            } else if (position1.getPostion().getJournalName().compareTo(position2.getPostion().getJournalName()) > 0) {
+                return position2;
             } else {
                 // 根据offest进行比较
                 if (position1.getPostion().getPosition() < position2.getPostion().getPosition()) {
-                    return position2;
-                } else {
                     return position1;
+                } else {
+                    return position2;
                 }
             }
         } else {
             // 不同的主备库，根据时间进行比较
             if (position1.getPostion().getTimestamp() < position2.getPostion().getTimestamp()) {
-                return position2;
-            } else {
                 return position1;
+            } else {
+                return position2;
             }
         }
     }
@@ -99,6 +312,10 @@ public abstract class AbstractCanalStoreScavenge extends AbstractCanalLifeCycle
         this.onSchedule = onSchedule;
     }
 
+    public void setScavengeWatermark(int scavengeWatermark) {
+        this.scavengeWatermark = scavengeWatermark;
+    }
+
     public String getScavengeSchedule() {
         return scavengeSchedule;
     }
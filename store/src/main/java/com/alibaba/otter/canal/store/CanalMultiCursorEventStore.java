@@ -0,0 +1,64 @@
+package com.alibaba.otter.canal.store;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 支持多个客户端独立消费的store，每个{@linkplain ClientIdentity}维护各自的get/ack游标，一份解析数据可以同时投递给多个客户端
+ * 
+ * <pre>
+ * 1. 未指定ClientIdentity的{@linkplain CanalEventStore}接口，等同于使用一个默认的客户端进行操作
+ * 2. 空间回收以最慢的客户端ack位置为准
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:52:12
+ * @version 1.0.22
+ */
+public interface CanalMultiCursorEventStore<T> extends CanalEventStore<T> {
+
+    /**
+     * 注册客户端游标，已经存在时不做变更. 新的游标从store中保留的第一条数据开始消费
+     */
+    void subscribe(ClientIdentity clientIdentity) throws CanalStoreException;
+
+    /**
+     * 删除客户端游标，并尝试回收空间
+     */
+    void unsubscribe(ClientIdentity clientIdentity) throws CanalStoreException;
+
+    /**
+     * 获取指定大小的数据，阻塞等待其操作完成
+     */
+    Events<T> get(ClientIdentity clientIdentity, Position start, int batchSize) throws InterruptedException,
+                                                                               CanalStoreException;
+
+    /**
+     * 获取指定大小的数据，阻塞等待其操作完成或者时间超时
+     */
+    Events<T> get(ClientIdentity clientIdentity, Position start, int batchSize, long timeout, TimeUnit unit)
+                                                                                                         throws InterruptedException,
+                                                                                                         CanalStoreException;
+
+    /**
+     * 根据指定位置，获取一个指定大小的数据
+     */
+    Events<T> tryGet(ClientIdentity clientIdentity, Position start, int batchSize) throws CanalStoreException;
+
+    /**
+     * 获取该客户端第一条未ack数据的position，如果没有数据返回为null
+     */
+    Position getFirstPosition(ClientIdentity clientIdentity) throws CanalStoreException;
+
+    /**
+     * 确认该客户端{@linkplain Position}之前的数据
+     */
+    void ack(ClientIdentity clientIdentity, Position position) throws CanalStoreException;
+
+    /**
+     * 回滚该客户端未ack的状态信息
+     */
+    void rollback(ClientIdentity clientIdentity) throws CanalStoreException;
+}
@@ -0,0 +1,19 @@
+package com.alibaba.otter.canal.store;
+
+/**
+ * store数据变化的监听，用于推送模式下有新数据时唤醒对应的客户端，不需要为每个客户端阻塞一个线程等待数据
+ * 
+ * <pre>
+ * 回调在put线程中执行(可能持有store的锁)，实现中不能阻塞或者回调store的接口，只做异步通知
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:39:46
+ * @version 1.0.22
+ */
+public interface CanalStoreListener {
+
+    /**
+     * 有新的数据写入store
+     */
+    void onPut();
+}
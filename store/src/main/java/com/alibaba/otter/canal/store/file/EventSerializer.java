@@ -0,0 +1,76 @@
+package com.alibaba.otter.canal.store.file;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.alibaba.otter.canal.protocol.position.LogIdentity;
+import com.alibaba.otter.canal.store.model.Event;
+import com.google.protobuf.ByteString;
+
+/**
+ * {@linkplain Event}的二进制序列化，用于写入文件store
+ * 
+ * <pre>
+ * 格式：
+ * [hostLength:short][host:bytes][port:int][slaveId:long][entry:protobuf bytes]
+ * 
+ * hostLength为-1时代表logIdentity为null，slaveId为-1代表slaveId为null
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:48:43
+ * @version 1.0.22
+ */
+public class EventSerializer {
+
+    private static final Charset charset = Charset.forName("UTF-8");
+
+    public static byte[] serialize(Event event) {
+        byte[] host = null;
+        int port = 0;
+        long slaveId = -1;
+        LogIdentity identity = event.getLogIdentity();
+        if (identity != null && identity.getSourceAddress() != null) {
+            InetSocketAddress address = identity.getSourceAddress();
+            InetAddress inetAddress = address.getAddress();
+            // 优先使用ip，反序列化时避免dns解析
+            host = (inetAddress != null ? inetAddress.getHostAddress() : address.getHostName()).getBytes(charset);
+            port = address.getPort();
+            if (identity.getSlaveId() != null) {
+                slaveId = identity.getSlaveId();
+            }
+        }
+
+        ByteString entry = event.getRawEntry();
+        ByteBuffer buffer = ByteBuffer.allocate(2 + (host == null ? 0 : host.length) + 4 + 8 + entry.size());
+        if (host == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) host.length);
+            buffer.put(host);
+        }
+        buffer.putInt(port);
+        buffer.putLong(slaveId);
+        entry.copyTo(buffer);
+        return buffer.array();
+    }
+
+    public static Event deserialize(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        short hostLength = buffer.getShort();
+        LogIdentity identity = null;
+        if (hostLength >= 0) {
+            byte[] host = new byte[hostLength];
+            buffer.get(host);
+            int port = buffer.getInt();
+            long slaveId = buffer.getLong();
+            identity = new LogIdentity(new InetSocketAddress(new String(host, charset), port), slaveId < 0 ? null : slaveId);
+        } else {
+            buffer.getInt();
+            buffer.getLong();
+        }
+
+        return new Event(identity, ByteString.copyFrom(data, buffer.position(), buffer.remaining()));
+    }
+}
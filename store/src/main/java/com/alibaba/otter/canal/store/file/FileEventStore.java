@@ -0,0 +1,27 @@
+package com.alibaba.otter.canal.store.file;
+
+import com.alibaba.otter.canal.store.model.BatchMode;
+
+/**
+ * 基于磁盘段文件的store实现，put时直接将数据序列化写入{@linkplain SegmentLog}
+ *
+ * <pre>
+ * 1. 内存中只保留最后一条put的数据用于计算position，get/ack/rollback全部基于段文件
+ * 2. 段文件个数或者磁盘占用达到上限时，bufferSize作为暂存区继续接收数据，暂存区也写满后put阻塞
+ * 3. ack之后回收已经被确认的段文件
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午05:15:38
+ * @version 1.0.22
+ */
+public class FileEventStore extends MemoryEventStoreWithSpill {
+
+    public FileEventStore(){
+        this.writeThrough = true;
+    }
+
+    public FileEventStore(BatchMode batchMode){
+        super(batchMode);
+        this.writeThrough = true;
+    }
+}
@@ -0,0 +1,154 @@
+package com.alibaba.otter.canal.store.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.common.utils.MappedBufferUtils;
+import com.alibaba.otter.canal.store.CanalStoreException;
+
+/**
+ * 一个基于mmap的store段文件，顺序追加记录，内存中保留sequence -> offset的索引
+ * 
+ * <pre>
+ * 记录格式：[length:int][data:bytes]
+ * 非线程安全，由外部加锁控制
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:48:43
+ * @version 1.0.22
+ */
+public class MappedSegment {
+
+    private static final Logger logger      = LoggerFactory.getLogger(MappedSegment.class);
+    private static final int    HEADER_SIZE = 4;
+    private final File          file;
+    private final long          firstSequence;                                             // 段文件中第一条记录的sequence
+    private final int           capacity;                                                  // 文件大小
+    private final int           maxCount;                                                  // 最多存储的记录数，<=0代表不限制
+    private RandomAccessFile    raf;
+    private FileChannel         channel;
+    private MappedByteBuffer    buffer;
+    private int[]               offsets     = new int[1024];                               // 索引：sequence - firstSequence -> offset
+    private int                 count       = 0;
+    private int                 writePosition = 0;
+
+    public MappedSegment(File file, long firstSequence, int capacity, int maxCount){
+        this.file = file;
+        this.firstSequence = firstSequence;
+        this.capacity = capacity;
+        this.maxCount = maxCount;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(capacity);
+            channel = raf.getChannel();
+            buffer = channel.map(MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            close();
+            throw new CanalStoreException("create segment " + file.getPath() + " failed", e);
+        }
+    }
+
+    /**
+     * 追加一条记录，空间不足时返回false
+     */
+    public boolean append(byte[] data) {
+        if (maxCount > 0 && count >= maxCount) {
+            return false;
+        }
+
+        if (writePosition + HEADER_SIZE + data.length > capacity) {
+            return false;
+        }
+
+        if (count == offsets.length) {
+            int[] newOffsets = new int[offsets.length * 2];
+            System.arraycopy(offsets, 0, newOffsets, 0, count);
+            offsets = newOffsets;
+        }
+
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(writePosition);
+        slice.putInt(data.length);
+        slice.put(data);
+        offsets[count++] = writePosition;
+        writePosition += HEADER_SIZE + data.length;
+        return true;
+    }
+
+    public byte[] read(long sequence) {
+        int index = (int) (sequence - firstSequence);
+        if (index < 0 || index >= count) {
+            throw new CanalStoreException("sequence " + sequence + " not in segment " + file.getName());
+        }
+
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offsets[index]);
+        byte[] data = new byte[slice.getInt()];
+        slice.get(data);
+        return data;
+    }
+
+    public boolean contains(long sequence) {
+        return sequence >= firstSequence && sequence < firstSequence + count;
+    }
+
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    public long getLastSequence() {
+        return firstSequence + count - 1;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 释放mmap并删除文件
+     */
+    public void destroy() {
+        close();
+        if (file.exists() && !file.delete()) {
+            logger.warn("delete segment {} failed", file.getPath());
+        }
+    }
+
+    private void close() {
+        if (buffer != null) {
+            MappedBufferUtils.unmap(buffer);
+            buffer = null;
+        }
+
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (raf != null) {
+                raf.close();
+            }
+        } catch (IOException e) {
+            logger.warn("close segment " + file.getPath() + " failed", e);
+        }
+    }
+
+    public String toString() {
+        return file.getName() + "[" + firstSequence + "," + getLastSequence() + "]";
+    }
+}
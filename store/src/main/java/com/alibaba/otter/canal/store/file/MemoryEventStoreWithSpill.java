@@ -0,0 +1,677 @@
+package com.alibaba.otter.canal.store.file;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.util.Assert;
+
+import com.alibaba.otter.canal.protocol.CanalEntry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.position.LogPosition;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.protocol.position.PositionRange;
+import com.alibaba.otter.canal.store.AbstractCanalStoreScavenge;
+import com.alibaba.otter.canal.store.CanalEventStore;
+import com.alibaba.otter.canal.store.CanalStoreException;
+import com.alibaba.otter.canal.store.CanalStoreScavenge;
+import com.alibaba.otter.canal.store.helper.CanalEventUtils;
+import com.alibaba.otter.canal.store.model.BatchMode;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 内存不足时溢出到磁盘的store实现，最新的数据保留在内存ringBuffer中，未被ack的老数据溢出到mmap段文件
+ *
+ * <pre>
+ * 和{@linkplain com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer}的区别：
+ * 1. put不再受限于bufferSize，内存放不下时将最老的未ack数据序列化写入{@linkplain SegmentLog}，只有磁盘段文件也写满时才会阻塞
+ * 2. 消费者跟得上时所有get都命中内存，不会产生任何磁盘写
+ * 3. ack之后回收已经被确认的段文件，非onAck模式下由scavenge批量回收，段文件写满时put也会先尝试回收
+ *
+ * sequence分布：
+ *   ack < ramFirst : (ack, ramFirst) 之间的数据在磁盘上
+ *   [ramFirst, put] 之间的数据在内存中
+ *
+ * 段文件只用于运行期缓冲，重启后由parser根据记录的位点重新拉取，所以start时会清理残留文件
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:48:43
+ * @version 1.0.22
+ */
+public class MemoryEventStoreWithSpill extends AbstractCanalStoreScavenge implements CanalEventStore<Event>, CanalStoreScavenge {
+
+    private static final long INIT_SQEUENCE     = -1;
+    private int               bufferSize        = 16 * 1024;                    // 内存中保留的最大记录数
+    private int               bufferMemUnit     = 1024;                         // memsize的单位，默认为1kb大小
+    private int               indexMask;
+    private Event[]           entries;
+
+    private String            dataDir;                                          // 段文件目录，实际为dataDir/destination/store
+    private int               segmentSize       = 64 * 1024 * 1024;             // 单个段文件大小
+    private int               segmentStoreCount = 0;                            // 单个段文件最多记录数，0代表只按大小控制
+    private int               maxSegmentCount   = 64;                           // 最多段文件个数，<=0代表不限制
+    private int               percentThreshold  = 0;                            // 段文件最多占用磁盘的百分比，<=0代表不限制
+    protected boolean         writeThrough      = false;                        // put时直接将数据写入磁盘，内存只保留最后一条
+    private SegmentLog        segmentLog;
+
+    // 记录下put/get/ack操作的三个下标
+    private AtomicLong        putSequence       = new AtomicLong(INIT_SQEUENCE);
+    private AtomicLong        getSequence       = new AtomicLong(INIT_SQEUENCE);
+    private AtomicLong        ackSequence       = new AtomicLong(INIT_SQEUENCE);
+    private long              ramFirstSequence  = 0;                            // 内存中保留的最小sequence
+    private long              ramMemSize        = 0;                            // 内存中未ack数据的大小
+
+    // 记录下put/get/ack操作的三个memsize大小
+    private AtomicLong        putMemSize        = new AtomicLong(0);
+    private AtomicLong        getMemSize        = new AtomicLong(0);
+    private AtomicLong        ackMemSize        = new AtomicLong(0);
+
+    // 阻塞put/get操作控制信号
+    private ReentrantLock     lock              = new ReentrantLock();
+    private Condition         notFull           = lock.newCondition();
+    private Condition         notEmpty          = lock.newCondition();
+
+    private BatchMode         batchMode         = BatchMode.ITEMSIZE;
+    private boolean           ddlIsolation      = false;
+
+    public MemoryEventStoreWithSpill(){
+
+    }
+
+    public MemoryEventStoreWithSpill(BatchMode batchMode){
+        this.batchMode = batchMode;
+    }
+
+    public void start() throws CanalStoreException {
+        super.start();
+        if (Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+        Assert.notNull(dataDir);
+
+        indexMask = bufferSize - 1;
+        entries = new Event[bufferSize];
+        File storeDir = new File(StringUtils.isEmpty(destination) ? new File(dataDir) : new File(dataDir, destination),
+            "store");
+        segmentLog = new SegmentLog(storeDir, segmentSize, segmentStoreCount, maxSegmentCount);
+        segmentLog.setPercentThreshold(percentThreshold);
+    }
+
+    public void stop() throws CanalStoreException {
+        super.stop();
+
+        cleanAll();
+    }
+
+    public void put(List<Event> data) throws InterruptedException, CanalStoreException {
+        if (data == null || data.isEmpty()) {
+            return;
+        }
+
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            try {
+                while (!makeFreeSlotAt(putSequence.get() + data.size())) { // 检查是否有空位
+                    notFull.await(); // wait until not full
+                }
+            } catch (InterruptedException ie) {
+                notFull.signal(); // propagate to non-interrupted thread
+                throw ie;
+            }
+            doPut(data);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean put(List<Event> data, long timeout, TimeUnit unit) throws InterruptedException, CanalStoreException {
+        if (data == null || data.isEmpty()) {
+            return true;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                if (makeFreeSlotAt(putSequence.get() + data.size())) {
+                    doPut(data);
+                    return true;
+                }
+                if (nanos <= 0) {
+                    return false;
+                }
+
+                try {
+                    nanos = notFull.awaitNanos(nanos);
+                } catch (InterruptedException ie) {
+                    notFull.signal(); // propagate to non-interrupted thread
+                    throw ie;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryPut(List<Event> data) throws CanalStoreException {
+        if (data == null || data.isEmpty()) {
+            return true;
+        }
+
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (!makeFreeSlotAt(putSequence.get() + data.size())) {
+                return false;
+            } else {
+                doPut(data);
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(Event data) throws InterruptedException, CanalStoreException {
+        put(Arrays.asList(data));
+    }
+
+    public boolean put(Event data, long timeout, TimeUnit unit) throws InterruptedException, CanalStoreException {
+        return put(Arrays.asList(data), timeout, unit);
+    }
+
+    public boolean tryPut(Event data) throws CanalStoreException {
+        return tryPut(Arrays.asList(data));
+    }
+
+    /**
+     * 执行具体的put操作，调用前需保证{@linkplain #makeFreeSlotAt(long)}返回true
+     */
+    private void doPut(List<Event> data) {
+        long current = putSequence.get();
+        long end = current + data.size();
+
+        long size = 0;
+        for (long next = current + 1; next <= end; next++) {
+            Event event = data.get((int) (next - current - 1));
+            entries[getIndex(next)] = event;
+            size += calculateSize(event);
+        }
+
+        putSequence.set(end);
+        ramMemSize += size;
+        if (batchMode.isMemSize()) {
+            putMemSize.getAndAdd(size);
+        }
+
+        if (writeThrough) {
+            // 最后一条put的数据保留在内存中用于计算position，磁盘写满时剩余数据暂存在内存中
+            while (ramFirstSequence < end) {
+                if (!spill(ramFirstSequence)) {
+                    break;
+                }
+            }
+        }
+        checkWatermark(segmentLog.getSegmentCount(), maxSegmentCount);
+
+        // tell other threads that store is not empty
+        notEmpty.signal();
+        notifyPut();
+    }
+
+    public Events<Event> get(Position start, int batchSize) throws InterruptedException, CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            try {
+                while (!checkUnGetSlotAt((LogPosition) start, batchSize))
+                    notEmpty.await();
+            } catch (InterruptedException ie) {
+                notEmpty.signal(); // propagate to non-interrupted thread
+                throw ie;
+            }
+
+            return doGet(start, batchSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Events<Event> get(Position start, int batchSize, long timeout, TimeUnit unit) throws InterruptedException,
+                                                                                        CanalStoreException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                if (checkUnGetSlotAt((LogPosition) start, batchSize)) {
+                    return doGet(start, batchSize);
+                }
+
+                if (nanos <= 0) {
+                    // 如果时间到了，有多少取多少
+                    return doGet(start, batchSize);
+                }
+
+                try {
+                    nanos = notEmpty.awaitNanos(nanos);
+                } catch (InterruptedException ie) {
+                    notEmpty.signal(); // propagate to non-interrupted thread
+                    throw ie;
+                }
+
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Events<Event> tryGet(Position start, int batchSize) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return doGet(start, batchSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Events<Event> doGet(Position start, int batchSize) throws CanalStoreException {
+        LogPosition startPosition = (LogPosition) start;
+
+        long current = getSequence.get();
+        long maxAbleSequence = putSequence.get();
+        long next = current;
+        long end = current;
+        // 如果startPosition为null，说明是第一次，默认+1处理
+        if (startPosition == null || !startPosition.getPostion().isIncluded()) { // 第一次订阅之后，需要包含一下start位置，防止丢失第一条记录
+            next = next + 1;
+        }
+
+        if (current >= maxAbleSequence) {
+            return new Events<Event>();
+        }
+
+        Events<Event> result = new Events<Event>();
+        List<Event> entrys = result.getEvents();
+        long memsize = 0;
+        if (batchMode.isItemSize()) {
+            end = (next + batchSize - 1) < maxAbleSequence ? (next + batchSize - 1) : maxAbleSequence;
+            // 提取数据并返回
+            for (; next <= end; next++) {
+                Event event = getEvent(next);
+                if (ddlIsolation && isDdl(event.getHeader().getEventType())) {
+                    // 如果是ddl隔离，直接返回
+                    if (entrys.size() == 0) {
+                        entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
+                        end = next; // 更新end为当前
+                    } else {
+                        // 如果之前已经有DML事件，直接返回了，因为不包含当前next这记录，需要回退一个位置
+                        end = next - 1; // next-1一定大于current，不需要判断
+                    }
+                    break;
+                } else {
+                    entrys.add(event);
+                }
+            }
+        } else {
+            long maxMemSize = batchSize * bufferMemUnit;
+            for (; memsize <= maxMemSize && next <= maxAbleSequence; next++) {
+                // 永远保证可以取出第一条的记录，避免死锁
+                Event event = getEvent(next);
+                if (ddlIsolation && isDdl(event.getHeader().getEventType())) {
+                    // 如果是ddl隔离，直接返回
+                    if (entrys.size() == 0) {
+                        entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
+                        end = next; // 更新end为当前
+                    } else {
+                        // 如果之前已经有DML事件，直接返回了，因为不包含当前next这记录，需要回退一个位置
+                        end = next - 1; // next-1一定大于current，不需要判断
+                    }
+                    break;
+                } else {
+                    entrys.add(event);
+                    memsize += calculateSize(event);
+                    end = next;// 记录end位点
+                }
+            }
+
+        }
+
+        PositionRange<LogPosition> range = new PositionRange<LogPosition>();
+        result.setPositionRange(range);
+
+        range.setStart(CanalEventUtils.createPosition(entrys.get(0)));
+        range.setEnd(CanalEventUtils.createPosition(entrys.get(result.getEvents().size() - 1)));
+        // 记录一下是否存在可以被ack的点
+        for (int i = entrys.size() - 1; i >= 0; i--) {
+            Event event = entrys.get(i);
+            if (CanalEntry.EntryType.TRANSACTIONBEGIN == event.getEntryType()
+                || CanalEntry.EntryType.TRANSACTIONEND == event.getEntryType()
+                || isDdl(event.getHeader().getEventType())) {
+                // 将事务头/尾设置可被为ack的点
+                range.setAck(CanalEventUtils.createPosition(event));
+                break;
+            }
+        }
+
+        if (getSequence.compareAndSet(current, end)) {
+            getMemSize.addAndGet(memsize);
+            notFull.signal();
+            return result;
+        } else {
+            return new Events<Event>();
+        }
+    }
+
+    public LogPosition getFirstPosition() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            long firstSeqeuence = ackSequence.get();
+            if (firstSeqeuence == INIT_SQEUENCE && firstSeqeuence < putSequence.get()) {
+                // 没有ack过数据
+                Event event = getEvent(firstSeqeuence + 1); // 最后一次ack为-1，需要移动到下一条,included
+                                                            // = false
+                return CanalEventUtils.createPosition(event, false);
+            } else if (firstSeqeuence > INIT_SQEUENCE && firstSeqeuence < putSequence.get()) {
+                // ack未追上put操作
+                Event event = getEvent(firstSeqeuence + 1); // 最后一次ack的位置数据
+                                                            // + 1
+                return CanalEventUtils.createPosition(event, true);
+            } else if (firstSeqeuence > INIT_SQEUENCE && firstSeqeuence == putSequence.get()) {
+                // 已经追上，store中没有数据
+                Event event = getEvent(firstSeqeuence); // 最后一次ack的位置数据，和last为同一条，included
+                                                        // = false
+                return CanalEventUtils.createPosition(event, false);
+            } else {
+                // 没有任何数据
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LogPosition getLatestPosition() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            long latestSequence = putSequence.get();
+            if (latestSequence > INIT_SQEUENCE && latestSequence != ackSequence.get()) {
+                Event event = getEvent(latestSequence); // 最后一次写入的数据，最后一条未消费的数据
+                return CanalEventUtils.createPosition(event, true);
+            } else if (latestSequence > INIT_SQEUENCE && latestSequence == ackSequence.get()) {
+                // ack已经追上了put操作
+                Event event = getEvent(latestSequence); // 最后一次写入的数据，included
+                                                        // = false
+                return CanalEventUtils.createPosition(event, false);
+            } else {
+                // 没有任何数据
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void ack(Position position) throws CanalStoreException {
+        cleanUntil(position);
+    }
+
+    public void cleanUntil(Position position) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            long sequence = ackSequence.get();
+            long maxSequence = getSequence.get();
+
+            boolean hasMatch = false;
+            long memsize = 0;
+            for (long next = sequence + 1; next <= maxSequence; next++) {
+                Event event = getEvent(next);
+                memsize += calculateSize(event);
+                boolean match = CanalEventUtils.checkPosition(event, (LogPosition) position);
+                if (match) {// 找到对应的position，更新ack seq
+                    hasMatch = true;
+
+                    if (batchMode.isMemSize()) {
+                        ackMemSize.addAndGet(memsize);
+                    }
+
+                    if (ackSequence.compareAndSet(sequence, next)) {// 避免并发ack
+                        releaseUntil(sequence, next);
+                        notFull.signal();
+                        return;
+                    }
+                }
+            }
+
+            if (!hasMatch) {// 找不到对应需要ack的position
+                throw new CanalStoreException("no match ack position" + position.toString());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void rollback() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            getSequence.set(ackSequence.get());
+            getMemSize.set(ackMemSize.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cleanAll() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            putSequence.set(INIT_SQEUENCE);
+            getSequence.set(INIT_SQEUENCE);
+            ackSequence.set(INIT_SQEUENCE);
+            ramFirstSequence = 0;
+            ramMemSize = 0;
+
+            putMemSize.set(0);
+            getMemSize.set(0);
+            ackMemSize.set(0);
+            entries = null;
+            if (segmentLog != null) {
+                segmentLog.destroy();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =================== helper method =================
+
+    /**
+     * 尝试为写入到sequence的数据腾出内存空位，必要时将最老的未ack数据溢出到磁盘，磁盘也写满时返回false
+     */
+    private boolean makeFreeSlotAt(final long sequence) {
+        final long memLimit = (long) bufferSize * bufferMemUnit;
+        // 最后一条put的数据始终保留在内存中，用于计算position
+        while (ramFirstSequence < putSequence.get()
+               && (sequence - ramFirstSequence + 1 > bufferSize || (batchMode.isMemSize() && ramMemSize >= memLimit))) {
+            if (!spill(ramFirstSequence)) {
+                break;
+            }
+        }
+
+        if (sequence - ramFirstSequence + 1 > bufferSize) {
+            return false;
+        } else if (batchMode.isMemSize()) {
+            return ramMemSize < memLimit;
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * 将内存中的一条数据移出，未被ack的数据需要先写入磁盘
+     */
+    private boolean spill(long sequence) {
+        int index = getIndex(sequence);
+        Event event = entries[index];
+        if (sequence > ackSequence.get()) {
+            byte[] data = EventSerializer.serialize(event);
+            if (!segmentLog.isEmpty() && !segmentLog.contains(sequence - 1)) {
+                // 中间跳过了已经被ack的数据，说明磁盘上的数据都已经被ack，只是还未被scavenge回收
+                segmentLog.recycle(ackSequence.get());
+            }
+            if (!segmentLog.append(sequence, data)) {
+                // 先回收已经被ack但还未清理的段文件再重试
+                segmentLog.recycle(ackSequence.get());
+                if (!segmentLog.append(sequence, data)) {
+                    return false; // 磁盘段文件已满
+                }
+            }
+            ramMemSize -= calculateSize(event);
+        }
+
+        entries[index] = null;
+        ramFirstSequence = sequence + 1;
+        return true;
+    }
+
+    /**
+     * ack之后释放内存和磁盘中已经被确认的数据，保留ack位置这一条用于计算position
+     */
+    private void releaseUntil(long lastAckSequence, long ackSequence) {
+        // ramMemSize只统计未被ack的数据
+        for (long next = Math.max(ramFirstSequence, lastAckSequence + 1); next <= ackSequence; next++) {
+            ramMemSize -= calculateSize(entries[getIndex(next)]);
+        }
+
+        for (; ramFirstSequence < ackSequence; ramFirstSequence++) {
+            entries[getIndex(ramFirstSequence)] = null;
+        }
+
+        if (onAck) {
+            segmentLog.recycle(ackSequence);
+        }
+    }
+
+    /**
+     * 批量回收已经被ack的段文件
+     */
+    protected void scavengeUntil(Position position) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (segmentLog != null) {
+                segmentLog.recycle(ackSequence.get());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Event getEvent(long sequence) {
+        if (sequence >= ramFirstSequence) {
+            return entries[getIndex(sequence)];
+        } else {
+            return EventSerializer.deserialize(segmentLog.read(sequence));
+        }
+    }
+
+    /**
+     * 检查是否存在需要get的数据,并且数量>=batchSize
+     */
+    private boolean checkUnGetSlotAt(LogPosition startPosition, int batchSize) {
+        if (batchMode.isItemSize()) {
+            long current = getSequence.get();
+            long maxAbleSequence = putSequence.get();
+            long next = current;
+            if (startPosition == null || !startPosition.getPostion().isIncluded()) { // 第一次订阅之后，需要包含一下start位置，防止丢失第一条记录
+                next = next + 1;// 少一条数据
+            }
+
+            if (current < maxAbleSequence && next + batchSize - 1 <= maxAbleSequence) {
+                return true;
+            } else {
+                return false;
+            }
+        } else {
+            // 处理内存大小判断
+            long currentSize = getMemSize.get();
+            long maxAbleSize = putMemSize.get();
+
+            if (maxAbleSize - currentSize >= batchSize * bufferMemUnit) {
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    private long calculateSize(Event event) {
+        // binlog中的事件大小和store中实际保留的序列化数据取较大值，避免大字段/typed模式下低估内存
+        return Math.max(event.getHeader().getEventLength(), event.getRawEntry().size());
+    }
+
+    private int getIndex(long sequcnce) {
+        return (int) sequcnce & indexMask;
+    }
+
+    private boolean isDdl(EventType type) {
+        return type == EventType.ALTER || type == EventType.CREATE || type == EventType.ERASE
+               || type == EventType.RENAME || type == EventType.TRUNCATE || type == EventType.CINDEX
+               || type == EventType.DINDEX;
+    }
+
+    // ================ setter / getter ==================
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setBufferMemUnit(int bufferMemUnit) {
+        this.bufferMemUnit = bufferMemUnit;
+    }
+
+    public void setBatchMode(BatchMode batchMode) {
+        this.batchMode = batchMode;
+    }
+
+    public void setDdlIsolation(boolean ddlIsolation) {
+        this.ddlIsolation = ddlIsolation;
+    }
+
+    public void setDataDir(String dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public void setSegmentStoreCount(int segmentStoreCount) {
+        this.segmentStoreCount = segmentStoreCount;
+    }
+
+    public void setMaxSegmentCount(int maxSegmentCount) {
+        this.maxSegmentCount = maxSegmentCount;
+    }
+
+    public void setPercentThreshold(int percentThreshold) {
+        this.percentThreshold = percentThreshold;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.alibaba.otter.canal.store.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import com.alibaba.otter.canal.store.CanalStoreException;
+
+/**
+ * 由多个{@linkplain MappedSegment}组成的顺序日志，sequence要求连续递增
+ * 
+ * <pre>
+ * 1. append写入最后一个段文件，写满后滚动到新文件，段文件个数达到maxSegmentCount或者占用磁盘超过percentThreshold后拒绝写入
+ * 2. read根据sequence二分查找所在的段文件
+ * 3. recycle删除所有sequence都已经被ack的段文件
+ * 
+ * 非线程安全，由外部加锁控制
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:48:43
+ * @version 1.0.22
+ */
+public class SegmentLog {
+
+    private final File                dataDir;
+    private final int                 segmentSize;
+    private final int                 segmentStoreCount;                                  // 每个段文件的记录数，<=0代表只按大小控制
+    private final int                 maxSegmentCount;
+    private int                       percentThreshold = 0;                               // 段文件最多占用磁盘的百分比，<=0代表不限制
+    private final List<MappedSegment> segments = new ArrayList<MappedSegment>();
+    private long                      nextSequence = -1;                                  // 下一条期望写入的sequence
+
+    public SegmentLog(File dataDir, int segmentSize, int segmentStoreCount, int maxSegmentCount){
+        this.dataDir = dataDir;
+        this.segmentSize = segmentSize;
+        this.segmentStoreCount = segmentStoreCount;
+        this.maxSegmentCount = maxSegmentCount;
+        try {
+            if (dataDir.exists()) {
+                // 上一次运行残留的段文件，parser会从记录的位点重新拉取，直接清理
+                FileUtils.cleanDirectory(dataDir);
+            } else {
+                FileUtils.forceMkdir(dataDir);
+            }
+        } catch (IOException e) {
+            throw new CanalStoreException("init dir " + dataDir.getPath() + " failed", e);
+        }
+
+        if (!dataDir.canRead() || !dataDir.canWrite()) {
+            throw new CanalStoreException("dir[" + dataDir.getPath() + "] can not read/write");
+        }
+    }
+
+    /**
+     * 追加一条记录，段文件已满并且不能再滚动新文件时返回false
+     */
+    public boolean append(long sequence, byte[] data) {
+        if (nextSequence >= 0 && sequence != nextSequence) {
+            throw new CanalStoreException("sequence " + sequence + " not in order, expect " + nextSequence);
+        }
+
+        MappedSegment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last == null || !last.append(data)) {
+            if (!canRoll()) {
+                return false;
+            }
+
+            // 超大的单条记录，单独分配一个足够大的段文件
+            int capacity = Math.max(segmentSize, data.length + 4);
+            last = new MappedSegment(new File(dataDir, String.format("%020d.store", sequence)),
+                sequence,
+                capacity,
+                segmentStoreCount);
+            segments.add(last);
+            if (!last.append(data)) {
+                throw new CanalStoreException("append to new segment " + last + " failed");
+            }
+        }
+
+        nextSequence = sequence + 1;
+        return true;
+    }
+
+    public byte[] read(long sequence) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            MappedSegment segment = segments.get(mid);
+            if (sequence < segment.getFirstSequence()) {
+                high = mid - 1;
+            } else if (sequence > segment.getLastSequence()) {
+                low = mid + 1;
+            } else {
+                return segment.read(sequence);
+            }
+        }
+
+        throw new CanalStoreException("sequence " + sequence + " not found in " + segments);
+    }
+
+    public boolean contains(long sequence) {
+        return !segments.isEmpty() && sequence >= segments.get(0).getFirstSequence() && sequence < nextSequence;
+    }
+
+    /**
+     * 删除最后一条sequence小于指定sequence的段文件
+     */
+    public void recycle(long sequence) {
+        while (!segments.isEmpty() && segments.get(0).getLastSequence() < sequence) {
+            segments.remove(0).destroy();
+        }
+
+        if (segments.isEmpty()) {
+            nextSequence = -1; // 全部回收后允许从任意sequence重新开始
+        }
+    }
+
+    public boolean canRoll() {
+        if (maxSegmentCount > 0 && segments.size() >= maxSegmentCount) {
+            return false;
+        }
+
+        if (percentThreshold > 0) {
+            // 加上即将分配的段文件之后，不能超过磁盘总量的百分比
+            long totalSpace = dataDir.getTotalSpace();
+            if (totalSpace > 0 && (getUsedSize() + segmentSize) * 100 > totalSpace * percentThreshold) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * 当前段文件占用的磁盘空间
+     */
+    public long getUsedSize() {
+        long size = 0;
+        for (MappedSegment segment : segments) {
+            size += segment.getCapacity();
+        }
+        return size;
+    }
+
+    public File getDataDir() {
+        return dataDir;
+    }
+
+    public void setPercentThreshold(int percentThreshold) {
+        this.percentThreshold = percentThreshold;
+    }
+
+    public void destroy() {
+        for (MappedSegment segment : segments) {
+            segment.destroy();
+        }
+        segments.clear();
+        nextSequence = -1;
+    }
+}
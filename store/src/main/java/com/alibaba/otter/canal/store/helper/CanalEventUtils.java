@@ -48,9 +48,9 @@ public class CanalEventUtils {
      */
     public static LogPosition createPosition(Event event) {
         EntryPosition position = new EntryPosition();
-        position.setJournalName(event.getEntry().getHeader().getLogfileName());
-        position.setPosition(event.getEntry().getHeader().getLogfileOffset());
-        position.setTimestamp(event.getEntry().getHeader().getExecuteTime());
+        position.setJournalName(event.getHeader().getLogfileName());
+        position.setPosition(event.getHeader().getLogfileOffset());
+        position.setTimestamp(event.getHeader().getExecuteTime());
 
         LogPosition logPosition = new LogPosition();
         logPosition.setPostion(position);
@@ -63,9 +63,9 @@ public class CanalEventUtils {
      */
     public static LogPosition createPosition(Event event, boolean included) {
         EntryPosition position = new EntryPosition();
-        position.setJournalName(event.getEntry().getHeader().getLogfileName());
-        position.setPosition(event.getEntry().getHeader().getLogfileOffset());
-        position.setTimestamp(event.getEntry().getHeader().getExecuteTime());
+        position.setJournalName(event.getHeader().getLogfileName());
+        position.setPosition(event.getHeader().getLogfileOffset());
+        position.setTimestamp(event.getHeader().getExecuteTime());
         position.setIncluded(included);
 
         LogPosition logPosition = new LogPosition();
@@ -79,14 +79,14 @@ public class CanalEventUtils {
      */
     public static boolean checkPosition(Event event, LogPosition logPosition) {
         EntryPosition position = logPosition.getPostion();
-        CanalEntry.Entry entry = event.getEntry();
-        boolean result = position.getTimestamp().equals(entry.getHeader().getExecuteTime());
+        CanalEntry.Header header = event.getHeader();
+        boolean result = position.getTimestamp().equals(header.getExecuteTime());
 
         //如果有文件名字以及binlog的偏移量,则更精准比较
         boolean exactely = (StringUtils.isBlank(position.getJournalName()) && position.getPosition() == null);
         if (!exactely) {// 精确匹配
-            result &= StringUtils.equals(entry.getHeader().getLogfileName(), position.getJournalName());
-            result &= position.getPosition().equals(entry.getHeader().getLogfileOffset());
+            result &= StringUtils.equals(header.getLogfileName(), position.getJournalName());
+            result &= position.getPosition().equals(header.getLogfileOffset());
         }
 
         return result;
@@ -9,6 +9,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.otter.canal.protocol.CanalEntry;
 import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.position.EntryPosition;
 import com.alibaba.otter.canal.protocol.position.LogPosition;
 import com.alibaba.otter.canal.protocol.position.Position;
 import com.alibaba.otter.canal.protocol.position.PositionRange;
@@ -36,6 +37,7 @@ import com.alibaba.otter.canal.store.model.Events;
 public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge implements CanalEventStore<Event>, CanalStoreScavenge {
 
     private static final long INIT_SQEUENCE = -1;
+    private static final int  RECLAIM_BATCH = 1024;                         // scavenge每次持有锁释放的最大记录数
     private int               bufferSize    = 16 * 1024;//队列的size
     private int               bufferMemUnit = 1024;                         // memsize的单位，默认为1kb大小
     private int               indexMask;
@@ -46,6 +48,7 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
     private AtomicLong        putSequence   = new AtomicLong(INIT_SQEUENCE); // 代表当前put操作最后一次写操作发生的位置
     private AtomicLong        getSequence   = new AtomicLong(INIT_SQEUENCE); // 代表当前get操作读取的最后一条的位置
     private AtomicLong        ackSequence   = new AtomicLong(INIT_SQEUENCE); // 代表当前ack操作的最后一条的位置
+    private long              freeSequence  = INIT_SQEUENCE;                // 已经释放引用的最后一条位置，非onAck模式下由scavenge批量释放
 
     // 记录下put/get/ack操作的三个memsize大小
     private AtomicLong        putMemSize    = new AtomicLong(0);
@@ -197,8 +200,15 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             putMemSize.getAndAdd(size);//计算put的size大小
         }
 
+        // 按照put可用的容量计算使用量，和checkFreeSlotAt的判断保持一致
+        checkWatermark(end - ackSequence.get(), bufferSize);
+        if (batchMode.isMemSize()) {
+            checkWatermark(putMemSize.get() - ackMemSize.get(), (long) bufferSize * bufferMemUnit);
+        }
+
         // tell other threads that store is not empty
         notEmpty.signal();
+        notifyPut();
     }
 
     //从哪个队列位置开始获取数据,获取多少条数据
@@ -285,7 +295,7 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             // 提取数据并返回
             for (; next <= end; next++) {
                 Event event = entries[getIndex(next)];//获取事件
-                if (ddlIsolation && isDdl(event.getEntry().getHeader().getEventType())) {//说明是DDL事件
+                if (ddlIsolation && isDdl(event.getHeader().getEventType())) {//说明是DDL事件
                     // 如果是ddl隔离，直接返回
                     if (entrys.size() == 0) {//说明第一条就是DDL事件,则停止get
                         entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
@@ -304,7 +314,7 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             for (; memsize <= maxMemSize && next <= maxAbleSequence; next++) {//只要内存不达到,就不断的添加数据即可
                 // 永远保证可以取出第一条的记录，避免死锁
                 Event event = entries[getIndex(next)];
-                if (ddlIsolation && isDdl(event.getEntry().getHeader().getEventType())) {//是否是DDL操作
+                if (ddlIsolation && isDdl(event.getHeader().getEventType())) {//是否是DDL操作
                     // 如果是ddl隔离，直接返回
                     if (entrys.size() == 0) {
                         entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
@@ -333,9 +343,9 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
         // 记录一下是否存在可以被ack的点
         for (int i = entrys.size() - 1; i >= 0; i--) {//找到最后一个事件是事务相关的事件位置,即多个事件集合中,可能存在多个事务.因此获取最后一个事务出现的位置即可
             Event event = entrys.get(i);
-            if (CanalEntry.EntryType.TRANSACTIONBEGIN == event.getEntry().getEntryType()//出现事务的位置
-                || CanalEntry.EntryType.TRANSACTIONEND == event.getEntry().getEntryType()
-                || isDdl(event.getEntry().getHeader().getEventType())) {//出现DDL操作的位置
+            if (CanalEntry.EntryType.TRANSACTIONBEGIN == event.getEntryType()//出现事务的位置
+                || CanalEntry.EntryType.TRANSACTIONEND == event.getEntryType()
+                || isDdl(event.getHeader().getEventType())) {//出现DDL操作的位置
                 // 将事务头/尾设置可被为ack的点
                 range.setAck(CanalEventUtils.createPosition(event));
                 break;
@@ -412,38 +422,83 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
-            long sequence = ackSequence.get();
-            long maxSequence = getSequence.get();
-
-            boolean hasMatch = false;//true表示已经确定找到该点了
-            long memsize = 0;
-            for (long next = sequence + 1; next <= maxSequence; next++) {//从确定ack的位置开始循环,一直到get的位置结束,即消费到的点结束
-                Event event = entries[getIndex(next)];//获取每一个事件
-                memsize += calculateSize(event);
-                boolean match = CanalEventUtils.checkPosition(event, (LogPosition) position);//找到要清理的哪个点
-                if (match) {// 找到对应的position，更新ack seq
-                    hasMatch = true;
-
-                    if (batchMode.isMemSize()) {
-                        ackMemSize.addAndGet(memsize);
-                        // 尝试清空buffer中的内存，将ack之前的内存全部释放掉
-                        for (long index = sequence + 1; index < next; index++) {
-                            entries[getIndex(index)] = null;// 设置为null
-                        }
-                    }
+            if (!doClean(position)) {// 找不到对应需要ack的position
+                throw new CanalStoreException("no match ack position" + position.toString());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-                    if (ackSequence.compareAndSet(sequence, next)) {// 避免并发ack
-                        notFull.signal();
-                        return;
+    /**
+     * 推进ackSequence到position，释放put的容量，找不到对应的position时返回false
+     */
+    private boolean doClean(Position position) {
+        long sequence = ackSequence.get();
+        long maxSequence = getSequence.get();
+
+        long memsize = 0;
+        for (long next = sequence + 1; next <= maxSequence; next++) {//从确定ack的位置开始循环,一直到get的位置结束,即消费到的点结束
+            Event event = entries[getIndex(next)];//获取每一个事件
+            memsize += calculateSize(event);
+            boolean match = CanalEventUtils.checkPosition(event, (LogPosition) position);//找到要清理的哪个点
+            if (match) {// 找到对应的position，更新ack seq
+                if (batchMode.isMemSize()) {
+                    ackMemSize.addAndGet(memsize);
+                }
+
+                // 尝试清空buffer中的内存，将ack之前的内存全部释放掉，非onAck模式交给scavenge批量处理
+                if (onAck) {
+                    for (long index = Math.max(sequence, freeSequence) + 1; index < next; index++) {
+                        entries[getIndex(index)] = null;// 设置为null
                     }
+                    freeSequence = Math.max(freeSequence, next - 1);
                 }
+
+                ackSequence.set(next);// 已经持有锁，不存在并发ack
+                notFull.signal();
+                return true;
             }
+        }
 
-            if (!hasMatch) {// 找不到对应需要ack的position
-                throw new CanalStoreException("no match ack position" + position.toString());
+        return false;
+    }
+
+    /**
+     * 回收所有客户端都已经ack的数据。store的ack落后于最小cursor时先推进ack释放put的容量，
+     * 再批量释放已经ack的数据引用，每次最多持有锁处理一批，避免长时间阻塞put
+     */
+    protected void scavengeUntil(Position position) {
+        final ReentrantLock lock = this.lock;
+        boolean done = false;
+        boolean cleaned = false;
+        while (!done) {
+            lock.lock();
+            try {
+                if (entries == null) {
+                    return;
+                }
+
+                if (!cleaned) {
+                    if (isAfterAck((LogPosition) position)) {
+                        doClean(position);
+                    }
+                    cleaned = true;
+                }
+
+                // 保留ack位置这一条用于计算position，已经被新数据覆盖的位置不能再清理
+                long end = ackSequence.get() - 1;
+                long next = Math.max(freeSequence + 1, putSequence.get() - bufferSize + 1);
+                long batchEnd = Math.min(end, next + RECLAIM_BATCH - 1);
+                for (; next <= batchEnd; next++) {
+                    entries[getIndex(next)] = null;
+                }
+
+                freeSequence = Math.max(freeSequence, batchEnd);
+                done = batchEnd >= end;
+            } finally {
+                lock.unlock();
             }
-        } finally {
-            lock.unlock();
         }
     }
 
@@ -467,6 +522,7 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
             putSequence.set(INIT_SQEUENCE);
             getSequence.set(INIT_SQEUENCE);
             ackSequence.set(INIT_SQEUENCE);
+            freeSequence = INIT_SQEUENCE;
 
             putMemSize.set(0);
             getMemSize.set(0);
@@ -481,6 +537,27 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
     }
 
     // =================== helper method =================
+    /**
+     * position是否在store最后一次ack的数据之后
+     */
+    private boolean isAfterAck(LogPosition position) {
+        long sequence = ackSequence.get();
+        if (sequence >= getSequence.get()) {
+            return false; // 没有未ack的数据
+        } else if (sequence == INIT_SQEUENCE) {
+            return true;
+        }
+
+        CanalEntry.Header acked = entries[getIndex(sequence)].getHeader();
+        EntryPosition current = position.getPostion();
+        if (current.getJournalName() == null || current.getPosition() == null) {
+            return current.getTimestamp() != null && current.getTimestamp() > acked.getExecuteTime();
+        }
+
+        int compare = current.getJournalName().compareTo(acked.getLogfileName());
+        return compare > 0 || (compare == 0 && current.getPosition() > acked.getLogfileOffset());
+    }
+
     //获取最小的可用的位置
     private long getMinimumGetOrAck() {
         long get = getSequence.get();//get到哪里了
@@ -546,8 +623,8 @@ public class MemoryEventStoreWithBuffer extends AbstractCanalStoreScavenge imple
 
     //计算每一个事件的字节大小
     private long calculateSize(Event event) {
-        // 直接返回binlog中的事件大小
-        return event.getEntry().getHeader().getEventLength();
+        // binlog中的事件大小和store中实际保留的序列化数据取较大值，避免大字段/typed模式下低估内存
+        return Math.max(event.getHeader().getEventLength(), event.getRawEntry().size());
     }
 
     private int getIndex(long sequcnce) {
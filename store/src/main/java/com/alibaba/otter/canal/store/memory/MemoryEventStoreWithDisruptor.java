@@ -0,0 +1,548 @@
+package com.alibaba.otter.canal.store.memory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.alibaba.otter.canal.protocol.CanalEntry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.position.LogPosition;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.protocol.position.PositionRange;
+import com.alibaba.otter.canal.store.AbstractCanalStoreScavenge;
+import com.alibaba.otter.canal.store.CanalEventStore;
+import com.alibaba.otter.canal.store.CanalStoreException;
+import com.alibaba.otter.canal.store.CanalStoreScavenge;
+import com.alibaba.otter.canal.store.helper.CanalEventUtils;
+import com.alibaba.otter.canal.store.memory.disruptor.Sequence;
+import com.alibaba.otter.canal.store.memory.disruptor.SequenceBarrier;
+import com.alibaba.otter.canal.store.memory.disruptor.WaitStrategy;
+import com.alibaba.otter.canal.store.memory.disruptor.WaitStrategyType;
+import com.alibaba.otter.canal.store.model.BatchMode;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 基于disruptor思路实现的内存store，多生产者(parser/group sink) + 单消费者(server get/ack)
+ *
+ * <pre>
+ * 和{@linkplain MemoryEventStoreWithBuffer}的区别：
+ * 1. put操作不再获取全局锁，通过CAS申请(claim)序号区间，写入ringBuffer后按申请顺序发布putSequence，
+ *    MEMSIZE模式下先通过CAS预留内存(claimMemSize)，并发的生产者不会同时通过内存检查
+ * 2. get/ack/rollback只在消费者之间互斥(consumerLock)，不会和put竞争同一把锁
+ * 3. put/get的等待通过{@linkplain WaitStrategy}完成，支持blocking/yielding/busy-spin三种策略
+ * 4. put/get/ack游标使用cache line填充的{@linkplain Sequence}，避免伪共享
+ *
+ * BatchMode.MEMSIZE以及ddlIsolation的语义和MemoryEventStoreWithBuffer保持一致
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:45:21
+ * @version 1.0.22
+ */
+public class MemoryEventStoreWithDisruptor extends AbstractCanalStoreScavenge implements CanalEventStore<Event>, CanalStoreScavenge {
+
+    private static final long INIT_SQEUENCE    = -1;
+    private int               bufferSize       = 16 * 1024;
+    private int               bufferMemUnit    = 1024;                                 // memsize的单位，默认为1kb大小
+    private int               indexMask;
+    private Event[]           entries;
+
+    // claim > put >= get >= ack，claim为生产者申请到的最大序号，put为已经发布可被消费的最大序号
+    private final Sequence    claimSequence    = new Sequence(INIT_SQEUENCE);
+    private final Sequence    putSequence      = new Sequence(INIT_SQEUENCE);
+    private final Sequence    getSequence      = new Sequence(INIT_SQEUENCE);
+    private final Sequence    ackSequence      = new Sequence(INIT_SQEUENCE);
+
+    // 记录下put/get/ack操作的三个memsize大小，claim为生产者已经预留的memsize
+    private final Sequence    claimMemSize     = new Sequence(0);
+    private final Sequence    putMemSize       = new Sequence(0);
+    private final Sequence    getMemSize       = new Sequence(0);
+    private final Sequence    ackMemSize       = new Sequence(0);
+
+    // 消费端(get/ack/rollback)之间的互斥，生产者不参与
+    private final ReentrantLock consumerLock   = new ReentrantLock();
+    private WaitStrategyType  waitStrategyType = WaitStrategyType.BLOCKING;
+    private WaitStrategy      producerWaitStrategy;                                     // put等待空位
+    private WaitStrategy      consumerWaitStrategy;                                     // get等待数据
+
+    private BatchMode         batchMode        = BatchMode.ITEMSIZE;
+    private boolean           ddlIsolation     = false;
+
+    public MemoryEventStoreWithDisruptor(){
+
+    }
+
+    public MemoryEventStoreWithDisruptor(BatchMode batchMode){
+        this.batchMode = batchMode;
+    }
+
+    public void start() throws CanalStoreException {
+        super.start();
+        if (Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+
+        indexMask = bufferSize - 1;
+        entries = new Event[bufferSize];
+        producerWaitStrategy = waitStrategyType.newInstance();
+        consumerWaitStrategy = waitStrategyType.newInstance();
+    }
+
+    public void stop() throws CanalStoreException {
+        super.stop();
+
+        cleanAll();
+    }
+
+    public void put(List<Event> data) throws InterruptedException, CanalStoreException {
+        doPut(data, Long.MAX_VALUE);
+    }
+
+    public boolean put(List<Event> data, long timeout, TimeUnit unit) throws InterruptedException, CanalStoreException {
+        return doPut(data, unit.toNanos(timeout));
+    }
+
+    public boolean tryPut(List<Event> data) throws CanalStoreException {
+        try {
+            return doPut(data, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void put(Event data) throws InterruptedException, CanalStoreException {
+        put(Arrays.asList(data));
+    }
+
+    public boolean put(Event data, long timeout, TimeUnit unit) throws InterruptedException, CanalStoreException {
+        return put(Arrays.asList(data), timeout, unit);
+    }
+
+    public boolean tryPut(Event data) throws CanalStoreException {
+        return tryPut(Arrays.asList(data));
+    }
+
+    /**
+     * 申请序号区间 -> 写入ringBuffer -> 按申请顺序发布
+     */
+    private boolean doPut(final List<Event> data, long nanos) throws InterruptedException {
+        if (data == null || data.isEmpty()) {
+            return true;
+        }
+
+        final int size = data.size();
+        long memsize = 0;
+        if (batchMode.isMemSize()) {
+            for (Event event : data) {
+                memsize += calculateSize(event);
+            }
+
+            for (;;) {
+                long reserved = claimMemSize.get();
+                if (checkFreeMemSize(reserved)) {
+                    if (claimMemSize.compareAndSet(reserved, reserved + memsize)) {
+                        break; // 预留成功
+                    }
+
+                    continue;
+                }
+
+                if (nanos <= 0) {
+                    return false;
+                }
+
+                nanos = producerWaitStrategy.waitFor(new SequenceBarrier() {
+
+                    public boolean isAvailable() {
+                        return checkFreeMemSize(claimMemSize.get());
+                    }
+                }, nanos);
+            }
+        }
+
+        long current;
+        boolean claimed = false;
+        try {
+            for (;;) {
+                current = claimSequence.get();
+                final long next = current + size;
+                if (checkFreeSlotAt(next)) {
+                    if (claimSequence.compareAndSet(current, next)) {
+                        claimed = true;
+                        break; // 申请成功
+                    }
+
+                    continue; // 和其他生产者竞争失败，直接重试
+                }
+
+                if (nanos <= 0) {
+                    return false;
+                }
+
+                nanos = producerWaitStrategy.waitFor(new SequenceBarrier() {
+
+                    public boolean isAvailable() {
+                        return checkFreeSlotAt(claimSequence.get() + size);
+                    }
+                }, nanos);
+            }
+        } finally {
+            if (!claimed && memsize > 0) {
+                claimMemSize.addAndGet(-memsize); // 没有申请到序号，释放预留的内存
+            }
+        }
+
+        long end = current + size;
+        for (long next = current + 1; next <= end; next++) {
+            entries[getIndex(next)] = data.get((int) (next - current - 1));
+        }
+
+        // 等待之前申请的生产者完成发布，保证putSequence之前的槽位都已经写入完成
+        while (putSequence.get() != current) {
+            Thread.yield();
+        }
+
+        if (batchMode.isMemSize()) {
+            putMemSize.addAndGet(memsize); // 需要先于putSequence发布
+        }
+
+        putSequence.set(end);
+        consumerWaitStrategy.signalAllWhenBlocking();
+        notifyPut();
+        return true;
+    }
+
+    public Events<Event> get(Position start, int batchSize) throws InterruptedException, CanalStoreException {
+        awaitUnGetSlot((LogPosition) start, batchSize, Long.MAX_VALUE);
+        return tryGet(start, batchSize);
+    }
+
+    public Events<Event> get(Position start, int batchSize, long timeout, TimeUnit unit) throws InterruptedException,
+                                                                                        CanalStoreException {
+        // 如果时间到了，有多少取多少
+        awaitUnGetSlot((LogPosition) start, batchSize, unit.toNanos(timeout));
+        return tryGet(start, batchSize);
+    }
+
+    public Events<Event> tryGet(Position start, int batchSize) throws CanalStoreException {
+        final ReentrantLock lock = this.consumerLock;
+        lock.lock();
+        try {
+            return doGet(start, batchSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitUnGetSlot(final LogPosition start, final int batchSize, long nanos) throws InterruptedException {
+        consumerWaitStrategy.waitFor(new SequenceBarrier() {
+
+            public boolean isAvailable() {
+                return checkUnGetSlotAt(start, batchSize);
+            }
+        }, nanos);
+    }
+
+    private Events<Event> doGet(Position start, int batchSize) throws CanalStoreException {
+        LogPosition startPosition = (LogPosition) start;
+
+        long current = getSequence.get();
+        long maxAbleSequence = putSequence.get();
+        long next = current;
+        long end = current;
+        // 如果startPosition为null，说明是第一次，默认+1处理
+        if (startPosition == null || !startPosition.getPostion().isIncluded()) { // 第一次订阅之后，需要包含一下start位置，防止丢失第一条记录
+            next = next + 1;
+        }
+
+        if (current >= maxAbleSequence) {
+            return new Events<Event>();
+        }
+
+        Events<Event> result = new Events<Event>();
+        List<Event> entrys = result.getEvents();
+        long memsize = 0;
+        if (batchMode.isItemSize()) {
+            end = (next + batchSize - 1) < maxAbleSequence ? (next + batchSize - 1) : maxAbleSequence;
+            // 提取数据并返回
+            for (; next <= end; next++) {
+                Event event = entries[getIndex(next)];
+                if (ddlIsolation && isDdl(event.getHeader().getEventType())) {
+                    // 如果是ddl隔离，直接返回
+                    if (entrys.size() == 0) {
+                        entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
+                        end = next; // 更新end为当前
+                    } else {
+                        // 如果之前已经有DML事件，直接返回了，因为不包含当前next这记录，需要回退一个位置
+                        end = next - 1; // next-1一定大于current，不需要判断
+                    }
+                    break;
+                } else {
+                    entrys.add(event);
+                }
+            }
+        } else {
+            long maxMemSize = batchSize * bufferMemUnit;
+            for (; memsize <= maxMemSize && next <= maxAbleSequence; next++) {
+                // 永远保证可以取出第一条的记录，避免死锁
+                Event event = entries[getIndex(next)];
+                if (ddlIsolation && isDdl(event.getHeader().getEventType())) {
+                    // 如果是ddl隔离，直接返回
+                    if (entrys.size() == 0) {
+                        entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
+                        end = next; // 更新end为当前
+                    } else {
+                        // 如果之前已经有DML事件，直接返回了，因为不包含当前next这记录，需要回退一个位置
+                        end = next - 1; // next-1一定大于current，不需要判断
+                    }
+                    break;
+                } else {
+                    entrys.add(event);
+                    memsize += calculateSize(event);
+                    end = next;// 记录end位点
+                }
+            }
+
+        }
+
+        PositionRange<LogPosition> range = new PositionRange<LogPosition>();
+        result.setPositionRange(range);
+
+        range.setStart(CanalEventUtils.createPosition(entrys.get(0)));
+        range.setEnd(CanalEventUtils.createPosition(entrys.get(result.getEvents().size() - 1)));
+        // 记录一下是否存在可以被ack的点
+        for (int i = entrys.size() - 1; i >= 0; i--) {
+            Event event = entrys.get(i);
+            if (CanalEntry.EntryType.TRANSACTIONBEGIN == event.getEntryType()
+                || CanalEntry.EntryType.TRANSACTIONEND == event.getEntryType()
+                || isDdl(event.getHeader().getEventType())) {
+                // 将事务头/尾设置可被为ack的点
+                range.setAck(CanalEventUtils.createPosition(event));
+                break;
+            }
+        }
+
+        if (getSequence.compareAndSet(current, end)) {
+            getMemSize.addAndGet(memsize);
+            return result;
+        } else {
+            return new Events<Event>();
+        }
+    }
+
+    public LogPosition getFirstPosition() throws CanalStoreException {
+        final ReentrantLock lock = this.consumerLock;
+        lock.lock();
+        try {
+            long firstSeqeuence = ackSequence.get();
+            long latestSequence = putSequence.get();
+            if (firstSeqeuence == INIT_SQEUENCE && firstSeqeuence < latestSequence) {
+                // 没有ack过数据
+                Event event = entries[getIndex(firstSeqeuence + 1)]; // 最后一次ack为-1，需要移动到下一条,included
+                                                                     // = false
+                return CanalEventUtils.createPosition(event, false);
+            } else if (firstSeqeuence > INIT_SQEUENCE && firstSeqeuence < latestSequence) {
+                // ack未追上put操作
+                Event event = entries[getIndex(firstSeqeuence + 1)]; // 最后一次ack的位置数据
+                                                                     // + 1
+                return CanalEventUtils.createPosition(event, true);
+            } else if (firstSeqeuence > INIT_SQEUENCE && firstSeqeuence == latestSequence) {
+                // 已经追上，store中没有数据
+                Event event = entries[getIndex(firstSeqeuence)]; // 最后一次ack的位置数据，和last为同一条，included
+                                                                 // = false
+                return CanalEventUtils.createPosition(event, false);
+            } else {
+                // 没有任何数据
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LogPosition getLatestPosition() throws CanalStoreException {
+        final ReentrantLock lock = this.consumerLock;
+        lock.lock();
+        try {
+            long latestSequence = putSequence.get();
+            if (latestSequence > INIT_SQEUENCE && latestSequence != ackSequence.get()) {
+                Event event = entries[getIndex(latestSequence)]; // 最后一次写入的数据，最后一条未消费的数据
+                return CanalEventUtils.createPosition(event, true);
+            } else if (latestSequence > INIT_SQEUENCE && latestSequence == ackSequence.get()) {
+                // ack已经追上了put操作
+                Event event = entries[getIndex(latestSequence)]; // 最后一次写入的数据，included
+                                                                 // = false
+                return CanalEventUtils.createPosition(event, false);
+            } else {
+                // 没有任何数据
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void ack(Position position) throws CanalStoreException {
+        cleanUntil(position);
+    }
+
+    public void cleanUntil(Position position) throws CanalStoreException {
+        final ReentrantLock lock = this.consumerLock;
+        lock.lock();
+        try {
+            long sequence = ackSequence.get();
+            long maxSequence = getSequence.get();
+
+            boolean hasMatch = false;
+            long memsize = 0;
+            for (long next = sequence + 1; next <= maxSequence; next++) {
+                Event event = entries[getIndex(next)];
+                memsize += calculateSize(event);
+                boolean match = CanalEventUtils.checkPosition(event, (LogPosition) position);
+                if (match) {// 找到对应的position，更新ack seq
+                    hasMatch = true;
+
+                    if (batchMode.isMemSize()) {
+                        ackMemSize.addAndGet(memsize);
+                        // 尝试清空buffer中的内存，将ack之前的内存全部释放掉
+                        for (long index = sequence + 1; index < next; index++) {
+                            entries[getIndex(index)] = null;// 设置为null
+                        }
+                    }
+
+                    if (ackSequence.compareAndSet(sequence, next)) {// 避免并发ack
+                        producerWaitStrategy.signalAllWhenBlocking();
+                        return;
+                    }
+                }
+            }
+
+            if (!hasMatch) {// 找不到对应需要ack的position
+                throw new CanalStoreException("no match ack position" + position.toString());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void rollback() throws CanalStoreException {
+        final ReentrantLock lock = this.consumerLock;
+        lock.lock();
+        try {
+            getSequence.set(ackSequence.get());
+            getMemSize.set(ackMemSize.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cleanAll() throws CanalStoreException {
+        final ReentrantLock lock = this.consumerLock;
+        lock.lock();
+        try {
+            claimSequence.set(INIT_SQEUENCE);
+            putSequence.set(INIT_SQEUENCE);
+            getSequence.set(INIT_SQEUENCE);
+            ackSequence.set(INIT_SQEUENCE);
+
+            claimMemSize.set(0);
+            putMemSize.set(0);
+            getMemSize.set(0);
+            ackMemSize.set(0);
+            entries = null;
+        } finally {
+            lock.unlock();
+        }
+
+        if (producerWaitStrategy != null) {
+            producerWaitStrategy.signalAllWhenBlocking();
+        }
+    }
+
+    // =================== helper method =================
+
+    private long getMinimumGetOrAck() {
+        long get = getSequence.get();
+        long ack = ackSequence.get();
+        return ack <= get ? ack : get;
+    }
+
+    /**
+     * 查询是否有空位，无锁调用
+     */
+    private boolean checkFreeSlotAt(final long sequence) {
+        final long wrapPoint = sequence - bufferSize;
+        final long minPoint = getMinimumGetOrAck();
+        return wrapPoint <= minPoint; // 刚好追上一轮时没有空位
+    }
+
+    /**
+     * 在bufferSize模式上，再增加memSize控制，reserved为生产者已经预留的memsize
+     */
+    private boolean checkFreeMemSize(final long reserved) {
+        final long memsize = reserved - ackMemSize.get();
+        return memsize < bufferSize * bufferMemUnit;
+    }
+
+    /**
+     * 检查是否存在需要get的数据,并且数量>=batchSize，无锁调用
+     */
+    private boolean checkUnGetSlotAt(LogPosition startPosition, int batchSize) {
+        if (batchMode.isItemSize()) {
+            long current = getSequence.get();
+            long maxAbleSequence = putSequence.get();
+            long next = current;
+            if (startPosition == null || !startPosition.getPostion().isIncluded()) { // 第一次订阅之后，需要包含一下start位置，防止丢失第一条记录
+                next = next + 1;// 少一条数据
+            }
+
+            return current < maxAbleSequence && next + batchSize - 1 <= maxAbleSequence;
+        } else {
+            // 处理内存大小判断
+            long currentSize = getMemSize.get();
+            long maxAbleSize = putMemSize.get();
+
+            return maxAbleSize - currentSize >= batchSize * bufferMemUnit;
+        }
+    }
+
+    private long calculateSize(Event event) {
+        // binlog中的事件大小和store中实际保留的序列化数据取较大值，避免大字段/typed模式下低估内存
+        return Math.max(event.getHeader().getEventLength(), event.getRawEntry().size());
+    }
+
+    private int getIndex(long sequcnce) {
+        return (int) sequcnce & indexMask;
+    }
+
+    private boolean isDdl(EventType type) {
+        return type == EventType.ALTER || type == EventType.CREATE || type == EventType.ERASE
+               || type == EventType.RENAME || type == EventType.TRUNCATE || type == EventType.CINDEX
+               || type == EventType.DINDEX;
+    }
+
+    // ================ setter / getter ==================
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setBufferMemUnit(int bufferMemUnit) {
+        this.bufferMemUnit = bufferMemUnit;
+    }
+
+    public void setBatchMode(BatchMode batchMode) {
+        this.batchMode = batchMode;
+    }
+
+    public void setDdlIsolation(boolean ddlIsolation) {
+        this.ddlIsolation = ddlIsolation;
+    }
+
+    public void setWaitStrategyType(WaitStrategyType waitStrategyType) {
+        this.waitStrategyType = waitStrategyType;
+    }
+
+}
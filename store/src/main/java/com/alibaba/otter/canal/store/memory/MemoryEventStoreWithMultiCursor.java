@@ -0,0 +1,759 @@
+package com.alibaba.otter.canal.store.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.otter.canal.protocol.CanalEntry;
+import com.alibaba.otter.canal.protocol.CanalEntry.EventType;
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.LogPosition;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.protocol.position.PositionRange;
+import com.alibaba.otter.canal.store.AbstractCanalStoreScavenge;
+import com.alibaba.otter.canal.store.CanalMultiCursorEventStore;
+import com.alibaba.otter.canal.store.CanalStoreException;
+import com.alibaba.otter.canal.store.CanalStoreScavenge;
+import com.alibaba.otter.canal.store.helper.CanalEventUtils;
+import com.alibaba.otter.canal.store.model.BatchMode;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+import com.alibaba.otter.canal.store.model.SlowConsumerPolicy;
+
+/**
+ * 基于内存buffer构建的多游标memory store，一个destination的解析数据可以同时投递给多个客户端
+ *
+ * <pre>
+ * 1. 整个store只有一个putSequence，每个ClientIdentity各自维护一对get/ack游标
+ * 2. 空间回收以所有客户端中最小的ack位置为准(reclaimSequence)，新注册的客户端从reclaimSequence之后开始消费
+ * 3. buffer被最慢的客户端占满后，根据{@linkplain SlowConsumerPolicy}选择阻塞put，或者踢掉最慢的客户端
+ * 4. 不带ClientIdentity的接口使用一个默认客户端，行为和{@linkplain MemoryEventStoreWithBuffer}一致，
+ *    默认客户端在第一次使用时创建，没有未ack的数据并且阻碍其他客户端回收空间时自动注销，下次使用时从reclaimSequence重新开始
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:52:12
+ * @version 1.0.22
+ */
+public class MemoryEventStoreWithMultiCursor extends AbstractCanalStoreScavenge implements CanalMultiCursorEventStore<Event>, CanalStoreScavenge {
+
+    private static final Logger               logger             = LoggerFactory.getLogger(MemoryEventStoreWithMultiCursor.class);
+    private static final long                 INIT_SQEUENCE      = -1;
+    private static final ClientIdentity       DEFAULT_CLIENT     = new ClientIdentity("", (short) 0);
+    private int                               bufferSize         = 16 * 1024;
+    private int                               bufferMemUnit      = 1024;                                                           // memsize的单位，默认为1kb大小
+    private int                               indexMask;
+    private Event[]                           entries;
+
+    // put操作只有一个游标，get/ack游标按客户端区分
+    private long                              putSequence        = INIT_SQEUENCE;
+    private long                              putMemSize         = 0;
+    // 所有客户端中最小的ack位置，该位置之前的数据已经可以被覆盖
+    private long                              reclaimSequence    = INIT_SQEUENCE;
+    private long                              reclaimMemSize     = 0;
+    private Map<ClientIdentity, ClientCursor> cursors            = new LinkedHashMap<ClientIdentity, ClientCursor>();
+    private Set<ClientIdentity>               evictedClients     = new HashSet<ClientIdentity>();
+
+    // 阻塞put/get操作控制信号，所有游标都在lock保护下修改
+    private ReentrantLock                     lock               = new ReentrantLock();
+    private Condition                         notFull            = lock.newCondition();
+    private Condition                         notEmpty           = lock.newCondition();
+
+    private BatchMode                         batchMode          = BatchMode.ITEMSIZE;
+    private SlowConsumerPolicy                slowConsumerPolicy = SlowConsumerPolicy.BLOCK;
+    private boolean                           ddlIsolation       = false;
+
+    public MemoryEventStoreWithMultiCursor(){
+
+    }
+
+    public MemoryEventStoreWithMultiCursor(BatchMode batchMode){
+        this.batchMode = batchMode;
+    }
+
+    public void start() throws CanalStoreException {
+        super.start();
+        if (Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+
+        indexMask = bufferSize - 1;
+        entries = new Event[bufferSize];
+    }
+
+    public void stop() throws CanalStoreException {
+        super.stop();
+
+        cleanAll();
+    }
+
+    // ================== subscribe ==================
+
+    public void subscribe(ClientIdentity clientIdentity) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (evictedClients.remove(clientIdentity)) {
+                logger.warn("client:{} resubscribe after evicted, restart from sequence:{}",
+                    clientIdentity,
+                    reclaimSequence);
+            }
+            getCursor(clientIdentity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void unsubscribe(ClientIdentity clientIdentity) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            evictedClients.remove(clientIdentity);
+            if (cursors.remove(clientIdentity) != null) {
+                reclaim();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ================== put ==================
+
+    public void put(List<Event> data) throws InterruptedException, CanalStoreException {
+        if (data == null || data.isEmpty()) {
+            return;
+        }
+
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            try {
+                while (!checkFreeSlotAt(putSequence + data.size())) { // 检查是否有空位
+                    notFull.await(); // wait until not full
+                }
+            } catch (InterruptedException ie) {
+                notFull.signal(); // propagate to non-interrupted thread
+                throw ie;
+            }
+            doPut(data);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean put(List<Event> data, long timeout, TimeUnit unit) throws InterruptedException, CanalStoreException {
+        if (data == null || data.isEmpty()) {
+            return true;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                if (checkFreeSlotAt(putSequence + data.size())) {
+                    doPut(data);
+                    return true;
+                }
+                if (nanos <= 0) {
+                    return false;
+                }
+
+                try {
+                    nanos = notFull.awaitNanos(nanos);
+                } catch (InterruptedException ie) {
+                    notFull.signal(); // propagate to non-interrupted thread
+                    throw ie;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryPut(List<Event> data) throws CanalStoreException {
+        if (data == null || data.isEmpty()) {
+            return true;
+        }
+
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (!checkFreeSlotAt(putSequence + data.size())) {
+                return false;
+            } else {
+                doPut(data);
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(Event data) throws InterruptedException, CanalStoreException {
+        put(Arrays.asList(data));
+    }
+
+    public boolean put(Event data, long timeout, TimeUnit unit) throws InterruptedException, CanalStoreException {
+        return put(Arrays.asList(data), timeout, unit);
+    }
+
+    public boolean tryPut(Event data) throws CanalStoreException {
+        return tryPut(Arrays.asList(data));
+    }
+
+    /**
+     * 执行具体的put操作
+     */
+    private void doPut(List<Event> data) {
+        long current = putSequence;
+        long end = current + data.size();
+
+        for (long next = current + 1; next <= end; next++) {
+            entries[getIndex(next)] = data.get((int) (next - current - 1));
+        }
+
+        putSequence = end;
+
+        if (batchMode.isMemSize()) {
+            long size = 0;
+            for (Event event : data) {
+                size += calculateSize(event);
+            }
+
+            putMemSize += size;
+        }
+
+        // 可能有多个客户端在等待数据
+        notEmpty.signalAll();
+        notifyPut();
+    }
+
+    // ================== get ==================
+
+    public Events<Event> get(Position start, int batchSize) throws InterruptedException, CanalStoreException {
+        return get(DEFAULT_CLIENT, start, batchSize);
+    }
+
+    public Events<Event> get(Position start, int batchSize, long timeout, TimeUnit unit) throws InterruptedException,
+                                                                                        CanalStoreException {
+        return get(DEFAULT_CLIENT, start, batchSize, timeout, unit);
+    }
+
+    public Events<Event> tryGet(Position start, int batchSize) throws CanalStoreException {
+        return tryGet(DEFAULT_CLIENT, start, batchSize);
+    }
+
+    public Events<Event> get(ClientIdentity clientIdentity, Position start, int batchSize)
+                                                                                          throws InterruptedException,
+                                                                                          CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            try {
+                // 每次唤醒后重新获取游标，等待期间可能已经被踢掉
+                while (!checkUnGetSlotAt(getCursor(clientIdentity), (LogPosition) start, batchSize))
+                    notEmpty.await();
+            } catch (InterruptedException ie) {
+                notEmpty.signal(); // propagate to non-interrupted thread
+                throw ie;
+            }
+
+            return doGet(getCursor(clientIdentity), start, batchSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Events<Event> get(ClientIdentity clientIdentity, Position start, int batchSize, long timeout, TimeUnit unit)
+                                                                                                                     throws InterruptedException,
+                                                                                                                     CanalStoreException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                ClientCursor cursor = getCursor(clientIdentity);
+                if (checkUnGetSlotAt(cursor, (LogPosition) start, batchSize)) {
+                    return doGet(cursor, start, batchSize);
+                }
+
+                if (nanos <= 0) {
+                    // 如果时间到了，有多少取多少
+                    return doGet(cursor, start, batchSize);
+                }
+
+                try {
+                    nanos = notEmpty.awaitNanos(nanos);
+                } catch (InterruptedException ie) {
+                    notEmpty.signal(); // propagate to non-interrupted thread
+                    throw ie;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Events<Event> tryGet(ClientIdentity clientIdentity, Position start, int batchSize)
+                                                                                             throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return doGet(getCursor(clientIdentity), start, batchSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Events<Event> doGet(ClientCursor cursor, Position start, int batchSize) throws CanalStoreException {
+        LogPosition startPosition = (LogPosition) start;
+
+        long current = cursor.getSequence;
+        long maxAbleSequence = putSequence;
+        long next = current;
+        long end = current;
+        // 如果startPosition为null，说明是第一次，默认+1处理
+        if (startPosition == null || !startPosition.getPostion().isIncluded()) { // 第一次订阅之后，需要包含一下start位置，防止丢失第一条记录
+            next = next + 1;
+        }
+
+        if (current >= maxAbleSequence) {
+            return new Events<Event>();
+        }
+
+        Events<Event> result = new Events<Event>();
+        List<Event> entrys = result.getEvents();
+        long memsize = 0;
+        if (batchMode.isItemSize()) {
+            end = (next + batchSize - 1) < maxAbleSequence ? (next + batchSize - 1) : maxAbleSequence;
+            for (; next <= end; next++) {
+                Event event = entries[getIndex(next)];
+                if (ddlIsolation && isDdl(event.getHeader().getEventType())) {
+                    // 如果是ddl隔离，直接返回
+                    if (entrys.size() == 0) {
+                        entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
+                        end = next; // 更新end为当前
+                    } else {
+                        // 如果之前已经有DML事件，直接返回了，因为不包含当前next这记录，需要回退一个位置
+                        end = next - 1; // next-1一定大于current，不需要判断
+                    }
+                    break;
+                } else {
+                    entrys.add(event);
+                    memsize += calculateSize(event);
+                }
+            }
+        } else {
+            long maxMemSize = batchSize * bufferMemUnit;
+            for (; memsize <= maxMemSize && next <= maxAbleSequence; next++) {
+                // 永远保证可以取出第一条的记录，避免死锁
+                Event event = entries[getIndex(next)];
+                if (ddlIsolation && isDdl(event.getHeader().getEventType())) {
+                    // 如果是ddl隔离，直接返回
+                    if (entrys.size() == 0) {
+                        entrys.add(event);// 如果没有DML事件，加入当前的DDL事件
+                        end = next; // 更新end为当前
+                    } else {
+                        // 如果之前已经有DML事件，直接返回了，因为不包含当前next这记录，需要回退一个位置
+                        end = next - 1; // next-1一定大于current，不需要判断
+                    }
+                    break;
+                } else {
+                    entrys.add(event);
+                    memsize += calculateSize(event);
+                    end = next;// 记录end位点
+                }
+            }
+        }
+
+        PositionRange<LogPosition> range = new PositionRange<LogPosition>();
+        result.setPositionRange(range);
+
+        range.setStart(CanalEventUtils.createPosition(entrys.get(0)));
+        range.setEnd(CanalEventUtils.createPosition(entrys.get(result.getEvents().size() - 1)));
+
+        // 记录一下是否存在可以被ack的点
+        for (int i = entrys.size() - 1; i >= 0; i--) {
+            Event event = entrys.get(i);
+            if (CanalEntry.EntryType.TRANSACTIONBEGIN == event.getEntryType()
+                || CanalEntry.EntryType.TRANSACTIONEND == event.getEntryType()
+                || isDdl(event.getHeader().getEventType())) {
+                // 将事务头/尾设置可被为ack的点
+                range.setAck(CanalEventUtils.createPosition(event));
+                break;
+            }
+        }
+
+        cursor.getSequence = end;
+        if (batchMode.isMemSize()) {
+            cursor.getMemSize += memsize;
+        }
+        return result;
+    }
+
+    // ================== position ==================
+
+    /**
+     * store中保留的第一条数据，即新注册的客户端开始消费的位置
+     */
+    public LogPosition getFirstPosition() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return getFirstPosition(reclaimSequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LogPosition getFirstPosition(ClientIdentity clientIdentity) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return getFirstPosition(getCursor(clientIdentity).ackSequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private LogPosition getFirstPosition(long firstSeqeuence) {
+        if (firstSeqeuence == INIT_SQEUENCE && firstSeqeuence < putSequence) {
+            // 没有ack过数据
+            Event event = entries[getIndex(firstSeqeuence + 1)]; // 最后一次ack为-1，需要移动到下一条,included = false
+            return CanalEventUtils.createPosition(event, false);
+        } else if (firstSeqeuence > INIT_SQEUENCE && firstSeqeuence < putSequence) {
+            // ack未追上put操作
+            Event event = entries[getIndex(firstSeqeuence + 1)]; // 最后一次ack的位置数据 + 1
+            return CanalEventUtils.createPosition(event, true);
+        } else if (firstSeqeuence > INIT_SQEUENCE && firstSeqeuence == putSequence) {
+            // 已经追上，store中没有数据
+            Event event = entries[getIndex(firstSeqeuence)]; // 最后一次ack的位置数据，和last为同一条，included = false
+            return CanalEventUtils.createPosition(event, false);
+        } else {
+            // 没有任何数据
+            return null;
+        }
+    }
+
+    public LogPosition getLatestPosition() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (putSequence > INIT_SQEUENCE && putSequence != reclaimSequence) {
+                Event event = entries[getIndex(putSequence)]; // 最后一次写入的数据，最后一条未消费的数据
+                return CanalEventUtils.createPosition(event, true);
+            } else if (putSequence > INIT_SQEUENCE && putSequence == reclaimSequence) {
+                // 所有客户端都已经ack
+                Event event = entries[getIndex(putSequence)]; // 最后一次写入的数据，included = false
+                return CanalEventUtils.createPosition(event, false);
+            } else {
+                // 没有任何数据
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ================== ack / rollback ==================
+
+    public void ack(Position position) throws CanalStoreException {
+        ack(DEFAULT_CLIENT, position);
+    }
+
+    public void cleanUntil(Position position) throws CanalStoreException {
+        ack(DEFAULT_CLIENT, position);
+    }
+
+    /**
+     * 每个客户端ack时已经按照最慢的cursor回收，不需要额外处理
+     */
+    protected void scavengeUntil(Position position) {
+    }
+
+    public void ack(ClientIdentity clientIdentity, Position position) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            ClientCursor cursor = getCursor(clientIdentity);
+            long memsize = 0;
+            for (long next = cursor.ackSequence + 1; next <= cursor.getSequence; next++) {
+                Event event = entries[getIndex(next)];
+                memsize += calculateSize(event);
+                if (CanalEventUtils.checkPosition(event, (LogPosition) position)) {
+                    // 找到对应的position，更新该客户端的ack seq
+                    cursor.ackSequence = next;
+                    if (batchMode.isMemSize()) {
+                        cursor.ackMemSize += memsize;
+                    }
+                    reclaim();
+                    return;
+                }
+            }
+
+            throw new CanalStoreException("no match ack position" + position.toString());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void rollback() throws CanalStoreException {
+        rollback(DEFAULT_CLIENT);
+    }
+
+    public void rollback(ClientIdentity clientIdentity) throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            ClientCursor cursor = getCursor(clientIdentity);
+            cursor.getSequence = cursor.ackSequence;
+            cursor.getMemSize = cursor.ackMemSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cleanAll() throws CanalStoreException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            putSequence = INIT_SQEUENCE;
+            putMemSize = 0;
+            reclaimSequence = INIT_SQEUENCE;
+            reclaimMemSize = 0;
+            cursors.clear();
+            evictedClients.clear();
+            entries = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =================== helper method =================
+
+    /**
+     * 获取客户端游标，不存在时从reclaimSequence开始创建. 被踢掉的客户端需要重新subscribe
+     */
+    private ClientCursor getCursor(ClientIdentity clientIdentity) {
+        ClientCursor cursor = cursors.get(clientIdentity);
+        if (cursor == null) {
+            if (evictedClients.contains(clientIdentity)) {
+                throw new CanalStoreException(String.format("client:%s is evicted as slow consumer, please subscribe again",
+                    clientIdentity));
+            }
+
+            cursor = new ClientCursor(reclaimSequence, reclaimMemSize);
+            cursors.put(clientIdentity, cursor);
+        }
+        return cursor;
+    }
+
+    /**
+     * 根据所有客户端的最小ack位置推进reclaimSequence，释放之前的数据. 没有任何客户端时保留所有数据
+     */
+    private void reclaim() {
+        releaseIdleDefaultCursor();
+        if (cursors.isEmpty()) {
+            return;
+        }
+
+        long minSequence = Long.MAX_VALUE;
+        long minMemSize = 0;
+        for (ClientCursor cursor : cursors.values()) {
+            if (cursor.ackSequence < minSequence) {
+                minSequence = cursor.ackSequence;
+                minMemSize = cursor.ackMemSize;
+            }
+        }
+
+        if (minSequence > reclaimSequence) {
+            // 保留reclaimSequence对应的数据，用于计算position
+            for (long index = reclaimSequence + 1; index < minSequence; index++) {
+                entries[getIndex(index)] = null;
+            }
+            reclaimSequence = minSequence;
+            reclaimMemSize = minMemSize;
+            notFull.signalAll();
+        }
+    }
+
+    /**
+     * 同时存在按ClientIdentity访问的客户端时，空闲的默认客户端不能阻碍空间回收
+     */
+    private void releaseIdleDefaultCursor() {
+        ClientCursor defaultCursor = cursors.get(DEFAULT_CLIENT);
+        if (defaultCursor == null || cursors.size() == 1 || defaultCursor.getSequence != defaultCursor.ackSequence) {
+            return;
+        }
+
+        for (Map.Entry<ClientIdentity, ClientCursor> entry : cursors.entrySet()) {
+            if (entry.getKey() != DEFAULT_CLIENT && entry.getValue().ackSequence <= defaultCursor.ackSequence) {
+                return; // 默认客户端不是最慢的，不影响回收
+            }
+        }
+
+        cursors.remove(DEFAULT_CLIENT);
+    }
+
+    /**
+     * 踢掉最慢的客户端，如果所有客户端的ack位置都一样则不处理
+     *
+     * @return true表示有客户端被踢掉
+     */
+    private boolean evictSlowest() {
+        long minSequence = Long.MAX_VALUE;
+        boolean hasFaster = false;
+        for (ClientCursor cursor : cursors.values()) {
+            if (minSequence != Long.MAX_VALUE && cursor.ackSequence != minSequence) {
+                hasFaster = true;
+            }
+            if (cursor.ackSequence < minSequence) {
+                minSequence = cursor.ackSequence;
+            }
+        }
+
+        if (!hasFaster) {
+            return false;
+        }
+
+        List<ClientIdentity> slowest = new ArrayList<ClientIdentity>();
+        for (Map.Entry<ClientIdentity, ClientCursor> entry : cursors.entrySet()) {
+            if (entry.getValue().ackSequence == minSequence) {
+                slowest.add(entry.getKey());
+            }
+        }
+
+        for (ClientIdentity clientIdentity : slowest) {
+            cursors.remove(clientIdentity);
+            evictedClients.add(clientIdentity);
+            logger.warn("client:{} is evicted as slow consumer, ack sequence:{} put sequence:{}", new Object[] {
+                    clientIdentity, minSequence, putSequence });
+        }
+
+        reclaim();
+        // 唤醒等待中的get，被踢掉的客户端会收到异常
+        notEmpty.signalAll();
+        return true;
+    }
+
+    /**
+     * 查询是否有空位--用于put，按照策略处理最慢的客户端
+     */
+    private boolean checkFreeSlotAt(final long sequence) {
+        if (hasFreeSlotAt(sequence)) {
+            return true;
+        }
+
+        if (slowConsumerPolicy.isEvict()) {
+            while (evictSlowest()) {
+                if (hasFreeSlotAt(sequence)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasFreeSlotAt(final long sequence) {
+        final long wrapPoint = sequence - bufferSize;
+        if (wrapPoint > reclaimSequence) { // 刚好追上一轮
+            return false;
+        } else {
+            // 在bufferSize模式上，再增加memSize控制
+            if (batchMode.isMemSize()) {
+                final long memsize = putMemSize - reclaimMemSize;
+                return memsize < bufferSize * bufferMemUnit;
+            } else {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 检查该客户端是否存在需要get的数据,并且数量>=batchSize---用于get
+     */
+    private boolean checkUnGetSlotAt(ClientCursor cursor, LogPosition startPosition, int batchSize) {
+        if (batchMode.isItemSize()) {
+            long current = cursor.getSequence;
+            long maxAbleSequence = putSequence;
+            long next = current;
+            if (startPosition == null || !startPosition.getPostion().isIncluded()) { // 第一次订阅之后，需要包含一下start位置，防止丢失第一条记录
+                next = next + 1;// 少一条数据
+            }
+
+            return current < maxAbleSequence && next + batchSize - 1 <= maxAbleSequence;
+        } else {
+            // 处理内存大小判断
+            return putMemSize - cursor.getMemSize >= batchSize * bufferMemUnit;
+        }
+    }
+
+    private long calculateSize(Event event) {
+        // binlog中的事件大小和store中实际保留的序列化数据取较大值，避免大字段/typed模式下低估内存
+        return Math.max(event.getHeader().getEventLength(), event.getRawEntry().size());
+    }
+
+    private int getIndex(long sequcnce) {
+        return (int) sequcnce & indexMask;
+    }
+
+    private boolean isDdl(EventType type) {
+        return type == EventType.ALTER || type == EventType.CREATE || type == EventType.ERASE
+               || type == EventType.RENAME || type == EventType.TRUNCATE || type == EventType.CINDEX
+               || type == EventType.DINDEX;
+    }
+
+    /**
+     * 单个客户端的get/ack游标，以及对应的累计memsize
+     */
+    private static class ClientCursor {
+
+        private long getSequence;
+        private long ackSequence;
+        private long getMemSize;
+        private long ackMemSize;
+
+        public ClientCursor(long sequence, long memSize){
+            this.getSequence = sequence;
+            this.ackSequence = sequence;
+            this.getMemSize = memSize;
+            this.ackMemSize = memSize;
+        }
+    }
+
+    // ================ setter / getter ==================
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setBufferMemUnit(int bufferMemUnit) {
+        this.bufferMemUnit = bufferMemUnit;
+    }
+
+    public void setBatchMode(BatchMode batchMode) {
+        this.batchMode = batchMode;
+    }
+
+    public void setDdlIsolation(boolean ddlIsolation) {
+        this.ddlIsolation = ddlIsolation;
+    }
+
+    public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+}
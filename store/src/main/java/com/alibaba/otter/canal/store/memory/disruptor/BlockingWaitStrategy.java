@@ -0,0 +1,65 @@
+package com.alibaba.otter.canal.store.memory.disruptor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于lock + condition的等待策略，cpu占用最低，适合对延迟不敏感的场景
+ * 
+ * <pre>
+ * 和原先的store实现不同，只有在存在等待线程时才会去获取锁进行signal，put/get的快速路径上不再需要获取锁
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:45:21
+ * @version 1.0.22
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+
+    private final ReentrantLock lock      = new ReentrantLock();
+    private final Condition     processed = lock.newCondition();
+    private final AtomicInteger waiters   = new AtomicInteger(0);
+
+    public long waitFor(SequenceBarrier barrier, long timeoutNanos) throws InterruptedException {
+        if (barrier.isAvailable()) {
+            return timeoutNanos;
+        }
+
+        long nanos = timeoutNanos;
+        lock.lockInterruptibly();
+        try {
+            // 先登记等待者再检查条件，和signalAllWhenBlocking中的先发布游标再检查等待者配合，避免丢失唤醒
+            waiters.incrementAndGet();
+            try {
+                while (!barrier.isAvailable()) {
+                    if (nanos <= 0) {
+                        return nanos;
+                    }
+
+                    if (nanos == Long.MAX_VALUE) {
+                        processed.await();
+                    } else {
+                        nanos = processed.awaitNanos(nanos);
+                    }
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return nanos;
+    }
+
+    public void signalAllWhenBlocking() {
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                processed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
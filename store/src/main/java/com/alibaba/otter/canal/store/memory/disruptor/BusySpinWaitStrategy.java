@@ -0,0 +1,29 @@
+package com.alibaba.otter.canal.store.memory.disruptor;
+
+/**
+ * 纯自旋的等待策略，延迟最低，但会一直占用一个cpu核，只适合独占cpu的部署
+ *
+ * @author agent 2026-10-18 上午04:45:21
+ * @version 1.0.22
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    public long waitFor(SequenceBarrier barrier, long timeoutNanos) throws InterruptedException {
+        long deadline = timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + timeoutNanos;
+        while (!barrier.isAvailable()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (deadline != Long.MAX_VALUE && deadline - System.nanoTime() <= 0) {
+                return 0;
+            }
+        }
+
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(deadline - System.nanoTime(), 1);
+    }
+
+    public void signalAllWhenBlocking() {
+        // do nothing
+    }
+}
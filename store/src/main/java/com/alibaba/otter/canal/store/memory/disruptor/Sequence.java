@@ -0,0 +1,68 @@
+package com.alibaba.otter.canal.store.memory.disruptor;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 带cache line填充的序号，避免put/get/ack几个游标之间出现伪共享(false sharing)
+ * 
+ * <pre>
+ * 参考disruptor的Sequence实现，通过继承层次保证value字段前后都有7个long的填充，jvm不会对父子类的字段进行重排
+ * </pre>
+ *
+ * @author agent 2026-10-18 上午04:45:21
+ * @version 1.0.22
+ */
+public class Sequence extends RhsPadding {
+
+    private static final AtomicLongFieldUpdater<Value> UPDATER = AtomicLongFieldUpdater.newUpdater(Value.class,
+                                                                   "value");
+
+    public Sequence(long initialValue){
+        UPDATER.set(this, initialValue);
+    }
+
+    public long get() {
+        return value;
+    }
+
+    /**
+     * volatile写，保证之前写入的ringBuffer槽位对读线程可见
+     */
+    public void set(long value) {
+        UPDATER.set(this, value);
+    }
+
+    /**
+     * 有序写(store-store屏障)，只用于不需要唤醒等待线程的场景
+     */
+    public void lazySet(long value) {
+        UPDATER.lazySet(this, value);
+    }
+
+    public boolean compareAndSet(long expect, long update) {
+        return UPDATER.compareAndSet(this, expect, update);
+    }
+
+    public long addAndGet(long increment) {
+        return UPDATER.addAndGet(this, increment);
+    }
+
+    public String toString() {
+        return Long.toString(get());
+    }
+}
+
+class LhsPadding {
+
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class Value extends LhsPadding {
+
+    protected volatile long value;
+}
+
+class RhsPadding extends Value {
+
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
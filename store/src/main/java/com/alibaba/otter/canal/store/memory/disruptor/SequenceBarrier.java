@@ -0,0 +1,15 @@
+package com.alibaba.otter.canal.store.memory.disruptor;
+
+/**
+ * 序号屏障，描述一个操作(put/get)继续推进所依赖的序号条件，比如put依赖于ack/get游标腾出空位，get依赖于put游标发布了足够的数据
+ *
+ * @author agent 2026-10-18 上午04:45:21
+ * @version 1.0.22
+ */
+public interface SequenceBarrier {
+
+    /**
+     * 判断依赖的序号是否已经满足，要求无锁并且没有副作用，会被{@linkplain WaitStrategy}反复调用
+     */
+    boolean isAvailable();
+}
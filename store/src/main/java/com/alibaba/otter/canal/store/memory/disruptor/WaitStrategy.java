@@ -0,0 +1,24 @@
+package com.alibaba.otter.canal.store.memory.disruptor;
+
+/**
+ * 等待{@linkplain SequenceBarrier}满足的策略
+ *
+ * @author agent 2026-10-18 上午04:45:21
+ * @version 1.0.22
+ */
+public interface WaitStrategy {
+
+    /**
+     * 等待barrier条件满足或者超时
+     * 
+     * @param barrier 需要等待的条件
+     * @param timeoutNanos 最长等待时间，{@linkplain Long#MAX_VALUE}代表一直等待
+     * @return 剩余的等待时间，小于等于0代表已经超时
+     */
+    long waitFor(SequenceBarrier barrier, long timeoutNanos) throws InterruptedException;
+
+    /**
+     * 游标发生变化后通知等待的线程，对于非阻塞的等待策略为空操作
+     */
+    void signalAllWhenBlocking();
+}
@@ -0,0 +1,32 @@
+package com.alibaba.otter.canal.store.memory.disruptor;
+
+/**
+ * 等待策略类型，方便通过spring配置字符串进行选择
+ *
+ * @author agent 2026-10-18 上午04:45:21
+ * @version 1.0.22
+ */
+public enum WaitStrategyType {
+
+    /** lock + condition */
+    BLOCKING,
+    /** 自旋 + yield */
+    YIELDING,
+    /** 纯自旋 */
+    BUSYSPIN;
+
+    public WaitStrategy newInstance() {
+        switch (this) {
+            case YIELDING:
+                return new YieldingWaitStrategy();
+            case BUSYSPIN:
+                return new BusySpinWaitStrategy();
+            default:
+                return new BlockingWaitStrategy();
+        }
+    }
+
+    public boolean isBlocking() {
+        return this == WaitStrategyType.BLOCKING;
+    }
+}
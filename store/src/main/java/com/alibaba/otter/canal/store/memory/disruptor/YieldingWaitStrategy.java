@@ -0,0 +1,38 @@
+package com.alibaba.otter.canal.store.memory.disruptor;
+
+/**
+ * 先自旋一定次数，再通过Thread.yield()让出cpu，在低延迟和cpu占用之间折中
+ *
+ * @author agent 2026-10-18 上午04:45:21
+ * @version 1.0.22
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_TRIES = 100;
+
+    public long waitFor(SequenceBarrier barrier, long timeoutNanos) throws InterruptedException {
+        long deadline = timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + timeoutNanos;
+        int counter = SPIN_TRIES;
+        while (!barrier.isAvailable()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (deadline != Long.MAX_VALUE && deadline - System.nanoTime() <= 0) {
+                return 0;
+            }
+
+            if (counter > 0) {
+                counter--;
+            } else {
+                Thread.yield();
+            }
+        }
+
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(deadline - System.nanoTime(), 1);
+    }
+
+    public void signalAllWhenBlocking() {
+        // do nothing
+    }
+}
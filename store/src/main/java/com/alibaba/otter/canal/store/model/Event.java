@@ -1,5 +1,8 @@
 package com.alibaba.otter.canal.store.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 import org.apache.commons.lang.builder.ToStringBuilder;
@@ -7,25 +10,41 @@ import org.apache.commons.lang.builder.ToStringBuilder;
 import com.alibaba.otter.canal.common.utils.CanalToStringStyle;
 import com.alibaba.otter.canal.protocol.CanalEntry;
 import com.alibaba.otter.canal.protocol.position.LogIdentity;
+import com.alibaba.otter.canal.store.CanalStoreException;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 
 /**
  * store存储数据对象
- * 
+ *
+ * <pre>
+ * entry在放入时只序列化一次，store中只保留序列化后的数据(rawEntry)以及header/entryType，
+ * server端直接将rawEntry写给客户端，不需要每次get都重新序列化；
+ * 需要完整entry时通过{@linkplain #getEntry()}重新解析
+ * </pre>
+ *
  * @author jianghang 2012-7-13 下午03:03:03
  */
 public class Event implements Serializable {
 
-    private static final long serialVersionUID = 1333330351758762739L;
+    private static final long                serialVersionUID = 1333330351758762739L;
 
-    private LogIdentity       logIdentity;                            // 记录数据产生的来源
-    private CanalEntry.Entry  entry;//事件对应的实体对象
+    private LogIdentity                      logIdentity;                            // 记录数据产生的来源
+    private transient ByteString             rawEntry;                               // entry序列化后的数据
+    private transient CanalEntry.Header      header;                                 // store/sink中的判断只需要header
+    private transient CanalEntry.EntryType   entryType;
 
     public Event(){
     }
 
     public Event(LogIdentity logIdentity, CanalEntry.Entry entry){
         this.logIdentity = logIdentity;
-        this.entry = entry;
+        setEntry(entry);
+    }
+
+    public Event(LogIdentity logIdentity, ByteString rawEntry){
+        this.logIdentity = logIdentity;
+        setRawEntry(rawEntry);
     }
 
     public LogIdentity getLogIdentity() {
@@ -36,15 +55,76 @@ public class Event implements Serializable {
         this.logIdentity = logIdentity;
     }
 
+    /**
+     * 每次调用都会从rawEntry重新解析，只在真正需要完整entry时使用，只需要header的场景使用{@linkplain #getHeader()}
+     */
     public CanalEntry.Entry getEntry() {
-        return entry;
+        if (rawEntry == null) {
+            return null;
+        }
+
+        try {
+            return CanalEntry.Entry.parseFrom(rawEntry);
+        } catch (InvalidProtocolBufferException e) {
+            throw new CanalStoreException("parse entry failed", e);
+        }
     }
 
     public void setEntry(CanalEntry.Entry entry) {
-        this.entry = entry;
+        if (entry == null) {
+            this.rawEntry = null;
+            this.header = null;
+            this.entryType = null;
+        } else {
+            this.rawEntry = entry.toByteString();
+            this.header = entry.getHeader();
+            this.entryType = entry.getEntryType();
+        }
+    }
+
+    public ByteString getRawEntry() {
+        return rawEntry;
+    }
+
+    public void setRawEntry(ByteString rawEntry) {
+        CanalEntry.Entry entry = null;
+        if (rawEntry != null) {
+            try {
+                entry = CanalEntry.Entry.parseFrom(rawEntry);
+            } catch (InvalidProtocolBufferException e) {
+                throw new CanalStoreException("parse entry failed", e);
+            }
+        }
+
+        this.rawEntry = rawEntry;
+        this.header = entry == null ? null : entry.getHeader();
+        this.entryType = entry == null ? null : entry.getEntryType();
+    }
+
+    public CanalEntry.Header getHeader() {
+        return header;
+    }
+
+    public CanalEntry.EntryType getEntryType() {
+        return entryType;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(rawEntry == null ? null : rawEntry.toByteArray());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        byte[] data = (byte[]) in.readObject();
+        setRawEntry(data == null ? null : ByteString.copyFrom(data));
     }
 
     public String toString() {
-        return ToStringBuilder.reflectionToString(this, CanalToStringStyle.DEFAULT_STYLE);
+        return new ToStringBuilder(this, CanalToStringStyle.DEFAULT_STYLE).append("logIdentity", logIdentity)
+            .append("entryType", entryType)
+            .append("header", header)
+            .append("rawEntrySize", rawEntry == null ? 0 : rawEntry.size())
+            .toString();
     }
 }
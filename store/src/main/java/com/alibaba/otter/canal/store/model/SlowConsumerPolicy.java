@@ -0,0 +1,24 @@
+package com.alibaba.otter.canal.store.model;
+
+/**
+ * 多客户端共享store时，最慢的客户端占满buffer之后的处理策略
+ *
+ * @author agent 2026-10-18 上午04:52:12
+ * @version 1.0.22
+ */
+public enum SlowConsumerPolicy {
+
+    /** 阻塞put，等待最慢的客户端ack */
+    BLOCK,
+
+    /** 踢掉最慢的客户端，释放其占用的空间 */
+    EVICT;
+
+    public boolean isBlock() {
+        return this == SlowConsumerPolicy.BLOCK;
+    }
+
+    public boolean isEvict() {
+        return this == SlowConsumerPolicy.EVICT;
+    }
+}
@@ -0,0 +1,86 @@
+package com.alibaba.otter.cancel.store.memory.buffer;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.store.file.FileEventStore;
+import com.alibaba.otter.canal.store.helper.CanalEventUtils;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 测试file模式下put直接写入段文件，以及段文件写满后的暂存和阻塞
+ */
+public class FileEventStoreTest extends MemoryEventStoreBase {
+
+    private File           dataDir;
+    private FileEventStore eventStore;
+
+    @Before
+    public void setUp() {
+        dataDir = new File(System.getProperty("java.io.tmpdir"), "canal_file_store_test");
+        eventStore = new FileEventStore();
+        eventStore.setDestination("example");
+        eventStore.setDataDir(dataDir.getPath());
+        eventStore.setBufferSize(16);
+        eventStore.setSegmentSize(4 * 1024);
+        eventStore.setMaxSegmentCount(4);
+    }
+
+    @After
+    public void tearDown() {
+        eventStore.stop();
+    }
+
+    @Test
+    public void testPutAndGet() {
+        eventStore.start();
+        int count = 10;
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, 1L + i)));
+        }
+        Assert.assertTrue(storeFileCount() > 0); // 未满bufferSize也直接写入磁盘
+
+        Position first = eventStore.getFirstPosition();
+        Assert.assertEquals(first, CanalEventUtils.createPosition(buildEvent("1", 0L, 1L), false));
+        Events<Event> events = eventStore.tryGet(first, count);
+        Assert.assertEquals(count, events.getEvents().size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, events.getEvents().get(i).getEntry().getHeader().getLogfileOffset());
+        }
+
+        eventStore.ack(events.getPositionRange().getEnd());
+        Assert.assertEquals(0, storeFileCount());
+    }
+
+    @Test
+    public void testSegmentFull() {
+        eventStore.setMaxSegmentCount(1);
+        eventStore.start();
+        int success = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (!eventStore.tryPut(buildEvent("1", i, 1L + i))) {
+                break;
+            }
+            success++;
+        }
+
+        Assert.assertTrue(success < 1000); // 段文件和暂存区都写满后拒绝写入
+        Assert.assertEquals(1, storeFileCount());
+
+        Events<Event> events = eventStore.tryGet(eventStore.getFirstPosition(), success);
+        Assert.assertEquals(success, events.getEvents().size());
+        eventStore.ack(events.getPositionRange().getEnd());
+        Assert.assertTrue(eventStore.tryPut(buildEvent("1", success, 1L + success)));
+    }
+
+    private int storeFileCount() {
+        File[] files = new File(new File(dataDir, "example"), "store").listFiles();
+        return files == null ? 0 : files.length;
+    }
+}
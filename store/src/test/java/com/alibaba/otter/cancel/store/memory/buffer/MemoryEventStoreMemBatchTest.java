@@ -9,6 +9,9 @@ import java.util.concurrent.TimeUnit;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.alibaba.otter.canal.protocol.CanalEntry.Entry;
+import com.alibaba.otter.canal.protocol.CanalEntry.Header;
+import com.alibaba.otter.canal.protocol.position.LogIdentity;
 import com.alibaba.otter.canal.protocol.position.Position;
 import com.alibaba.otter.canal.store.CanalStoreException;
 import com.alibaba.otter.canal.store.helper.CanalEventUtils;
@@ -16,6 +19,7 @@ import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
 import com.alibaba.otter.canal.store.model.BatchMode;
 import com.alibaba.otter.canal.store.model.Event;
 import com.alibaba.otter.canal.store.model.Events;
+import com.google.protobuf.ByteString;
 
 public class MemoryEventStoreMemBatchTest extends MemoryEventStoreBase {
 
@@ -91,6 +95,31 @@ public class MemoryEventStoreMemBatchTest extends MemoryEventStoreBase {
         eventStore.stop();
     }
 
+    @Test
+    public void testRawEntrySize() {
+        int bufferSize = 16;
+        MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.setBatchMode(BatchMode.MEMSIZE);
+        eventStore.start();
+
+        // binlog中的事件很小，但序列化后的entry有4k，按照实际保留的大小计算memsize
+        Entry entry = Entry.newBuilder()
+            .setHeader(Header.newBuilder().setLogfileName("1").setLogfileOffset(1L).setExecuteTime(1L).setEventLength(1))
+            .setStoreValue(ByteString.copyFrom(new byte[4096]))
+            .build();
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(eventStore.tryPut(new Event(new LogIdentity(), entry)));
+        }
+        Assert.assertFalse(eventStore.tryPut(new Event(new LogIdentity(), entry)));
+
+        Position first = eventStore.getFirstPosition();
+        Events<Event> events = eventStore.tryGet(first, 1);
+        Assert.assertEquals(entry.toByteString(), events.getEvents().get(0).getRawEntry());
+        Assert.assertEquals(entry, events.getEvents().get(0).getEntry());
+        eventStore.stop();
+    }
+
     @Test
     public void testOnePutOneGet() {
         MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
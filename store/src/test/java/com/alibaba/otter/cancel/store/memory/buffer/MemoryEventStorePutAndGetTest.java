@@ -3,12 +3,14 @@ package com.alibaba.otter.cancel.store.memory.buffer;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.alibaba.otter.canal.protocol.position.Position;
 import com.alibaba.otter.canal.store.CanalStoreException;
+import com.alibaba.otter.canal.store.CanalStoreListener;
 import com.alibaba.otter.canal.store.helper.CanalEventUtils;
 import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
 import com.alibaba.otter.canal.store.model.Event;
@@ -47,6 +49,39 @@ public class MemoryEventStorePutAndGetTest extends MemoryEventStoreBase {
         eventStore.stop();
     }
 
+    @Test
+    public void testPutListener() {
+        int bufferSize = 16;
+        MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.start();
+
+        final AtomicInteger count = new AtomicInteger(0);
+        CanalStoreListener listener = new CanalStoreListener() {
+
+            public void onPut() {
+                count.incrementAndGet();
+            }
+        };
+        eventStore.addListener(listener);
+
+        for (int i = 0; i < bufferSize - 1; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+        Assert.assertEquals(bufferSize - 1, count.get());
+
+        // 移除之后不再通知
+        eventStore.removeListener(listener);
+        Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, bufferSize)));
+        Assert.assertEquals(bufferSize - 1, count.get());
+
+        // 写入失败时不通知
+        eventStore.addListener(listener);
+        Assert.assertFalse(eventStore.tryPut(buildEvent("1", 1L, 1L + bufferSize)));
+        Assert.assertEquals(bufferSize - 1, count.get());
+        eventStore.stop();
+    }
+
     @Test
     public void testFullPut() {
         int bufferSize = 16;
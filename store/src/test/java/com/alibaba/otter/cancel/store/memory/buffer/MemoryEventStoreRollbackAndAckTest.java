@@ -2,6 +2,7 @@ package com.alibaba.otter.cancel.store.memory.buffer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -9,6 +10,7 @@ import org.junit.Test;
 import com.alibaba.otter.canal.protocol.position.Position;
 import com.alibaba.otter.canal.store.helper.CanalEventUtils;
 import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithBuffer;
+import com.alibaba.otter.canal.store.model.BatchMode;
 import com.alibaba.otter.canal.store.model.Event;
 import com.alibaba.otter.canal.store.model.Events;
 
@@ -138,4 +140,86 @@ public class MemoryEventStoreRollbackAndAckTest extends MemoryEventStoreBase {
         eventStore.stop();
     }
 
+    @Test
+    public void testWatermark() {
+        int bufferSize = 16;
+        final AtomicInteger scavenges = new AtomicInteger(0);
+        MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer() {
+
+            public void scavenge() {
+                scavenges.incrementAndGet();
+            }
+        };
+        eventStore.setBufferSize(bufferSize);
+        eventStore.setOnFull(true);
+        eventStore.setScavengeWatermark(50);
+        eventStore.start();
+
+        // 未达到watermark
+        for (int i = 0; i < bufferSize / 2 - 1; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+        sleep(100L);
+        Assert.assertEquals(0, scavenges.get());
+
+        // 达到watermark，触发一次回收
+        Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + bufferSize / 2 - 1)));
+        sleep(100L);
+        Assert.assertEquals(1, scavenges.get());
+
+        // 全部ack之后，继续put/get/ack绕过buffer两圈，使用量一直低于watermark，不会再触发
+        Events<Event> events = eventStore.tryGet(null, bufferSize);
+        Assert.assertEquals(bufferSize / 2, events.getEvents().size());
+        eventStore.ack(events.getPositionRange().getEnd());
+        for (int i = bufferSize / 2; i < bufferSize * 2 + bufferSize / 2; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+            events = eventStore.tryGet(null, bufferSize);
+            Assert.assertEquals(1, events.getEvents().size());
+            eventStore.ack(events.getPositionRange().getEnd());
+        }
+        sleep(100L);
+        Assert.assertEquals(1, scavenges.get());
+        eventStore.stop();
+    }
+
+    @Test
+    public void testMemSizeWatermark() {
+        int bufferSize = 16;
+        final AtomicInteger scavenges = new AtomicInteger(0);
+        MemoryEventStoreWithBuffer eventStore = new MemoryEventStoreWithBuffer(BatchMode.MEMSIZE) {
+
+            public void scavenge() {
+                scavenges.incrementAndGet();
+            }
+        };
+        eventStore.setBufferSize(bufferSize);
+        eventStore.setBufferMemUnit(1024);
+        eventStore.setOnFull(true);
+        eventStore.setScavengeWatermark(50);
+        eventStore.start();
+
+        // 每条2kb，4条达到16kb的50%
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i, 2048)));
+        }
+        sleep(100L);
+        Assert.assertEquals(0, scavenges.get());
+
+        Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 4L, 2048)));
+        sleep(100L);
+        Assert.assertEquals(1, scavenges.get());
+
+        // ack之后内存降下来，不会再触发
+        Events<Event> events = eventStore.tryGet(null, bufferSize);
+        Assert.assertEquals(4, events.getEvents().size());
+        eventStore.ack(events.getPositionRange().getEnd());
+        for (int i = 0; i < bufferSize * 2; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 5L + i, 2048)));
+            events = eventStore.tryGet(null, 1);
+            eventStore.ack(events.getPositionRange().getEnd());
+        }
+        sleep(100L);
+        Assert.assertEquals(1, scavenges.get());
+        eventStore.stop();
+    }
 }
@@ -0,0 +1,185 @@
+package com.alibaba.otter.cancel.store.memory.buffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.store.helper.CanalEventUtils;
+import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithDisruptor;
+import com.alibaba.otter.canal.store.memory.disruptor.WaitStrategyType;
+import com.alibaba.otter.canal.store.model.BatchMode;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 测试disruptor模式下的put/get/ack，以及多生产者下的数据完整性
+ */
+public class MemoryEventStoreWithDisruptorTest extends MemoryEventStoreBase {
+
+    @Test
+    public void testFullPutBatchGetAck() {
+        int bufferSize = 16;
+        MemoryEventStoreWithDisruptor eventStore = new MemoryEventStoreWithDisruptor();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.start();
+
+        for (int i = 0; i < bufferSize; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+        Assert.assertFalse(eventStore.tryPut(buildEvent("1", 1L, 1L + bufferSize)));
+
+        Position first = eventStore.getFirstPosition();
+        Position lastest = eventStore.getLatestPosition();
+        Assert.assertEquals(first, CanalEventUtils.createPosition(buildEvent("1", 1L, 1L)));
+        Assert.assertEquals(lastest, CanalEventUtils.createPosition(buildEvent("1", 1L, 1L + bufferSize - 1)));
+
+        Events<Event> entrys = eventStore.tryGet(first, bufferSize);
+        Assert.assertEquals(bufferSize, entrys.getEvents().size());
+        Assert.assertEquals(first, entrys.getPositionRange().getStart());
+        Assert.assertEquals(lastest, entrys.getPositionRange().getEnd());
+
+        eventStore.ack(entrys.getPositionRange().getEnd());
+        Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + bufferSize)));
+        eventStore.stop();
+    }
+
+    @Test
+    public void testRollback() {
+        MemoryEventStoreWithDisruptor eventStore = new MemoryEventStoreWithDisruptor(BatchMode.MEMSIZE);
+        eventStore.setBufferSize(16);
+        eventStore.start();
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", 1L, 1L + i)));
+        }
+
+        Position first = eventStore.getFirstPosition();
+        Events<Event> entrys1 = eventStore.tryGet(first, 2);
+        Assert.assertFalse(entrys1.getEvents().isEmpty());
+        eventStore.rollback();
+        Events<Event> entrys2 = eventStore.tryGet(first, 2);
+        Assert.assertEquals(entrys1.getPositionRange(), entrys2.getPositionRange());
+        eventStore.stop();
+    }
+
+    @Test
+    public void testMemSizeMultiProducer() throws Exception {
+        final int producerCount = 8;
+        final MemoryEventStoreWithDisruptor eventStore = new MemoryEventStoreWithDisruptor(BatchMode.MEMSIZE);
+        eventStore.setBufferSize(64);
+        eventStore.setBufferMemUnit(1024);
+        eventStore.start();
+
+        // 每条4kb，内存上限64kb，最多只能放入16条
+        ExecutorService executor = Executors.newFixedThreadPool(producerCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(producerCount);
+        final AtomicInteger success = new AtomicInteger(0);
+        for (int i = 0; i < producerCount; i++) {
+            final int producer = i;
+            executor.submit(new Runnable() {
+
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < 20; j++) {
+                            if (eventStore.tryPut(buildEvent(String.valueOf(producer), j, 1L, 4096))) {
+                                success.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+
+        start.countDown();
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        Assert.assertEquals(16, success.get());
+        Events<Event> events = eventStore.tryGet(eventStore.getFirstPosition(), 1024);
+        Assert.assertEquals(16, events.getEvents().size());
+        eventStore.stop();
+    }
+
+    @Test
+    public void testMultiProducer() throws Exception {
+        testMultiProducer(WaitStrategyType.BLOCKING);
+        testMultiProducer(WaitStrategyType.YIELDING);
+        testMultiProducer(WaitStrategyType.BUSYSPIN);
+    }
+
+    private void testMultiProducer(WaitStrategyType waitStrategyType) throws Exception {
+        final int producerCount = 4;
+        final int eventCount = 5000;
+        final MemoryEventStoreWithDisruptor eventStore = new MemoryEventStoreWithDisruptor();
+        eventStore.setBufferSize(64);
+        eventStore.setWaitStrategyType(waitStrategyType);
+        eventStore.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producerCount);
+        final CountDownLatch latch = new CountDownLatch(producerCount);
+        for (int i = 0; i < producerCount; i++) {
+            final int producer = i;
+            executor.submit(new Runnable() {
+
+                public void run() {
+                    try {
+                        for (int j = 0; j < eventCount; j++) {
+                            eventStore.put(buildEvent(String.valueOf(producer), j, 1L));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+
+        List<Long> result = new ArrayList<Long>();
+        Position position = null;
+        while (result.size() < producerCount * eventCount) {
+            if (position == null) {
+                position = eventStore.getFirstPosition();
+                if (position == null) {
+                    continue;
+                }
+            }
+
+            Events<Event> events = eventStore.get(position, 10, 100, TimeUnit.MILLISECONDS);
+            if (events.getEvents().isEmpty()) {
+                continue;
+            }
+
+            for (Event event : events.getEvents()) {
+                result.add(Long.valueOf(event.getEntry().getHeader().getLogfileName()) * eventCount
+                           + event.getEntry().getHeader().getLogfileOffset());
+            }
+            position = events.getPositionRange().getEnd();
+            eventStore.ack(position);
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        Collections.sort(result);
+        for (int i = 0; i < result.size(); i++) {
+            Assert.assertEquals(i, result.get(i).longValue()); // 不丢不重
+        }
+        eventStore.stop();
+    }
+}
@@ -0,0 +1,124 @@
+package com.alibaba.otter.cancel.store.memory.buffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.store.CanalStoreException;
+import com.alibaba.otter.canal.store.memory.MemoryEventStoreWithMultiCursor;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+import com.alibaba.otter.canal.store.model.SlowConsumerPolicy;
+
+/**
+ * 测试多客户端独立游标的get/ack/rollback，以及最慢客户端的处理策略
+ */
+public class MemoryEventStoreWithMultiCursorTest extends MemoryEventStoreBase {
+
+    private ClientIdentity client1 = new ClientIdentity("example", (short) 1001);
+    private ClientIdentity client2 = new ClientIdentity("example", (short) 1002);
+
+    @Test
+    public void testIndependentCursor() {
+        int bufferSize = 16;
+        MemoryEventStoreWithMultiCursor eventStore = new MemoryEventStoreWithMultiCursor();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.start();
+        eventStore.subscribe(client1);
+        eventStore.subscribe(client2);
+
+        for (int i = 0; i < bufferSize; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, 1L + i)));
+        }
+
+        Position first = eventStore.getFirstPosition();
+        Events<Event> events1 = eventStore.tryGet(client1, first, bufferSize);
+        Assert.assertEquals(bufferSize, events1.getEvents().size());
+        Events<Event> events2 = eventStore.tryGet(client2, first, 4);
+        Assert.assertEquals(4, events2.getEvents().size());
+        Assert.assertEquals(events1.getPositionRange().getStart(), events2.getPositionRange().getStart());
+
+        // client1全部ack，client2只ack了4条，只能释放4个空位
+        eventStore.ack(client1, events1.getPositionRange().getEnd());
+        eventStore.ack(client2, events2.getPositionRange().getEnd());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", bufferSize + i, 1L + bufferSize + i)));
+        }
+        Assert.assertFalse(eventStore.tryPut(buildEvent("1", bufferSize + 4, 1L + bufferSize + 4)));
+
+        // client2 rollback之后从自己的ack位置重新获取
+        Events<Event> events3 = eventStore.tryGet(client2, null, 2);
+        eventStore.rollback(client2);
+        Events<Event> events4 = eventStore.tryGet(client2, null, 2);
+        Assert.assertEquals(events3.getPositionRange(), events4.getPositionRange());
+        Assert.assertEquals(4L, events4.getEvents().get(0).getEntry().getHeader().getLogfileOffset());
+
+        // 注销client2之后，空间按照client1回收
+        eventStore.unsubscribe(client2);
+        Assert.assertTrue(eventStore.tryPut(buildEvent("1", bufferSize + 4, 1L + bufferSize + 4)));
+        eventStore.stop();
+    }
+
+    @Test
+    public void testIdleDefaultCursor() {
+        int bufferSize = 16;
+        MemoryEventStoreWithMultiCursor eventStore = new MemoryEventStoreWithMultiCursor();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.start();
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, 1L + i)));
+        }
+
+        // 不带ClientIdentity的接口使用默认客户端
+        Events<Event> events = eventStore.tryGet(eventStore.getFirstPosition(), 4);
+        eventStore.ack(events.getPositionRange().getEnd());
+
+        eventStore.subscribe(client1);
+        for (int i = 4; i < bufferSize + 4; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, 1L + i)));
+            Events<Event> events1 = eventStore.tryGet(client1, null, 1);
+            eventStore.ack(client1, events1.getPositionRange().getEnd());
+        }
+
+        // 空闲的默认客户端不会阻碍client1回收空间
+        for (int i = bufferSize + 4; i < bufferSize * 2; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, 1L + i)));
+        }
+        eventStore.stop();
+    }
+
+    @Test
+    public void testEvictSlowConsumer() {
+        int bufferSize = 16;
+        MemoryEventStoreWithMultiCursor eventStore = new MemoryEventStoreWithMultiCursor();
+        eventStore.setBufferSize(bufferSize);
+        eventStore.setSlowConsumerPolicy(SlowConsumerPolicy.EVICT);
+        eventStore.start();
+        eventStore.subscribe(client1);
+        eventStore.subscribe(client2);
+
+        for (int i = 0; i < bufferSize; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, 1L + i)));
+        }
+
+        Events<Event> events = eventStore.tryGet(client1, eventStore.getFirstPosition(), bufferSize);
+        eventStore.ack(client1, events.getPositionRange().getEnd());
+
+        // client2没有任何ack，被踢掉后put成功
+        Assert.assertTrue(eventStore.tryPut(buildEvent("1", bufferSize, 1L + bufferSize)));
+        try {
+            eventStore.tryGet(client2, null, 1);
+            Assert.fail();
+        } catch (CanalStoreException e) {
+            // expected
+        }
+
+        // 重新订阅之后从store中保留的第一条开始消费
+        eventStore.subscribe(client2);
+        events = eventStore.tryGet(client2, null, 1);
+        Assert.assertEquals(bufferSize, events.getEvents().get(0).getEntry().getHeader().getLogfileOffset());
+        eventStore.stop();
+    }
+}
@@ -0,0 +1,117 @@
+package com.alibaba.otter.cancel.store.memory.buffer;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.otter.canal.protocol.ClientIdentity;
+import com.alibaba.otter.canal.protocol.position.Position;
+import com.alibaba.otter.canal.store.helper.CanalEventUtils;
+import com.alibaba.otter.canal.store.file.MemoryEventStoreWithSpill;
+import com.alibaba.otter.canal.store.model.Event;
+import com.alibaba.otter.canal.store.model.Events;
+
+/**
+ * 测试内存写满后溢出到磁盘段文件，以及ack后段文件的回收
+ */
+public class MemoryEventStoreWithSpillTest extends MemoryEventStoreBase {
+
+    private File                      dataDir;
+    private MemoryEventStoreWithSpill eventStore;
+
+    @Before
+    public void setUp() {
+        dataDir = new File(System.getProperty("java.io.tmpdir"), "canal_spill_test");
+        eventStore = new MemoryEventStoreWithSpill();
+        eventStore.setDestination("example");
+        eventStore.setDataDir(dataDir.getPath());
+        eventStore.setBufferSize(16);
+        eventStore.setSegmentSize(4 * 1024);
+        eventStore.setMaxSegmentCount(4);
+        eventStore.start();
+    }
+
+    @After
+    public void tearDown() {
+        eventStore.stop();
+    }
+
+    @Test
+    public void testSpillAndGet() {
+        int count = 100;
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, 1L + i)));
+        }
+        Assert.assertTrue(storeFileCount() > 0); // 超过bufferSize的部分已经写入磁盘
+
+        Position first = eventStore.getFirstPosition();
+        Assert.assertEquals(first, CanalEventUtils.createPosition(buildEvent("1", 0L, 1L), false));
+        Position lastest = eventStore.getLatestPosition();
+        Assert.assertEquals(lastest, CanalEventUtils.createPosition(buildEvent("1", count - 1, count), true));
+
+        long offset = 0;
+        Position position = first;
+        while (offset < count) {
+            Events<Event> events = eventStore.tryGet(position, 10);
+            Assert.assertFalse(events.getEvents().isEmpty());
+            for (Event event : events.getEvents()) {
+                Assert.assertEquals(offset++, event.getEntry().getHeader().getLogfileOffset());
+                Assert.assertEquals(1234L, event.getLogIdentity().getSlaveId().longValue());
+            }
+            position = events.getPositionRange().getEnd();
+            eventStore.ack(position);
+        }
+
+        Assert.assertEquals(0, storeFileCount()); // 全部ack之后段文件被回收
+        Assert.assertEquals(CanalEventUtils.createPosition(buildEvent("1", count - 1, count), false),
+            eventStore.getFirstPosition());
+    }
+
+    @Test
+    public void testRollbackFromDisk() {
+        for (int i = 0; i < 40; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, 1L + i)));
+        }
+
+        Position first = eventStore.getFirstPosition();
+        Events<Event> entrys1 = eventStore.tryGet(first, 5);
+        eventStore.rollback();
+        Events<Event> entrys2 = eventStore.tryGet(first, 5);
+        Assert.assertEquals(entrys1.getPositionRange(), entrys2.getPositionRange());
+        Assert.assertEquals(0L, entrys2.getEvents().get(0).getEntry().getHeader().getLogfileOffset());
+    }
+
+    @Test
+    public void testScheduleScavenge() throws InterruptedException {
+        eventStore.stop();
+        eventStore = new MemoryEventStoreWithSpill();
+        eventStore.setDestination("example");
+        eventStore.setDataDir(dataDir.getPath());
+        eventStore.setBufferSize(16);
+        eventStore.setSegmentSize(4 * 1024);
+        eventStore.setMaxSegmentCount(4);
+        eventStore.setOnAck(false);
+        eventStore.setOnSchedule(true);
+        eventStore.setScavengeSchedule("50ms");
+        eventStore.start();
+
+        for (int i = 0; i < 40; i++) {
+            Assert.assertTrue(eventStore.tryPut(buildEvent("1", i, 1L + i)));
+        }
+        Events<Event> events = eventStore.tryGet(eventStore.getFirstPosition(), 40);
+        eventStore.ack(events.getPositionRange().getEnd());
+        Assert.assertTrue(storeFileCount() > 0); // ack时不再回收段文件
+
+        eventStore.updateCursor(new ClientIdentity("example", (short) 1001), events.getPositionRange().getEnd());
+        Thread.sleep(500L);
+        Assert.assertEquals(0, storeFileCount()); // 由定时scavenge批量回收
+    }
+
+    private int storeFileCount() {
+        File[] files = new File(new File(dataDir, "example"), "store").listFiles();
+        return files == null ? 0 : files.length;
+    }
+}